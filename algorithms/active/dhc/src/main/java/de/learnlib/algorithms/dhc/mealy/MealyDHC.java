@@ -16,7 +16,6 @@
 package de.learnlib.algorithms.dhc.mealy;
 
 import java.io.Serializable;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -25,7 +24,6 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 
 import com.github.misberner.buildergen.annotations.GenerateBuilder;
 import com.google.common.collect.Interner;
@@ -150,57 +148,64 @@ public class MealyDHC<I, O> implements MealyLearner<I, O>,
         // set up new hypothesis machine
         hypothesis = new CompactMealy<>(alphabet);
 
-        // initialize exploration queue
-        Queue<QueueElement<I, O>> queue = new ArrayDeque<>();
-
         // initialize storage for access sequences
         accessSequences = hypothesis.createDynamicStateMapping();
 
         // first element to be explored represents the initial state with no predecessor
-        queue.add(new QueueElement<>(null, null, null, null));
+        List<QueueElement<I, O>> frontier = Collections.singletonList(new QueueElement<>(null, null, null, null));
 
         Interner<Word<O>> deduplicator = Interners.newStrongInterner();
 
-        while (!queue.isEmpty()) {
-            // get element to be explored from queue
-            QueueElement<I, O> elem = queue.poll();
-
-            // determine access sequence for state
-            Word<I> access = assembleAccessSequence(elem);
-
-            // assemble queries
-            ArrayList<DefaultQuery<I, Word<O>>> queries = new ArrayList<>(splitters.size());
-            for (Word<I> suffix : splitters) {
-                queries.add(new DefaultQuery<>(access, suffix));
+        // explore the hypothesis breadth-first, one complete BFS level (frontier) at a time. Since all elements of a
+        // level are known before any of them is processed, their queries can be posed in a single batch (and thus be
+        // parallelized by the oracle), while still yielding the same hypothesis as a sequential exploration.
+        while (!frontier.isEmpty()) {
+            final int numSplitters = splitters.size();
+
+            // assemble queries for all elements of the current level
+            List<DefaultQuery<I, Word<O>>> queries = new ArrayList<>(frontier.size() * numSplitters);
+            for (QueueElement<I, O> elem : frontier) {
+                // determine access sequence for state
+                Word<I> access = assembleAccessSequence(elem);
+                for (Word<I> suffix : splitters) {
+                    queries.add(new DefaultQuery<>(access, suffix));
+                }
             }
 
             // retrieve answers
             oracle.processQueries(queries);
 
-            // assemble output signature
-            List<Word<O>> sig = new ArrayList<>(splitters.size());
-            for (DefaultQuery<I, Word<O>> query : queries) {
-                sig.add(deduplicator.intern(query.getOutput()));
-            }
+            Iterator<DefaultQuery<I, Word<O>>> queryIt = queries.iterator();
+            List<QueueElement<I, O>> nextFrontier = new ArrayList<>();
 
-            Integer sibling = signatures.get(sig);
-
-            if (sibling != null) {
-                // this element does not possess a new output signature
-                // create a transition from parent state to sibling
-                hypothesis.addTransition(elem.parentState, elem.transIn, sibling, elem.transOut);
-            } else {
-                // this is actually an observably distinct state! Progress!
-                // Create state and connect via transition to parent
-                Integer state = elem.parentElement == null ? hypothesis.addInitialState() : hypothesis.addState();
-                if (elem.parentElement != null) {
-                    hypothesis.addTransition(elem.parentState, elem.transIn, state, elem.transOut);
+            for (QueueElement<I, O> elem : frontier) {
+                // assemble output signature
+                List<Word<O>> sig = new ArrayList<>(numSplitters);
+                for (int i = 0; i < numSplitters; i++) {
+                    sig.add(deduplicator.intern(queryIt.next().getOutput()));
                 }
-                signatures.put(sig, state);
-                accessSequences.put(state, elem);
 
-                scheduleSuccessors(elem, state, queue, sig);
+                Integer sibling = signatures.get(sig);
+
+                if (sibling != null) {
+                    // this element does not possess a new output signature
+                    // create a transition from parent state to sibling
+                    hypothesis.addTransition(elem.parentState, elem.transIn, sibling, elem.transOut);
+                } else {
+                    // this is actually an observably distinct state! Progress!
+                    // Create state and connect via transition to parent
+                    Integer state = elem.parentElement == null ? hypothesis.addInitialState() : hypothesis.addState();
+                    if (elem.parentElement != null) {
+                        hypothesis.addTransition(elem.parentState, elem.transIn, state, elem.transOut);
+                    }
+                    signatures.put(sig, state);
+                    accessSequences.put(state, elem);
+
+                    scheduleSuccessors(elem, state, nextFrontier, sig);
+                }
             }
+
+            frontier = nextFrontier;
         }
     }
 
@@ -221,7 +226,7 @@ public class MealyDHC<I, O> implements MealyLearner<I, O>,
 
     private void scheduleSuccessors(QueueElement<I, O> elem,
                                     Integer state,
-                                    Queue<QueueElement<I, O>> queue,
+                                    Collection<QueueElement<I, O>> queue,
                                     List<Word<O>> sig) throws IllegalArgumentException {
         for (int i = 0; i < alphabet.size(); ++i) {
             // retrieve I/O for transition
@@ -15,10 +15,12 @@
  */
 package de.learnlib.algorithms.dhc.mealy;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
+import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
 import de.learnlib.examples.mealy.ExampleCoffeeMachine;
 import de.learnlib.examples.mealy.ExampleGrid;
@@ -78,6 +80,43 @@ public class MealyDHCTest {
 
     }
 
+    @Test
+    public void testMealyDHCLevelBatches() {
+
+        final int xsize = 5;
+        final int ysize = 5;
+
+        ExampleGrid gridExample = ExampleGrid.createExample(xsize, ysize);
+        MealyMachine<?, Character, ?, Integer> fm = gridExample.getReferenceAutomaton();
+        Alphabet<Character> alphabet = gridExample.getAlphabet();
+
+        MealySimulatorOracle<Character, Integer> simoracle = new MealySimulatorOracle<>(fm);
+
+        final List<Integer> batchSizes = new ArrayList<>();
+        final MembershipOracle<Character, Word<Integer>> recordingOracle = queries -> {
+            batchSizes.add(queries.size());
+            simoracle.processQueries(queries);
+        };
+
+        MealyDHC<Character, Integer> dhc = new MealyDHC<>(alphabet, recordingOracle);
+
+        dhc.startLearning();
+
+        final int numSplitters = dhc.getGlobalSuffixes().size();
+
+        // one batch per BFS level: the levels of the states at distance 0 to (xsize - 1) + (ysize - 1) from the
+        // initial state, plus one final level whose successors are all known already
+        Assert.assertEquals(batchSizes.size(), (xsize - 1) + (ysize - 1) + 2);
+        // the initial state alone, then all successors of the initial state at once
+        Assert.assertEquals(batchSizes.get(0).intValue(), numSplitters);
+        Assert.assertEquals(batchSizes.get(1).intValue(), alphabet.size() * numSplitters);
+        for (Integer size : batchSizes) {
+            Assert.assertEquals(size % numSplitters, 0);
+        }
+
+        Assert.assertEquals(dhc.getHypothesisModel().size(), (xsize * ysize));
+    }
+
     @Test
     public void testMealyDHCStack() {
         ExampleStack stackExample = ExampleStack.createExample();
@@ -15,8 +15,12 @@
  */
 package de.learnlib.algorithms.discriminationtree.hypothesis.vpda;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import de.learnlib.api.AccessSequenceProvider;
 import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
 import de.learnlib.datastructure.discriminationtree.model.AbstractDiscriminationTree;
 import net.automatalib.words.Word;
 
@@ -54,6 +58,62 @@ public class DTree<I> extends AbstractDiscriminationTree<ContextPair<I>, I, Bool
         return curr;
     }
 
+    /**
+     * Sifts several access sequences simultaneously. The sifting is performed level-wise, i.e., the membership queries
+     * of all access sequences that have not yet reached their target node are posed to the oracle in a single batch.
+     *
+     * @param starts
+     *         the nodes to start sifting from, one per access sequence
+     * @param asSeqs
+     *         the access sequences to sift
+     * @param hard
+     *         whether to sift through temporary nodes
+     *
+     * @return the target nodes, in the order of the given access sequences
+     */
+    public List<DTNode<I>> sift(List<DTNode<I>> starts, List<Word<I>> asSeqs, boolean hard) {
+        assert starts.size() == asSeqs.size();
+
+        final List<DTNode<I>> result = new ArrayList<>(starts);
+        final List<DefaultQuery<I, Boolean>> queries = new ArrayList<>(result.size());
+        final int[] active = new int[result.size()];
+        int numActive = 0;
+
+        for (int i = 0; i < active.length; i++) {
+            if (isSiftable(result.get(i), hard)) {
+                active[numActive++] = i;
+            }
+        }
+
+        while (numActive > 0) {
+            queries.clear();
+            for (int j = 0; j < numActive; j++) {
+                final int i = active[j];
+                final ContextPair<I> discr = result.get(i).getDiscriminator();
+                queries.add(new DefaultQuery<>(discr.getPrefix().concat(asSeqs.get(i)), discr.getSuffix()));
+            }
+
+            oracle.processQueries(queries);
+
+            int numStillActive = 0;
+            for (int j = 0; j < numActive; j++) {
+                final int i = active[j];
+                final DTNode<I> succ = result.get(i).getChild(queries.get(j).getOutput());
+                result.set(i, succ);
+                if (isSiftable(succ, hard)) {
+                    active[numStillActive++] = i;
+                }
+            }
+            numActive = numStillActive;
+        }
+
+        return result;
+    }
+
+    private static <I> boolean isSiftable(DTNode<I> node, boolean hard) {
+        return node.isInner() && (hard || !node.isTemp());
+    }
+
     public DTNode<I> sift(AccessSequenceProvider<I> asp) {
         return sift(getRoot(), asp, false);
     }
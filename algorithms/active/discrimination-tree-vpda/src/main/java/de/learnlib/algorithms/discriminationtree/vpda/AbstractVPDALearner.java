@@ -15,6 +15,9 @@
  */
 package de.learnlib.algorithms.discriminationtree.vpda;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import de.learnlib.algorithms.discriminationtree.hypothesis.vpda.AbstractHypTrans;
 import de.learnlib.algorithms.discriminationtree.hypothesis.vpda.ContextPair;
 import de.learnlib.algorithms.discriminationtree.hypothesis.vpda.DTNode;
@@ -127,42 +130,37 @@ public abstract class AbstractVPDALearner<I> implements LearningAlgorithm<OneSEV
         }
     }
 
+    /**
+     * Closes all open transitions. The open transitions are sifted simultaneously (see {@link #updateDTTargets(List,
+     * boolean)}), such that the membership queries of each round can be answered in a single batch.
+     */
     protected void closeTransitions() {
         AbstractHypTrans<I> next;
+        List<AbstractHypTrans<I>> batch = new ArrayList<>();
         UnorderedCollection<DTNode<I>> newStateNodes = new UnorderedCollection<>();
 
         do {
             while ((next = openTransitions.poll()) != null) {
-                DTNode<I> newStateNode = closeTransition(next, false);
-                if (newStateNode != null) {
-                    newStateNodes.add(newStateNode);
+                if (!next.isTree()) {
+                    batch.add(next);
                 }
             }
+            if (!batch.isEmpty()) {
+                updateDTTargets(batch, false);
+                for (AbstractHypTrans<I> trans : batch) {
+                    DTNode<I> node = trans.getNonTreeTarget();
+                    if (node.isLeaf() && node.getData() == null && trans.getNextElement() == null) {
+                        newStateNodes.add(node);
+                    }
+                }
+                batch.clear();
+            }
             if (!newStateNodes.isEmpty()) {
                 addNewStates(newStateNodes);
             }
         } while (!openTransitions.isEmpty());
     }
 
-    /**
-     * Ensures that the specified transition points to a leaf-node. If the transition is a tree transition, this method
-     * has no effect.
-     *
-     * @param trans
-     *         the transition
-     */
-    private DTNode<I> closeTransition(AbstractHypTrans<I> trans, boolean hard) {
-        if (trans.isTree()) {
-            return null;
-        }
-
-        DTNode<I> node = updateDTTarget(trans, hard);
-        if (node.isLeaf() && node.getData() == null && trans.getNextElement() == null) {
-            return node;
-        }
-        return null;
-    }
-
     private void addNewStates(UnorderedCollection<DTNode<I>> newStateNodes) {
         DTNode<I> minTransNode = null;
         AbstractHypTrans<I> minTrans = null;
@@ -207,6 +205,39 @@ public abstract class AbstractVPDALearner<I> implements LearningAlgorithm<OneSEV
         return result;
     }
 
+    /**
+     * Batched version of {@link #updateDTTarget(AbstractHypTrans, boolean)} for non-tree transitions.
+     *
+     * @param transitions
+     *         the (non-tree) transitions whose targets should be updated
+     * @param hard
+     *         whether to sift through temporary nodes
+     */
+    protected void updateDTTargets(List<? extends AbstractHypTrans<I>> transitions, boolean hard) {
+        final List<DTNode<I>> starts = new ArrayList<>(transitions.size());
+        final List<Word<I>> asSeqs = new ArrayList<>(transitions.size());
+
+        for (AbstractHypTrans<I> trans : transitions) {
+            assert !trans.isTree();
+            DTNode<I> start = trans.getNonTreeTarget();
+            if (start == null) {
+                trans.setNonTreeTarget(dtree.getRoot());
+                start = dtree.getRoot();
+            }
+            starts.add(start);
+            asSeqs.add(trans.getAccessSequence());
+        }
+
+        final List<DTNode<I>> results = dtree.sift(starts, asSeqs, hard);
+
+        for (int i = 0; i < results.size(); i++) {
+            final AbstractHypTrans<I> trans = transitions.get(i);
+            final DTNode<I> result = results.get(i);
+            trans.setNonTreeTarget(result);
+            result.addIncoming(trans);
+        }
+    }
+
     protected HypLoc<I> makeTree(AbstractHypTrans<I> trans) {
         assert !trans.isTree();
         HypLoc<I> newLoc = createLocation(trans);
@@ -225,6 +256,32 @@ public abstract class AbstractVPDALearner<I> implements LearningAlgorithm<OneSEV
     protected Boolean query(AccessSequenceProvider<I> asp, ContextPair<I> context) {
         return oracle.answerQuery(context.getPrefix().concat(asp.getAccessSequence()), context.getSuffix());
     }
+
+    /**
+     * Batched version of {@link #query(AccessSequenceProvider, ContextPair)}, which poses all queries to the oracle in
+     * a single batch.
+     *
+     * @param asps
+     *         the access sequence providers
+     * @param context
+     *         the context to query
+     *
+     * @return the outcomes, in the order of the given access sequence providers
+     */
+    protected List<Boolean> query(List<? extends AccessSequenceProvider<I>> asps, ContextPair<I> context) {
+        final List<DefaultQuery<I, Boolean>> queries = new ArrayList<>(asps.size());
+        for (AccessSequenceProvider<I> asp : asps) {
+            queries.add(new DefaultQuery<>(context.getPrefix().concat(asp.getAccessSequence()), context.getSuffix()));
+        }
+
+        oracle.processQueries(queries);
+
+        final List<Boolean> result = new ArrayList<>(queries.size());
+        for (DefaultQuery<I, Boolean> q : queries) {
+            result.add(q.getOutput());
+        }
+        return result;
+    }
 }
 
 
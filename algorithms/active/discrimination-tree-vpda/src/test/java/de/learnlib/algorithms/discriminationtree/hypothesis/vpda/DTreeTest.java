@@ -0,0 +1,116 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.algorithms.discriminationtree.hypothesis.vpda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import net.automatalib.words.Word;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the batched sift of {@link DTree} yields the same nodes as sifting each access sequence individually,
+ * while posing one batch of queries per level of the tree.
+ */
+public class DTreeTest {
+
+    private static final List<Word<Character>> ACCESS_SEQUENCES = Arrays.asList(Word.epsilon(),
+                                                                                  Word.fromString("a"),
+                                                                                  Word.fromString("aa"),
+                                                                                  Word.fromString("b"),
+                                                                                  Word.fromString("ab"),
+                                                                                  Word.fromString("aaa"));
+
+    private List<Integer> batchSizes;
+    private DTree<Character> dtree;
+    private DTNode<Character> innerNode;
+
+    @BeforeMethod
+    public void setUp() {
+        batchSizes = new ArrayList<>();
+
+        // accepts all words whose number of 'a's is divisible by three
+        final MembershipOracle<Character, Boolean> oracle = queries -> {
+            batchSizes.add(queries.size());
+            queries.forEach(q -> q.answer(countAs(q.getInput()) % 3 == 0));
+        };
+
+        dtree = new DTree<>(oracle);
+
+        // root: #a = 0 (mod 3) ?, inner node: #a = 2 (mod 3) ?
+        final DTNode<Character> root = dtree.getRoot();
+        root.split(new ContextPair<>(Word.epsilon(), Word.epsilon()), true, false);
+        innerNode = root.getChild(false);
+        innerNode.split(new ContextPair<>(Word.epsilon(), Word.fromLetter('a')), false, true);
+    }
+
+    @Test
+    public void testBatchedSift() {
+        final List<DTNode<Character>> expected = new ArrayList<>(ACCESS_SEQUENCES.size());
+        for (Word<Character> as : ACCESS_SEQUENCES) {
+            expected.add(dtree.sift(dtree.getRoot(), as, true));
+        }
+
+        batchSizes.clear();
+
+        final List<DTNode<Character>> starts = new ArrayList<>(ACCESS_SEQUENCES.size());
+        for (int i = 0; i < ACCESS_SEQUENCES.size(); i++) {
+            starts.add(dtree.getRoot());
+        }
+        final List<DTNode<Character>> actual = dtree.sift(starts, ACCESS_SEQUENCES, true);
+
+        Assert.assertEquals(actual, expected);
+        Assert.assertEquals(actual.get(0), dtree.getRoot().getChild(true));
+        Assert.assertEquals(actual.get(1), innerNode.getChild(false));
+        Assert.assertEquals(actual.get(2), innerNode.getChild(true));
+
+        // all access sequences on the first level, only those with #a != 0 (mod 3) on the second
+        Assert.assertEquals(batchSizes, Arrays.asList(6, 3));
+    }
+
+    @Test
+    public void testSoftSift() {
+        innerNode.setTemp(true);
+
+        final List<DTNode<Character>> starts = new ArrayList<>(ACCESS_SEQUENCES.size());
+        for (int i = 0; i < ACCESS_SEQUENCES.size(); i++) {
+            starts.add(dtree.getRoot());
+        }
+        final List<DTNode<Character>> actual = dtree.sift(starts, ACCESS_SEQUENCES, false);
+
+        for (int i = 0; i < ACCESS_SEQUENCES.size(); i++) {
+            Assert.assertEquals(actual.get(i), dtree.sift(dtree.getRoot(), ACCESS_SEQUENCES.get(i), false));
+        }
+        Assert.assertEquals(actual.get(1), innerNode);
+
+        // temporary nodes are not sifted through, so only the root's discriminator has been queried in a batch
+        Assert.assertEquals(batchSizes.get(0).intValue(), ACCESS_SEQUENCES.size());
+    }
+
+    private static int countAs(Word<Character> word) {
+        int count = 0;
+        for (Character c : word) {
+            if (c == 'a') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package de.learnlib.algorithms.lstar;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -23,7 +24,9 @@ import java.util.List;
 import de.learnlib.api.algorithm.feature.ResumableLearner;
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.datastructure.observationtable.GenericObservationTable;
 import de.learnlib.datastructure.observationtable.ObservationTable;
+import de.learnlib.datastructure.observationtable.ObservationTableCheckpointWriter;
 import de.learnlib.datastructure.observationtable.Row;
 import net.automatalib.automata.GrowableAlphabetAutomaton;
 import net.automatalib.automata.MutableDeterministic;
@@ -206,12 +209,49 @@ public abstract class AbstractAutomatonLStar<A, I, D, S, T, SP, TP, AI extends M
 
     @Override
     public void resume(final AutomatonLStarState<I, D, AI, S> state) {
-        this.table = state.getObservationTable();
+        final GenericObservationTable<I, D> resumedTable = state.getObservationTable();
+        resumedTable.setMaxQueryBatchSize(this.table.getMaxQueryBatchSize());
+        this.table = resumedTable;
         this.table.setInputAlphabet(alphabet);
         this.internalHyp = state.getHypothesis();
         this.stateInfos = state.getStateInfos();
     }
 
+    /**
+     * Writes a compact checkpoint of the observation table of this learner. In contrast to serializing the result of
+     * {@link #suspend()}, subsequent checkpoints only contain the changes since the previous one, so that this method
+     * can be called after every round.
+     *
+     * @param writer
+     *         the checkpoint writer
+     *
+     * @throws IOException
+     *         if writing the checkpoint fails
+     *
+     * @see #resumeFromCheckpoint(GenericObservationTable)
+     */
+    public void writeCheckpoint(ObservationTableCheckpointWriter<I, D> writer) throws IOException {
+        writer.write(table);
+    }
+
+    /**
+     * Updates the internal state of this learner according to the given observation table, which has been restored
+     * from a checkpoint (see {@link de.learnlib.datastructure.observationtable.ObservationTableCheckpointReader}). The
+     * hypothesis is reconstructed from the table, and the table adopts the configuration of this learner (e.g. its
+     * maximum query batch size).
+     *
+     * @param checkpointTable
+     *         the restored observation table
+     */
+    public void resumeFromCheckpoint(GenericObservationTable<I, D> checkpointTable) {
+        checkpointTable.setMaxQueryBatchSize(this.table.getMaxQueryBatchSize());
+        this.table = checkpointTable;
+        this.table.setInputAlphabet(alphabet);
+        this.internalHyp.clear();
+        this.stateInfos = new ArrayList<>();
+        updateInternalHypothesis();
+    }
+
     static final class StateInfo<S, I> implements Serializable {
 
         private final Row<I> row;
@@ -45,11 +45,23 @@ public abstract class AbstractExtensibleAutomatonLStar<A, I, D, S, T, SP, TP, AI
                                                List<Word<I>> initialSuffixes,
                                                ObservationTableCEXHandler<? super I, ? super D> cexHandler,
                                                ClosingStrategy<? super I, ? super D> closingStrategy) {
+        this(alphabet, oracle, internalHyp, initialPrefixes, initialSuffixes, cexHandler, closingStrategy, 0);
+    }
+
+    protected AbstractExtensibleAutomatonLStar(Alphabet<I> alphabet,
+                                               MembershipOracle<I, D> oracle,
+                                               AI internalHyp,
+                                               List<Word<I>> initialPrefixes,
+                                               List<Word<I>> initialSuffixes,
+                                               ObservationTableCEXHandler<? super I, ? super D> cexHandler,
+                                               ClosingStrategy<? super I, ? super D> closingStrategy,
+                                               int maxQueryBatchSize) {
         super(alphabet, oracle, internalHyp);
         this.initialPrefixes = initialPrefixes;
         this.initialSuffixes = initialSuffixes;
         this.cexHandler = cexHandler;
         this.closingStrategy = closingStrategy;
+        this.table.setMaxQueryBatchSize(maxQueryBatchSize);
     }
 
     @Override
@@ -95,6 +107,10 @@ public abstract class AbstractExtensibleAutomatonLStar<A, I, D, S, T, SP, TP, AI
             return ClosingStrategies.CLOSE_FIRST;
         }
 
+        public static int maxQueryBatchSize() {
+            return 0;
+        }
+
     }
 
 }
@@ -69,20 +69,31 @@ public class ClassicLStarMealy<I, O>
              closingStrategy);
     }
 
-    @GenerateBuilder(defaults = AbstractExtensibleAutomatonLStar.BuilderDefaults.class)
     public ClassicLStarMealy(Alphabet<I> alphabet,
                              MembershipOracle<I, O> oracle,
                              List<Word<I>> initialPrefixes,
                              List<Word<I>> initialSuffixes,
                              ObservationTableCEXHandler<? super I, ? super O> cexHandler,
                              ClosingStrategy<? super I, ? super O> closingStrategy) {
+        this(alphabet, oracle, initialPrefixes, initialSuffixes, cexHandler, closingStrategy, 0);
+    }
+
+    @GenerateBuilder(defaults = AbstractExtensibleAutomatonLStar.BuilderDefaults.class)
+    public ClassicLStarMealy(Alphabet<I> alphabet,
+                             MembershipOracle<I, O> oracle,
+                             List<Word<I>> initialPrefixes,
+                             List<Word<I>> initialSuffixes,
+                             ObservationTableCEXHandler<? super I, ? super O> cexHandler,
+                             ClosingStrategy<? super I, ? super O> closingStrategy,
+                             int maxQueryBatchSize) {
         super(alphabet,
               oracle,
               new CompactMealy<>(alphabet),
               initialPrefixes,
               LStarMealyUtil.ensureSuffixCompliancy(initialSuffixes, alphabet, true),
               cexHandler,
-              closingStrategy);
+              closingStrategy,
+              maxQueryBatchSize);
     }
 
     public static <A extends MutableMealyMachine<?, I, ?, O>, I, O> ClassicLStarMealy<I, O> createForSymbolOracle(
@@ -49,20 +49,31 @@ public class ExtensibleLStarMealy<I, O>
         this(alphabet, oracle, Collections.singletonList(Word.epsilon()), initialSuffixes, cexHandler, closingStrategy);
     }
 
-    @GenerateBuilder(defaults = AbstractExtensibleAutomatonLStar.BuilderDefaults.class)
     public ExtensibleLStarMealy(Alphabet<I> alphabet,
                                 MembershipOracle<I, Word<O>> oracle,
                                 List<Word<I>> initialPrefixes,
                                 List<Word<I>> initialSuffixes,
                                 ObservationTableCEXHandler<? super I, ? super Word<O>> cexHandler,
                                 ClosingStrategy<? super I, ? super Word<O>> closingStrategy) {
+        this(alphabet, oracle, initialPrefixes, initialSuffixes, cexHandler, closingStrategy, 0);
+    }
+
+    @GenerateBuilder(defaults = AbstractExtensibleAutomatonLStar.BuilderDefaults.class)
+    public ExtensibleLStarMealy(Alphabet<I> alphabet,
+                                MembershipOracle<I, Word<O>> oracle,
+                                List<Word<I>> initialPrefixes,
+                                List<Word<I>> initialSuffixes,
+                                ObservationTableCEXHandler<? super I, ? super Word<O>> cexHandler,
+                                ClosingStrategy<? super I, ? super Word<O>> closingStrategy,
+                                int maxQueryBatchSize) {
         super(alphabet,
               oracle,
               new CompactMealy<>(alphabet),
               initialPrefixes,
               LStarMealyUtil.ensureSuffixCompliancy(initialSuffixes, alphabet, cexHandler.needsConsistencyCheck()),
               cexHandler,
-              closingStrategy);
+              closingStrategy,
+              maxQueryBatchSize);
     }
 
     @Override
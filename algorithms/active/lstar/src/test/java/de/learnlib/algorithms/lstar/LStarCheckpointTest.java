@@ -0,0 +1,164 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.algorithms.lstar;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import de.learnlib.algorithms.lstar.dfa.ExtensibleLStarDFA;
+import de.learnlib.algorithms.lstar.dfa.ExtensibleLStarDFABuilder;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.datastructure.observationtable.GenericObservationTable;
+import de.learnlib.datastructure.observationtable.ObservationTable;
+import de.learnlib.datastructure.observationtable.ObservationTableCheckpointReader;
+import de.learnlib.datastructure.observationtable.ObservationTableCheckpointWriter;
+import de.learnlib.datastructure.observationtable.Row;
+import de.learnlib.oracle.membership.SimulatorOracle.DFASimulatorOracle;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.util.automata.Automata;
+import net.automatalib.util.automata.random.RandomAutomata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LStarCheckpointTest {
+
+    private static final int CHECKPOINT_ROUNDS = 3;
+    private static final int MAX_QUERY_BATCH_SIZE = 7;
+
+    @Test
+    public void testCheckpointAndResume() throws IOException {
+        final Alphabet<Character> alphabet = Alphabets.characters('a', 'd');
+        final DFA<?, Character> target = RandomAutomata.randomDFA(new Random(42), 30, alphabet);
+
+        final Path file = Files.createTempFile("lstar", ".ckpt");
+
+        try {
+            final ExtensibleLStarDFA<Character> learner = createLearner(target, alphabet);
+            final ObservationTableCheckpointWriter<Character, Boolean> writer =
+                    new ObservationTableCheckpointWriter<>(file, alphabet);
+
+            learner.startLearning();
+            learner.writeCheckpoint(writer);
+
+            // the first checkpoint is a full one, all subsequent ones are deltas
+            for (int i = 0; i < CHECKPOINT_ROUNDS && refine(learner, target, alphabet); i++) {
+                learner.writeCheckpoint(writer);
+            }
+
+            final GenericObservationTable<Character, Boolean> restored =
+                    ObservationTableCheckpointReader.read(file, alphabet);
+            assertTablesEqual(restored, learner.getObservationTable());
+
+            final ExtensibleLStarDFA<Character> resumed = createLearner(target, alphabet);
+            resumed.resumeFromCheckpoint(restored);
+            Assert.assertEquals(restored.getMaxQueryBatchSize(), MAX_QUERY_BATCH_SIZE);
+
+            Assert.assertTrue(Automata.testEquivalence(learner.getHypothesisModel(),
+                                                       resumed.getHypothesisModel(),
+                                                       alphabet));
+
+            while (refine(resumed, target, alphabet)) {
+                // learn the remaining rounds
+            }
+
+            Assert.assertTrue(Automata.testEquivalence(target, resumed.getHypothesisModel(), alphabet));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testIncompleteDelta() throws IOException {
+        final Alphabet<Character> alphabet = Alphabets.characters('a', 'd');
+        final DFA<?, Character> target = RandomAutomata.randomDFA(new Random(42), 30, alphabet);
+
+        final Path file = Files.createTempFile("lstar", ".ckpt");
+
+        try {
+            final ExtensibleLStarDFA<Character> learner = createLearner(target, alphabet);
+            final ObservationTableCheckpointWriter<Character, Boolean> writer =
+                    new ObservationTableCheckpointWriter<>(file, alphabet);
+
+            learner.startLearning();
+            learner.writeCheckpoint(writer);
+            Assert.assertTrue(refine(learner, target, alphabet));
+            learner.writeCheckpoint(writer);
+
+            final GenericObservationTable<Character, Boolean> previous =
+                    ObservationTableCheckpointReader.read(file, alphabet);
+            final long previousSize = Files.size(file);
+
+            Assert.assertTrue(refine(learner, target, alphabet));
+            learner.writeCheckpoint(writer);
+
+            // simulate a crash while appending the last delta
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate((previousSize + Files.size(file)) / 2);
+            }
+
+            assertTablesEqual(ObservationTableCheckpointReader.read(file, alphabet), previous);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static ExtensibleLStarDFA<Character> createLearner(DFA<?, Character> target,
+                                                               Alphabet<Character> alphabet) {
+        return new ExtensibleLStarDFABuilder<Character>().withAlphabet(alphabet)
+                                                         .withOracle(new DFASimulatorOracle<>(target))
+                                                         .withMaxQueryBatchSize(MAX_QUERY_BATCH_SIZE)
+                                                         .create();
+    }
+
+    private static boolean refine(ExtensibleLStarDFA<Character> learner,
+                                  DFA<?, Character> target,
+                                  Alphabet<Character> alphabet) {
+        final Word<Character> sepWord = Automata.findSeparatingWord(target, learner.getHypothesisModel(), alphabet);
+        if (sepWord == null) {
+            return false;
+        }
+        learner.refineHypothesis(new DefaultQuery<>(sepWord, target.computeOutput(sepWord)));
+        return true;
+    }
+
+    private static <I, D> void assertTablesEqual(ObservationTable<I, D> actual, ObservationTable<I, D> expected) {
+        Assert.assertEquals(actual.getSuffixes(), expected.getSuffixes());
+        Assert.assertEquals(actual.numberOfDistinctRows(), expected.numberOfDistinctRows());
+        Assert.assertEquals(actual.getShortPrefixRows().size(), expected.getShortPrefixRows().size());
+        Assert.assertEquals(actual.getLongPrefixRows().size(), expected.getLongPrefixRows().size());
+
+        for (Row<I> expectedRow : expected.getShortPrefixRows()) {
+            final Row<I> actualRow = actual.getRow(expectedRow.getRowId());
+            Assert.assertEquals(actualRow.getLabel(), expectedRow.getLabel());
+            Assert.assertTrue(actualRow.isShortPrefixRow());
+            Assert.assertEquals(actual.rowContents(actualRow), expected.rowContents(expectedRow));
+        }
+
+        for (Row<I> expectedRow : expected.getLongPrefixRows()) {
+            final Row<I> actualRow = actual.getRow(expectedRow.getRowId());
+            Assert.assertEquals(actualRow.getLabel(), expectedRow.getLabel());
+            Assert.assertFalse(actualRow.isShortPrefixRow());
+            Assert.assertEquals(actual.rowContents(actualRow), expected.rowContents(expectedRow));
+        }
+    }
+}
@@ -49,6 +49,11 @@ public class ExtensibleLStarMealyIT extends AbstractMealyLearnerIT {
                 variants.addLearnerVariant(variantName, builder.create());
             }
         }
+
+        builder.setCexHandler(ObservationTableCEXHandlers.CLASSIC_LSTAR);
+        builder.setClosingStrategy(ClosingStrategies.CLOSE_FIRST);
+        builder.setMaxQueryBatchSize(3);
+        variants.addLearnerVariant("maxQueryBatchSize=3", builder.create());
     }
 
 }
@@ -16,7 +16,7 @@
 package de.learnlib.algorithms.nlstar;
 
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -195,22 +195,23 @@ public class ObservationTable<I> {
 
         upperPrimes.clear();
 
-        Map<BitSet, List<Row<I>>> primeContents = new HashMap<>();
+        Map<ContentsKey, List<Row<I>>> primeContents = new HashMap<>();
         List<List<Row<I>>> allUnclosed = new ArrayList<>();
+        long[] scratch = new long[Row.wordsFor(suffixes.size())];
 
         for (Row<I> row : allRows) {
-            boolean prime = row.checkPrime();
+            boolean prime = row.checkPrime(scratch);
 
             if (prime) {
                 if (row.isShortPrefixRow()) {
                     upperPrimes.add(row);
                 } else {
-                    List<Row<I>> unclosedClass = primeContents.get(row.getContents());
-                    if (unclosedClass == null) {
-                        unclosedClass = new ArrayList<>();
-                        allUnclosed.add(unclosedClass);
-                        primeContents.put(row.getContents(), unclosedClass);
-                    }
+                    List<Row<I>> unclosedClass =
+                            primeContents.computeIfAbsent(new ContentsKey(row.getContentWords()), k -> {
+                                List<Row<I>> newClass = new ArrayList<>();
+                                allUnclosed.add(newClass);
+                                return newClass;
+                            });
                     unclosedClass.add(row);
                 }
             }
@@ -252,10 +253,9 @@ public class ObservationTable<I> {
                     Row<I> row1succ = row1.getSuccessorRow(i);
                     Row<I> row2succ = row2.getSuccessorRow(i);
 
-                    for (int j = 0; j < suffixes.size(); j++) {
-                        if (!row1succ.getContent(j) && row2succ.getContent(j)) {
-                            return new Inconsistency<>(row1, row2, i, j);
-                        }
+                    int j = row1succ.findUncoveredIndex(row2succ);
+                    if (j >= 0) {
+                        return new Inconsistency<>(row1, row2, i, j);
                     }
                 }
             }
@@ -263,4 +263,34 @@ public class ObservationTable<I> {
 
         return null;
     }
+
+    /**
+     * Hash key for the raw contents of a row.
+     */
+    private static final class ContentsKey {
+
+        private final long[] words;
+        private final int hashCode;
+
+        ContentsKey(long[] words) {
+            this.words = words;
+            this.hashCode = Arrays.hashCode(words);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ContentsKey)) {
+                return false;
+            }
+            return Arrays.equals(words, ((ContentsKey) o).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
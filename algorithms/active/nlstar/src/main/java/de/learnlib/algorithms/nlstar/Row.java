@@ -16,6 +16,7 @@
 package de.learnlib.algorithms.nlstar;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
@@ -25,6 +26,10 @@ import net.automatalib.words.Word;
 
 /**
  * A single row in the {@link ObservationTable} for {@link NLStarLearner NL*}.
+ * <p>
+ * The (boolean) contents of a row are stored as a bit vector in a plain {@code long[]} array, so that the set
+ * operations required by NL* (joins, coverage and primality checks) can be performed word-parallel and without
+ * allocating temporary objects.
  *
  * @param <I>
  *         input symbol type
@@ -33,8 +38,12 @@ import net.automatalib.words.Word;
  */
 public class Row<I> {
 
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+    private static final long[] EMPTY_WORDS = {};
+
     private final Word<I> prefix;
-    private final BitSet contents = new BitSet();
+    private long[] contents = EMPTY_WORDS;
     private int upperId = -1;
     private Row<I>[] successorRows;
     // If this is a row in the upper part of the table,
@@ -53,7 +62,8 @@ public class Row<I> {
     }
 
     public boolean getContent(int index) {
-        return contents.get(index);
+        final int wordIdx = index >>> ADDRESS_BITS_PER_WORD;
+        return wordIdx < contents.length && (contents[wordIdx] & (1L << index)) != 0;
     }
 
     public boolean isNew() {
@@ -72,7 +82,37 @@ public class Row<I> {
         return prefix;
     }
 
+    /**
+     * Returns the contents of this row, i.e., the outcomes for all suffixes of the table, as a {@link BitSet}.
+     * <p>
+     * The returned {@link BitSet} is a snapshot: it is a copy of the contents at the time of the call, and is neither
+     * updated when columns are added to the table, nor are modifications to it reflected in this row. Use {@link
+     * #getContent(int)} for querying single cells without copying.
+     *
+     * @return a copy of the contents of this row
+     */
     public BitSet getContents() {
+        return BitSet.valueOf(contents);
+    }
+
+    /**
+     * Returns the number of {@code long} words required for storing the given number of bits.
+     *
+     * @param numBits
+     *         the number of bits
+     *
+     * @return the number of words required for storing the given number of bits
+     */
+    static int wordsFor(int numBits) {
+        return (numBits + BITS_PER_WORD - 1) >>> ADDRESS_BITS_PER_WORD;
+    }
+
+    /**
+     * Returns the raw bit vector of the contents of this row. The returned array must not be modified.
+     *
+     * @return the raw contents
+     */
+    long[] getContentWords() {
         return contents;
     }
 
@@ -119,34 +159,93 @@ public class Row<I> {
     }
 
     boolean covers(Row<I> other) {
-        BitSet c = (BitSet) contents.clone();
-        c.or(other.contents);
-        return contents.equals(c);
+        final long[] otherContents = other.contents;
+
+        for (int i = 0; i < otherContents.length; i++) {
+            final long word = (i < contents.length) ? contents[i] : 0L;
+            if ((otherContents[i] & ~word) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the index of the first column, in which the given row contains a {@code true} and this row contains a
+     * {@code false} value.
+     *
+     * @param other
+     *         the other row
+     *
+     * @return the index of the first such column, or {@code -1} if no such column exists (i.e., this row covers the
+     * other row)
+     */
+    int findUncoveredIndex(Row<I> other) {
+        final long[] otherContents = other.contents;
+
+        for (int i = 0; i < otherContents.length; i++) {
+            final long word = (i < contents.length) ? contents[i] : 0L;
+            final long uncovered = otherContents[i] & ~word;
+            if (uncovered != 0) {
+                return (i << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(uncovered);
+            }
+        }
+
+        return -1;
+    }
+
+    boolean contentsEqual(Row<I> other) {
+        return Arrays.equals(contents, other.contents);
     }
 
     public List<Row<I>> getCoveredRows() {
         return coveredRows;
     }
 
-    boolean checkPrime() {
+    /**
+     * Checks (and updates) whether this row is prime, i.e., whether its contents cannot be obtained as the join of the
+     * contents of the rows it covers.
+     *
+     * @param scratch
+     *         a buffer for aggregating the joined contents, whose length is at least the number of content words of
+     *         this row. Its contents will be overwritten.
+     *
+     * @return {@code true} if this row is prime, {@code false} otherwise
+     */
+    boolean checkPrime(long[] scratch) {
         if (coveredRows.isEmpty()) {
             prime = true;
         } else {
-            BitSet aggContents = new BitSet();
+            final int numWords = contents.length;
+            Arrays.fill(scratch, 0, numWords, 0L);
 
             for (Row<I> covered : coveredRows) {
-                if (covered.isShortPrefixRow() || !contents.equals(covered.contents)) {
-                    aggContents.or(covered.contents);
+                if (covered.isShortPrefixRow() || !contentsEqual(covered)) {
+                    final long[] coveredContents = covered.contents;
+                    for (int i = 0; i < coveredContents.length; i++) {
+                        scratch[i] |= coveredContents[i];
+                    }
                 }
             }
 
-            prime = !contents.equals(aggContents);
+            boolean joinEqual = true;
+            for (int i = 0; i < numWords && joinEqual; i++) {
+                joinEqual = (scratch[i] == contents[i]);
+            }
+
+            prime = !joinEqual;
         }
 
         return prime;
     }
 
     void fetchContents(Iterator<? extends DefaultQuery<I, Boolean>> queryIt, int offset, int num) {
+        final int requiredWords = wordsFor(offset + num);
+        if (contents.length < requiredWords) {
+            contents = Arrays.copyOf(contents, requiredWords);
+        }
+
         int idx = offset;
 
         for (int i = 0; i < num; i++) {
@@ -154,7 +253,7 @@ public class Row<I> {
 
             boolean value = queryIt.next().getOutput();
             if (value) {
-                contents.set(idx);
+                contents[idx >>> ADDRESS_BITS_PER_WORD] |= 1L << idx;
             }
             idx++;
         }
@@ -0,0 +1,138 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.algorithms.nlstar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the contract of {@link Row#getContents()}, which returns a snapshot rather than a live view, and the set
+ * operations on the bit vectors of rows.
+ */
+public class RowTest {
+
+    private static final int NUM_COLUMNS = 130;
+
+    @Test
+    public void testContentsSnapshot() {
+        final Alphabet<Character> alphabet = Alphabets.characters('a', 'b');
+        // accepts all words of even length
+        final MembershipOracle<Character, Boolean> oracle =
+                queries -> queries.forEach(q -> q.answer(q.getInput().length() % 2 == 0));
+
+        final ObservationTable<Character> table = new ObservationTable<>(alphabet, oracle);
+        table.initialize();
+
+        final Row<Character> row = table.getUpperRow(0);
+        Assert.assertEquals(row.getPrefix(), Word.epsilon());
+
+        final BitSet snapshot = row.getContents();
+        Assert.assertTrue(snapshot.get(0));
+        Assert.assertEquals(snapshot.cardinality(), 1);
+
+        // modifications of the snapshot are not reflected in the row
+        final BitSet modified = row.getContents();
+        modified.clear(0);
+        modified.set(5);
+        Assert.assertTrue(row.getContent(0));
+        Assert.assertFalse(row.getContent(5));
+        Assert.assertEquals(row.getContents(), snapshot);
+
+        // new columns are not reflected in previously obtained snapshots
+        table.addSuffix(Word.fromString("aa"));
+        Assert.assertTrue(row.getContent(1));
+        Assert.assertTrue(row.getContents().get(1));
+        Assert.assertFalse(snapshot.get(1));
+        Assert.assertEquals(snapshot.cardinality(), 1);
+    }
+
+    @Test
+    public void testMultiWordContents() {
+        final Row<Character> a = createRow(NUM_COLUMNS, 3, 100);
+        final Row<Character> b = createRow(NUM_COLUMNS, 3, 100, 129);
+        final Row<Character> c = createRow(NUM_COLUMNS, 100);
+        final Row<Character> d = createRow(NUM_COLUMNS, 129);
+        // only spans the first word
+        final Row<Character> e = createRow(10, 3);
+
+        Assert.assertEquals(b.getContentWords().length, 3);
+        Assert.assertEquals(e.getContentWords().length, 1);
+        Assert.assertTrue(b.getContent(129));
+        Assert.assertFalse(b.getContent(128));
+        Assert.assertFalse(e.getContent(100));
+        Assert.assertEquals(b.getContents().cardinality(), 3);
+
+        Assert.assertTrue(b.covers(a));
+        Assert.assertTrue(b.covers(e));
+        Assert.assertTrue(a.covers(c));
+        Assert.assertFalse(a.covers(b));
+        Assert.assertFalse(c.covers(d));
+        Assert.assertFalse(e.covers(a));
+
+        Assert.assertEquals(b.findUncoveredIndex(a), -1);
+        Assert.assertEquals(a.findUncoveredIndex(b), 129);
+        Assert.assertEquals(c.findUncoveredIndex(a), 3);
+        Assert.assertEquals(e.findUncoveredIndex(a), 100);
+        Assert.assertEquals(d.findUncoveredIndex(c), 100);
+
+        final List<Row<Character>> rows = Arrays.asList(a, b, c, d);
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).makeShort(i, 1);
+        }
+        for (Row<Character> row : rows) {
+            row.updateCovered(rows);
+        }
+
+        final long[] scratch = new long[Row.wordsFor(NUM_COLUMNS)];
+
+        // b is the join of a, c and d (whose bits are spread over different words)
+        Assert.assertEquals(b.getCoveredRows(), Arrays.asList(a, c, d));
+        Assert.assertFalse(b.checkPrime(scratch));
+        // a only covers c, which lacks column 3
+        Assert.assertEquals(a.getCoveredRows(), Arrays.asList(c));
+        Assert.assertTrue(a.checkPrime(scratch));
+        Assert.assertTrue(c.checkPrime(scratch));
+        Assert.assertTrue(d.checkPrime(scratch));
+    }
+
+    private static Row<Character> createRow(int numColumns, int... trueColumns) {
+        final List<DefaultQuery<Character, Boolean>> queries = new ArrayList<>(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            queries.add(new DefaultQuery<>(Word.epsilon(), Boolean.FALSE));
+        }
+        for (int column : trueColumns) {
+            queries.get(column).answer(Boolean.TRUE);
+        }
+
+        // fetch the contents in two chunks, the second one starting in the middle of the first word
+        final Row<Character> row = new Row<>(Word.epsilon());
+        final int split = Math.min(numColumns, 60);
+        row.fetchContents(queries.iterator(), 0, split);
+        row.fetchContents(queries.subList(split, numColumns).iterator(), split, numColumns - split);
+
+        return row;
+    }
+}
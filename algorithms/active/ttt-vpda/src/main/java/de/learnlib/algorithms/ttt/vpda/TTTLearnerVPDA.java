@@ -436,29 +436,43 @@ public class TTTLearnerVPDA<I> extends DTLearnerVPDA<I> {
         ContextPair<I> discriminator = splitter.getNewDiscriminator();
 
         Deque<DTNode<I>> dfsStack = new ArrayDeque<>();
+        List<DTNode<I>> nodes = new ArrayList<>();
+        List<AbstractHypTrans<I>> incoming = new ArrayList<>();
 
         DTNode<I> succSeparator = splitter.succSeparator;
 
         dfsStack.push(node);
         assert node.getSplitData() == null;
 
+        // collect the incoming transitions of the whole block first, so that they can be queried in a single batch
         while (!dfsStack.isEmpty()) {
             DTNode<I> curr = dfsStack.pop();
+            nodes.add(curr);
+            Iterables.addAll(incoming, curr.getIncoming());
+
+            if (curr.isInner()) {
+                for (DTNode<I> child : curr.getChildren()) {
+                    dfsStack.push(child);
+                }
+            }
+        }
+
+        List<Boolean> outcomes = query(incoming, discriminator);
+        int transIdx = 0;
+
+        for (DTNode<I> curr : nodes) {
             assert curr.getSplitData() == null;
 
             curr.setSplitData(new SplitData<>(TransList::new));
 
             for (AbstractHypTrans<I> trans : curr.getIncoming()) {
-                Boolean outcome = query(trans, discriminator);
+                assert trans == incoming.get(transIdx);
+                Boolean outcome = outcomes.get(transIdx++);
                 curr.getSplitData().getIncoming(outcome).add(trans);
                 markAndPropagate(curr, outcome);
             }
 
-            if (curr.isInner()) {
-                for (DTNode<I> child : curr.getChildren()) {
-                    dfsStack.push(child);
-                }
-            } else {
+            if (curr.isLeaf()) {
                 HypLoc<I> loc = curr.getData();
                 assert loc != null;
 
@@ -470,7 +484,6 @@ public class TTTLearnerVPDA<I> extends DTLearnerVPDA<I> {
                 curr.getSplitData().setStateLabel(outcome);
                 markAndPropagate(curr, outcome);
             }
-
         }
 
         return discriminator;
@@ -38,6 +38,9 @@ public class TTTState<I, D> implements AccessSequenceProvider<I>, Serializable {
 
     AbstractBaseDTNode<I, D> dtLeaf;
 
+    // materialized lazily, since the spanning tree never changes for an existing state
+    private Word<I> accessSequence;
+
     public TTTState(int initialAlphabetSize, TTTTransition<I, D> parentTransition, int id) {
         this.id = id;
         this.parentTransition = parentTransition;
@@ -68,10 +71,14 @@ public class TTTState<I, D> implements AccessSequenceProvider<I>, Serializable {
 
     @Override
     public Word<I> getAccessSequence() {
-        if (getParentTransition() != null) {
-            return getParentTransition().getAccessSequence();
+        if (accessSequence == null) {
+            if (getParentTransition() != null) {
+                accessSequence = getParentTransition().getAccessSequence();
+            } else {
+                accessSequence = Word.epsilon(); // root
+            }
         }
-        return Word.epsilon(); // root
+        return accessSequence;
     }
 
     @Override
@@ -21,7 +21,6 @@ import de.learnlib.api.AccessSequenceProvider;
 import de.learnlib.datastructure.list.IntrusiveListElem;
 import de.learnlib.datastructure.list.IntrusiveListElemImpl;
 import net.automatalib.words.Word;
-import net.automatalib.words.WordBuilder;
 
 /**
  * A transition in a {@link AbstractTTTHypothesis}.
@@ -101,16 +100,7 @@ public class TTTTransition<I, D> extends IntrusiveListElemImpl<TTTTransition<I,
 
     @Override
     public Word<I> getAccessSequence() {
-        WordBuilder<I> wb = new WordBuilder<>(); // FIXME capacity hint
-
-        TTTTransition<I, D> curr = this;
-
-        while (curr != null) {
-            wb.add(curr.input);
-            curr = curr.source.getParentTransition();
-        }
-
-        return wb.reverse().toWord();
+        return source.getAccessSequence().append(input);
     }
 
     void makeTree(TTTState<I, D> treeTarget) {
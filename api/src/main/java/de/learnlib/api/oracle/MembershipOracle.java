@@ -22,6 +22,7 @@ import javax.annotation.ParametersAreNonnullByDefault;
 
 import de.learnlib.api.query.DefaultQuery;
 import de.learnlib.api.query.Query;
+import de.learnlib.api.query.QueryBatch;
 import net.automatalib.words.Word;
 
 /**
@@ -76,6 +77,21 @@ public interface MembershipOracle<I, D> extends QueryAnswerer<I, D> {
      */
     void processQueries(Collection<? extends Query<I, D>> queries);
 
+    /**
+     * Processes the specified batch of queries. When this method returns, each query of the batch should have been
+     * {@link QueryBatch#answer(int, Object) answered}.
+     * <p>
+     * The default implementation passes the {@link QueryBatch#asQueries() queries} of the batch to {@link
+     * #processQueries(Collection)}. Filters should override this method to pass (subsets of) the batch to their
+     * delegates, instead of wrapping the individual queries.
+     *
+     * @param batch
+     *         the batch to process
+     */
+    default void processBatch(QueryBatch<I, D> batch) {
+        processQueries(batch.asQueries());
+    }
+
     @Override
     default MembershipOracle<I, D> asOracle() {
         return this;
@@ -0,0 +1,290 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.api.query;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import net.automatalib.words.Word;
+
+/**
+ * A batch of queries with columnar access to their prefixes, suffixes and answers.
+ * <p>
+ * A batch is created once from a collection of queries (see {@link #of(Collection)}) and can then be passed along a
+ * chain of filters via {@link MembershipOracle#processBatch(QueryBatch)}. Answering a query of a batch forwards the
+ * answer to the original query and additionally records it in the batch, so that filters (e.g. caches) can read the
+ * answers of the queries they delegated without wrapping each query. Filters that only forward a part of a batch can
+ * create a {@link #subset(int[]) subset}, which is a view that shares the columns of this batch.
+ * <p>
+ * Oracles that do not process batches natively receive the queries of a batch via {@link #asQueries()}.
+ * <p>
+ * Distinct queries of a batch may be answered concurrently, e.g. by parallel oracles.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ */
+@ParametersAreNonnullByDefault
+public final class QueryBatch<I, D> {
+
+    private final Query<I, D>[] queries;
+    private final Word<I>[] prefixes;
+    private final Word<I>[] suffixes;
+    private final Object[] answers;
+    private final boolean[] answered;
+
+    // lazily created views of the queries (per column), see #getQuery(int)
+    private final Query<I, D>[] views;
+
+    // maps indices of this batch to indices of the columns, null for the identity
+    @Nullable
+    private final int[] indices;
+
+    private QueryBatch(Query<I, D>[] queries,
+                       Word<I>[] prefixes,
+                       Word<I>[] suffixes,
+                       Object[] answers,
+                       boolean[] answered,
+                       Query<I, D>[] views,
+                       @Nullable int[] indices) {
+        this.queries = queries;
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+        this.answers = answers;
+        this.answered = answered;
+        this.views = views;
+        this.indices = indices;
+    }
+
+    /**
+     * Creates a batch for the given queries, in their iteration order.
+     *
+     * @param queries
+     *         the queries
+     * @param <I>
+     *         input symbol type
+     * @param <D>
+     *         output domain type
+     *
+     * @return the batch for the given queries
+     */
+    @SuppressWarnings("unchecked")
+    public static <I, D> QueryBatch<I, D> of(Collection<? extends Query<I, D>> queries) {
+        final int size = queries.size();
+        final Query<I, D>[] queryArr = queries.toArray(new Query[size]);
+        final Word<I>[] prefixes = new Word[size];
+        final Word<I>[] suffixes = new Word[size];
+
+        for (int i = 0; i < size; i++) {
+            prefixes[i] = queryArr[i].getPrefix();
+            suffixes[i] = queryArr[i].getSuffix();
+        }
+
+        final Query<I, D>[] views = new Query[size];
+
+        return new QueryBatch<>(queryArr, prefixes, suffixes, new Object[size], new boolean[size], views, null);
+    }
+
+    public int size() {
+        return indices == null ? queries.length : indices.length;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the given query of this batch. Answering the returned query answers the respective query of this batch,
+     * i.e. the answer is recorded in this batch as well.
+     *
+     * @param idx
+     *         the index of the query
+     *
+     * @return the query
+     */
+    public Query<I, D> getQuery(int idx) {
+        final int col = column(idx);
+        Query<I, D> view = views[col];
+        if (view == null) {
+            // views are stateless, so concurrently creating multiple views for the same column is harmless
+            view = new BatchQuery(col);
+            views[col] = view;
+        }
+        return view;
+    }
+
+    public Word<I> getPrefix(int idx) {
+        return prefixes[column(idx)];
+    }
+
+    public Word<I> getSuffix(int idx) {
+        return suffixes[column(idx)];
+    }
+
+    /**
+     * Returns the complete input word of the given query, i.e. the concatenation of its prefix and suffix.
+     *
+     * @param idx
+     *         the index of the query
+     *
+     * @return the input word of the query
+     */
+    public Word<I> getInput(int idx) {
+        final int col = column(idx);
+        return prefixes[col].concat(suffixes[col]);
+    }
+
+    /**
+     * Returns the length of the input word of the given query, without materializing it.
+     *
+     * @param idx
+     *         the index of the query
+     *
+     * @return the length of the input word of the query
+     */
+    public int getInputLength(int idx) {
+        final int col = column(idx);
+        return prefixes[col].length() + suffixes[col].length();
+    }
+
+    /**
+     * Answers the given query. The answer is forwarded to the original query and recorded in this batch (and all
+     * batches sharing its columns).
+     *
+     * @param idx
+     *         the index of the query
+     * @param output
+     *         the answer
+     */
+    public void answer(int idx, @Nullable D output) {
+        answerColumn(column(idx), output);
+    }
+
+    private void answerColumn(int col, @Nullable D output) {
+        queries[col].answer(output);
+        answers[col] = output;
+        answered[col] = true;
+    }
+
+    public boolean isAnswered(int idx) {
+        return answered[column(idx)];
+    }
+
+    /**
+     * Returns the recorded answer of the given query.
+     *
+     * @param idx
+     *         the index of the query
+     *
+     * @return the recorded answer, or {@code null} if the query has not been answered via this batch
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public D getAnswer(int idx) {
+        return (D) answers[column(idx)];
+    }
+
+    /**
+     * Returns a view of the given queries of this batch. The view shares the columns of this batch, i.e. answers given
+     * via the view are visible in this batch.
+     *
+     * @param subsetIndices
+     *         the indices (wrt. this batch) of the queries to include. The array must not be modified afterwards
+     *
+     * @return a view of the given queries
+     */
+    public QueryBatch<I, D> subset(int[] subsetIndices) {
+        final int[] columns;
+
+        if (indices == null) {
+            columns = subsetIndices;
+        } else {
+            columns = new int[subsetIndices.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = indices[subsetIndices[i]];
+            }
+        }
+
+        return new QueryBatch<>(queries, prefixes, suffixes, answers, answered, views, columns);
+    }
+
+    /**
+     * Returns the queries of this batch as a list of {@link Query queries}, e.g. for passing them to an oracle that
+     * does not process batches natively. Answering a query of the list answers the respective query of this batch. The
+     * list contains the views returned by {@link #getQuery(int)}, which are created only once per query.
+     *
+     * @return the queries of this batch
+     */
+    public List<Query<I, D>> asQueries() {
+        return new QueryList();
+    }
+
+    private int column(int idx) {
+        return indices == null ? idx : indices[idx];
+    }
+
+    private final class QueryList extends AbstractList<Query<I, D>> implements RandomAccess {
+
+        @Override
+        public Query<I, D> get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return getQuery(index);
+        }
+
+        @Override
+        public int size() {
+            return QueryBatch.this.size();
+        }
+    }
+
+    private final class BatchQuery extends Query<I, D> {
+
+        private final int col;
+
+        BatchQuery(int col) {
+            this.col = col;
+        }
+
+        @Override
+        public void answer(@Nullable D output) {
+            answerColumn(col, output);
+        }
+
+        @Override
+        public Word<I> getPrefix() {
+            return prefixes[col];
+        }
+
+        @Override
+        public Word<I> getSuffix() {
+            return suffixes[col];
+        }
+
+        @Override
+        public String toString() {
+            return queries[col].toString();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.api.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.automatalib.words.Word;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class QueryBatchTest {
+
+    @Test
+    public void testSubsetAnswers() {
+        final List<DefaultQuery<Character, Integer>> queries = new ArrayList<>();
+        queries.add(new DefaultQuery<>(Word.fromCharSequence("a"), Word.fromCharSequence("b")));
+        queries.add(new DefaultQuery<>(Word.epsilon(), Word.fromCharSequence("abc")));
+        queries.add(new DefaultQuery<>(Word.fromCharSequence("ab"), Word.epsilon()));
+        queries.add(new DefaultQuery<>(Word.fromCharSequence("c"), Word.fromCharSequence("c")));
+
+        final QueryBatch<Character, Integer> batch = QueryBatch.of(queries);
+        Assert.assertEquals(batch.size(), 4);
+        Assert.assertEquals(batch.getInput(0), Word.fromCharSequence("ab"));
+        Assert.assertEquals(batch.getInputLength(1), 3);
+
+        batch.answer(0, 0);
+
+        final QueryBatch<Character, Integer> subset = batch.subset(new int[] {1, 2, 3});
+        final QueryBatch<Character, Integer> nested = subset.subset(new int[] {0, 2});
+        Assert.assertEquals(nested.size(), 2);
+        Assert.assertSame(nested.getQuery(1), subset.asQueries().get(2));
+        Assert.assertSame(subset.asQueries().get(2), batch.asQueries().get(3));
+
+        nested.answer(0, 1);
+        nested.answer(1, 3);
+        subset.getQuery(1).answer(2);
+
+        for (int i = 0; i < queries.size(); i++) {
+            Assert.assertTrue(batch.isAnswered(i));
+            Assert.assertEquals(batch.getAnswer(i), (Integer) i);
+            Assert.assertEquals(queries.get(i).getOutput(), (Integer) i);
+        }
+
+        Assert.assertEquals(subset.getAnswer(0), (Integer) 1);
+        Assert.assertEquals(subset.asQueries().get(2).getInput(), Word.fromCharSequence("cc"));
+        Assert.assertTrue(batch.subset(new int[0]).isEmpty());
+    }
+
+    @Test
+    public void testUnansweredQueries() {
+        final DefaultQuery<Character, Boolean> q1 = new DefaultQuery<>(Word.epsilon());
+        final DefaultQuery<Character, Boolean> q2 = new DefaultQuery<>(Word.epsilon());
+        final QueryBatch<Character, Boolean> batch = QueryBatch.of(Arrays.asList(q1, q2));
+
+        batch.answer(1, null);
+
+        Assert.assertFalse(batch.isAnswered(0));
+        Assert.assertTrue(batch.isAnswered(1));
+        Assert.assertNull(batch.getAnswer(1));
+    }
+}
@@ -15,8 +15,13 @@
  */
 package de.learnlib.util;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.function.BiPredicate;
 
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -29,6 +34,13 @@ import net.automatalib.words.Word;
 
 /**
  * An {@link AutomatonOracle} that processes words in a breadth-first manner.
+ * <p>
+ * The search for counterexamples explores the hypothesis layer by layer. Each word of the current layer is stored
+ * together with the hypothesis state it reaches, so that extending the word does not require re-traversing the
+ * hypothesis. All words of a layer that are to be queried are answered by a single batch (see
+ * {@link #processInputs(DeterministicAutomaton, Collection)}), while the overall number of queries is still bounded by
+ * {@link #getMultiplier() the multiplier}. The queue of {@link #nextInput()} and {@link #addWord(Word)} is not used by
+ * this search, but remains available to callers of the {@link AutomatonOracle} API.
  *
  * @param <A> the automaton type
  * @param <I> the input type
@@ -65,6 +77,114 @@ public abstract class AbstractBFOracle<A extends DeterministicAutomaton<?, I, ?>
         return query;
     }
 
+    /**
+     * Processes the given batch of queries. Implementations could use membership oracles to process the queries.
+     *
+     * @param hypothesis
+     *          the hypothesis.
+     * @param queries
+     *          the queries to process.
+     */
+    protected void processInputs(A hypothesis, Collection<? extends DefaultQuery<I, D>> queries) {
+        membershipOracle.processQueries(queries);
+    }
+
+    @Nullable
+    @Override
+    public DefaultQuery<I, D> findCounterExample(A hypothesis, Collection<? extends I> inputs, int maxQueries) {
+        final DeterministicAutomaton<?, I, ?> automaton = hypothesis;
+        return findCounterExample(hypothesis, automaton, inputs, maxQueries);
+    }
+
+    @Nullable
+    private <S> DefaultQuery<I, D> findCounterExample(A hypothesis,
+                                                      DeterministicAutomaton<S, I, ?> automaton,
+                                                      Collection<? extends I> inputs,
+                                                      int maxQueries) {
+        return findCounterExample(hypothesis,
+                                  automaton,
+                                  (word, state) -> accepts(hypothesis, word, word.length()),
+                                  inputs,
+                                  maxQueries);
+    }
+
+    /**
+     * Finds a counterexample by exploring the given view of the {@code hypothesis} layer by layer. Subclasses that
+     * can decide acceptance from the reached state alone may call this method with a matching {@code acceptance}
+     * predicate, so that the hypothesis is not re-traversed for every word.
+     *
+     * @param hypothesis
+     *         the hypothesis to find a counter example to.
+     * @param automaton
+     *         the hypothesis, viewed as a deterministic automaton with state type {@code S}.
+     * @param acceptance
+     *         decides whether a word, given the state it reaches ({@code null} if the word is undefined), is accepted
+     *         and should be queried.
+     * @param inputs
+     *         the alphabet.
+     * @param maxQueries
+     *         the maximum number of queries.
+     * @param <S>
+     *         the state type
+     *
+     * @return the counterexample, or {@code null} if a counter example does not exist.
+     */
+    @Nullable
+    protected <S> DefaultQuery<I, D> findCounterExample(A hypothesis,
+                                                        DeterministicAutomaton<S, I, ?> automaton,
+                                                        BiPredicate<? super Word<I>, ? super S> acceptance,
+                                                        Collection<? extends I> inputs,
+                                                        int maxQueries) {
+        pre();
+
+        List<Word<I>> layerWords = Collections.singletonList(Word.epsilon());
+        List<S> layerStates = Collections.singletonList(automaton.getInitialState());
+
+        int queries = 0;
+        while (!layerWords.isEmpty() && queries != maxQueries) {
+            final List<Word<I>> nextWords = new ArrayList<>();
+            final List<S> nextStates = new ArrayList<>();
+            final List<DefaultQuery<I, D>> batch = new ArrayList<>();
+
+            for (int i = 0; i < layerWords.size() && queries != maxQueries; i++) {
+                final Word<I> word = layerWords.get(i);
+                final S state = layerStates.get(i);
+
+                if (state != null) {
+                    for (I input : inputs) {
+                        final S succ = automaton.getSuccessor(state, input);
+
+                        // skip undefined inputs
+                        if (succ != null) {
+                            nextWords.add(word.append(input));
+                            nextStates.add(succ);
+                        }
+                    }
+                }
+
+                if (acceptance.test(word, state)) {
+                    batch.add(new DefaultQuery<>(word));
+                    queries++;
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                processInputs(hypothesis, batch);
+
+                for (DefaultQuery<I, D> query : batch) {
+                    if (isCounterExample(hypothesis, query.getInput(), query.getOutput())) {
+                        return query;
+                    }
+                }
+            }
+
+            layerWords = nextWords;
+            layerStates = nextStates;
+        }
+
+        return null;
+    }
+
     @Override
     public double getMultiplier() {
         return multiplier;
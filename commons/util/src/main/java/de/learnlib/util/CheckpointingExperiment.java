@@ -0,0 +1,304 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import de.learnlib.api.algorithm.LearningAlgorithm;
+import de.learnlib.api.algorithm.feature.ResumableLearner;
+import de.learnlib.api.logging.LearnLogger;
+import de.learnlib.api.oracle.EquivalenceOracle;
+import net.automatalib.words.Alphabet;
+
+/**
+ * An {@link Experiment} that periodically writes checkpoints of the learning process to a file, and that resumes from
+ * the latest checkpoint of this file on restart.
+ * <p>
+ * A checkpoint comprises the {@link ResumableLearner#suspend() state} of the learner, the number of learning rounds
+ * and, optionally, the contents of a query cache (see {@link #setCacheState(Supplier, Consumer)}). Checkpoints are
+ * taken between two learning rounds, at most once per {@link #setCheckpointInterval(long, TimeUnit) checkpoint
+ * interval}. Since the learner state is mutable, it is serialized into memory on the learning thread. Writing the
+ * serialized state to disk, however, is done by a background thread while learning continues. If several checkpoints
+ * are taken while the previous one is still being written, only the latest of them is written. Checkpoints replace the
+ * file atomically, so that a crash during writing preserves the previous checkpoint.
+ * <p>
+ * If the checkpoint file exists when the experiment is {@link #run() run} (and resuming is {@link
+ * #setResumeFromCheckpoint(boolean) enabled}), the learner is {@link ResumableLearner#resume(Serializable) resumed}
+ * instead of being started from scratch.
+ *
+ * @param <A>
+ *         the automaton type
+ * @param <I>
+ *         the input type
+ * @param <D>
+ *         the output type
+ * @param <T>
+ *         the type of the learner state
+ */
+@ParametersAreNonnullByDefault
+public class CheckpointingExperiment<A, I, D, T extends Serializable> extends Experiment<A, I, D> {
+
+    private static final LearnLogger LOGGER = LearnLogger.getLogger(CheckpointingExperiment.class);
+
+    private final ResumableLearner<T> resumableLearner;
+    private final Path checkpointFile;
+
+    private long checkpointIntervalMillis;
+    private boolean resumeFromCheckpoint = true;
+
+    @Nullable
+    private Supplier<? extends Serializable> cacheSnapshot;
+    @Nullable
+    private Consumer<? super Serializable> cacheRestore;
+
+    private final AtomicReference<byte[]> nextCheckpoint = new AtomicReference<>();
+    private ExecutorService writer;
+    @Nullable
+    private Future<?> pendingCheckpoint;
+    private long lastCheckpoint;
+    private long numCheckpoints;
+
+    public <L extends LearningAlgorithm<? extends A, I, D> & ResumableLearner<T>> CheckpointingExperiment(
+            L learningAlgorithm,
+            EquivalenceOracle<? super A, I, D> equivalenceAlgorithm,
+            Alphabet<I> inputs,
+            Path checkpointFile) {
+        super(learningAlgorithm, equivalenceAlgorithm, inputs);
+        this.resumableLearner = learningAlgorithm;
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Sets the minimal time between two checkpoints. An interval of {@code 0} (the default) takes a checkpoint after
+     * every round.
+     *
+     * @param interval
+     *         the checkpoint interval
+     * @param unit
+     *         the time unit of the interval
+     */
+    public void setCheckpointInterval(@Nonnegative long interval, TimeUnit unit) {
+        this.checkpointIntervalMillis = unit.toMillis(interval);
+    }
+
+    /**
+     * Sets whether the experiment should resume from an existing checkpoint file. Enabled by default.
+     *
+     * @param resumeFromCheckpoint
+     *         {@code true} if the experiment should resume from an existing checkpoint, {@code false} if it should
+     *         start from scratch (and overwrite the checkpoint file)
+     */
+    public void setResumeFromCheckpoint(boolean resumeFromCheckpoint) {
+        this.resumeFromCheckpoint = resumeFromCheckpoint;
+    }
+
+    /**
+     * Includes the contents of a query cache in the checkpoints. The snapshot supplier is called on the learning
+     * thread between two rounds and must return a copy of the cache contents that is not modified afterwards.
+     *
+     * @param snapshot
+     *         the supplier for the current cache contents
+     * @param restore
+     *         the consumer that re-populates the cache when resuming
+     * @param <C>
+     *         the type of the cache contents
+     */
+    @SuppressWarnings("unchecked")
+    public <C extends Serializable> void setCacheState(Supplier<? extends C> snapshot, Consumer<? super C> restore) {
+        this.cacheSnapshot = snapshot;
+        this.cacheRestore = (Consumer<? super Serializable>) restore;
+    }
+
+    /**
+     * Returns the number of checkpoints taken during the run of this experiment.
+     *
+     * @return the number of checkpoints
+     */
+    public long getNumCheckpoints() {
+        return numCheckpoints;
+    }
+
+    @Nonnull
+    @Override
+    public A run() {
+        writer = Executors.newSingleThreadExecutor(r -> {
+            final Thread t = new Thread(r, "checkpoint-writer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            return super.run();
+        } finally {
+            awaitPendingCheckpoint();
+            writer.shutdown();
+        }
+    }
+
+    @Override
+    protected void init() {
+        final Checkpoint checkpoint = resumeFromCheckpoint ? readCheckpoint() : null;
+
+        if (checkpoint == null) {
+            super.init();
+        } else {
+            getRounds().increment(checkpoint.rounds);
+            LOGGER.logPhase("Resuming round " + getRounds().getCount() + " from checkpoint " + checkpointFile);
+
+            @SuppressWarnings("unchecked")
+            final T learnerState = (T) checkpoint.learnerState;
+            resumableLearner.resume(learnerState);
+
+            if (cacheRestore != null && checkpoint.cacheState != null) {
+                cacheRestore.accept(checkpoint.cacheState);
+            }
+        }
+
+        checkpoint(true);
+    }
+
+    @Override
+    protected boolean refineHypothesis() {
+        final boolean refined = super.refineHypothesis();
+
+        if (refined) {
+            checkpoint(false);
+        }
+
+        return refined;
+    }
+
+    private void checkpoint(boolean force) {
+        final long now = System.currentTimeMillis();
+
+        if (!force && now - lastCheckpoint < checkpointIntervalMillis) {
+            return;
+        }
+        final Serializable cacheState = cacheSnapshot == null ? null : cacheSnapshot.get();
+        final Checkpoint checkpoint = new Checkpoint(resumableLearner.suspend(), cacheState, getRounds().getCount());
+
+        final byte[] data;
+        try {
+            data = serialize(checkpoint);
+        } catch (IOException e) {
+            LOGGER.warn("Could not serialize checkpoint", e);
+            return;
+        }
+
+        lastCheckpoint = now;
+        numCheckpoints++;
+
+        // only submit a new write task, if the current one does not pick up the new data anymore
+        if (nextCheckpoint.getAndSet(data) == null) {
+            pendingCheckpoint = writer.submit(this::writeCheckpoints);
+        }
+    }
+
+    private void writeCheckpoints() {
+        byte[] data;
+        while ((data = nextCheckpoint.get()) != null) {
+            writeCheckpoint(data);
+            nextCheckpoint.compareAndSet(data, null);
+        }
+    }
+
+    private void writeCheckpoint(byte[] data) {
+        try {
+            final Path dir = checkpointFile.toAbsolutePath().getParent();
+            final Path tmp = Files.createTempFile(dir, checkpointFile.getFileName().toString(), null);
+            try {
+                Files.write(tmp, data);
+                Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                // does not exist anymore if the checkpoint has been moved successfully
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not write checkpoint " + checkpointFile, e);
+        }
+    }
+
+    private void awaitPendingCheckpoint() {
+        if (pendingCheckpoint == null) {
+            return;
+        }
+
+        try {
+            pendingCheckpoint.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.warn("Could not write checkpoint " + checkpointFile, e.getCause());
+        }
+    }
+
+    @Nullable
+    private Checkpoint readCheckpoint() {
+        if (!Files.exists(checkpointFile)) {
+            return null;
+        }
+
+        try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(checkpointFile))) {
+            return (Checkpoint) ois.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new IllegalStateException("Could not read checkpoint " + checkpointFile, e);
+        }
+    }
+
+    private static byte[] serialize(Checkpoint checkpoint) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(checkpoint);
+        }
+        return baos.toByteArray();
+    }
+
+    private static final class Checkpoint implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Serializable learnerState;
+        @Nullable
+        private final Serializable cacheState;
+        private final long rounds;
+
+        Checkpoint(Serializable learnerState, @Nullable Serializable cacheState, long rounds) {
+            this.learnerState = learnerState;
+            this.cacheState = cacheState;
+            this.rounds = rounds;
+        }
+    }
+}
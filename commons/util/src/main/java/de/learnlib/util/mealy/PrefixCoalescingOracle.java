@@ -0,0 +1,149 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.util.mealy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.oracle.MembershipOracle.MealyMembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.api.query.Query;
+import net.automatalib.words.Word;
+
+/**
+ * A round-scoped query coalescing layer for Mealy membership oracles.
+ * <p>
+ * Within a single batch of queries (i.e., a single call to {@link #processQueries(Collection)}), all queries whose
+ * input words are prefixes of the input word of another query of the same batch are merged into a single run of the
+ * delegate oracle. As the output of a Mealy machine for a prefix is the prefix of the output for the whole word, the
+ * answers of the merged queries can be extracted from the output of this single run. Identical queries are merged as
+ * well.
+ * <p>
+ * In contrast to a cache, this oracle does not retain any information across batches, and hence requires no additional
+ * memory beyond the current batch. Learners can opt into this behavior by simply wrapping their membership oracle.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <O>
+ *         output symbol type
+ */
+@ParametersAreNonnullByDefault
+public class PrefixCoalescingOracle<I, O> implements MealyMembershipOracle<I, O> {
+
+    private final MembershipOracle<I, Word<O>> delegate;
+
+    private long numQueries;
+    private long numDelegatedQueries;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate
+     *         the oracle to which the coalesced queries are delegated
+     */
+    public PrefixCoalescingOracle(MembershipOracle<I, Word<O>> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, Word<O>>> queries) {
+        if (queries.isEmpty()) {
+            return;
+        }
+
+        final TrieNode<I> root = new TrieNode<>();
+        final List<TrieNode<I>> queryNodes = new ArrayList<>(queries.size());
+
+        for (Query<I, Word<O>> q : queries) {
+            final Word<I> input = q.getInput();
+            TrieNode<I> node = root;
+            for (I sym : input) {
+                node = node.children.computeIfAbsent(sym, k -> new TrieNode<>());
+            }
+            if (node.word == null) {
+                node.word = input;
+            }
+            queryNodes.add(node);
+        }
+
+        // every query is answered by a run for a (maximal) word ending in a leaf of the trie below its node
+        final List<DefaultQuery<I, Word<O>>> runs = new ArrayList<>();
+        final Map<TrieNode<I>, DefaultQuery<I, Word<O>>> runsByLeaf = new HashMap<>();
+        final List<DefaultQuery<I, Word<O>>> queryRuns = new ArrayList<>(queries.size());
+
+        for (TrieNode<I> node : queryNodes) {
+            final TrieNode<I> leaf = node.findLeaf();
+            DefaultQuery<I, Word<O>> run = runsByLeaf.get(leaf);
+            if (run == null) {
+                run = new DefaultQuery<>(leaf.word);
+                runsByLeaf.put(leaf, run);
+                runs.add(run);
+            }
+            queryRuns.add(run);
+        }
+
+        delegate.processQueries(runs);
+
+        int idx = 0;
+        for (Query<I, Word<O>> q : queries) {
+            final Word<O> output = queryRuns.get(idx++).getOutput();
+            final int prefixLen = q.getPrefix().length();
+            q.answer(output.subWord(prefixLen, prefixLen + q.getSuffix().length()));
+        }
+
+        numQueries += queries.size();
+        numDelegatedQueries += runs.size();
+    }
+
+    /**
+     * Returns the total number of queries processed by this oracle.
+     *
+     * @return the total number of processed queries
+     */
+    public long getNumQueries() {
+        return numQueries;
+    }
+
+    /**
+     * Returns the total number of (coalesced) queries that have been delegated to the underlying oracle.
+     *
+     * @return the total number of delegated queries
+     */
+    public long getNumDelegatedQueries() {
+        return numDelegatedQueries;
+    }
+
+    private static final class TrieNode<I> {
+
+        private final Map<I, TrieNode<I>> children = new HashMap<>();
+        // the input word of the first query ending in this node, if any
+        private Word<I> word;
+
+        TrieNode<I> findLeaf() {
+            TrieNode<I> node = this;
+            while (!node.children.isEmpty()) {
+                node = node.children.values().iterator().next();
+            }
+            return node;
+        }
+    }
+}
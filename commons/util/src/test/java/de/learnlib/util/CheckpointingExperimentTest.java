@@ -0,0 +1,151 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import de.learnlib.api.algorithm.LearningAlgorithm.DFALearner;
+import de.learnlib.api.algorithm.feature.ResumableLearner;
+import de.learnlib.api.oracle.EquivalenceOracle.DFAEquivalenceOracle;
+import de.learnlib.api.query.DefaultQuery;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.util.automata.random.RandomAutomata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CheckpointingExperimentTest {
+
+    private static final int REFINEMENT_STEPS = 5;
+    private static final int CRASH_AFTER = 3;
+
+    @Test
+    public void testCrashRecovery() throws IOException {
+        final Alphabet<Character> alphabet = Alphabets.characters('a', 'c');
+        final CompactDFA<Character> target = RandomAutomata.randomDFA(new Random(42), 5, alphabet);
+        final CompactDFA<Character> intermediate = RandomAutomata.randomDFA(new Random(42), 4, alphabet);
+
+        final Path file = Files.createTempFile("experiment", ".ckpt");
+        Files.delete(file);
+
+        try {
+            // first run: the equivalence oracle fails after a few counterexamples
+            final MockUpLearner learner = new MockUpLearner(target, intermediate);
+            final CheckpointingExperiment<DFA<?, Character>, Character, Boolean, Integer> crashing =
+                    new CheckpointingExperiment<>(learner, new MockUpOracle(target, CRASH_AFTER), alphabet, file);
+
+            Assert.assertThrows(IllegalStateException.class, crashing::run);
+            Assert.assertTrue(Files.exists(file));
+            Assert.assertEquals(crashing.getNumCheckpoints(), CRASH_AFTER + 1);
+
+            // second run: resumes from the latest checkpoint
+            final MockUpLearner resumed = new MockUpLearner(target, intermediate);
+            final CheckpointingExperiment<DFA<?, Character>, Character, Boolean, Integer> recovering =
+                    new CheckpointingExperiment<>(resumed, new MockUpOracle(target, Integer.MAX_VALUE), alphabet, file);
+
+            Assert.assertSame(recovering.run(), target);
+            Assert.assertFalse(resumed.startLearningCalled);
+            Assert.assertEquals(resumed.refinementSteps, REFINEMENT_STEPS);
+            Assert.assertEquals(recovering.getRounds().getCount(), REFINEMENT_STEPS + 1);
+
+            // without resuming, the learner starts from scratch
+            final MockUpLearner fresh = new MockUpLearner(target, intermediate);
+            final CheckpointingExperiment<DFA<?, Character>, Character, Boolean, Integer> restarting =
+                    new CheckpointingExperiment<>(fresh, new MockUpOracle(target, Integer.MAX_VALUE), alphabet, file);
+            restarting.setResumeFromCheckpoint(false);
+
+            restarting.run();
+            Assert.assertTrue(fresh.startLearningCalled);
+            Assert.assertEquals(restarting.getRounds().getCount(), REFINEMENT_STEPS + 1);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static final class MockUpLearner implements DFALearner<Character>, ResumableLearner<Integer> {
+
+        private final DFA<?, Character> targetModel;
+        private final DFA<?, Character> intermediateModel;
+        private boolean startLearningCalled;
+        private int refinementSteps;
+
+        MockUpLearner(DFA<?, Character> target, DFA<?, Character> intermediate) {
+            this.targetModel = target;
+            this.intermediateModel = intermediate;
+        }
+
+        @Override
+        public void startLearning() {
+            startLearningCalled = true;
+        }
+
+        @Override
+        public boolean refineHypothesis(@Nonnull DefaultQuery<Character, Boolean> ceQuery) {
+            return refinementSteps++ < REFINEMENT_STEPS;
+        }
+
+        @Nonnull
+        @Override
+        public DFA<?, Character> getHypothesisModel() {
+            return refinementSteps < REFINEMENT_STEPS ? intermediateModel : targetModel;
+        }
+
+        @Override
+        public Integer suspend() {
+            return refinementSteps;
+        }
+
+        @Override
+        public void resume(Integer state) {
+            this.refinementSteps = state;
+        }
+    }
+
+    private static final class MockUpOracle implements DFAEquivalenceOracle<Character> {
+
+        private final DFA<?, Character> target;
+        private final int crashAfter;
+        private int counterexamples;
+
+        MockUpOracle(DFA<?, Character> target, int crashAfter) {
+            this.target = target;
+            this.crashAfter = crashAfter;
+        }
+
+        @Nullable
+        @Override
+        public DefaultQuery<Character, Boolean> findCounterExample(DFA<?, Character> hypothesis,
+                                                                   Collection<? extends Character> inputs) {
+            if (hypothesis == target) {
+                return null;
+            }
+            if (counterexamples++ == crashAfter) {
+                throw new IllegalStateException("SUL crashed");
+            }
+            return new DefaultQuery<>(Word.epsilon(), true);
+        }
+    }
+}
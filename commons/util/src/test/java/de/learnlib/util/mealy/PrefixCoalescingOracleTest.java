@@ -0,0 +1,80 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.util.mealy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.learnlib.api.oracle.MembershipOracle.MealyMembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.api.query.Query;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PrefixCoalescingOracleTest {
+
+    @Test
+    public void testCoalescing() {
+        final List<Word<Character>> delegatedWords = new ArrayList<>();
+
+        // emits a running counter of the processed symbols, so that outputs depend on the full prefix
+        final MealyMembershipOracle<Character, Integer> delegate = queries -> {
+            for (Query<Character, Word<Integer>> q : queries) {
+                delegatedWords.add(q.getInput());
+                final WordBuilder<Integer> wb = new WordBuilder<>();
+                int counter = 0;
+                for (Character c : q.getInput()) {
+                    counter += c;
+                    if (wb.size() >= q.getPrefix().length()) {
+                        wb.add(counter);
+                    } else {
+                        wb.add(-1);
+                    }
+                }
+                q.answer(wb.toWord(q.getPrefix().length(), wb.size()));
+            }
+        };
+
+        final PrefixCoalescingOracle<Character, Integer> oracle = new PrefixCoalescingOracle<>(delegate);
+
+        final List<DefaultQuery<Character, Word<Integer>>> queries = new ArrayList<>();
+        queries.add(new DefaultQuery<>(Word.fromCharSequence("ab"), Word.fromCharSequence("c")));
+        queries.add(new DefaultQuery<>(Word.fromCharSequence("a"), Word.fromCharSequence("bcd")));
+        queries.add(new DefaultQuery<>(Word.epsilon(), Word.fromCharSequence("a")));
+        queries.add(new DefaultQuery<>(Word.fromCharSequence("b"), Word.fromCharSequence("a")));
+        queries.add(new DefaultQuery<>(Word.fromCharSequence("b"), Word.fromCharSequence("a")));
+
+        oracle.processQueries(queries);
+
+        Assert.assertEquals(delegatedWords.size(), 2);
+        Assert.assertTrue(delegatedWords.contains(Word.fromCharSequence("abcd")));
+        Assert.assertTrue(delegatedWords.contains(Word.fromCharSequence("ba")));
+        Assert.assertEquals(oracle.getNumQueries(), 5);
+        Assert.assertEquals(oracle.getNumDelegatedQueries(), 2);
+
+        final List<DefaultQuery<Character, Word<Integer>>> expected = new ArrayList<>(queries.size());
+        for (DefaultQuery<Character, Word<Integer>> q : queries) {
+            expected.add(new DefaultQuery<>(q.getPrefix(), q.getSuffix()));
+        }
+        delegate.processQueries(expected);
+
+        for (int i = 0; i < queries.size(); i++) {
+            Assert.assertEquals(queries.get(i).getOutput(), expected.get(i).getOutput());
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package de.learnlib.datastructure.observationtable;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -24,12 +26,14 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import de.learnlib.api.oracle.MembershipOracle;
-import de.learnlib.api.query.DefaultQuery;
 import net.automatalib.words.Alphabet;
 import net.automatalib.words.Word;
 import net.automatalib.words.impl.Alphabets;
@@ -54,6 +58,13 @@ import net.automatalib.words.impl.Alphabets;
  * <b>consistent</b> iff for every two short prefixes <code>u</code> and <code>u'</code> with identical row contents, it
  * holds that for every input symbol <code>a</code> the rows indexed by <code>ua</code> and <code>u'a</code> also have
  * identical contents. </ul>
+ * <p>
+ * Consistency is checked incrementally: every short prefix row remembers against which representative it has last been
+ * verified, and only rows whose successors (or whose representative's successors) have changed their contents since
+ * then are re-checked. If the number of remaining comparisons is large enough, they are performed in parallel.
+ * <p>
+ * Row labels are {@link WordInterner interned}, so that equal labels share a single instance and the labels along an
+ * access sequence share their symbol storage.
  *
  * @param <I>
  *         input symbol type
@@ -65,6 +76,7 @@ import net.automatalib.words.impl.Alphabets;
 public final class GenericObservationTable<I, D> implements MutableObservationTable<I, D>, Serializable {
 
     private static final Integer NO_ENTRY = null; // TODO: replace with primitive specialization
+    private static final int PARALLEL_CONSISTENCY_THRESHOLD = 1 << 14;
     private final List<RowImpl<I>> shortPrefixRows = new ArrayList<>();
     // private static final int NO_ENTRY = -1;
     private final List<RowImpl<I>> longPrefixRows = new ArrayList<>();
@@ -76,9 +88,11 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
     private final Map<Word<I>, RowImpl<I>> rowMap = new HashMap<>();
     private final List<Word<I>> suffixes = new ArrayList<>();
     private final Set<Word<I>> suffixSet = new HashSet<>();
+    private transient WordInterner<I> words = new WordInterner<>();
     private transient Alphabet<I> alphabet;
     private int numRows;
     private boolean initialConsistencyCheckRequired;
+    private int maxQueryBatchSize;
 
     /**
      * Constructor.
@@ -90,12 +104,25 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
         this.alphabet = alphabet;
     }
 
-    private static <I, D> void buildQueries(List<DefaultQuery<I, D>> queryList,
-                                            Word<I> prefix,
-                                            List<? extends Word<I>> suffixes) {
-        for (Word<I> suffix : suffixes) {
-            queryList.add(new DefaultQuery<>(prefix, suffix));
-        }
+    /**
+     * Sets the maximum number of queries that are submitted to the membership oracle at once when filling the table.
+     * Values {@code <= 0} (the default) denote an unbounded batch size.
+     *
+     * @param maxQueryBatchSize
+     *         the maximum number of queries per batch
+     */
+    public void setMaxQueryBatchSize(int maxQueryBatchSize) {
+        this.maxQueryBatchSize = maxQueryBatchSize;
+    }
+
+    public int getMaxQueryBatchSize() {
+        return maxQueryBatchSize;
+    }
+
+    private List<List<D>> queryRows(List<? extends Row<I>> rows,
+                                    List<? extends Word<I>> suffixes,
+                                    MembershipOracle<I, D> oracle) {
+        return TableQueryPlanner.queryRows(rows, suffixes, alphabet, oracle, maxQueryBatchSize);
     }
 
     @Override
@@ -114,46 +141,39 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
             throw new IllegalArgumentException("First initial short prefix MUST be the empty word!");
         }
 
-        int numSuffixes = initialSuffixes.size();
         for (Word<I> suffix : initialSuffixes) {
             if (suffixSet.add(suffix)) {
                 suffixes.add(suffix);
             }
         }
 
-        int numPrefixes = alphabet.size() * initialShortPrefixes.size() + 1;
-
-        List<DefaultQuery<I, D>> queries = new ArrayList<>(numPrefixes * numSuffixes);
-
         // PASS 1: Add short prefix rows
         for (Word<I> sp : initialShortPrefixes) {
             createSpRow(sp);
-            buildQueries(queries, sp, suffixes);
         }
 
+        final int numSpRows = shortPrefixRows.size();
+        final List<RowImpl<I>> rows = new ArrayList<>(shortPrefixRows);
+
         // PASS 2: Add missing long prefix rows
         for (RowImpl<I> spRow : shortPrefixRows) {
             Word<I> sp = spRow.getLabel();
             for (int i = 0; i < alphabet.size(); i++) {
                 I sym = alphabet.getSymbol(i);
-                Word<I> lp = sp.append(sym);
+                Word<I> lp = words.append(sp, sym);
                 RowImpl<I> succRow = rowMap.get(lp);
                 if (succRow == null) {
                     succRow = createLpRow(lp);
-                    buildQueries(queries, lp, suffixes);
+                    rows.add(succRow);
                 }
                 spRow.setSuccessor(i, succRow);
             }
         }
 
-        oracle.processQueries(queries);
-
-        Iterator<DefaultQuery<I, D>> queryIt = queries.iterator();
+        final List<List<D>> contents = queryRows(rows, suffixes, oracle);
 
-        for (RowImpl<I> spRow : shortPrefixRows) {
-            List<D> rowContents = new ArrayList<>(numSuffixes);
-            fetchResults(queryIt, rowContents, numSuffixes);
-            if (!processContents(spRow, rowContents, true)) {
+        for (int i = 0; i < numSpRows; i++) {
+            if (!processContents(rows.get(i), contents.get(i), true)) {
                 initialConsistencyCheckRequired = true;
             }
         }
@@ -162,23 +182,16 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
 
         List<List<Row<I>>> unclosed = new ArrayList<>();
 
-        for (RowImpl<I> spRow : shortPrefixRows) {
-            for (int i = 0; i < alphabet.size(); i++) {
-                RowImpl<I> succRow = spRow.getSuccessor(i);
-                if (succRow.isShortPrefixRow()) {
-                    continue;
-                }
-                List<D> rowContents = new ArrayList<>(numSuffixes);
-                fetchResults(queryIt, rowContents, numSuffixes);
-                if (processContents(succRow, rowContents, false)) {
-                    unclosed.add(new ArrayList<>());
-                }
+        for (int i = numSpRows; i < rows.size(); i++) {
+            RowImpl<I> succRow = rows.get(i);
+            if (processContents(succRow, contents.get(i), false)) {
+                unclosed.add(new ArrayList<>());
+            }
 
-                int id = succRow.getRowContentId();
+            int id = succRow.getRowContentId();
 
-                if (id >= distinctSpRows) {
-                    unclosed.get(id - distinctSpRows).add(succRow);
-                }
+            if (id >= distinctSpRows) {
+                unclosed.get(id - distinctSpRows).add(succRow);
             }
         }
 
@@ -199,7 +212,8 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
         return true;
     }
 
-    private RowImpl<I> createSpRow(Word<I> prefix) {
+    private RowImpl<I> createSpRow(Word<I> label) {
+        Word<I> prefix = words.intern(label);
         RowImpl<I> newRow = new RowImpl<>(prefix, numRows++, alphabet.size());
         allRows.add(newRow);
         rowMap.put(prefix, newRow);
@@ -207,7 +221,8 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
         return newRow;
     }
 
-    private RowImpl<I> createLpRow(Word<I> prefix) {
+    private RowImpl<I> createLpRow(Word<I> label) {
+        Word<I> prefix = words.intern(label);
         RowImpl<I> newRow = new RowImpl<>(prefix, numRows++);
         allRows.add(newRow);
         rowMap.put(prefix, newRow);
@@ -217,24 +232,6 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
         return newRow;
     }
 
-    /**
-     * Fetches the given number of query responses and adds them to the specified output list. Also, the query iterator
-     * is advanced accordingly.
-     *
-     * @param queryIt
-     *         the query iterator
-     * @param output
-     *         the output list to write to
-     * @param numSuffixes
-     *         the number of suffixes (queries)
-     */
-    private static <I, D> void fetchResults(Iterator<DefaultQuery<I, D>> queryIt, List<D> output, int numSuffixes) {
-        for (int j = 0; j < numSuffixes; j++) {
-            DefaultQuery<I, D> qry = queryIt.next();
-            output.add(qry.getOutput());
-        }
-    }
-
     private boolean processContents(RowImpl<I> row, List<D> rowContents, boolean makeCanonical) {
         Integer contentId; // TODO: replace with primitive specialization
         // int contentId;
@@ -283,32 +280,23 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
         int numNewSuffixes = newSuffixList.size();
 
         int numSpRows = shortPrefixRows.size();
-        int rowCount = numSpRows + longPrefixRows.size();
-
-        List<DefaultQuery<I, D>> queries = new ArrayList<>(rowCount * numNewSuffixes);
-
-        for (RowImpl<I> row : shortPrefixRows) {
-            buildQueries(queries, row.getLabel(), newSuffixList);
-        }
+        List<RowImpl<I>> rows = new ArrayList<>(numSpRows + longPrefixRows.size());
+        rows.addAll(shortPrefixRows);
+        rows.addAll(longPrefixRows);
 
-        for (RowImpl<I> row : longPrefixRows) {
-            buildQueries(queries, row.getLabel(), newSuffixList);
-        }
-
-        oracle.processQueries(queries);
-
-        Iterator<DefaultQuery<I, D>> queryIt = queries.iterator();
+        final List<List<D>> newCells = queryRows(rows, newSuffixList, oracle);
+        final Iterator<List<D>> cellIt = newCells.iterator();
 
         for (RowImpl<I> row : shortPrefixRows) {
             List<D> rowContents = allRowContents.get(row.getRowContentId());
             if (rowContents.size() == oldSuffixCount) {
                 rowContentIds.remove(rowContents);
-                fetchResults(queryIt, rowContents, numNewSuffixes);
+                rowContents.addAll(cellIt.next());
                 rowContentIds.put(rowContents, row.getRowContentId());
             } else {
                 List<D> newContents = new ArrayList<>(oldSuffixCount + numNewSuffixes);
                 newContents.addAll(rowContents.subList(0, oldSuffixCount));
-                fetchResults(queryIt, newContents, numNewSuffixes);
+                newContents.addAll(cellIt.next());
                 processContents(row, newContents, true);
             }
         }
@@ -320,12 +308,12 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
             List<D> rowContents = allRowContents.get(row.getRowContentId());
             if (rowContents.size() == oldSuffixCount) {
                 rowContentIds.remove(rowContents);
-                fetchResults(queryIt, rowContents, numNewSuffixes);
+                rowContents.addAll(cellIt.next());
                 rowContentIds.put(rowContents, row.getRowContentId());
             } else {
                 List<D> newContents = new ArrayList<>(oldSuffixCount + numNewSuffixes);
                 newContents.addAll(rowContents.subList(0, oldSuffixCount));
-                fetchResults(queryIt, newContents, numNewSuffixes);
+                newContents.addAll(cellIt.next());
                 if (processContents(row, newContents, false)) {
                     unclosed.add(new ArrayList<>());
                 }
@@ -389,7 +377,7 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
 
             for (int i = 0; i < alphabet.size(); i++) {
                 I sym = alphabet.getSymbol(i);
-                Word<I> lp = prefix.append(sym);
+                Word<I> lp = words.append(prefix, sym);
                 RowImpl<I> lpRow = rowMap.get(lp);
                 if (lpRow == null) {
                     lpRow = createLpRow(lp);
@@ -399,29 +387,22 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
             }
         }
 
-        int numSuffixes = suffixes.size();
-
-        int numFreshRows = freshSpRows.size() + freshLpRows.size();
-        List<DefaultQuery<I, D>> queries = new ArrayList<>(numFreshRows * numSuffixes);
-        buildRowQueries(queries, freshSpRows, suffixes);
-        buildRowQueries(queries, freshLpRows, suffixes);
+        List<RowImpl<I>> freshRows = new ArrayList<>(freshSpRows.size() + freshLpRows.size());
+        freshRows.addAll(freshSpRows);
+        freshRows.addAll(freshLpRows);
 
-        oracle.processQueries(queries);
-        Iterator<DefaultQuery<I, D>> queryIt = queries.iterator();
+        final List<List<D>> freshContents = queryRows(freshRows, suffixes, oracle);
+        final Iterator<List<D>> contentsIt = freshContents.iterator();
 
         for (RowImpl<I> row : freshSpRows) {
-            List<D> contents = new ArrayList<>(numSuffixes);
-            fetchResults(queryIt, contents, numSuffixes);
-            processContents(row, contents, true);
+            processContents(row, contentsIt.next(), true);
         }
 
         int numSpRows = numberOfDistinctRows();
         List<List<Row<I>>> unclosed = new ArrayList<>();
 
         for (RowImpl<I> row : freshLpRows) {
-            List<D> contents = new ArrayList<>(numSuffixes);
-            fetchResults(queryIt, contents, numSuffixes);
-            if (processContents(row, contents, false)) {
+            if (processContents(row, contentsIt.next(), false)) {
                 unclosed.add(new ArrayList<>());
             }
 
@@ -460,14 +441,6 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
         return true;
     }
 
-    private static <I, D> void buildRowQueries(List<DefaultQuery<I, D>> queryList,
-                                               List<? extends Row<I>> rows,
-                                               List<? extends Word<I>> suffixes) {
-        for (Row<I> row : rows) {
-            buildQueries(queryList, row.getLabel(), suffixes);
-        }
-    }
-
     @Override
     public List<D> rowContents(Row<I> row) {
         return allRowContents.get(row.getRowContentId());
@@ -542,6 +515,65 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
         return (canonicalRows.get(contentId) == row);
     }
 
+    @Nullable
+    @Override
+    public Inconsistency<I> findInconsistency() {
+        @SuppressWarnings("unchecked")
+        final RowImpl<I>[] representatives = (RowImpl<I>[]) new RowImpl<?>[numberOfDistinctRows()];
+        final List<RowImpl<I>> candidates = new ArrayList<>();
+
+        for (RowImpl<I> spRow : shortPrefixRows) {
+            final int contentId = spRow.getRowContentId();
+            final RowImpl<I> repRow = representatives[contentId];
+
+            if (repRow == null) {
+                representatives[contentId] = spRow;
+            } else if (!spRow.isVerifiedConsistentWith(repRow)) {
+                candidates.add(spRow);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        final int alphabetSize = alphabet.size();
+        final IntStream indexStream = IntStream.range(0, candidates.size());
+        final IntStream checkStream =
+                ((long) candidates.size() * alphabetSize < PARALLEL_CONSISTENCY_THRESHOLD) ? indexStream :
+                        indexStream.parallel();
+
+        // findFirst respects the encounter order, so the result does not depend on the parallel execution
+        final OptionalInt inconsistentIdx = checkStream.filter(i -> {
+            final RowImpl<I> spRow = candidates.get(i);
+            final RowImpl<I> repRow = representatives[spRow.getRowContentId()];
+            if (findInconsistentSymbolIndex(repRow, spRow, alphabetSize) < 0) {
+                spRow.markVerifiedConsistentWith(repRow);
+                return false;
+            }
+            return true;
+        }).findFirst();
+
+        if (!inconsistentIdx.isPresent()) {
+            return null;
+        }
+
+        final RowImpl<I> spRow = candidates.get(inconsistentIdx.getAsInt());
+        final RowImpl<I> repRow = representatives[spRow.getRowContentId()];
+        final int symIdx = findInconsistentSymbolIndex(repRow, spRow, alphabetSize);
+
+        return new Inconsistency<>(repRow, spRow, alphabet.getSymbol(symIdx));
+    }
+
+    private static <I> int findInconsistentSymbolIndex(RowImpl<I> row1, RowImpl<I> row2, int alphabetSize) {
+        for (int i = 0; i < alphabetSize; i++) {
+            if (row1.getSuccessor(i).getRowContentId() != row2.getSuccessor(i).getRowContentId()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     @Override
     public List<List<Row<I>>> addAlphabetSymbol(I symbol, final MembershipOracle<I, D> oracle) {
 
@@ -559,7 +591,7 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
         for (RowImpl<I> prefix : shortPrefixes) {
             prefix.ensureInputCapacity(newAlphabetSize);
 
-            final Word<I> newLongPrefix = prefix.getLabel().append(symbol);
+            final Word<I> newLongPrefix = words.append(prefix.getLabel(), symbol);
             final RowImpl<I> longPrefixRow = createLpRow(newLongPrefix);
 
             newLongPrefixes.add(longPrefixRow);
@@ -567,21 +599,12 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
         }
 
         final int numLongPrefixes = newLongPrefixes.size();
-        final int numSuffixes = this.numberOfSuffixes();
-        final List<DefaultQuery<I, D>> queries = new ArrayList<>(numLongPrefixes * numSuffixes);
-
-        buildRowQueries(queries, newLongPrefixes, suffixes);
-        oracle.processQueries(queries);
-
-        final Iterator<DefaultQuery<I, D>> queryIterator = queries.iterator();
+        final List<List<D>> newContents = queryRows(newLongPrefixes, suffixes, oracle);
+        final Iterator<List<D>> contentsIt = newContents.iterator();
         final List<List<Row<I>>> result = new ArrayList<>(numLongPrefixes);
 
         for (RowImpl<I> row : newLongPrefixes) {
-            final List<D> contents = new ArrayList<>(numSuffixes);
-
-            fetchResults(queryIterator, contents, numSuffixes);
-
-            if (processContents(row, contents, false)) {
+            if (processContents(row, contentsIt.next(), false)) {
                 result.add(Collections.singletonList(row));
             }
         }
@@ -600,4 +623,77 @@ public final class GenericObservationTable<I, D> implements MutableObservationTa
     public Collection<Row<I>> getLongPrefixRows() {
         return Collections.unmodifiableList(longPrefixRows);
     }
+
+    /*
+     * Access to the internal structure for (compact) checkpoints, see ObservationTableCheckpointWriter and
+     * ObservationTableCheckpointReader.
+     */
+
+    List<RowImpl<I>> getRowImpls() {
+        return allRows;
+    }
+
+    List<List<D>> getAllRowContents() {
+        return allRowContents;
+    }
+
+    List<RowImpl<I>> getCanonicalRows() {
+        return canonicalRows;
+    }
+
+    /**
+     * Replaces the contents of this table with the given (restored) data. The rows must already carry their row
+     * content ids and long prefix indices, the successors of short prefix rows are re-established by this method.
+     */
+    void restore(List<Word<I>> suffixes,
+                 List<RowImpl<I>> allRows,
+                 List<RowImpl<I>> shortPrefixRows,
+                 List<RowImpl<I>> longPrefixRows,
+                 List<List<D>> allRowContents,
+                 List<RowImpl<I>> canonicalRows,
+                 boolean initialConsistencyCheckRequired) {
+        this.suffixes.clear();
+        this.suffixSet.clear();
+        this.allRows.clear();
+        this.shortPrefixRows.clear();
+        this.longPrefixRows.clear();
+        this.allRowContents.clear();
+        this.rowContentIds.clear();
+        this.canonicalRows.clear();
+        this.rowMap.clear();
+        this.words = new WordInterner<>();
+
+        this.suffixes.addAll(suffixes);
+        this.suffixSet.addAll(suffixes);
+        this.allRows.addAll(allRows);
+        this.shortPrefixRows.addAll(shortPrefixRows);
+        this.longPrefixRows.addAll(longPrefixRows);
+        this.allRowContents.addAll(allRowContents);
+        this.canonicalRows.addAll(canonicalRows);
+        this.numRows = allRows.size();
+        this.initialConsistencyCheckRequired = initialConsistencyCheckRequired;
+
+        for (int i = 0; i < allRowContents.size(); i++) {
+            rowContentIds.put(allRowContents.get(i), i);
+        }
+
+        for (RowImpl<I> row : allRows) {
+            rowMap.put(row.getLabel(), row);
+        }
+
+        for (RowImpl<I> spRow : shortPrefixRows) {
+            final Word<I> prefix = spRow.getLabel();
+            for (int i = 0; i < alphabet.size(); i++) {
+                final RowImpl<I> succRow = rowMap.get(prefix.append(alphabet.getSymbol(i)));
+                if (succRow != null) {
+                    spRow.setSuccessor(i, succRow);
+                }
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.words = new WordInterner<>();
+    }
 }
@@ -0,0 +1,285 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.datastructure.observationtable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+
+/**
+ * Restores a {@link GenericObservationTable} from checkpoints written by an {@link ObservationTableCheckpointWriter}.
+ * The checkpoint file is memory-mapped, and the full checkpoint as well as all subsequent delta checkpoints contained
+ * in it are applied in order. An incomplete or corrupted record at the end of the file (e.g. due to a crash while a
+ * delta was appended) is ignored, i.e. the table is restored from the last complete checkpoint.
+ */
+@ParametersAreNonnullByDefault
+public final class ObservationTableCheckpointReader {
+
+    // magic, kind and length of a record
+    private static final int HEADER_SIZE = 9;
+    private static final int CHECKSUM_SIZE = 4;
+
+    private ObservationTableCheckpointReader() {
+        throw new AssertionError("Constructor should not be invoked");
+    }
+
+    /**
+     * Restores the observation table from the latest complete checkpoint in the given file.
+     *
+     * @param file
+     *         the checkpoint file
+     * @param alphabet
+     *         the input alphabet of the checkpointed table
+     * @param <I>
+     *         input symbol type
+     * @param <D>
+     *         output domain type
+     *
+     * @return the restored observation table
+     *
+     * @throws IOException
+     *         if the file cannot be read or does not contain a valid checkpoint
+     */
+    public static <I, D> GenericObservationTable<I, D> read(Path file, Alphabet<I> alphabet) throws IOException {
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        final Restorer<I, D> restorer = new Restorer<>(alphabet);
+        try {
+            while (buffer.remaining() >= HEADER_SIZE) {
+                final int magic = buffer.getInt();
+                final byte kind = buffer.get();
+                final int length = buffer.getInt();
+
+                if (magic != ObservationTableCheckpointWriter.MAGIC && !restorer.initialized) {
+                    throw new IOException("Malformed checkpoint file " + file);
+                }
+
+                // an incomplete (or corrupted) trailing record stems from a crash while appending it, the previous
+                // records are still valid
+                if (magic != ObservationTableCheckpointWriter.MAGIC || length < 0 ||
+                    buffer.remaining() < (long) length + CHECKSUM_SIZE) {
+                    break;
+                }
+
+                final ByteBuffer record = buffer.slice();
+                record.limit(length);
+                buffer.position(buffer.position() + length);
+
+                final CRC32 checksum = new CRC32();
+                checksum.update(record.duplicate());
+                if (buffer.getInt() != (int) checksum.getValue()) {
+                    break;
+                }
+
+                if (kind == ObservationTableCheckpointWriter.FULL) {
+                    restorer.clear();
+                } else if (kind != ObservationTableCheckpointWriter.DELTA || !restorer.initialized) {
+                    throw new IOException("Malformed checkpoint file " + file);
+                }
+
+                restorer.readRecord(record);
+                if (record.hasRemaining()) {
+                    throw new IOException("Malformed checkpoint file " + file);
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | ClassNotFoundException ex) {
+            throw new IOException("Malformed checkpoint file " + file, ex);
+        }
+
+        if (!restorer.initialized) {
+            throw new IOException("No checkpoint in file " + file);
+        }
+
+        return restorer.toTable();
+    }
+
+    private static final class Restorer<I, D> {
+
+        private final Alphabet<I> alphabet;
+
+        private final List<D> values = new ArrayList<>();
+        private final List<Word<I>> suffixes = new ArrayList<>();
+        private final List<Word<I>> labels = new ArrayList<>();
+        private final List<List<D>> contents = new ArrayList<>();
+
+        private int[] spRowIds;
+        private int[] lpRowIds;
+        private int[] rowContentIds;
+        private int[] canonicalRowIds;
+        private boolean initialConsistencyCheckRequired;
+        private boolean initialized;
+
+        Restorer(Alphabet<I> alphabet) {
+            this.alphabet = alphabet;
+        }
+
+        void clear() {
+            values.clear();
+            suffixes.clear();
+            labels.clear();
+            contents.clear();
+            initialized = false;
+        }
+
+        void readRecord(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+            readValues(buffer);
+
+            final int numNewSuffixes = buffer.getInt();
+            for (int i = 0; i < numNewSuffixes; i++) {
+                suffixes.add(readWord(buffer));
+            }
+
+            final int numNewRows = buffer.getInt();
+            for (int i = 0; i < numNewRows; i++) {
+                final int parentId = buffer.getInt();
+                if (parentId == ObservationTableCheckpointWriter.NONE) {
+                    labels.add(readWord(buffer));
+                } else {
+                    labels.add(labels.get(parentId).append(alphabet.getSymbol(buffer.getInt())));
+                }
+            }
+
+            final int numContents = buffer.getInt();
+            for (int i = 0; i < numContents; i++) {
+                final List<D> content;
+                if (i < contents.size()) {
+                    content = contents.get(i);
+                } else {
+                    content = new ArrayList<>();
+                    contents.add(content);
+                }
+                final int width = buffer.getInt();
+                for (int j = content.size(); j < width; j++) {
+                    content.add(values.get(buffer.getInt()));
+                }
+            }
+
+            spRowIds = readInts(buffer, buffer.getInt());
+            lpRowIds = readInts(buffer, buffer.getInt());
+            rowContentIds = readInts(buffer, labels.size());
+            canonicalRowIds = readInts(buffer, contents.size());
+            initialConsistencyCheckRequired = buffer.get() != 0;
+            initialized = true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void readValues(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+            final int numNewValues = buffer.getInt();
+            if (numNewValues == 0) {
+                return;
+            }
+
+            final byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                values.addAll(Arrays.asList((D[]) ois.readObject()));
+            }
+        }
+
+        private Word<I> readWord(ByteBuffer buffer) {
+            final int length = buffer.getInt();
+            final WordBuilder<I> wb = new WordBuilder<>(length);
+            for (int i = 0; i < length; i++) {
+                wb.append(alphabet.getSymbol(buffer.getInt()));
+            }
+            return wb.toWord();
+        }
+
+        private static int[] readInts(ByteBuffer buffer, int length) {
+            final int[] result = new int[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = buffer.getInt();
+            }
+            return result;
+        }
+
+        GenericObservationTable<I, D> toTable() {
+            final int alphabetSize = alphabet.size();
+            final List<RowImpl<I>> allRows = new ArrayList<>(labels.size());
+            final boolean[] isShort = new boolean[labels.size()];
+            final int[] lpIndices = new int[labels.size()];
+
+            for (int spRowId : spRowIds) {
+                isShort[spRowId] = true;
+            }
+            for (int i = 0; i < lpRowIds.length; i++) {
+                lpIndices[lpRowIds[i]] = i;
+            }
+
+            for (int i = 0; i < labels.size(); i++) {
+                final RowImpl<I> row;
+                if (isShort[i]) {
+                    row = new RowImpl<>(labels.get(i), i, alphabetSize);
+                } else {
+                    row = new RowImpl<>(labels.get(i), i);
+                    row.setLpIndex(lpIndices[i]);
+                }
+                row.setRowContentId(rowContentIds[i]);
+                allRows.add(row);
+            }
+
+            final List<RowImpl<I>> spRows = new ArrayList<>(spRowIds.length);
+            for (int spRowId : spRowIds) {
+                spRows.add(allRows.get(spRowId));
+            }
+
+            final List<RowImpl<I>> lpRows = new ArrayList<>(lpRowIds.length);
+            for (int lpRowId : lpRowIds) {
+                lpRows.add(allRows.get(lpRowId));
+            }
+
+            final List<RowImpl<I>> canonicalRows = new ArrayList<>(canonicalRowIds.length);
+            for (int canonicalRowId : canonicalRowIds) {
+                canonicalRows.add(canonicalRowId == ObservationTableCheckpointWriter.NONE ?
+                                          null :
+                                          allRows.get(canonicalRowId));
+            }
+
+            final List<List<D>> restoredContents = new ArrayList<>(contents.size());
+            for (List<D> content : contents) {
+                restoredContents.add(new ArrayList<>(content));
+            }
+
+            final GenericObservationTable<I, D> table = new GenericObservationTable<>(alphabet);
+            table.restore(suffixes,
+                          allRows,
+                          spRows,
+                          lpRows,
+                          restoredContents,
+                          canonicalRows,
+                          initialConsistencyCheckRequired);
+            return table;
+        }
+    }
+}
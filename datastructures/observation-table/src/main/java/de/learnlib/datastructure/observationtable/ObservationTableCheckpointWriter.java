@@ -0,0 +1,265 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.datastructure.observationtable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+
+/**
+ * Writes compact, binary checkpoints of a {@link GenericObservationTable} to a file, which can be restored via {@link
+ * ObservationTableCheckpointReader}.
+ * <p>
+ * In contrast to Java serialization of the complete object graph, symbols are encoded by their index in the input
+ * alphabet, row prefixes are encoded relative to their parent rows and each distinct output value is stored only once
+ * (cells refer to it by an int id). Furthermore, only the first checkpoint written by an instance contains the complete
+ * table. Each subsequent checkpoint is appended to the file as a delta, which contains the data added since the
+ * previous checkpoint (new suffixes, rows, output values and cells) plus the (small) row index structure of the table.
+ * This makes it cheap to checkpoint a long-running learning process after every round.
+ * <p>
+ * Each checkpoint is framed by its length and a CRC32 checksum. If the learning process crashes while a delta is
+ * appended, the reader ignores the incomplete record and restores the table from the previous checkpoint.
+ * <p>
+ * All checkpoints of a writer must be written for the same table, and the table must not be modified while a
+ * checkpoint is written. The output values of the table must be {@link java.io.Serializable}.
+ * <p>
+ * Note that this format only covers observation tables (i.e. the L* family of learners). Learners based on
+ * discrimination trees (e.g. TTT, DT or Kearns/Vazirani) are not supported and still need to be checkpointed via
+ * {@link de.learnlib.api.algorithm.feature.ResumableLearner#suspend()}.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ */
+@ParametersAreNonnullByDefault
+public class ObservationTableCheckpointWriter<I, D> {
+
+    static final int MAGIC = 0x4C4C4F54; // "LLOT"
+    static final byte FULL = 0;
+    static final byte DELTA = 1;
+    static final int NONE = -1;
+
+    private final Path file;
+    private final Alphabet<I> alphabet;
+
+    private final Map<D, Integer> valueIds = new HashMap<>();
+    private int[] contentWidths = new int[0];
+    private int numContents;
+    private int numSuffixes;
+    private int numRows;
+    private boolean initialized;
+
+    public ObservationTableCheckpointWriter(Path file, Alphabet<I> alphabet) {
+        this.file = file;
+        this.alphabet = alphabet;
+    }
+
+    /**
+     * Writes a checkpoint of the given table. The first invocation (or the first one after {@link #reset()}) replaces
+     * the contents of the file with a full checkpoint, subsequent invocations append delta checkpoints. A full
+     * checkpoint is written to a temporary file first, which then atomically replaces the checkpoint file.
+     *
+     * @param table
+     *         the table to checkpoint
+     *
+     * @throws IOException
+     *         if writing the checkpoint fails
+     */
+    public void write(GenericObservationTable<I, D> table) throws IOException {
+        final boolean full = !initialized;
+
+        if (full) {
+            valueIds.clear();
+            contentWidths = new int[0];
+            numContents = 0;
+            numSuffixes = 0;
+            numRows = 0;
+        }
+
+        try {
+            if (full) {
+                // write to a sibling file first, so that a failed checkpoint does not destroy the previous one
+                final Path dir = file.toAbsolutePath().getParent();
+                final Path tmp = Files.createTempFile(dir, file.getFileName().toString(), null);
+                try {
+                    writeCheckpoint(tmp, FULL, table);
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            } else {
+                writeCheckpoint(file, DELTA, table, StandardOpenOption.APPEND);
+            }
+        } catch (IOException | RuntimeException ex) {
+            // the file may be corrupted, start over with a full checkpoint
+            initialized = false;
+            throw ex;
+        }
+
+        initialized = true;
+    }
+
+    /**
+     * Causes the next checkpoint to be a full checkpoint, which replaces all previous checkpoints in the file.
+     */
+    public void reset() {
+        initialized = false;
+    }
+
+    private void writeCheckpoint(Path target,
+                                 byte type,
+                                 GenericObservationTable<I, D> table,
+                                 OpenOption... options) throws IOException {
+        final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            writeRecord(out, table);
+        }
+
+        final CRC32 checksum = new CRC32();
+        checksum.update(record.toByteArray());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target,
+                                                                                                         options)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(type);
+            out.writeInt(record.size());
+            record.writeTo(out);
+            out.writeInt((int) checksum.getValue());
+        }
+    }
+
+    private void writeRecord(DataOutputStream out, GenericObservationTable<I, D> table) throws IOException {
+        final List<List<D>> contents = table.getAllRowContents();
+        final List<RowImpl<I>> rows = table.getRowImpls();
+        final List<Word<I>> suffixes = table.getSuffixes();
+
+        // new output values
+        final List<D> newValues = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i++) {
+            final List<D> content = contents.get(i);
+            final int knownWidth = i < numContents ? contentWidths[i] : 0;
+            for (int j = knownWidth; j < content.size(); j++) {
+                final D value = content.get(j);
+                if (!valueIds.containsKey(value)) {
+                    valueIds.put(value, valueIds.size());
+                    newValues.add(value);
+                }
+            }
+        }
+        writeValues(out, newValues);
+
+        // new suffixes
+        out.writeInt(suffixes.size() - numSuffixes);
+        for (int i = numSuffixes; i < suffixes.size(); i++) {
+            writeWord(out, suffixes.get(i));
+        }
+
+        // new rows
+        out.writeInt(rows.size() - numRows);
+        final Map<Word<I>, Integer> rowIds = new HashMap<>();
+        for (RowImpl<I> row : rows) {
+            rowIds.put(row.getLabel(), row.getRowId());
+        }
+        for (int i = numRows; i < rows.size(); i++) {
+            final Word<I> label = rows.get(i).getLabel();
+            final Integer parentId = label.isEmpty() ? null : rowIds.get(label.prefix(-1));
+            if (parentId == null || parentId >= i) {
+                out.writeInt(NONE);
+                writeWord(out, label);
+            } else {
+                out.writeInt(parentId);
+                out.writeInt(alphabet.getSymbolIndex(label.lastSymbol()));
+            }
+        }
+
+        // cells
+        out.writeInt(contents.size());
+        final int[] newWidths = Arrays.copyOf(contentWidths, Math.max(contentWidths.length, contents.size()));
+        for (int i = 0; i < contents.size(); i++) {
+            final List<D> content = contents.get(i);
+            final int knownWidth = i < numContents ? contentWidths[i] : 0;
+            out.writeInt(content.size());
+            for (int j = knownWidth; j < content.size(); j++) {
+                out.writeInt(valueIds.get(content.get(j)));
+            }
+            newWidths[i] = content.size();
+        }
+
+        // row index structure
+        writeRowIds(out, table.getShortPrefixRows());
+        writeRowIds(out, table.getLongPrefixRows());
+        for (RowImpl<I> row : rows) {
+            out.writeInt(row.getRowContentId());
+        }
+        for (RowImpl<I> canonical : table.getCanonicalRows()) {
+            out.writeInt(canonical == null ? NONE : canonical.getRowId());
+        }
+        out.writeBoolean(table.isInitialConsistencyCheckRequired());
+
+        this.contentWidths = newWidths;
+        this.numContents = contents.size();
+        this.numSuffixes = suffixes.size();
+        this.numRows = rows.size();
+    }
+
+    private static void writeValues(DataOutputStream out, List<?> values) throws IOException {
+        out.writeInt(values.size());
+        if (values.isEmpty()) {
+            return;
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(values.toArray());
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private void writeWord(DataOutputStream out, Word<I> word) throws IOException {
+        out.writeInt(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            out.writeInt(alphabet.getSymbolIndex(word.getSymbol(i)));
+        }
+    }
+
+    private static void writeRowIds(DataOutputStream out, Collection<? extends Row<?>> rows) throws IOException {
+        out.writeInt(rows.size());
+        for (Row<?> row : rows) {
+            out.writeInt(row.getRowId());
+        }
+    }
+}
@@ -29,6 +29,13 @@ final class RowImpl<I> implements Row<I>, Serializable {
     private int lpIndex;
     private ResizingObjectArray successors;
 
+    private RowImpl<I> predecessor;
+    private int successorVersion;
+
+    private transient RowImpl<I> verifiedRepresentative;
+    private transient int verifiedVersion;
+    private transient int verifiedRepresentativeVersion;
+
     /**
      * Constructor for short label rows.
      *
@@ -88,8 +95,10 @@ final class RowImpl<I> implements Row<I>, Serializable {
      * @param succ
      *         the successor row
      */
-    void setSuccessor(int inputIdx, Row<I> succ) {
+    void setSuccessor(int inputIdx, RowImpl<I> succ) {
         successors.array[inputIdx] = succ;
+        succ.predecessor = this;
+        successorVersion++;
     }
 
     @Override
@@ -114,7 +123,41 @@ final class RowImpl<I> implements Row<I>, Serializable {
      *         the contents id
      */
     void setRowContentId(int id) {
-        this.rowContentId = id;
+        if (this.rowContentId != id) {
+            this.rowContentId = id;
+            if (predecessor != null) {
+                predecessor.successorVersion++;
+            }
+        }
+    }
+
+    /**
+     * Checks whether this (short prefix) row has previously been verified to be consistent with the given
+     * representative row, and neither the successors of this row nor the successors of the representative have changed
+     * their contents since then.
+     *
+     * @param representative
+     *         the representative row of the equivalence class of this row
+     *
+     * @return {@code true} if the consistency of this row and the representative does not need to be re-checked,
+     * {@code false} otherwise.
+     */
+    boolean isVerifiedConsistentWith(RowImpl<I> representative) {
+        return verifiedRepresentative == representative && verifiedVersion == successorVersion &&
+               verifiedRepresentativeVersion == representative.successorVersion;
+    }
+
+    /**
+     * Records that this (short prefix) row is consistent with the given representative row, regarding the current
+     * contents of both rows' successors.
+     *
+     * @param representative
+     *         the representative row of the equivalence class of this row
+     */
+    void markVerifiedConsistentWith(RowImpl<I> representative) {
+        this.verifiedRepresentative = representative;
+        this.verifiedVersion = successorVersion;
+        this.verifiedRepresentativeVersion = representative.successorVersion;
     }
 
     @Override
@@ -0,0 +1,154 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.datastructure.observationtable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import net.automatalib.commons.util.comparison.CmpUtil;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+
+/**
+ * Query planner for filling the cells of an observation table.
+ * <p>
+ * Instead of posing one flat list of queries in the (arbitrary) order of row creation, the planner orders the rows
+ * lexicographically by their labels. This corresponds to a depth-first traversal of the prefix tree spanned by the row
+ * labels, so that queries sharing long access sequences are posed adjacently. Caches and reuse filters can thus
+ * exploit this adjacency, and parallel oracles (which split batches into contiguous chunks) assign related subtrees to
+ * the same worker.
+ * <p>
+ * Queries are submitted in batches of a bounded size (if specified), and each answer is directly written into the
+ * contents of its row, without materializing intermediate {@link de.learnlib.api.query.DefaultQuery} objects.
+ */
+final class TableQueryPlanner {
+
+    private TableQueryPlanner() {
+        // prevent instantiation
+    }
+
+    /**
+     * Computes the contents of the given rows wrt. the given suffixes.
+     *
+     * @param rows
+     *         the rows whose contents should be computed
+     * @param suffixes
+     *         the suffixes (columns) for which the contents should be computed
+     * @param alphabet
+     *         the alphabet used for ordering the row labels
+     * @param oracle
+     *         the oracle used for answering the queries
+     * @param maxBatchSize
+     *         the maximum number of queries submitted to the oracle at once. Values {@code <= 0} denote an unbounded
+     *         batch size.
+     * @param <I>
+     *         input symbol type
+     * @param <D>
+     *         output domain type
+     *
+     * @return a list of (mutable) row contents, in the same order as the given rows
+     */
+    static <I, D> List<List<D>> queryRows(List<? extends Row<I>> rows,
+                                          List<? extends Word<I>> suffixes,
+                                          Alphabet<I> alphabet,
+                                          MembershipOracle<I, D> oracle,
+                                          int maxBatchSize) {
+        final int numRows = rows.size();
+        final int numSuffixes = suffixes.size();
+        final List<List<D>> result = new ArrayList<>(numRows);
+
+        for (int i = 0; i < numRows; i++) {
+            result.add(new ArrayList<>(Collections.nCopies(numSuffixes, null)));
+        }
+
+        final long numQueries = (long) numRows * numSuffixes;
+        if (numQueries == 0) {
+            return result;
+        }
+
+        final Integer[] order = new Integer[numRows];
+        for (int i = 0; i < numRows; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (r1, r2) -> CmpUtil.lexCompare(rows.get(r1).getLabel(), rows.get(r2).getLabel(), alphabet));
+
+        final int batchSize = (int) ((maxBatchSize <= 0) ? Math.min(numQueries, Integer.MAX_VALUE) :
+                Math.min(numQueries, maxBatchSize));
+        final List<CellQuery<I, D>> batch = new ArrayList<>(batchSize);
+
+        for (Integer rowIdx : order) {
+            final Word<I> prefix = rows.get(rowIdx).getLabel();
+            final List<D> contents = result.get(rowIdx);
+
+            for (int j = 0; j < numSuffixes; j++) {
+                batch.add(new CellQuery<>(prefix, suffixes.get(j), contents, j));
+
+                if (batch.size() >= batchSize) {
+                    oracle.processQueries(batch);
+                    batch.clear();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            oracle.processQueries(batch);
+        }
+
+        return result;
+    }
+
+    /**
+     * A query for a single cell of the observation table, which writes its answer directly into the row contents.
+     *
+     * @param <I>
+     *         input symbol type
+     * @param <D>
+     *         output domain type
+     */
+    private static final class CellQuery<I, D> extends Query<I, D> {
+
+        private final Word<I> prefix;
+        private final Word<I> suffix;
+        private final List<D> contents;
+        private final int column;
+
+        CellQuery(Word<I> prefix, Word<I> suffix, List<D> contents, int column) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.contents = contents;
+            this.column = column;
+        }
+
+        @Override
+        public void answer(D output) {
+            contents.set(column, output);
+        }
+
+        @Override
+        public Word<I> getPrefix() {
+            return prefix;
+        }
+
+        @Override
+        public Word<I> getSuffix() {
+            return suffix;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.datastructure.observationtable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import net.automatalib.words.Word;
+
+/**
+ * A pool of canonical {@link Word} instances for the row labels of an observation table.
+ * <p>
+ * Interned words are organized in a prefix tree. The symbols along a path of the tree are stored in a shared, growable
+ * array, and the word of each node is a view of the first symbols of this array. Hence, extending a word by a symbol
+ * writes the symbol into the array of the word instead of copying the word, unless the array is already used by
+ * another extension of the same word (or needs to grow). For an observation table, this means that the labels of all
+ * short prefix rows along an access sequence, as well as the first long prefix row of each short prefix row, share a
+ * single array. Likewise, all prefixes of an interned counterexample share one copy of its symbols. Equal words that
+ * are interned multiple times are represented by a single instance.
+ * <p>
+ * Interning a word takes time linear in its length. Extending a canonical word (i.e. a word previously returned by this
+ * pool) by a single symbol takes amortized constant time.
+ * <p>
+ * This class is not thread-safe and not serializable. Since it only affects the sharing of words, not their
+ * identity, a new pool can be used after deserializing its owner.
+ *
+ * @param <I>
+ *         input symbol type
+ */
+@ParametersAreNonnullByDefault
+final class WordInterner<I> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Node<I> root = new Node<>(Word.epsilon(), new SymbolBuffer(INITIAL_CAPACITY));
+    private final Map<Word<I>, Node<I>> canonicalNodes = new IdentityHashMap<>();
+    private int size = 1;
+
+    /**
+     * Returns the canonical instance of the given word.
+     *
+     * @param word
+     *         the word to intern
+     *
+     * @return the canonical instance of the given word
+     */
+    Word<I> intern(Word<I> word) {
+        return lookup(word).word;
+    }
+
+    /**
+     * Returns the canonical instance of the word {@code prefix.append(symbol)}.
+     *
+     * @param prefix
+     *         the prefix, preferably a canonical word of this pool
+     * @param symbol
+     *         the symbol to append
+     *
+     * @return the canonical instance of the extended word
+     */
+    Word<I> append(Word<I> prefix, I symbol) {
+        final Node<I> node = lookup(prefix);
+        return getOrAddChild(node, symbol, node.word.length() + 1).word;
+    }
+
+    /**
+     * Returns the number of distinct interned words, including all their prefixes.
+     *
+     * @return the number of distinct interned words
+     */
+    int size() {
+        return size;
+    }
+
+    private Node<I> lookup(Word<I> word) {
+        final Node<I> canonical = canonicalNodes.get(word);
+        if (canonical != null) {
+            return canonical;
+        }
+
+        Node<I> curr = root;
+        for (I sym : word) {
+            curr = getOrAddChild(curr, sym, word.length());
+        }
+
+        return curr;
+    }
+
+    private Node<I> getOrAddChild(Node<I> node, I symbol, int capacity) {
+        final Node<I> child = node.getChild(symbol);
+        if (child != null) {
+            return child;
+        }
+
+        final int length = node.word.length();
+        SymbolBuffer buffer = node.buffer;
+
+        if (buffer.size != length) {
+            // the array already continues with another extension of the node, hence start a new one
+            buffer = new SymbolBuffer(Math.max(capacity, length + 2));
+            for (int i = 0; i < length; i++) {
+                buffer.symbols[i] = node.word.getSymbol(i);
+            }
+            buffer.size = length;
+        }
+
+        buffer.add(symbol);
+
+        final Node<I> result = new Node<>(new SymbolView<>(buffer.symbols, length + 1), buffer);
+        node.addChild(symbol, result);
+        canonicalNodes.put(result.word, result);
+        size++;
+
+        return result;
+    }
+
+    private static final class Node<I> {
+
+        private final Word<I> word;
+        private final SymbolBuffer buffer;
+        @Nullable
+        private Node<I> firstChild;
+        @Nullable
+        private Map<I, Node<I>> moreChildren;
+
+        Node(Word<I> word, SymbolBuffer buffer) {
+            this.word = word;
+            this.buffer = buffer;
+        }
+
+        @Nullable
+        Node<I> getChild(I symbol) {
+            if (firstChild != null && Objects.equals(firstChild.word.lastSymbol(), symbol)) {
+                return firstChild;
+            }
+            return moreChildren == null ? null : moreChildren.get(symbol);
+        }
+
+        void addChild(I symbol, Node<I> child) {
+            // most nodes (e.g. the ones of long prefix rows) have at most one child, which does not need a map
+            if (firstChild == null) {
+                firstChild = child;
+            } else {
+                if (moreChildren == null) {
+                    moreChildren = new HashMap<>(4);
+                }
+                moreChildren.put(symbol, child);
+            }
+        }
+    }
+
+    /**
+     * The growable symbol array shared by the words along a path of the prefix tree. Only the first {@link #size}
+     * symbols are in use; words are views of a prefix of (a previous version of) the array, which is never modified
+     * within the range of an existing view.
+     */
+    private static final class SymbolBuffer {
+
+        private Object[] symbols;
+        private int size;
+
+        SymbolBuffer(int capacity) {
+            this.symbols = new Object[capacity];
+        }
+
+        void add(Object symbol) {
+            if (size == symbols.length) {
+                // existing views keep referencing the previous array
+                symbols = Arrays.copyOf(symbols, size + (size >> 1) + 1);
+            }
+            symbols[size++] = symbol;
+        }
+    }
+
+    /**
+     * A word consisting of the first symbols of a (possibly longer) shared array.
+     */
+    private static final class SymbolView<I> extends Word<I> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] symbols;
+        private final int length;
+
+        SymbolView(Object[] symbols, int length) {
+            this.symbols = symbols;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public I getSymbol(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return (I) symbols[index];
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.datastructure.observationtable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the incremental consistency check of {@link GenericObservationTable} against the (non-incremental) default
+ * implementation of {@link ObservationTable#findInconsistency()}.
+ */
+public class GenericObservationTableTest {
+
+    private static final Alphabet<Character> ALPHABET = Alphabets.characters('a', 'b');
+
+    /**
+     * Accepts all words, whose number of 'a's is divisible by three.
+     */
+    private static final MembershipOracle<Character, Boolean> ORACLE = queries -> {
+        for (Query<Character, Boolean> q : queries) {
+            int count = 0;
+            for (Character c : q.getInput()) {
+                if (c == 'a') {
+                    count++;
+                }
+            }
+            q.answer(count % 3 == 0);
+        }
+    };
+
+    @Test
+    public void testIncrementalConsistencyCheck() {
+        final GenericObservationTable<Character, Boolean> table = new GenericObservationTable<>(ALPHABET);
+        final ObservationTable<Character, Boolean> reference = new ReferenceTable<>(table);
+
+        final List<Word<Character>> prefixes = new ArrayList<>();
+        prefixes.add(Word.epsilon());
+        prefixes.add(Word.fromLetter('a'));
+        prefixes.add(Word.fromLetter('b'));
+        prefixes.add(Word.fromCharSequence("aa"));
+        prefixes.add(Word.fromCharSequence("ab"));
+        prefixes.add(Word.fromCharSequence("ba"));
+        prefixes.add(Word.fromCharSequence("bb"));
+
+        table.initialize(prefixes, Collections.singletonList(Word.epsilon()), ORACLE);
+
+        Inconsistency<Character> incons = table.findInconsistency();
+        Assert.assertNotNull(incons);
+
+        while (incons != null) {
+            assertSameInconsistency(incons, reference.findInconsistency());
+            // repeated checks without modifications have to yield the same result
+            assertSameInconsistency(incons, table.findInconsistency());
+
+            final int symIdx = ALPHABET.getSymbolIndex(incons.getSymbol());
+            final int suffixIdx = table.findDistinguishingSuffixIndex(incons.getFirstRow().getSuccessor(symIdx),
+                                                                      incons.getSecondRow().getSuccessor(symIdx));
+            table.addSuffix(table.getSuffix(suffixIdx).prepend(incons.getSymbol()), ORACLE);
+            incons = table.findInconsistency();
+        }
+
+        Assert.assertNull(reference.findInconsistency());
+        Assert.assertTrue(table.isConsistent());
+    }
+
+    @Test
+    public void testBatchedQueries() {
+        final GenericObservationTable<Character, Boolean> unbounded = new GenericObservationTable<>(ALPHABET);
+        final GenericObservationTable<Character, Boolean> batched = new GenericObservationTable<>(ALPHABET);
+        batched.setMaxQueryBatchSize(3);
+
+        final List<Word<Character>> suffixes = new ArrayList<>();
+        suffixes.add(Word.epsilon());
+        suffixes.add(Word.fromLetter('a'));
+
+        final List<Integer> batchSizes = new ArrayList<>();
+        final MembershipOracle<Character, Boolean> countingOracle = queries -> {
+            batchSizes.add(queries.size());
+            ORACLE.processQueries(queries);
+        };
+
+        unbounded.initialize(Collections.singletonList(Word.epsilon()), suffixes, ORACLE);
+        batched.initialize(Collections.singletonList(Word.epsilon()), suffixes, countingOracle);
+
+        unbounded.addShortPrefixes(Collections.singletonList(Word.fromLetter('a')), ORACLE);
+        batched.addShortPrefixes(Collections.singletonList(Word.fromLetter('a')), countingOracle);
+
+        unbounded.addSuffix(Word.fromCharSequence("aa"), ORACLE);
+        batched.addSuffix(Word.fromCharSequence("aa"), countingOracle);
+
+        Assert.assertFalse(batchSizes.isEmpty());
+        for (Integer size : batchSizes) {
+            Assert.assertTrue(size <= 3);
+        }
+
+        Assert.assertEquals(batched.numberOfRows(), unbounded.numberOfRows());
+        for (Row<Character> row : unbounded.getAllRows()) {
+            Assert.assertEquals(batched.rowContents(batched.getRow(row.getRowId())), unbounded.rowContents(row));
+        }
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        final GenericObservationTable<Character, Boolean> table = new GenericObservationTable<>(ALPHABET);
+
+        // a long access sequence, whose labels share their symbol storage
+        final List<Word<Character>> prefixes = new ArrayList<>();
+        Word<Character> prefix = Word.epsilon();
+        for (int i = 0; i < 500; i++) {
+            prefixes.add(prefix);
+            prefix = prefix.append('a');
+        }
+
+        table.initialize(prefixes, Collections.singletonList(Word.epsilon()), ORACLE);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(table);
+        }
+
+        final Object deserialized;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            deserialized = ois.readObject();
+        }
+
+        @SuppressWarnings("unchecked")
+        final GenericObservationTable<Character, Boolean> copy =
+                (GenericObservationTable<Character, Boolean>) deserialized;
+        copy.setInputAlphabet(ALPHABET);
+
+        Assert.assertEquals(copy.numberOfRows(), table.numberOfRows());
+        for (Row<Character> row : table.getAllRows()) {
+            Assert.assertEquals(copy.getRow(row.getRowId()).getLabel(), row.getLabel());
+        }
+
+        // the deserialized table can still be extended
+        table.addShortPrefixes(Collections.singletonList(prefix), ORACLE);
+        copy.addShortPrefixes(Collections.singletonList(prefix), ORACLE);
+        Assert.assertEquals(copy.numberOfRows(), table.numberOfRows());
+    }
+
+    private static void assertSameInconsistency(Inconsistency<Character> actual, Inconsistency<Character> expected) {
+        Assert.assertNotNull(expected);
+        Assert.assertEquals(actual.getFirstRow(), expected.getFirstRow());
+        Assert.assertEquals(actual.getSecondRow(), expected.getSecondRow());
+        Assert.assertEquals(actual.getSymbol(), expected.getSymbol());
+    }
+
+    /**
+     * Delegating observation table that only forwards the abstract methods, so that the default implementations of
+     * {@link ObservationTable} are used.
+     */
+    private static final class ReferenceTable<I, D> implements ObservationTable<I, D> {
+
+        private final ObservationTable<I, D> delegate;
+
+        ReferenceTable(ObservationTable<I, D> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Alphabet<I> getInputAlphabet() {
+            return delegate.getInputAlphabet();
+        }
+
+        @Nonnull
+        @Override
+        public Collection<Row<I>> getShortPrefixRows() {
+            return delegate.getShortPrefixRows();
+        }
+
+        @Nonnull
+        @Override
+        public Collection<Row<I>> getLongPrefixRows() {
+            return delegate.getLongPrefixRows();
+        }
+
+        @Nullable
+        @Override
+        public Row<I> getRow(int idx) {
+            return delegate.getRow(idx);
+        }
+
+        @Override
+        public int numberOfDistinctRows() {
+            return delegate.numberOfDistinctRows();
+        }
+
+        @Nonnull
+        @Override
+        public List<Word<I>> getSuffixes() {
+            return delegate.getSuffixes();
+        }
+
+        @Override
+        public List<D> rowContents(Row<I> row) {
+            return delegate.rowContents(row);
+        }
+
+        @Override
+        public Word<I> transformAccessSequence(Word<I> word) {
+            return delegate.transformAccessSequence(word);
+        }
+
+        @Override
+        public boolean isAccessSequence(Word<I> word) {
+            return delegate.isAccessSequence(word);
+        }
+    }
+}
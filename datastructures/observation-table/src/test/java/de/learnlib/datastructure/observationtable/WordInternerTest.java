@@ -0,0 +1,93 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.datastructure.observationtable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.automatalib.words.Word;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class WordInternerTest {
+
+    @Test
+    public void testCanonicalInstances() {
+        final WordInterner<Character> interner = new WordInterner<>();
+
+        final Word<Character> ab = interner.intern(Word.fromCharSequence("ab"));
+        Assert.assertEquals(ab, Word.fromCharSequence("ab"));
+        Assert.assertSame(interner.intern(Word.fromCharSequence("ab")), ab);
+        Assert.assertSame(interner.append(interner.intern(Word.fromLetter('a')), 'b'), ab);
+
+        final Word<Character> abc = interner.append(ab, 'c');
+        Assert.assertEquals(abc, Word.fromCharSequence("abc"));
+        Assert.assertSame(interner.append(ab, 'c'), abc);
+        Assert.assertSame(interner.intern(Word.fromCharSequence("abc")), abc);
+
+        Assert.assertSame(interner.intern(Word.epsilon()), Word.epsilon());
+        Assert.assertEquals(interner.append(Word.epsilon(), 'b'), Word.fromLetter('b'));
+
+        // epsilon, a, ab, abc, b
+        Assert.assertEquals(interner.size(), 5);
+    }
+
+    @Test
+    public void testPrefixesOfInternedWord() {
+        final WordInterner<Character> interner = new WordInterner<>();
+        final Word<Character> word = Word.fromCharSequence("abcd");
+        final Word<Character> interned = interner.intern(word);
+
+        Assert.assertEquals(interned, word);
+
+        for (int i = 0; i <= word.length(); i++) {
+            final Word<Character> prefix = word.prefix(i);
+            final Word<Character> internedPrefix = interner.intern(prefix);
+            Assert.assertEquals(internedPrefix, prefix);
+            Assert.assertSame(interner.intern(prefix), internedPrefix);
+        }
+
+        Assert.assertEquals(interner.size(), word.length() + 1);
+    }
+
+    @Test
+    public void testExtensionsDoNotAffectExistingWords() {
+        final WordInterner<Character> interner = new WordInterner<>();
+        final List<Word<Character>> interned = new ArrayList<>();
+        final List<Word<Character>> expected = new ArrayList<>();
+
+        // grow a long path (beyond the initial array capacity) and branch off every prefix of it
+        Word<Character> current = Word.epsilon();
+        for (int i = 0; i < 32; i++) {
+            final Word<Character> branch = interner.append(current, 'b');
+            interned.add(branch);
+            expected.add(current.append('b'));
+
+            current = interner.append(current, 'a');
+            interned.add(current);
+            expected.add(branch.prefix(i).append('a'));
+        }
+
+        Assert.assertEquals(interned, expected);
+
+        for (Word<Character> word : expected) {
+            Assert.assertEquals(interner.intern(word), word);
+        }
+
+        // epsilon, 32 times 'a' and one branch per 'a'-prefix
+        Assert.assertEquals(interner.size(), 1 + 2 * 32);
+    }
+}
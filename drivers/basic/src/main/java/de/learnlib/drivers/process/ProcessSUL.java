@@ -0,0 +1,155 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import de.learnlib.api.SUL;
+import de.learnlib.api.exception.SULException;
+
+/**
+ * A {@link SUL} that delegates each call to a system under learning running in a separate worker (usually a separate
+ * process, see {@link ProcessSULs#processConnector(java.util.List)} and {@link SULWorker}).
+ * <p>
+ * Since every call requires a round trip to the worker, this SUL is mostly useful for algorithms that require
+ * symbol-wise interaction. For answering membership queries, {@link ProcessSULOracle} should be preferred.
+ * <p>
+ * If the worker crashes or hangs up, the current call fails with a {@link SULException} and a new worker is launched
+ * upon the next call to {@link #pre()}. If a deadline for the responses of the worker is configured, a worker that does
+ * not respond in time is terminated as well. This SUL can be {@link #fork() forked}, where every fork launches its own
+ * worker.
+ * <p>
+ * Note: workers are terminated by {@link #close()}, not by {@link #post()}.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <O>
+ *         output symbol type
+ */
+@ParametersAreNonnullByDefault
+public class ProcessSUL<I, O> implements SUL<I, O>, AutoCloseable {
+
+    private final Supplier<? extends WorkerConnection> connector;
+    private final SymbolCodec<I> inputCodec;
+    private final SymbolCodec<O> outputCodec;
+    private final long responseTimeoutMillis;
+    private final WorkerClient<I, O> client;
+
+    private boolean broken;
+
+    public ProcessSUL(Supplier<? extends WorkerConnection> connector,
+                      SymbolCodec<I> inputCodec,
+                      SymbolCodec<O> outputCodec) {
+        this(connector, inputCodec, outputCodec, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connector
+     *         the supplier for connections to (newly launched) workers
+     * @param inputCodec
+     *         the codec for input symbols
+     * @param outputCodec
+     *         the codec for output symbols
+     * @param responseTimeout
+     *         the maximum time to wait for the response to a single call, or {@code 0} for no deadline
+     * @param timeUnit
+     *         the time unit of the response timeout
+     */
+    public ProcessSUL(Supplier<? extends WorkerConnection> connector,
+                      SymbolCodec<I> inputCodec,
+                      SymbolCodec<O> outputCodec,
+                      @Nonnegative long responseTimeout,
+                      TimeUnit timeUnit) {
+        this.connector = connector;
+        this.inputCodec = inputCodec;
+        this.outputCodec = outputCodec;
+        this.responseTimeoutMillis = timeUnit.toMillis(responseTimeout);
+        this.client = new WorkerClient<>(connector, inputCodec, outputCodec, responseTimeoutMillis);
+    }
+
+    @Override
+    public void pre() {
+        if (broken) {
+            client.restart();
+            broken = false;
+        }
+
+        try {
+            client.pre();
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+
+    @Override
+    public O step(I in) {
+        try {
+            return client.step(in);
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+
+    @Override
+    public void post() {
+        try {
+            client.post();
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+
+    private SULException fail(IOException e) {
+        broken = true;
+        return new SULException(e);
+    }
+
+    /**
+     * Returns the number of times the worker has been restarted after a crash.
+     *
+     * @return the number of worker restarts
+     */
+    public int getNumRestarts() {
+        return client.getNumRestarts();
+    }
+
+    @Override
+    public boolean canFork() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public ProcessSUL<I, O> fork() {
+        return new ProcessSUL<>(connector, inputCodec, outputCodec, responseTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Terminates the current worker.
+     */
+    @Override
+    public void close() {
+        client.close();
+    }
+}
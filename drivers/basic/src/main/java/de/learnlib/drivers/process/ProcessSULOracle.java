@@ -0,0 +1,179 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import de.learnlib.api.exception.SULException;
+import de.learnlib.api.logging.LearnLogger;
+import de.learnlib.api.oracle.MembershipOracle.MealyMembershipOracle;
+import de.learnlib.api.query.Query;
+import net.automatalib.words.Word;
+
+/**
+ * A {@link MealyMembershipOracle} that answers queries using a system under learning running in a separate worker
+ * (usually a separate process, see {@link ProcessSULs#processConnector(java.util.List)} and {@link SULWorker}).
+ * <p>
+ * Each batch of queries is transmitted to the worker in a single round trip, which executes all queries (including the
+ * {@link de.learnlib.api.SUL#pre() pre} and {@link de.learnlib.api.SUL#post() post} calls) locally. Compared to
+ * stepping a remote SUL symbol by symbol, this avoids paying the communication latency for every input symbol.
+ * <p>
+ * If the worker crashes or hangs up, it is restarted and the batch is retried, at most {@code maxRestarts} times in
+ * a row. Exceptions thrown by the SUL itself are not retried, but reported as {@link SULException}s. Optionally, the
+ * worker can be restarted proactively after a given number of queries, e.g. to bound the effects of resource leaks
+ * in the SUL.
+ * <p>
+ * Furthermore, a deadline for the responses of the worker can be configured. A worker that does not answer a batch in
+ * time is considered hung: it is terminated (and restarted upon the next batch) and the batch fails with a
+ * {@link SULException}. Without a deadline, a hung worker blocks the oracle indefinitely.
+ * <p>
+ * This oracle is thread-safe, but processes one batch at a time. For parallel query processing, use one oracle (and
+ * hence one worker) per thread, e.g. via the builders of the {@code learnlib-parallelism} module.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <O>
+ *         output symbol type
+ */
+@ParametersAreNonnullByDefault
+public class ProcessSULOracle<I, O> implements MealyMembershipOracle<I, O>, AutoCloseable {
+
+    private static final LearnLogger LOGGER = LearnLogger.getLogger(ProcessSULOracle.class);
+
+    private final WorkerClient<I, O> client;
+    private final int maxRestarts;
+    private final long maxQueriesPerWorker;
+
+    /**
+     * Constructor, which restarts crashed workers at most three times in a row and never restarts healthy workers.
+     *
+     * @param connector
+     *         the supplier for connections to (newly launched) workers
+     * @param inputCodec
+     *         the codec for input symbols
+     * @param outputCodec
+     *         the codec for output symbols
+     */
+    public ProcessSULOracle(Supplier<? extends WorkerConnection> connector,
+                            SymbolCodec<I> inputCodec,
+                            SymbolCodec<O> outputCodec) {
+        this(connector, inputCodec, outputCodec, 3, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connector
+     *         the supplier for connections to (newly launched) workers
+     * @param inputCodec
+     *         the codec for input symbols
+     * @param outputCodec
+     *         the codec for output symbols
+     * @param maxRestarts
+     *         the maximum number of consecutive restarts of a crashed worker, before the batch is considered failed
+     * @param maxQueriesPerWorker
+     *         the number of queries after which a worker is restarted proactively
+     */
+    public ProcessSULOracle(Supplier<? extends WorkerConnection> connector,
+                            SymbolCodec<I> inputCodec,
+                            SymbolCodec<O> outputCodec,
+                            @Nonnegative int maxRestarts,
+                            @Nonnegative long maxQueriesPerWorker) {
+        this(connector, inputCodec, outputCodec, maxRestarts, maxQueriesPerWorker, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connector
+     *         the supplier for connections to (newly launched) workers
+     * @param inputCodec
+     *         the codec for input symbols
+     * @param outputCodec
+     *         the codec for output symbols
+     * @param maxRestarts
+     *         the maximum number of consecutive restarts of a crashed worker, before the batch is considered failed
+     * @param maxQueriesPerWorker
+     *         the number of queries after which a worker is restarted proactively
+     * @param responseTimeout
+     *         the maximum time to wait for the answers to a batch, or {@code 0} for no deadline
+     * @param timeUnit
+     *         the time unit of the response timeout
+     */
+    public ProcessSULOracle(Supplier<? extends WorkerConnection> connector,
+                            SymbolCodec<I> inputCodec,
+                            SymbolCodec<O> outputCodec,
+                            @Nonnegative int maxRestarts,
+                            @Nonnegative long maxQueriesPerWorker,
+                            @Nonnegative long responseTimeout,
+                            TimeUnit timeUnit) {
+        if (maxQueriesPerWorker <= 0) {
+            throw new IllegalArgumentException("maxQueriesPerWorker must be positive");
+        }
+        this.client = new WorkerClient<>(connector, inputCodec, outputCodec, timeUnit.toMillis(responseTimeout));
+        this.maxRestarts = maxRestarts;
+        this.maxQueriesPerWorker = maxQueriesPerWorker;
+    }
+
+    @Override
+    public synchronized void processQueries(Collection<? extends Query<I, Word<O>>> queries) {
+        if (queries.isEmpty()) {
+            return;
+        }
+
+        if (client.getNumQueries() >= maxQueriesPerWorker) {
+            client.restart();
+        }
+
+        int attempt = 0;
+        while (true) {
+            try {
+                client.processQueries(queries);
+                return;
+            } catch (IOException e) {
+                client.restart();
+                if (attempt++ >= maxRestarts) {
+                    throw new SULException(e);
+                }
+                LOGGER.warn("Worker failed, restarting (attempt " + attempt + " of " + maxRestarts + ')', e);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of times the worker has been restarted, either because it crashed or because it exceeded the
+     * configured number of queries.
+     *
+     * @return the number of worker restarts
+     */
+    public synchronized int getNumRestarts() {
+        return client.getNumRestarts();
+    }
+
+    /**
+     * Terminates the current worker.
+     */
+    @Override
+    public synchronized void close() {
+        client.close();
+    }
+}
@@ -0,0 +1,134 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Factory methods for running systems under learning in separate worker processes.
+ * <p>
+ * Usage example:
+ * <pre>
+ * List&lt;String&gt; command = ProcessSULs.javaWorkerCommand(MySULWorkerFactory.class);
+ * ProcessSULOracle&lt;String, String&gt; oracle = new ProcessSULOracle&lt;&gt;(ProcessSULs.processConnector(command),
+ *                                                                      SymbolCodecs.strings(),
+ *                                                                      SymbolCodecs.strings());
+ * </pre>
+ */
+@ParametersAreNonnullByDefault
+public final class ProcessSULs {
+
+    private static final long TERMINATION_TIMEOUT_MS = 1000;
+
+    private ProcessSULs() {
+        throw new AssertionError("Constructor should not be invoked");
+    }
+
+    /**
+     * Returns a connector that launches a new worker process with the given command for every connection. The worker
+     * communicates via its standard input and output, its standard error is inherited from the current process.
+     * Closing the connection closes the standard input of the worker and, if it does not terminate in time, destroys
+     * it forcibly.
+     *
+     * @param command
+     *         the command (and its arguments) that launches the worker process
+     *
+     * @return the connector
+     */
+    public static Supplier<WorkerConnection> processConnector(List<String> command) {
+        final List<String> commandCopy = new ArrayList<>(command);
+        return () -> {
+            try {
+                final Process process =
+                        new ProcessBuilder(commandCopy).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                return new ProcessConnection(process);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Returns the command for launching a {@link SULWorker} in a new JVM, which uses the same Java installation and
+     * class path as the current JVM.
+     *
+     * @param factoryClass
+     *         the class of the factory of the SUL, which must have a public no-arg constructor
+     * @param jvmArgs
+     *         additional arguments for the JVM, e.g. memory settings
+     *
+     * @return the command
+     */
+    @SuppressWarnings("rawtypes")
+    public static List<String> javaWorkerCommand(Class<? extends SULWorkerFactory> factoryClass, String... jvmArgs) {
+        final String javaHome = System.getProperty("java.home");
+        final String java = javaHome + File.separator + "bin" + File.separator + "java";
+
+        final List<String> command = new ArrayList<>(jvmArgs.length + 5);
+        command.add(java);
+        command.addAll(Arrays.asList(jvmArgs));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SULWorker.class.getName());
+        command.add(factoryClass.getName());
+
+        return command;
+    }
+
+    private static final class ProcessConnection implements WorkerConnection {
+
+        private final Process process;
+
+        ProcessConnection(Process process) {
+            this.process = process;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return process.getInputStream();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return process.getOutputStream();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                process.getOutputStream().close();
+                process.getInputStream().close();
+                if (!process.waitFor(TERMINATION_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import de.learnlib.api.SUL;
+
+/**
+ * The worker side of a process-isolated system under learning (see {@link ProcessSULOracle} and {@link ProcessSUL}).
+ * The worker reads requests from an input stream, executes them on its SUL and writes the responses to an output
+ * stream, until it receives a quit request or the input stream is closed.
+ * <p>
+ * The {@link #main(String[])} method runs a worker process that communicates via its standard input and output. SUL
+ * implementations should not write to {@link System#out}, but this is caught by redirecting it to {@link System#err}.
+ */
+@ParametersAreNonnullByDefault
+public final class SULWorker {
+
+    private static final int MAX_MESSAGE_LENGTH = 1024;
+
+    private SULWorker() {
+        throw new AssertionError("Constructor should not be invoked");
+    }
+
+    /**
+     * Runs a worker process.
+     *
+     * @param args
+     *         the (fully qualified) class name of the {@link SULWorkerFactory} of the SUL to run
+     *
+     * @throws Exception
+     *         if the factory cannot be instantiated or the communication fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: SULWorker <fully qualified SULWorkerFactory class>");
+        }
+
+        final SULWorkerFactory<?, ?> factory =
+                (SULWorkerFactory<?, ?>) Class.forName(args[0]).getConstructor().newInstance();
+
+        final PrintStream stdout = System.out;
+        System.setOut(System.err);
+
+        serve(factory, System.in, stdout);
+    }
+
+    /**
+     * Serves requests from the given input stream until a quit request is received or the stream is closed.
+     *
+     * @param factory
+     *         the factory of the SUL
+     * @param requests
+     *         the stream of requests
+     * @param responses
+     *         the stream of responses
+     * @param <I>
+     *         input symbol type
+     * @param <O>
+     *         output symbol type
+     *
+     * @throws IOException
+     *         if the communication fails
+     */
+    public static <I, O> void serve(SULWorkerFactory<I, O> factory, InputStream requests, OutputStream responses)
+            throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(requests));
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(responses));
+        final SymbolCodec<I> inputCodec = factory.getInputCodec();
+        final SymbolCodec<O> outputCodec = factory.getOutputCodec();
+        final SUL<I, O> sul = factory.createSUL();
+
+        while (true) {
+            final int op = in.read();
+
+            switch (op) {
+                case -1:
+                case SULWorkerProtocol.OP_QUIT:
+                    return;
+                case SULWorkerProtocol.OP_QUERIES:
+                    processQueries(sul, in, out, inputCodec, outputCodec);
+                    break;
+                case SULWorkerProtocol.OP_PRE:
+                    try {
+                        sul.pre();
+                        out.writeByte(SULWorkerProtocol.STATUS_OK);
+                    } catch (RuntimeException e) {
+                        writeError(out, e);
+                    }
+                    break;
+                case SULWorkerProtocol.OP_STEP:
+                    processStep(sul, in, out, inputCodec, outputCodec);
+                    break;
+                case SULWorkerProtocol.OP_POST:
+                    try {
+                        sul.post();
+                        out.writeByte(SULWorkerProtocol.STATUS_OK);
+                    } catch (RuntimeException e) {
+                        writeError(out, e);
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown opcode " + op);
+            }
+
+            out.flush();
+        }
+    }
+
+    private static <I, O> void processStep(SUL<I, O> sul,
+                                           DataInputStream in,
+                                           DataOutputStream out,
+                                           SymbolCodec<I> inputCodec,
+                                           SymbolCodec<O> outputCodec) throws IOException {
+        final I input = inputCodec.read(in);
+        final O output;
+
+        try {
+            output = sul.step(input);
+        } catch (RuntimeException e) {
+            writeError(out, e);
+            return;
+        }
+
+        out.writeByte(SULWorkerProtocol.STATUS_OK);
+        outputCodec.write(out, output);
+    }
+
+    private static <I, O> void processQueries(SUL<I, O> sul,
+                                              DataInputStream in,
+                                              DataOutputStream out,
+                                              SymbolCodec<I> inputCodec,
+                                              SymbolCodec<O> outputCodec) throws IOException {
+        // read the complete request first, so that errors do not leave unread data in the stream
+        final int numQueries = in.readInt();
+        final List<List<I>> words = new ArrayList<>(numQueries);
+        final int[] prefixLengths = new int[numQueries];
+
+        for (int i = 0; i < numQueries; i++) {
+            prefixLengths[i] = in.readInt();
+            final int length = prefixLengths[i] + in.readInt();
+            final List<I> word = new ArrayList<>(length);
+            for (int j = 0; j < length; j++) {
+                word.add(inputCodec.read(in));
+            }
+            words.add(word);
+        }
+
+        final List<O> outputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < numQueries; i++) {
+                final List<I> word = words.get(i);
+                sul.pre();
+                try {
+                    for (int j = 0; j < word.size(); j++) {
+                        final O output = sul.step(word.get(j));
+                        if (j >= prefixLengths[i]) {
+                            outputs.add(output);
+                        }
+                    }
+                } finally {
+                    sul.post();
+                }
+            }
+        } catch (RuntimeException e) {
+            writeError(out, e);
+            return;
+        }
+
+        out.writeByte(SULWorkerProtocol.STATUS_OK);
+        for (O output : outputs) {
+            outputCodec.write(out, output);
+        }
+    }
+
+    private static void writeError(DataOutputStream out, RuntimeException e) throws IOException {
+        final String message = String.valueOf(e);
+        out.writeByte(SULWorkerProtocol.STATUS_ERROR);
+        out.writeUTF(message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message);
+    }
+}
@@ -0,0 +1,37 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+import de.learnlib.api.SUL;
+
+/**
+ * Provides the system under learning and the symbol encodings of a {@link SULWorker worker process}.
+ * <p>
+ * Implementations that are launched via {@link SULWorker#main(String[])} need a public no-argument constructor.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <O>
+ *         output symbol type
+ */
+public interface SULWorkerFactory<I, O> {
+
+    SUL<I, O> createSUL();
+
+    SymbolCodec<I> getInputCodec();
+
+    SymbolCodec<O> getOutputCodec();
+}
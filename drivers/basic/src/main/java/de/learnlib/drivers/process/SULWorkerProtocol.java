@@ -0,0 +1,45 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+/**
+ * Constants of the binary protocol between learner and {@link SULWorker worker}.
+ * <p>
+ * Every request starts with an opcode byte and is answered by a status byte, followed by the payload of the response
+ * (if the status is {@link #STATUS_OK}) or an error message (if the status is {@link #STATUS_ERROR}):
+ * <ul>
+ * <li>{@link #OP_QUERIES}: the number of queries, followed by the prefix length, the suffix length and the symbols of
+ * each query. The response contains the outputs of the suffix of each query.</li>
+ * <li>{@link #OP_PRE}, {@link #OP_POST}: no payload.</li>
+ * <li>{@link #OP_STEP}: the input symbol. The response contains the output symbol.</li>
+ * <li>{@link #OP_QUIT}: no payload and no response; the worker terminates.</li>
+ * </ul>
+ */
+final class SULWorkerProtocol {
+
+    static final int OP_QUIT = 0;
+    static final int OP_QUERIES = 1;
+    static final int OP_PRE = 2;
+    static final int OP_STEP = 3;
+    static final int OP_POST = 4;
+
+    static final int STATUS_OK = 0;
+    static final int STATUS_ERROR = 1;
+
+    private SULWorkerProtocol() {
+        throw new AssertionError("Constructor should not be invoked");
+    }
+}
@@ -0,0 +1,36 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary encoding of input or output symbols for the communication with {@link SULWorker worker processes}. Both the
+ * learner and the worker process need to use equivalent codecs.
+ *
+ * @param <T>
+ *         symbol type
+ *
+ * @see SymbolCodecs
+ */
+public interface SymbolCodec<T> {
+
+    void write(DataOutput out, T symbol) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
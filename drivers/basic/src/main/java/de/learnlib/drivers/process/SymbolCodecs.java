@@ -0,0 +1,121 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import net.automatalib.words.Alphabet;
+
+/**
+ * Factory methods for common {@link SymbolCodec}s.
+ */
+@ParametersAreNonnullByDefault
+public final class SymbolCodecs {
+
+    private static final int MAX_ALPHABET_INDEX = 0xFFFF;
+
+    private SymbolCodecs() {
+        throw new AssertionError("Constructor should not be invoked");
+    }
+
+    /**
+     * Returns a codec for (possibly {@code null}) strings.
+     *
+     * @return a codec for strings
+     */
+    public static SymbolCodec<String> strings() {
+        return StringCodec.INSTANCE;
+    }
+
+    /**
+     * Returns a codec for integers.
+     *
+     * @return a codec for integers
+     */
+    public static SymbolCodec<Integer> integers() {
+        return IntegerCodec.INSTANCE;
+    }
+
+    /**
+     * Returns a codec that encodes the symbols of the given alphabet by their index. This is the most compact
+     * encoding, but requires that the learner and the worker process use alphabets with the same symbol order. The
+     * alphabet may contain at most 65536 symbols.
+     *
+     * @param alphabet
+     *         the alphabet
+     * @param <T>
+     *         symbol type
+     *
+     * @return a codec for the symbols of the given alphabet
+     */
+    public static <T> SymbolCodec<T> alphabet(Alphabet<T> alphabet) {
+        return new SymbolCodec<T>() {
+
+            @Override
+            public void write(DataOutput out, T symbol) throws IOException {
+                final int idx = alphabet.getSymbolIndex(symbol);
+                if (idx < 0 || idx > MAX_ALPHABET_INDEX) {
+                    throw new IOException("Symbol " + symbol + " cannot be encoded by its alphabet index");
+                }
+                out.writeShort(idx);
+            }
+
+            @Override
+            public T read(DataInput in) throws IOException {
+                final int idx = in.readUnsignedShort();
+                if (idx >= alphabet.size()) {
+                    throw new IOException("Symbol index " + idx + " exceeds the alphabet size");
+                }
+                return alphabet.getSymbol(idx);
+            }
+        };
+    }
+
+    private enum StringCodec implements SymbolCodec<String> {
+        INSTANCE;
+
+        @Override
+        public void write(DataOutput out, String symbol) throws IOException {
+            out.writeBoolean(symbol != null);
+            if (symbol != null) {
+                out.writeUTF(symbol);
+            }
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+    }
+
+    private enum IntegerCodec implements SymbolCodec<Integer> {
+        INSTANCE;
+
+        @Override
+        public void write(DataOutput out, Integer symbol) throws IOException {
+            out.writeInt(symbol);
+        }
+
+        @Override
+        public Integer read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import de.learnlib.api.exception.SULException;
+import de.learnlib.api.query.Query;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+
+/**
+ * The learner side of the {@link SULWorkerProtocol}. Connections are established lazily, so that a (re)started worker
+ * is only launched once it is needed.
+ * <p>
+ * Communication failures are signaled by {@link IOException}s, after which the client should be {@link #restart()
+ * restarted}. Failures of the SUL itself are signaled by {@link SULException}s and leave the worker intact.
+ * <p>
+ * Optionally, the responses of the worker are subject to a deadline. If the worker does not respond in time, its
+ * connection is closed (which terminates the worker), the client is restarted and a {@link SULException} is thrown.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <O>
+ *         output symbol type
+ */
+@ParametersAreNonnullByDefault
+final class WorkerClient<I, O> implements Closeable {
+
+    private final Supplier<? extends WorkerConnection> connector;
+    private final SymbolCodec<I> inputCodec;
+    private final SymbolCodec<O> outputCodec;
+    private final long responseTimeoutMillis;
+
+    @Nullable
+    private WorkerConnection connection;
+    private DataInputStream in;
+    private DataOutputStream out;
+
+    @Nullable
+    private ScheduledFuture<?> deadline;
+    private volatile boolean timedOut;
+
+    private long numQueries;
+    private int numRestarts;
+
+    /**
+     * Constructor.
+     *
+     * @param connector
+     *         the supplier for connections to (newly launched) workers
+     * @param inputCodec
+     *         the codec for input symbols
+     * @param outputCodec
+     *         the codec for output symbols
+     * @param responseTimeoutMillis
+     *         the maximum time (in milliseconds) to wait for the response to a single request, or {@code 0} for no
+     *         deadline
+     */
+    WorkerClient(Supplier<? extends WorkerConnection> connector,
+                 SymbolCodec<I> inputCodec,
+                 SymbolCodec<O> outputCodec,
+                 long responseTimeoutMillis) {
+        this.connector = connector;
+        this.inputCodec = inputCodec;
+        this.outputCodec = outputCodec;
+        this.responseTimeoutMillis = responseTimeoutMillis;
+    }
+
+    void processQueries(Collection<? extends Query<I, Word<O>>> queries) throws IOException {
+        final DataOutputStream out = connect();
+
+        out.writeByte(SULWorkerProtocol.OP_QUERIES);
+        out.writeInt(queries.size());
+        for (Query<I, Word<O>> q : queries) {
+            final Word<I> prefix = q.getPrefix();
+            final Word<I> suffix = q.getSuffix();
+            out.writeInt(prefix.length());
+            out.writeInt(suffix.length());
+            for (I sym : prefix) {
+                inputCodec.write(out, sym);
+            }
+            for (I sym : suffix) {
+                inputCodec.write(out, sym);
+            }
+        }
+        out.flush();
+
+        // only answer the queries once the complete response has been received, so that a failed batch can be retried
+        final List<Word<O>> answers = new ArrayList<>(queries.size());
+        startDeadline();
+        try {
+            readStatus();
+            for (Query<I, Word<O>> q : queries) {
+                final int length = q.getSuffix().length();
+                final WordBuilder<O> wb = new WordBuilder<>(length);
+                for (int i = 0; i < length; i++) {
+                    wb.add(outputCodec.read(in));
+                }
+                answers.add(wb.toWord());
+            }
+        } catch (IOException e) {
+            throw checkTimeout(e);
+        } finally {
+            stopDeadline();
+        }
+
+        int idx = 0;
+        for (Query<I, Word<O>> q : queries) {
+            q.answer(answers.get(idx++));
+        }
+
+        numQueries += queries.size();
+    }
+
+    void pre() throws IOException {
+        connect().writeByte(SULWorkerProtocol.OP_PRE);
+        out.flush();
+        awaitStatus();
+    }
+
+    O step(I input) throws IOException {
+        connect().writeByte(SULWorkerProtocol.OP_STEP);
+        inputCodec.write(out, input);
+        out.flush();
+
+        startDeadline();
+        try {
+            readStatus();
+            return outputCodec.read(in);
+        } catch (IOException e) {
+            throw checkTimeout(e);
+        } finally {
+            stopDeadline();
+        }
+    }
+
+    void post() throws IOException {
+        connect().writeByte(SULWorkerProtocol.OP_POST);
+        out.flush();
+        awaitStatus();
+        numQueries++;
+    }
+
+    /**
+     * Returns the number of queries processed by the current worker.
+     *
+     * @return the number of queries processed by the current worker
+     */
+    long getNumQueries() {
+        return numQueries;
+    }
+
+    /**
+     * Returns the number of times the worker has been restarted.
+     *
+     * @return the number of restarts
+     */
+    int getNumRestarts() {
+        return numRestarts;
+    }
+
+    /**
+     * Terminates the current worker. A new worker is launched upon the next request.
+     */
+    void restart() {
+        if (connection != null) {
+            numRestarts++;
+        }
+        disconnect(false);
+    }
+
+    @Override
+    public void close() {
+        disconnect(true);
+    }
+
+    private DataOutputStream connect() throws IOException {
+        if (connection == null) {
+            try {
+                connection = connector.get();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            numQueries = 0;
+        }
+        return out;
+    }
+
+    private void disconnect(boolean graceful) {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            if (graceful) {
+                out.writeByte(SULWorkerProtocol.OP_QUIT);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the worker has already terminated
+        } finally {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                // nothing we can do here
+            }
+            connection = null;
+            in = null;
+            out = null;
+        }
+    }
+
+    private void awaitStatus() throws IOException {
+        startDeadline();
+        try {
+            readStatus();
+        } catch (IOException e) {
+            throw checkTimeout(e);
+        } finally {
+            stopDeadline();
+        }
+    }
+
+    private void startDeadline() {
+        if (responseTimeoutMillis > 0) {
+            final WorkerConnection hungConnection = connection;
+            timedOut = false;
+            deadline = Watchdog.EXECUTOR.schedule(() -> {
+                timedOut = true;
+                try {
+                    // unblocks the pending read
+                    hungConnection.close();
+                } catch (IOException e) {
+                    // nothing we can do here
+                }
+            }, responseTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void stopDeadline() {
+        if (deadline != null) {
+            deadline.cancel(false);
+            deadline = null;
+            if (timedOut) {
+                // the connection has been closed by the watchdog, even if the response arrived just in time
+                restart();
+            }
+        }
+    }
+
+    private IOException checkTimeout(IOException e) {
+        if (timedOut) {
+            restart();
+            final TimeoutException timeout =
+                    new TimeoutException("No response from worker within " + responseTimeoutMillis + "ms");
+            timeout.initCause(e);
+            throw new SULException(timeout);
+        }
+        return e;
+    }
+
+    private void readStatus() throws IOException {
+        final int status = in.readUnsignedByte();
+
+        if (status == SULWorkerProtocol.STATUS_ERROR) {
+            throw new SULException(new IllegalStateException("Worker reported: " + in.readUTF()));
+        } else if (status != SULWorkerProtocol.STATUS_OK) {
+            throw new IOException("Unexpected status " + status);
+        }
+    }
+
+    private static final class Watchdog {
+
+        static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread t = new Thread(r, "worker-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+
+        private Watchdog() {
+            throw new AssertionError("Constructor should not be invoked");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A connection to a {@link SULWorker worker}. Closing the connection terminates the worker.
+ *
+ * @see ProcessSULs#processConnector(java.util.List)
+ */
+public interface WorkerConnection extends Closeable {
+
+    /**
+     * Returns the stream of responses of the worker.
+     *
+     * @return the stream of responses of the worker
+     */
+    InputStream getInputStream();
+
+    /**
+     * Returns the stream of requests to the worker.
+     *
+     * @return the stream of requests to the worker
+     */
+    OutputStream getOutputStream();
+}
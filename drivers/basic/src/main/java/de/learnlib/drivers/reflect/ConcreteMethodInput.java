@@ -15,7 +15,6 @@
  */
 package de.learnlib.drivers.reflect;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -35,46 +34,29 @@ public class ConcreteMethodInput implements ExecutableInput<Object> {
     private final MethodInput input;
 
     /**
-     * parameter values.
+     * invocation target.
      */
-    private final Map<String, Object> values;
+    private final Object target;
 
     /**
-     * invocation target.
+     * parameter values of the call, computed once.
      */
-    private final Object target;
+    private final Object[] parameterValues;
 
     public ConcreteMethodInput(MethodInput input, Map<String, Object> values, Object target) {
         this.input = input;
-        this.values = values;
         this.target = target;
+        this.parameterValues = input.getParameterValues(values);
     }
 
     @Override
     public String toString() {
-        return target + "." + this.input.getMethod().getName() + Arrays.toString(getParameterValues());
-    }
-
-    private Object[] getParameterValues() {
-        return this.input.getParameters(values);
+        return target + "." + this.input.getMethod().getName() + Arrays.toString(this.parameterValues);
     }
 
     @Override
     public Object execute() throws SULException {
-        Object out;
-        try {
-            Object ret = this.input.getMethod().invoke(this.target, getParameterValues());
-            if (this.input.getMethod().getReturnType().equals(Void.TYPE)) {
-                out = Void.TYPE;
-            } else {
-                out = ret;
-            }
-        } catch (IllegalAccessException | IllegalArgumentException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new SULException(e.getCause());
-        }
-        return out;
+        return this.input.invoke(this.target, this.parameterValues);
     }
 
 }
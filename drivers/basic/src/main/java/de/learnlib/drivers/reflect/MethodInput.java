@@ -15,20 +15,44 @@
  */
 package de.learnlib.drivers.reflect;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import de.learnlib.api.exception.SULException;
+
 /**
  * abstract method input, may have abstract parameters.
+ * <p>
+ * The method is bound to a {@link MethodHandle} upon construction, so that executing the input does not require
+ * (access-checked) reflective calls and the handling of the return type is resolved only once. The constant parameter
+ * values are checked against the parameter types upon construction as well, while the conversion of the abstract
+ * parameter values is left to the method handle.
  *
  * @author falkhowar
  */
 public class MethodInput {
 
+    private static final MethodHandle WRAP_EXCEPTION;
+
+    static {
+        try {
+            WRAP_EXCEPTION = MethodHandles.lookup()
+                                          .findStatic(MethodInput.class,
+                                                      "wrapException",
+                                                      MethodType.methodType(Object.class, Throwable.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final String name;
 
     private final Method method;
@@ -37,11 +61,47 @@ public class MethodInput {
 
     private final Object[] values;
 
+    /**
+     * method handle of type {@code (Object, Object[])Object}, taking the target and the spread parameters.
+     */
+    private final MethodHandle handle;
+
+    private final boolean isVoid;
+
     public MethodInput(String name, Method method, Map<String, Integer> parameters, Object[] values) {
+        checkValues(method, parameters, values);
+
         this.name = name;
         this.method = method;
         this.parameters = parameters;
         this.values = values;
+        this.handle = bind(method);
+        this.isVoid = method.getReturnType().equals(Void.TYPE);
+    }
+
+    private static MethodHandle bind(Method method) {
+        MethodHandle mh;
+        try {
+            mh = MethodHandles.lookup().unreflect(method).asFixedArity();
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access method " + method, e);
+        }
+
+        if (Modifier.isStatic(method.getModifiers())) {
+            mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        }
+
+        // wrap the exceptions of the method itself, so that they can be told apart from mismatching parameter values
+        final MethodType type = mh.type();
+        final MethodHandle handler =
+                MethodHandles.dropArguments(WRAP_EXCEPTION.asType(MethodType.methodType(type.returnType(),
+                                                                                        Throwable.class)),
+                                            1,
+                                            type.parameterList());
+        mh = MethodHandles.catchException(mh, Throwable.class, handler);
+
+        return mh.asSpreader(Object[].class, method.getParameterCount())
+                 .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
     }
 
     @Override
@@ -75,6 +135,72 @@ public class MethodInput {
         return ret;
     }
 
+    /**
+     * Returns the parameter values for the given abstract parameter values. In contrast to {@link
+     * #getParameters(Map)}, the returned array may be shared and must not be modified.
+     */
+    Object[] getParameterValues(Map<String, Object> fill) {
+        return fill.isEmpty() ? this.values : getParameters(fill);
+    }
+
+    /**
+     * Invokes the method on the given target.
+     *
+     * @return the return value of the method, or {@link Void#TYPE} if the method does not return a value
+     *
+     * @throws SULException
+     *         if the invoked method throws an exception
+     * @throws ClassCastException
+     *         if the parameter values do not match the parameter types of the method (or a {@link
+     *         NullPointerException}, if the value of a primitive parameter is {@code null})
+     */
+    Object invoke(Object target, Object[] parameterValues) throws SULException {
+        final Object ret;
+        try {
+            ret = (Object) handle.invokeExact(target, parameterValues);
+        } catch (RuntimeException | Error e) {
+            // exceptions of the method are already wrapped in a SULException, see bind(Method)
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Unexpected exception when invoking " + method, t);
+        }
+        return isVoid ? Void.TYPE : ret;
+    }
+
+    private static Object wrapException(Throwable t) throws SULException {
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new SULException(t);
+    }
+
+    private static void checkValues(Method method, Map<String, Integer> parameters, Object[] values) {
+        final Class<?>[] types = method.getParameterTypes();
+        if (values.length != types.length) {
+            throw new IllegalArgumentException(
+                    "Expected " + types.length + " parameters for " + method + ", got " + values.length);
+        }
+
+        for (int i = 0; i < types.length; i++) {
+            if (parameters.containsValue(i)) {
+                // abstract parameter, filled upon execution
+                continue;
+            }
+
+            // apply the same conversion as the method handle, e.g. allowing an Integer for a long parameter
+            final MethodHandle conversion =
+                    MethodHandles.identity(types[i]).asType(MethodType.methodType(Object.class, Object.class));
+            try {
+                conversion.invoke(values[i]);
+            } catch (ClassCastException | NullPointerException e) {
+                throw new IllegalArgumentException(
+                        "Parameter " + i + " of " + method + " is not applicable to value " + values[i], e);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+    }
+
     public Class<?> getParameterType(String name) {
         int id = parameters.get(name);
         return this.method.getParameterTypes()[id];
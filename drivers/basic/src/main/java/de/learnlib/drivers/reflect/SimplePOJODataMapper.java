@@ -15,39 +15,83 @@
  */
 package de.learnlib.drivers.reflect;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.reflect.Method;
+import java.util.Collections;
 
 import de.learnlib.api.exception.SULException;
 import de.learnlib.mapper.api.SULMapper;
 
 /**
  * Basic stateless data mapper for objects.
+ * <p>
+ * Target instances are either created by a constructor or by cloning a prototype instance. In both cases, the factory
+ * is bound to a {@link MethodHandle} once, and shared among all forks of the mapper.
  *
  * @author falkhowar
  */
 public class SimplePOJODataMapper implements SULMapper<MethodInput, MethodOutput, ConcreteMethodInput, Object> {
 
-    private final Constructor<?> initMethod;
-    private final Object[] initParams;
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class);
+
+    /**
+     * method handle of type {@code ()Object}, creating a fresh target instance.
+     */
+    private final MethodHandle factory;
 
     protected Object delegate;
 
     protected SimplePOJODataMapper(Constructor<?> initMethod, Object... initParams) {
-        this.initMethod = initMethod;
-        this.initParams = initParams;
+        this(bindConstructor(initMethod, initParams));
+    }
+
+    private SimplePOJODataMapper(MethodHandle factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Creates a mapper, whose target instances are clones of the given prototype. The class of the prototype has to
+     * provide a public {@link Object#clone() clone} method, which must return an instance that does not share any
+     * mutable state with the prototype.
+     *
+     * @param prototype
+     *         the prototype instance
+     *
+     * @return the mapper
+     */
+    static SimplePOJODataMapper forPrototype(Object prototype) {
+        return new SimplePOJODataMapper(bindClone(prototype));
+    }
+
+    private static MethodHandle bindConstructor(Constructor<?> initMethod, Object... initParams) {
+        try {
+            final MethodHandle mh = MethodHandles.lookup().unreflectConstructor(initMethod).asFixedArity();
+            return MethodHandles.insertArguments(mh, 0, initParams).asType(FACTORY_TYPE);
+        } catch (IllegalAccessException | ClassCastException e) {
+            throw new IllegalArgumentException("Cannot bind constructor " + initMethod, e);
+        }
+    }
+
+    private static MethodHandle bindClone(Object prototype) {
+        try {
+            final Method clone = prototype.getClass().getMethod("clone");
+            return MethodHandles.lookup().unreflect(clone).bindTo(prototype).asType(FACTORY_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Prototype " + prototype + " does not provide a public clone method", e);
+        }
     }
 
     @Override
     public void pre() {
         try {
-            delegate = initMethod.newInstance(initParams);
-        } catch (InstantiationException | IllegalAccessException | IllegalArgumentException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new SULException(e.getCause());
+            delegate = (Object) factory.invokeExact();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new SULException(t);
         }
     }
 
@@ -57,16 +101,14 @@ public class SimplePOJODataMapper implements SULMapper<MethodInput, MethodOutput
     }
 
     @Override
-    public MappedException<? extends MethodOutput> mapUnwrappedException(RuntimeException exception)
-            throws RuntimeException {
+    public MappedException<? extends MethodOutput> mapWrappedException(SULException exception) {
+        // only exceptions of the invoked methods are wrapped, any other exception is propagated to the caller
         return MappedException.repeatOutput(new Error(exception.getCause()), Unobserved.INSTANCE);
     }
 
     @Override
     public ConcreteMethodInput mapInput(MethodInput abstractInput) {
-        Map<String, Object> params = new HashMap<>();
-
-        return new ConcreteMethodInput(abstractInput, params, delegate);
+        return new ConcreteMethodInput(abstractInput, Collections.emptyMap(), delegate);
     }
 
     @Override
@@ -81,7 +123,7 @@ public class SimplePOJODataMapper implements SULMapper<MethodInput, MethodOutput
 
     @Override
     public SULMapper<MethodInput, MethodOutput, ConcreteMethodInput, Object> fork() {
-        return new SimplePOJODataMapper(initMethod, initParams);
+        return new SimplePOJODataMapper(factory);
     }
 
 }
@@ -47,6 +47,26 @@ public final class SimplePOJOTestDriver
         this.instanceClass = c.getDeclaringClass();
     }
 
+    private SimplePOJOTestDriver(SimplePOJODataMapper mapper, Class<?> instanceClass) {
+        super(mapper);
+        this.instanceClass = instanceClass;
+    }
+
+    /**
+     * Creates a test driver, whose target instances are clones of the given prototype. The class of the prototype has
+     * to provide a public {@link Object#clone() clone} method, which must return an instance that does not share any
+     * mutable state with the prototype. Like drivers for constructors, the driver is forkable and can hence be used by
+     * parallel oracles.
+     *
+     * @param prototype
+     *         the prototype instance
+     *
+     * @return the test driver
+     */
+    public static SimplePOJOTestDriver fromPrototype(Object prototype) {
+        return new SimplePOJOTestDriver(SimplePOJODataMapper.forPrototype(prototype), prototype.getClass());
+    }
+
     public MethodInput addInput(String name, String methodName, Object... params) {
         Method m = ReflectUtil.findMatchingMethod(instanceClass, methodName, params);
         if (m == null) {
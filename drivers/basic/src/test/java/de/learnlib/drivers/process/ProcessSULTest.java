@@ -0,0 +1,326 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.drivers.process;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import de.learnlib.api.SUL;
+import de.learnlib.api.exception.SULException;
+import de.learnlib.api.query.DefaultQuery;
+import net.automatalib.words.Word;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ProcessSULTest {
+
+    @Test
+    public void testBatch() {
+        final List<ThreadConnection> connections = new ArrayList<>();
+        final ProcessSULOracle<String, String> oracle = createOracle(connections);
+
+        final DefaultQuery<String, Word<String>> q1 =
+                new DefaultQuery<>(Word.fromSymbols("a", "b"), Word.fromSymbols("c"));
+        final DefaultQuery<String, Word<String>> q2 = new DefaultQuery<>(Word.epsilon(), Word.fromSymbols("x", "y"));
+        final DefaultQuery<String, Word<String>> q3 = new DefaultQuery<>(Word.fromSymbols("a"), Word.epsilon());
+
+        oracle.processQueries(Arrays.asList(q1, q2, q3));
+
+        Assert.assertEquals(q1.getOutput(), Word.fromSymbols("c2"));
+        Assert.assertEquals(q2.getOutput(), Word.fromSymbols("x0", "y1"));
+        Assert.assertEquals(q3.getOutput(), Word.epsilon());
+
+        oracle.close();
+        Assert.assertEquals(connections.size(), 1);
+    }
+
+    @Test
+    public void testRestart() {
+        final List<ThreadConnection> connections = new ArrayList<>();
+        final ProcessSULOracle<String, String> oracle = createOracle(connections);
+
+        final DefaultQuery<String, Word<String>> q1 = new DefaultQuery<>(Word.fromSymbols("a"), Word.fromSymbols("b"));
+        oracle.processQueries(Arrays.asList(q1));
+        Assert.assertEquals(q1.getOutput(), Word.fromSymbols("b1"));
+
+        connections.get(0).crash();
+
+        final DefaultQuery<String, Word<String>> q2 = new DefaultQuery<>(Word.fromSymbols("c"), Word.fromSymbols("d"));
+        oracle.processQueries(Arrays.asList(q2));
+        Assert.assertEquals(q2.getOutput(), Word.fromSymbols("d1"));
+
+        Assert.assertEquals(connections.size(), 2);
+        Assert.assertEquals(oracle.getNumRestarts(), 1);
+
+        oracle.close();
+    }
+
+    @Test
+    public void testSULError() {
+        final List<ThreadConnection> connections = new ArrayList<>();
+        final ProcessSULOracle<String, String> oracle = createOracle(connections);
+
+        final DefaultQuery<String, Word<String>> failing =
+                new DefaultQuery<>(Word.fromSymbols("a"), Word.fromSymbols(EchoSUL.FAIL));
+        Assert.assertThrows(SULException.class, () -> oracle.processQueries(Arrays.asList(failing)));
+
+        // errors of the SUL do not affect the worker
+        final DefaultQuery<String, Word<String>> q = new DefaultQuery<>(Word.epsilon(), Word.fromSymbols("a"));
+        oracle.processQueries(Arrays.asList(q));
+        Assert.assertEquals(q.getOutput(), Word.fromSymbols("a0"));
+        Assert.assertEquals(connections.size(), 1);
+        Assert.assertEquals(oracle.getNumRestarts(), 0);
+
+        oracle.close();
+    }
+
+    @Test(timeOut = 10000)
+    public void testResponseDeadline() {
+        final List<ThreadConnection> connections = new ArrayList<>();
+        final ProcessSULOracle<String, String> oracle = new ProcessSULOracle<>(createConnector(connections),
+                                                                             SymbolCodecs.strings(),
+                                                                             SymbolCodecs.strings(),
+                                                                             3,
+                                                                             Long.MAX_VALUE,
+                                                                             100,
+                                                                             TimeUnit.MILLISECONDS);
+
+        final DefaultQuery<String, Word<String>> hanging =
+                new DefaultQuery<>(Word.fromSymbols("a"), Word.fromSymbols(EchoSUL.HANG));
+        final SULException ex =
+                Assert.expectThrows(SULException.class, () -> oracle.processQueries(Arrays.asList(hanging)));
+        Assert.assertTrue(ex.getCause() instanceof TimeoutException);
+
+        // the hung worker has been replaced
+        final DefaultQuery<String, Word<String>> q = new DefaultQuery<>(Word.epsilon(), Word.fromSymbols("a"));
+        oracle.processQueries(Arrays.asList(q));
+        Assert.assertEquals(q.getOutput(), Word.fromSymbols("a0"));
+        Assert.assertEquals(connections.size(), 2);
+        Assert.assertEquals(oracle.getNumRestarts(), 1);
+
+        oracle.close();
+    }
+
+    @Test(timeOut = 60000)
+    public void testWorkerProcess() {
+        final List<String> command = ProcessSULs.javaWorkerCommand(EchoSULFactory.class);
+        final ProcessSULOracle<String, String> oracle = new ProcessSULOracle<>(ProcessSULs.processConnector(command),
+                                                                             SymbolCodecs.strings(),
+                                                                             SymbolCodecs.strings(),
+                                                                             3,
+                                                                             Long.MAX_VALUE,
+                                                                             5,
+                                                                             TimeUnit.SECONDS);
+
+        try {
+            final DefaultQuery<String, Word<String>> q1 =
+                    new DefaultQuery<>(Word.fromSymbols("a", "b"), Word.fromSymbols("c"));
+            final DefaultQuery<String, Word<String>> q2 =
+                    new DefaultQuery<>(Word.epsilon(), Word.fromSymbols("x", "y"));
+            oracle.processQueries(Arrays.asList(q1, q2));
+            Assert.assertEquals(q1.getOutput(), Word.fromSymbols("c2"));
+            Assert.assertEquals(q2.getOutput(), Word.fromSymbols("x0", "y1"));
+
+            final DefaultQuery<String, Word<String>> failing =
+                    new DefaultQuery<>(Word.epsilon(), Word.fromSymbols(EchoSUL.FAIL));
+            Assert.assertThrows(SULException.class, () -> oracle.processQueries(Arrays.asList(failing)));
+            Assert.assertEquals(oracle.getNumRestarts(), 0);
+
+            // the hung worker process is killed and replaced by a new one
+            final DefaultQuery<String, Word<String>> hanging =
+                    new DefaultQuery<>(Word.epsilon(), Word.fromSymbols(EchoSUL.HANG));
+            Assert.assertThrows(SULException.class, () -> oracle.processQueries(Arrays.asList(hanging)));
+            Assert.assertEquals(oracle.getNumRestarts(), 1);
+
+            final DefaultQuery<String, Word<String>> q3 = new DefaultQuery<>(Word.fromSymbols("a"), Word.epsilon());
+            oracle.processQueries(Arrays.asList(q3));
+            Assert.assertEquals(q3.getOutput(), Word.epsilon());
+        } finally {
+            oracle.close();
+        }
+    }
+
+    @Test
+    public void testStepwise() {
+        final List<ThreadConnection> connections = new ArrayList<>();
+        final ProcessSUL<String, String> sul =
+                new ProcessSUL<>(createConnector(connections), SymbolCodecs.strings(), SymbolCodecs.strings());
+
+        sul.pre();
+        Assert.assertEquals(sul.step("a"), "a0");
+        Assert.assertEquals(sul.step("b"), "b1");
+        sul.post();
+
+        Assert.assertTrue(sul.canFork());
+        final ProcessSUL<String, String> fork = sul.fork();
+        fork.pre();
+        Assert.assertEquals(fork.step("c"), "c0");
+        fork.post();
+        Assert.assertEquals(connections.size(), 2);
+
+        connections.get(0).crash();
+        Assert.assertThrows(SULException.class, sul::pre);
+
+        // the next query is answered by a new worker
+        sul.pre();
+        Assert.assertEquals(sul.step("a"), "a0");
+        sul.post();
+        Assert.assertEquals(connections.size(), 3);
+        Assert.assertEquals(sul.getNumRestarts(), 1);
+
+        sul.close();
+        fork.close();
+    }
+
+    private static ProcessSULOracle<String, String> createOracle(List<ThreadConnection> connections) {
+        return new ProcessSULOracle<>(createConnector(connections), SymbolCodecs.strings(), SymbolCodecs.strings());
+    }
+
+    private static Supplier<WorkerConnection> createConnector(List<ThreadConnection> connections) {
+        return () -> {
+            try {
+                final ThreadConnection connection = new ThreadConnection(new EchoSULFactory());
+                connections.add(connection);
+                return connection;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Runs a worker in a separate thread of the current process, connected via pipes.
+     */
+    private static final class ThreadConnection implements WorkerConnection {
+
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final PipedInputStream requests;
+        private final PipedOutputStream requestsOut;
+        private final PipedInputStream responses;
+        private final PipedOutputStream responsesOut;
+
+        ThreadConnection(SULWorkerFactory<String, String> factory) throws IOException {
+            this.requestsOut = new PipedOutputStream();
+            this.requests = new PipedInputStream(requestsOut, BUFFER_SIZE);
+            this.responsesOut = new PipedOutputStream();
+            this.responses = new PipedInputStream(responsesOut, BUFFER_SIZE);
+
+            final Thread worker = new Thread(() -> {
+                try {
+                    SULWorker.serve(factory, requests, responsesOut);
+                } catch (IOException e) {
+                    // the connection has been closed
+                } finally {
+                    crash();
+                }
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        /**
+         * Simulates a crash of the worker by closing its ends of the pipes.
+         */
+        void crash() {
+            try {
+                requests.close();
+                responsesOut.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return responses;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return requestsOut;
+        }
+
+        @Override
+        public void close() throws IOException {
+            requestsOut.close();
+            responses.close();
+            // also terminates hung workers
+            crash();
+        }
+    }
+
+    public static class EchoSULFactory implements SULWorkerFactory<String, String> {
+
+        @Override
+        public SUL<String, String> createSUL() {
+            return new EchoSUL();
+        }
+
+        @Override
+        public SymbolCodec<String> getInputCodec() {
+            return SymbolCodecs.strings();
+        }
+
+        @Override
+        public SymbolCodec<String> getOutputCodec() {
+            return SymbolCodecs.strings();
+        }
+    }
+
+    /**
+     * Echoes each input, followed by the index of the step.
+     */
+    private static final class EchoSUL implements SUL<String, String> {
+
+        static final String FAIL = "fail";
+        static final String HANG = "hang";
+
+        private int steps;
+
+        @Override
+        public void pre() {
+            steps = 0;
+        }
+
+        @Override
+        public void post() {}
+
+        @Override
+        public String step(String in) {
+            if (FAIL.equals(in)) {
+                throw new IllegalStateException("Failing input");
+            } else if (HANG.equals(in)) {
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return in + steps++;
+        }
+    }
+}
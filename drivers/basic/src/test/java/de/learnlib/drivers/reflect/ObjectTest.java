@@ -73,6 +73,61 @@ public class ObjectTest {
         }
     }
 
+    @Test
+    public void testPrototypeDriver() throws Exception {
+        final CloneableCounter prototype = new CloneableCounter();
+        final SimplePOJOTestDriver driver = SimplePOJOTestDriver.fromPrototype(prototype);
+
+        final MethodInput inc = driver.addInput("inc", "increment");
+        final MethodInput reset = driver.addInput("reset", "reset");
+
+        Assert.assertTrue(driver.canFork());
+        final SULOracle<MethodInput, MethodOutput> oracle = new SULOracle<>(driver);
+        final SULOracle<MethodInput, MethodOutput> forkedOracle = new SULOracle<>(driver.fork());
+
+        final Word<MethodInput> query = Word.fromSymbols(inc, inc, reset, inc);
+        final Word<MethodOutput> expected = Word.fromSymbols(new ReturnValue(1),
+                                                             new ReturnValue(2),
+                                                             new ReturnValue(Void.TYPE),
+                                                             new ReturnValue(1));
+
+        Assert.assertEquals(oracle.answerQuery(query), expected);
+        Assert.assertEquals(forkedOracle.answerQuery(query), expected);
+        Assert.assertEquals(oracle.answerQuery(query), expected);
+        Assert.assertEquals(prototype.value, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMismatchingParameters() throws Exception {
+        final Constructor<?> c = StackWithException.class.getConstructor(int.class);
+        final SimplePOJOTestDriver driver = new SimplePOJOTestDriver(c, 2);
+        final SULOracle<MethodInput, MethodOutput> oracle = new SULOracle<>(driver);
+
+        // a mismatching input is an error of the driver setup, which is rejected before any query is answered
+        final MethodInput push = driver.addInput("push", StackWithException.class.getMethod("push", Object.class));
+        oracle.answerQuery(Word.fromLetter(push));
+    }
+
+    @Test
+    public void testParameterConversion() throws Exception {
+        final CloneableCounter prototype = new CloneableCounter();
+        final SimplePOJOTestDriver driver = SimplePOJOTestDriver.fromPrototype(prototype);
+        final SULOracle<MethodInput, MethodOutput> oracle = new SULOracle<>(driver);
+
+        // an Integer value is widened to the long parameter
+        final MethodInput add = driver.addInput("add", CloneableCounter.class.getMethod("add", long.class), 2);
+        Assert.assertEquals(oracle.answerQuery(Word.fromLetter(add)), Word.fromLetter(new ReturnValue(2L)));
+
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> driver.addInput("add",
+                                                  CloneableCounter.class.getMethod("add", long.class),
+                                                  "2"));
+        Assert.assertThrows(IllegalArgumentException.class,
+                            () -> driver.addInput("add",
+                                                  CloneableCounter.class.getMethod("add", long.class),
+                                                  (Object) null));
+    }
+
     private Word<MethodOutput> answerFirstQuery(StackData stackData) {
         // push1, push2, pop, pop, pop, pop
         return answerQuery(stackData, 0, 1, 2, 2, 2, 2);
@@ -125,4 +180,27 @@ public class ObjectTest {
         }
     }
 
-}
\ No newline at end of file
+    public static class CloneableCounter implements Cloneable {
+
+        private int value;
+
+        public int increment() {
+            return ++value;
+        }
+
+        public void reset() {
+            value = 0;
+        }
+
+        public long add(long delta) {
+            value += delta;
+            return value;
+        }
+
+        @Override
+        public CloneableCounter clone() throws CloneNotSupportedException {
+            return (CloneableCounter) super.clone();
+        }
+    }
+
+}
@@ -0,0 +1,242 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.mapper;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.Nonnull;
+
+import de.learnlib.api.exception.SULException;
+import de.learnlib.mapper.api.SULMapper;
+
+/**
+ * A {@link SULMapper} that memoizes the translations of a delegate mapper, whose {@link #mapInput(Object)} and {@link
+ * #mapOutput(Object)} methods are pure, i.e. do not depend on (or modify) any state of the mapper. This is useful for
+ * expensive translations, such as the serialization of concrete protocol messages, which would otherwise be recomputed
+ * for every occurrence of the same abstract input (or concrete output).
+ * <p>
+ * Both translations are cached in bounded caches that evict the least recently used entries. The caches are shared
+ * among all {@link #fork() forks} of this mapper, and can hence be used safely by parallel oracles.
+ * <p>
+ * Additionally, input translations can be computed ahead of time by means of {@link #prefetchInputs(Collection,
+ * Executor)}, e.g. for the input alphabet or for the inputs of upcoming queries. The translations are then computed by
+ * the given {@link Executor} while the concrete SUL is executing, and subsequent calls to {@link #mapInput(Object)}
+ * only wait for their completion (if at all).
+ * <p>
+ * The lifecycle methods ({@link #pre()}, {@link #post()}) as well as the mapping of exceptions are always delegated.
+ *
+ * @param <AI>
+ *         abstract input symbol type.
+ * @param <AO>
+ *         abstract output symbol type.
+ * @param <CI>
+ *         concrete input symbol type.
+ * @param <CO>
+ *         concrete output symbol type.
+ */
+public final class CachingSULMapper<AI, AO, CI, CO> implements SULMapper<AI, AO, CI, CO> {
+
+    private final SULMapper<? super AI, ? extends AO, ? extends CI, ? super CO> delegate;
+    private final Map<AI, CompletableFuture<CI>> inputCache;
+    private final Map<CO, AO> outputCache;
+
+    public CachingSULMapper(SULMapper<? super AI, ? extends AO, ? extends CI, ? super CO> delegate, int capacity) {
+        this(delegate, createCache(capacity), createCache(capacity));
+    }
+
+    private CachingSULMapper(SULMapper<? super AI, ? extends AO, ? extends CI, ? super CO> delegate,
+                             Map<AI, CompletableFuture<CI>> inputCache,
+                             Map<CO, AO> outputCache) {
+        this.delegate = delegate;
+        this.inputCache = inputCache;
+        this.outputCache = outputCache;
+    }
+
+    private static <K, V> Map<K, V> createCache(int capacity) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public void pre() {
+        delegate.pre();
+    }
+
+    @Override
+    public void post() {
+        delegate.post();
+    }
+
+    @Override
+    public CI mapInput(AI abstractInput) {
+        final CompletableFuture<CI> future;
+        final boolean absent;
+
+        synchronized (inputCache) {
+            final CompletableFuture<CI> cached = inputCache.get(abstractInput);
+            absent = cached == null;
+            if (absent) {
+                future = new CompletableFuture<>();
+                inputCache.put(abstractInput, future);
+            } else {
+                future = cached;
+            }
+        }
+
+        if (absent) {
+            computeInput(abstractInput, future);
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            throw unwrap(ex);
+        }
+    }
+
+    /**
+     * Asynchronously computes the translations of the given abstract inputs, if they are not cached already.
+     * <p>
+     * If the executor rejects a translation, the pending cache entry is discarded (so that a subsequent {@link
+     * #mapInput(Object)} computes the translation itself) and the {@link RejectedExecutionException} is rethrown.
+     *
+     * @param abstractInputs
+     *         the abstract inputs to translate
+     * @param executor
+     *         the executor that performs the translations
+     *
+     * @throws RejectedExecutionException
+     *         if the executor does not accept a translation
+     */
+    public void prefetchInputs(Collection<? extends AI> abstractInputs, Executor executor) {
+        for (AI abstractInput : abstractInputs) {
+            final CompletableFuture<CI> future;
+
+            synchronized (inputCache) {
+                if (inputCache.containsKey(abstractInput)) {
+                    continue;
+                }
+                future = new CompletableFuture<>();
+                inputCache.put(abstractInput, future);
+            }
+
+            try {
+                executor.execute(() -> computeInput(abstractInput, future));
+            } catch (RejectedExecutionException ex) {
+                failInput(abstractInput, future, ex);
+                throw ex;
+            }
+        }
+    }
+
+    private void computeInput(AI abstractInput, CompletableFuture<CI> future) {
+        try {
+            future.complete(delegate.mapInput(abstractInput));
+        } catch (Throwable t) {
+            failInput(abstractInput, future, t);
+        }
+    }
+
+    private void failInput(AI abstractInput, CompletableFuture<CI> future, Throwable cause) {
+        // do not cache failed translations
+        synchronized (inputCache) {
+            inputCache.remove(abstractInput, future);
+        }
+        future.completeExceptionally(cause);
+    }
+
+    @Override
+    public AO mapOutput(CO concreteOutput) {
+        synchronized (outputCache) {
+            final AO cached = outputCache.get(concreteOutput);
+            if (cached != null || outputCache.containsKey(concreteOutput)) {
+                return cached;
+            }
+        }
+
+        final AO result = delegate.mapOutput(concreteOutput);
+
+        synchronized (outputCache) {
+            outputCache.put(concreteOutput, result);
+        }
+
+        return result;
+    }
+
+    @Override
+    public MappedException<? extends AO> mapWrappedException(SULException exception) throws SULException {
+        return delegate.mapWrappedException(exception);
+    }
+
+    @Override
+    public MappedException<? extends AO> mapUnwrappedException(RuntimeException exception) {
+        return delegate.mapUnwrappedException(exception);
+    }
+
+    @Override
+    public boolean canFork() {
+        return delegate.canFork();
+    }
+
+    @Nonnull
+    @Override
+    public CachingSULMapper<AI, AO, CI, CO> fork() {
+        return new CachingSULMapper<>(delegate.fork(), inputCache, outputCache);
+    }
+
+    /**
+     * Returns the number of currently cached input translations.
+     *
+     * @return the number of cached input translations
+     */
+    public int getNumCachedInputs() {
+        synchronized (inputCache) {
+            return inputCache.size();
+        }
+    }
+
+    /**
+     * Returns the number of currently cached output translations.
+     *
+     * @return the number of cached output translations
+     */
+    public int getNumCachedOutputs() {
+        synchronized (outputCache) {
+            return outputCache.size();
+        }
+    }
+
+    private static RuntimeException unwrap(CompletionException ex) {
+        final Throwable cause = ex.getCause();
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : ex;
+    }
+}
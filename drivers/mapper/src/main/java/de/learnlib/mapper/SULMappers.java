@@ -39,4 +39,25 @@ public final class SULMappers {
         return new MappedSUL<>(mapper, sul);
     }
 
+    /**
+     * Wraps the given mapper in a {@link CachingSULMapper}, which memoizes its (pure) input and output translations.
+     * <p>
+     * Note that the returned mapper does not prefetch any translations by itself: input translations are only computed
+     * ahead of time if the caller explicitly invokes {@link CachingSULMapper#prefetchInputs(java.util.Collection,
+     * java.util.concurrent.Executor)} (e.g. for the input alphabet). Otherwise, they are computed and cached upon their
+     * first use.
+     *
+     * @param mapper
+     *         the mapper whose translations should be cached
+     * @param capacity
+     *         the maximum number of cached translations (per direction)
+     *
+     * @return the caching mapper
+     */
+    public static <AI, AO, CI, CO> CachingSULMapper<AI, AO, CI, CO> cached(
+            SULMapper<? super AI, ? extends AO, ? extends CI, ? super CO> mapper,
+            int capacity) {
+        return new CachingSULMapper<>(mapper, capacity);
+    }
+
 }
@@ -0,0 +1,159 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.mapper;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.learnlib.mapper.api.SULMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CachingSULMapperTest {
+
+    @Test
+    public void testCaching() {
+        final CountingMapper delegate = new CountingMapper();
+        final CachingSULMapper<Character, Character, Integer, Integer> mapper = SULMappers.cached(delegate, 2);
+
+        Assert.assertEquals(mapper.mapInput('a').intValue(), 'a');
+        Assert.assertEquals(mapper.mapInput('a').intValue(), 'a');
+        Assert.assertEquals(mapper.mapOutput((int) 'b').charValue(), 'b');
+        Assert.assertEquals(mapper.mapOutput((int) 'b').charValue(), 'b');
+        Assert.assertEquals(delegate.inputs.get(), 1);
+        Assert.assertEquals(delegate.outputs.get(), 1);
+
+        // forks share the caches
+        final CachingSULMapper<Character, Character, Integer, Integer> fork = mapper.fork();
+        Assert.assertEquals(fork.mapInput('a').intValue(), 'a');
+        Assert.assertEquals(delegate.inputs.get(), 1);
+
+        // eviction of least recently used entries
+        mapper.mapInput('b');
+        mapper.mapInput('c');
+        Assert.assertEquals(mapper.getNumCachedInputs(), 2);
+        mapper.mapInput('a');
+        Assert.assertEquals(delegate.inputs.get(), 4);
+    }
+
+    @Test
+    public void testFailedTranslationsAreNotCached() {
+        final CountingMapper delegate = new CountingMapper();
+        final CachingSULMapper<Character, Character, Integer, Integer> mapper = SULMappers.cached(delegate, 10);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                mapper.mapInput(null);
+                Assert.fail("Expected exception");
+            } catch (NullPointerException expected) {
+                // expected
+            }
+        }
+
+        Assert.assertEquals(delegate.inputs.get(), 2);
+        Assert.assertEquals(mapper.getNumCachedInputs(), 0);
+    }
+
+    @Test
+    public void testPrefetch() {
+        final CountingMapper delegate = new CountingMapper();
+        final CachingSULMapper<Character, Character, Integer, Integer> mapper = SULMappers.cached(delegate, 10);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            mapper.prefetchInputs(Arrays.asList('a', 'b', 'c'), executor);
+            mapper.prefetchInputs(Arrays.asList('a', 'b'), executor);
+
+            Assert.assertEquals(mapper.mapInput('c').intValue(), 'c');
+            Assert.assertEquals(mapper.mapInput('a').intValue(), 'a');
+            Assert.assertEquals(delegate.inputs.get(), 3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectedPrefetch() {
+        final CountingMapper delegate = new CountingMapper();
+        final CachingSULMapper<Character, Character, Integer, Integer> mapper = SULMappers.cached(delegate, 10);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+
+        Assert.assertThrows(RejectedExecutionException.class,
+                            () -> mapper.prefetchInputs(Arrays.asList('a', 'b'), executor));
+        Assert.assertEquals(mapper.getNumCachedInputs(), 0);
+
+        // the rejected translation does not block subsequent lookups
+        Assert.assertEquals(mapper.mapInput('a').intValue(), 'a');
+        Assert.assertEquals(delegate.inputs.get(), 1);
+    }
+
+    @Test
+    public void testFailedTranslationsWithError() {
+        final CachingSULMapper<Character, Character, Integer, Integer> mapper =
+                SULMappers.cached(new ErrorMapper(), 10);
+
+        for (int i = 0; i < 2; i++) {
+            Assert.assertThrows(AssertionError.class, () -> mapper.mapInput('a'));
+        }
+
+        Assert.assertEquals(mapper.getNumCachedInputs(), 0);
+    }
+
+    private static final class ErrorMapper implements SULMapper<Character, Character, Integer, Integer> {
+
+        @Override
+        public Integer mapInput(Character abstractInput) {
+            throw new AssertionError(abstractInput);
+        }
+
+        @Override
+        public Character mapOutput(Integer concreteOutput) {
+            return (char) concreteOutput.intValue();
+        }
+    }
+
+    private static final class CountingMapper implements SULMapper<Character, Character, Integer, Integer> {
+
+        private final AtomicInteger inputs = new AtomicInteger();
+        private final AtomicInteger outputs = new AtomicInteger();
+
+        @Override
+        public Integer mapInput(Character abstractInput) {
+            inputs.incrementAndGet();
+            return (int) abstractInput;
+        }
+
+        @Override
+        public Character mapOutput(Integer concreteOutput) {
+            outputs.incrementAndGet();
+            return (char) concreteOutput.intValue();
+        }
+
+        @Override
+        public boolean canFork() {
+            return true;
+        }
+
+        @Override
+        public SULMapper<Character, Character, Integer, Integer> fork() {
+            return this;
+        }
+    }
+}
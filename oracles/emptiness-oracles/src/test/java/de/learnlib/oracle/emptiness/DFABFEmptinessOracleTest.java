@@ -15,6 +15,8 @@
  */
 package de.learnlib.oracle.emptiness;
 
+import java.util.Collection;
+
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
 import net.automatalib.automata.fsa.DFA;
@@ -55,13 +57,15 @@ public class DFABFEmptinessOracleTest extends AbstractBFEmptinessOracleTest<DFA<
     public void setUp() {
         super.setUp();
         Mockito.doAnswer(invocation -> {
-            final DefaultQuery<Character, Boolean> q = invocation.getArgument(0);
-            if (q.getInput().equals(Word.fromSymbols('a'))) {
-                q.answer(true);
-            } else {
-                q.answer(false);
+            final Collection<DefaultQuery<Character, Boolean>> queries = invocation.getArgument(0);
+            for (DefaultQuery<Character, Boolean> q : queries) {
+                if (q.getInput().equals(Word.fromSymbols('a'))) {
+                    q.answer(true);
+                } else {
+                    q.answer(false);
+                }
             }
             return null;
-        }).when(mo).processQuery(ArgumentMatchers.any());
+        }).when(mo).processQueries(ArgumentMatchers.any());
     }
 }
\ No newline at end of file
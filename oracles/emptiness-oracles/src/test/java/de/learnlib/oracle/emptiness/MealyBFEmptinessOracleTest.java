@@ -15,6 +15,8 @@
  */
 package de.learnlib.oracle.emptiness;
 
+import java.util.Collection;
+
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
 import net.automatalib.automata.transout.MealyMachine;
@@ -56,13 +58,15 @@ public class MealyBFEmptinessOracleTest
     public void setUp() {
         super.setUp();
         Mockito.doAnswer(invocation -> {
-            final DefaultQuery<Character, Word<Character>> q = invocation.getArgument(0);
-            if (q.getInput().equals(Word.fromSymbols('a'))) {
-                q.answer(Word.fromSymbols('1'));
-            } else {
-                q.answer(null);
+            final Collection<DefaultQuery<Character, Word<Character>>> queries = invocation.getArgument(0);
+            for (DefaultQuery<Character, Word<Character>> q : queries) {
+                if (q.getInput().equals(Word.fromSymbols('a'))) {
+                    q.answer(Word.fromSymbols('1'));
+                } else {
+                    q.answer(null);
+                }
             }
             return null;
-        }).when(mo).processQuery(ArgumentMatchers.any());
+        }).when(mo).processQueries(ArgumentMatchers.any());
     }
 }
\ No newline at end of file
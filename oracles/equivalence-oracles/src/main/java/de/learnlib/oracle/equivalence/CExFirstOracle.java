@@ -19,9 +19,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nullable;
 
+import com.google.common.base.Throwables;
 import de.learnlib.api.oracle.BlackBoxOracle;
 import de.learnlib.api.oracle.PropertyOracle;
 import de.learnlib.api.query.DefaultQuery;
@@ -36,6 +40,17 @@ import net.automatalib.words.Word;
  * property.
  * <p>
  * This implementation may be used when refining a hypothesis is inexpensive compared to disproving propertyOracles.
+ * <p>
+ * If an {@link ExecutorService} is provided, the property oracles of all properties that are not yet disproved are
+ * checked concurrently. This oracle waits for all checks to terminate and returns the counterexample of the first
+ * property oracle (wrt. the order of {@link #getPropertyOracles()}) that found one, so the returned counterexample is
+ * the same as in the sequential mode. Note that in this mode additional properties may be disproved.
+ * <p>
+ * In the concurrent mode, all components that are shared between property oracles are accessed from several threads
+ * at once. This in particular includes the {@link net.automatalib.modelchecking.ModelChecker model checker} (which is
+ * typically shared by all property oracles of a learning setup), as well as the emptiness and inclusion oracles and
+ * their membership oracles. These components must either be thread-safe, or each property oracle must be given its own
+ * instance.
  *
  * @author Jeroen Meijer
  *
@@ -49,6 +64,9 @@ public class CExFirstOracle<A extends Output<I, D>, I, D> implements BlackBoxOra
 
     private final List<PropertyOracle<I, ? super A, ?, D>> propertyOracles;
 
+    @Nullable
+    private final ExecutorService executor;
+
     public CExFirstOracle() {
         this(Collections.emptySet());
     }
@@ -58,7 +76,23 @@ public class CExFirstOracle<A extends Output<I, D>, I, D> implements BlackBoxOra
     }
 
     public CExFirstOracle(Collection<? extends PropertyOracle<I, ? super A, ?, D>> propertyOracles) {
+        this(propertyOracles, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param propertyOracles
+     *         the property oracles
+     * @param executor
+     *         the executor used for checking the properties concurrently, or {@code null} if the properties should be
+     *         checked sequentially. If non-{@code null}, the model checkers and oracles shared by the property oracles
+     *         must be thread-safe (see the class documentation)
+     */
+    public CExFirstOracle(Collection<? extends PropertyOracle<I, ? super A, ?, D>> propertyOracles,
+                          @Nullable ExecutorService executor) {
         this.propertyOracles = new ArrayList<>(propertyOracles);
+        this.executor = executor;
     }
 
     @Override
@@ -69,6 +103,10 @@ public class CExFirstOracle<A extends Output<I, D>, I, D> implements BlackBoxOra
     @Nullable
     @Override
     public DefaultQuery<I, D> findCounterExample(A hypothesis, Collection<? extends I> inputs) {
+        if (executor != null) {
+            return findCounterExampleConcurrently(executor, hypothesis, inputs);
+        }
+
         for (PropertyOracle<I, ? super A, ?, D> propertyOracle : propertyOracles) {
             final DefaultQuery<I, D> result = propertyOracle.findCounterExample(hypothesis, inputs);
             if (result != null) {
@@ -80,6 +118,39 @@ public class CExFirstOracle<A extends Output<I, D>, I, D> implements BlackBoxOra
         return null;
     }
 
+    @Nullable
+    private DefaultQuery<I, D> findCounterExampleConcurrently(ExecutorService executor,
+                                                              A hypothesis,
+                                                              Collection<? extends I> inputs) {
+        final List<Future<DefaultQuery<I, D>>> futures = new ArrayList<>(propertyOracles.size());
+
+        for (PropertyOracle<I, ? super A, ?, D> propertyOracle : propertyOracles) {
+            if (!propertyOracle.isDisproved()) {
+                futures.add(executor.submit(() -> propertyOracle.findCounterExample(hypothesis, inputs)));
+            }
+        }
+
+        // wait for all checks, as the hypothesis must not be modified while any of them is still running
+        DefaultQuery<I, D> result = null;
+        try {
+            for (Future<DefaultQuery<I, D>> future : futures) {
+                final DefaultQuery<I, D> ce = future.get();
+                if (result == null && ce != null) {
+                    assert isCounterExample(hypothesis, ce.getInput(), ce.getOutput());
+                    result = ce;
+                }
+            }
+        } catch (ExecutionException ex) {
+            Throwables.throwIfUnchecked(ex.getCause());
+            throw new IllegalStateException("Property oracles must not throw checked exceptions", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+
+        return result;
+    }
+
     public static class DFACExFirstOracle<I> extends CExFirstOracle<DFA<?, I>, I, Boolean>
             implements DFABlackBoxOracle<I> {
 
@@ -94,6 +165,11 @@ public class CExFirstOracle<A extends Output<I, D>, I, D> implements BlackBoxOra
         public DFACExFirstOracle(Collection<? extends PropertyOracle<I, DFA<?, I>, ?, Boolean>> propertyOracles) {
             super(propertyOracles);
         }
+
+        public DFACExFirstOracle(Collection<? extends PropertyOracle<I, DFA<?, I>, ?, Boolean>> propertyOracles,
+                                 @Nullable ExecutorService executor) {
+            super(propertyOracles, executor);
+        }
     }
 
     public static class MealyCExFirstOracle<I, O> extends CExFirstOracle<MealyMachine<?, I, ?, O>, I, Word<O>>
@@ -110,5 +186,10 @@ public class CExFirstOracle<A extends Output<I, D>, I, D> implements BlackBoxOra
         public MealyCExFirstOracle(Collection<? extends PropertyOracle<I, MealyMachine<?, I, ?, O>, ?, Word<O>>> propertyOracles) {
             super(propertyOracles);
         }
+
+        public MealyCExFirstOracle(Collection<? extends PropertyOracle<I, MealyMachine<?, I, ?, O>, ?, Word<O>>> propertyOracles,
+                                   @Nullable ExecutorService executor) {
+            super(propertyOracles, executor);
+        }
     }
 }
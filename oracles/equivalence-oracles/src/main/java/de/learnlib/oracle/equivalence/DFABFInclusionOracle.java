@@ -15,9 +15,14 @@
  */
 package de.learnlib.oracle.equivalence;
 
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
 import de.learnlib.api.oracle.AutomatonOracle;
 import de.learnlib.api.oracle.InclusionOracle;
 import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
 import net.automatalib.automata.fsa.DFA;
 
 public class DFABFInclusionOracle<I> extends AbstractBFInclusionOracle<DFA<?, I>, I, Boolean>
@@ -26,4 +31,24 @@ public class DFABFInclusionOracle<I> extends AbstractBFInclusionOracle<DFA<?, I>
     public DFABFInclusionOracle(MembershipOracle<I, Boolean> membershipOracle, double multiplier) {
         super(membershipOracle, multiplier);
     }
+
+    @Nullable
+    @Override
+    public DefaultQuery<I, Boolean> findCounterExample(DFA<?, I> hypothesis,
+                                                       Collection<? extends I> inputs,
+                                                       int maxQueries) {
+        return findCounterExample(hypothesis, hypothesis, inputs, maxQueries);
+    }
+
+    @Nullable
+    private <S> DefaultQuery<I, Boolean> findCounterExample(DFA<?, I> hypothesis,
+                                                            DFA<S, I> dfa,
+                                                            Collection<? extends I> inputs,
+                                                            int maxQueries) {
+        return findCounterExample(hypothesis,
+                                  dfa,
+                                  (word, state) -> state != null && dfa.isAccepting(state),
+                                  inputs,
+                                  maxQueries);
+    }
 }
@@ -15,9 +15,14 @@
  */
 package de.learnlib.oracle.equivalence;
 
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
 import de.learnlib.api.oracle.AutomatonOracle;
 import de.learnlib.api.oracle.InclusionOracle;
 import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
 import net.automatalib.automata.transout.MealyMachine;
 import net.automatalib.words.Word;
 
@@ -27,4 +32,13 @@ public class MealyBFInclusionOracle<I, O> extends AbstractBFInclusionOracle<Meal
     public MealyBFInclusionOracle(MembershipOracle<I, Word<O>> membershipOracle, double multiplier) {
         super(membershipOracle, multiplier);
     }
+
+    @Nullable
+    @Override
+    public DefaultQuery<I, Word<O>> findCounterExample(MealyMachine<?, I, ?, O> hypothesis,
+                                                       Collection<? extends I> inputs,
+                                                       int maxQueries) {
+        // a word is defined in the hypothesis iff it reaches a state
+        return findCounterExample(hypothesis, hypothesis, (word, state) -> state != null, inputs, maxQueries);
+    }
 }
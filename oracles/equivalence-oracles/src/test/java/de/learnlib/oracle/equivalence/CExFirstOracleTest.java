@@ -16,6 +16,8 @@
 package de.learnlib.oracle.equivalence;
 
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.google.common.collect.Lists;
 import de.learnlib.api.oracle.BlackBoxOracle;
@@ -85,4 +87,27 @@ public class CExFirstOracleTest {
         Mockito.verify(po2, Mockito.never()).disprove(automaton, inputs);
         Mockito.verify(po2, Mockito.never()).findCounterExample(automaton, inputs);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests whether the concurrent mode returns the counterexample of the first property oracle, while checking all
+     * property oracles that are not yet disproved.
+     */
+    @Test
+    public void testFindCounterExampleConcurrently() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            final BlackBoxOracle<Output<Boolean, Boolean>, Boolean, Boolean> concurrentOracle =
+                    new CExFirstOracle<>(Lists.newArrayList(po1, po2), executor);
+
+            final DefaultQuery<Boolean, Boolean> ce = concurrentOracle.findCounterExample(automaton, inputs);
+
+            Assert.assertEquals(ce, query);
+
+            Mockito.verify(po1).findCounterExample(automaton, inputs);
+            Mockito.verify(po2).findCounterExample(automaton, inputs);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package de.learnlib.oracle.equivalence;
 
+import java.util.Collection;
+
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
 import net.automatalib.automata.fsa.DFA;
@@ -36,14 +38,16 @@ public class DFABFInclusionOracleTest extends AbstractBFInclusionOracleTest<DFA<
         super.setUp();
 
         Mockito.doAnswer(invocation -> {
-            final DefaultQuery<Character, Boolean> q = invocation.getArgument(0);
-            if (q.getInput().equals(Word.fromSymbols('a'))) {
-                q.answer(false);
-            } else {
-                q.answer(true);
+            final Collection<DefaultQuery<Character, Boolean>> queries = invocation.getArgument(0);
+            for (DefaultQuery<Character, Boolean> q : queries) {
+                if (q.getInput().equals(Word.fromSymbols('a'))) {
+                    q.answer(false);
+                } else {
+                    q.answer(true);
+                }
             }
             return null;
-        }).when(mo).processQuery(ArgumentMatchers.any());
+        }).when(mo).processQueries(ArgumentMatchers.any());
     }
 
     @Override
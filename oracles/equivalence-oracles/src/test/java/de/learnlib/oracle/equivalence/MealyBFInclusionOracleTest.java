@@ -15,6 +15,8 @@
  */
 package de.learnlib.oracle.equivalence;
 
+import java.util.Collection;
+
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
 import net.automatalib.automata.transout.MealyMachine;
@@ -36,14 +38,16 @@ public class MealyBFInclusionOracleTest extends AbstractBFInclusionOracleTest<Me
         super.setUp();
 
         Mockito.doAnswer(invocation -> {
-            final DefaultQuery<Character, Word<Character>> q = invocation.getArgument(0);
-            if (q.getInput().equals(Word.fromSymbols('a'))) {
-                q.answer(Word.fromSymbols('2'));
-            } else {
-                q.answer(Word.epsilon());
+            final Collection<DefaultQuery<Character, Word<Character>>> queries = invocation.getArgument(0);
+            for (DefaultQuery<Character, Word<Character>> q : queries) {
+                if (q.getInput().equals(Word.fromSymbols('a'))) {
+                    q.answer(Word.fromSymbols('2'));
+                } else {
+                    q.answer(Word.epsilon());
+                }
             }
             return null;
-        }).when(mo).processQuery(ArgumentMatchers.any());
+        }).when(mo).processQueries(ArgumentMatchers.any());
     }
 
     @Override
@@ -15,9 +15,8 @@
  */
 package de.learnlib.filter.cache.dfa;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -25,6 +24,7 @@ import javax.annotation.ParametersAreNonnullByDefault;
 
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.Query;
+import de.learnlib.api.query.QueryBatch;
 import de.learnlib.filter.cache.LearningCacheOracle.DFALearningCacheOracle;
 import net.automatalib.incremental.dfa.Acceptance;
 import net.automatalib.incremental.dfa.IncrementalDFABuilder;
@@ -96,28 +96,35 @@ public class DFACacheOracle<I> implements DFALearningCacheOracle<I> {
 
     @Override
     public void processQueries(Collection<? extends Query<I, Boolean>> queries) {
-        List<ProxyQuery<I>> unanswered = new ArrayList<>();
+        processBatch(QueryBatch.of(queries));
+    }
+
+    @Override
+    public void processBatch(QueryBatch<I, Boolean> batch) {
+        final int[] misses = new int[batch.size()];
+        int numMisses = 0;
 
         incDfaLock.lock();
         try {
-            for (Query<I, Boolean> q : queries) {
-                Acceptance acc = incDfa.lookup(q.getInput());
+            for (int i = 0; i < batch.size(); i++) {
+                Acceptance acc = incDfa.lookup(batch.getInput(i));
                 if (acc != Acceptance.DONT_KNOW) {
-                    q.answer(acc.toBoolean());
+                    batch.answer(i, acc.toBoolean());
                 } else {
-                    unanswered.add(new ProxyQuery<>(q));
+                    misses[numMisses++] = i;
                 }
             }
         } finally {
             incDfaLock.unlock();
         }
 
-        delegate.processQueries(unanswered);
+        final QueryBatch<I, Boolean> unanswered = batch.subset(Arrays.copyOf(misses, numMisses));
+        delegate.processBatch(unanswered);
 
         incDfaLock.lock();
         try {
-            for (ProxyQuery<I> q : unanswered) {
-                incDfa.insert(q.getInput(), q.getAnswer());
+            for (int i = 0; i < unanswered.size(); i++) {
+                incDfa.insert(unanswered.getInput(i), unanswered.getAnswer(i));
             }
         } finally {
             incDfaLock.unlock();
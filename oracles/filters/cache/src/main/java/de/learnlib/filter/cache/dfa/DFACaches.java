@@ -15,6 +15,7 @@
  */
 package de.learnlib.filter.cache.dfa;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.ParametersAreNonnullByDefault;
 
 import de.learnlib.api.oracle.MembershipOracle;
@@ -45,6 +46,28 @@ public final class DFACaches {
         return new DFAHashCacheOracle<>(mqOracle);
     }
 
+    /**
+     * Creates a cache oracle for a DFA learning setup, whose memory consumption is bounded by the given capacities
+     * (see {@link DFATieredCacheOracle}).
+     *
+     * @param alphabet
+     *         the input alphabet
+     * @param mqOracle
+     *         the membership oracle
+     * @param hotCapacity
+     *         the maximum number of words that are cached exactly
+     * @param fingerprintCapacity
+     *         the (minimum) number of words whose fingerprints are cached
+     *
+     * @return a DFA learning cache with bounded memory consumption
+     */
+    public static <I> DFATieredCacheOracle<I> createTieredCache(Alphabet<I> alphabet,
+                                                                MembershipOracle<I, Boolean> mqOracle,
+                                                                @Nonnegative int hotCapacity,
+                                                                @Nonnegative int fingerprintCapacity) {
+        return new DFATieredCacheOracle<>(alphabet, mqOracle, hotCapacity, fingerprintCapacity);
+    }
+
     /**
      * Creates a cache oracle for a DFA learning setup.
      * <p>
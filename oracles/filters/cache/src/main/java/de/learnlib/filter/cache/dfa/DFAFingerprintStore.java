@@ -0,0 +1,156 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.filter.cache.dfa;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nullable;
+
+/**
+ * A compact, bounded store of query answers, keyed by the fingerprints of the query words rather than by the words
+ * themselves. Each entry consists of a 64 bit key, a 32 bit check value (derived from a second hash of the word) and
+ * a few flag bits. Words that match both the key and the check value of an entry are indistinguishable, see {@link
+ * DFATieredCacheOracle} for the resulting false-positive probability.
+ * <p>
+ * The store is organized as a set-associative cache: the key of an entry determines a set of {@link #WAYS} slots, one
+ * of which holds the entry. If all slots of a set are occupied, an entry that has not been referenced recently is
+ * replaced (second chance). If a lookup finds an entry with a matching key but a different check value, two words
+ * collide on their keys. Such lookups are treated as misses, so that the query is answered by the delegate oracle
+ * instead.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class DFAFingerprintStore {
+
+    static final int WAYS = 8;
+
+    private static final byte USED = 1;
+    private static final byte ACCEPTING = 2;
+    private static final byte REFERENCED = 4;
+
+    private final long[] keys;
+    private final int[] checks;
+    private final byte[] flags;
+    private final int setMask;
+
+    private int size;
+    private long numCollisions;
+
+    DFAFingerprintStore(@Nonnegative int capacity) {
+        final int minSets = Math.max(1, (capacity + WAYS - 1) / WAYS);
+        final int numSets = Integer.highestOneBit(minSets) == minSets ? minSets : Integer.highestOneBit(minSets) << 1;
+
+        this.keys = new long[numSets * WAYS];
+        this.checks = new int[numSets * WAYS];
+        this.flags = new byte[numSets * WAYS];
+        this.setMask = numSets - 1;
+    }
+
+    /**
+     * Looks up the answer stored for the given fingerprint.
+     *
+     * @return the stored answer, or {@code null} if there is no entry for the fingerprint (or it collides with another
+     * one)
+     */
+    @Nullable
+    Boolean lookup(long key, int check) {
+        final int base = getSet(key);
+
+        for (int i = base; i < base + WAYS; i++) {
+            if ((flags[i] & USED) != 0 && keys[i] == key) {
+                if (checks[i] != check) {
+                    numCollisions++;
+                    return null;
+                }
+                flags[i] |= REFERENCED;
+                return (flags[i] & ACCEPTING) != 0;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Stores the answer for the given fingerprint, possibly replacing another entry. If an entry with the same key but
+     * a different check value exists, it is replaced as well.
+     */
+    void insert(long key, int check, boolean accepting) {
+        final int base = getSet(key);
+        int slot = -1;
+
+        for (int i = base; i < base + WAYS; i++) {
+            if ((flags[i] & USED) == 0) {
+                if (slot < 0) {
+                    slot = i;
+                }
+            } else if (keys[i] == key) {
+                slot = i;
+                size--;
+                break;
+            }
+        }
+
+        if (slot < 0) {
+            slot = selectVictim(base, key);
+            size--;
+        }
+
+        keys[slot] = key;
+        checks[slot] = check;
+        flags[slot] = accepting ? (byte) (USED | ACCEPTING) : USED;
+        size++;
+    }
+
+    private int selectVictim(int base, long key) {
+        // start at a pseudo-random way, so that victims are not biased towards the first ways of a set
+        final int start = (int) (key >>> 32) & (WAYS - 1);
+
+        for (int i = 0; i < WAYS; i++) {
+            final int slot = base + ((start + i) & (WAYS - 1));
+            if ((flags[slot] & REFERENCED) == 0) {
+                return slot;
+            }
+            flags[slot] &= ~REFERENCED;
+        }
+
+        return base + start;
+    }
+
+    private int getSet(long key) {
+        return ((int) (key ^ (key >>> 32)) & setMask) * WAYS;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+        Arrays.fill(flags, (byte) 0);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return flags.length;
+    }
+
+    long getNumCollisions() {
+        return numCollisions;
+    }
+}
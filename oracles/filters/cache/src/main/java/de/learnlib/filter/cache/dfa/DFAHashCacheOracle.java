@@ -15,10 +15,9 @@
  */
 package de.learnlib.filter.cache.dfa;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -26,6 +25,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import de.learnlib.api.oracle.EquivalenceOracle;
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.Query;
+import de.learnlib.api.query.QueryBatch;
 import de.learnlib.filter.cache.LearningCacheOracle.DFALearningCacheOracle;
 import net.automatalib.automata.fsa.DFA;
 import net.automatalib.words.Word;
@@ -49,33 +49,67 @@ public class DFAHashCacheOracle<I> implements DFALearningCacheOracle<I> {
 
     @Override
     public void processQueries(Collection<? extends Query<I, Boolean>> queries) {
-        List<ProxyQuery<I>> misses = new ArrayList<>();
+        processBatch(QueryBatch.of(queries));
+    }
+
+    @Override
+    public void processBatch(QueryBatch<I, Boolean> batch) {
+        final int[] misses = new int[batch.size()];
+        int numMisses = 0;
 
         cacheLock.lock();
         try {
-            for (Query<I, Boolean> qry : queries) {
-                Word<I> input = qry.getInput();
-                Boolean answer = cache.get(input);
+            for (int i = 0; i < batch.size(); i++) {
+                Boolean answer = cache.get(batch.getInput(i));
                 if (answer != null) {
-                    qry.answer(answer);
+                    batch.answer(i, answer);
                 } else {
-                    misses.add(new ProxyQuery<>(qry));
+                    misses[numMisses++] = i;
                 }
             }
         } finally {
             cacheLock.unlock();
         }
 
-        delegate.processQueries(misses);
+        final QueryBatch<I, Boolean> unanswered = batch.subset(Arrays.copyOf(misses, numMisses));
+        delegate.processBatch(unanswered);
 
         cacheLock.lock();
         try {
-            for (ProxyQuery<I> miss : misses) {
-                cache.put(miss.getInput(), miss.getAnswer());
+            for (int i = 0; i < unanswered.size(); i++) {
+                cache.put(unanswered.getInput(i), unanswered.getAnswer(i));
             }
         } finally {
             cacheLock.unlock();
         }
     }
 
+    /**
+     * Returns a copy of the current cache contents, e.g. for checkpointing the cache.
+     *
+     * @return a copy of the cache contents
+     */
+    public HashMap<Word<I>, Boolean> getCacheContents() {
+        cacheLock.lock();
+        try {
+            return new HashMap<>(cache);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the given query answers to the cache, e.g. when restoring a cache from a checkpoint.
+     *
+     * @param contents
+     *         the query answers to add
+     */
+    public void addCacheContents(Map<Word<I>, Boolean> contents) {
+        cacheLock.lock();
+        try {
+            cache.putAll(contents);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
 }
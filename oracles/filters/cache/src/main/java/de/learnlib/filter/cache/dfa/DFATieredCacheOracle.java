@@ -0,0 +1,304 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.filter.cache.dfa;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import de.learnlib.api.oracle.EquivalenceOracle;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import de.learnlib.api.query.QueryBatch;
+import de.learnlib.filter.cache.LearningCacheOracle.DFALearningCacheOracle;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+
+/**
+ * A DFA cache with bounded memory consumption, which is suited for long runs with many (long) words that are queried
+ * only once, e.g. random words of equivalence oracles.
+ * <p>
+ * The cache consists of two tiers:
+ * <ul>
+ * <li>A <i>hot</i> cache that stores the words and answers of the most recently used queries exactly, up to a given
+ * number of entries.</li>
+ * <li>A secondary store that only stores fingerprints of the words evicted from the hot cache, and hence requires a
+ * constant amount of memory per entry regardless of the word length (see {@link DFAFingerprintStore}). Fingerprints
+ * consist of a 64 bit key and a 32 bit check value, which is a second (differently seeded) hash of the word. Words
+ * whose keys collide with the key of a stored entry, but whose check values differ, are forwarded to the delegate
+ * oracle.</li>
+ * </ul>
+ * Words found in the secondary store are promoted to the hot cache again. Once the secondary store is full, the
+ * entries that have not been referenced recently are evicted.
+ * <p>
+ * Fingerprints are computed from the indices of the symbols in the given alphabet, hence all queried words must be
+ * words over this alphabet. Note that the {@link #createCacheConsistencyTest() cache consistency test} only covers the
+ * entries of the hot cache.
+ * <p>
+ * <b>Note:</b> unlike the other caches, this cache may return wrong answers. If a word that is not stored matches both
+ * the key and the check value of a stored entry, the answer of the stored entry is returned. Since the store holds at
+ * most one entry per key, the probability of such a false positive is at most {@code n / 2^96} per lookup for a store
+ * of {@code n} entries, assuming that the two (non-cryptographic) hash functions behave like independent random
+ * functions on the queried words. For example, {@code 2^40} lookups on a store of {@code 2^24} entries yield a wrong
+ * answer with a probability of at most {@code 2^-32}. Applications that cannot tolerate this should use an exact
+ * cache (e.g. a {@link DFACacheOracle}).
+ *
+ * @param <I>
+ *         input symbol type
+ */
+@ParametersAreNonnullByDefault
+public class DFATieredCacheOracle<I> implements DFALearningCacheOracle<I> {
+
+    private static final long KEY_SEED = 0x2545F4914F6CDD1DL;
+    private static final long KEY_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final long CHECK_SEED = 0x6A09E667F3BCC909L;
+    private static final long CHECK_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+    private final Alphabet<I> alphabet;
+    private final MembershipOracle<I, Boolean> delegate;
+    private final Map<Word<I>, Boolean> hotCache;
+    private final DFAFingerprintStore fingerprints;
+    private final Lock cacheLock;
+
+    private long numHotHits;
+    private long numFingerprintHits;
+    private long numMisses;
+
+    /**
+     * Constructor.
+     *
+     * @param alphabet
+     *         the input alphabet
+     * @param delegate
+     *         the delegate oracle
+     * @param hotCapacity
+     *         the maximum number of entries of the hot cache
+     * @param fingerprintCapacity
+     *         the (minimum) number of entries of the secondary store
+     */
+    public DFATieredCacheOracle(Alphabet<I> alphabet,
+                                MembershipOracle<I, Boolean> delegate,
+                                @Nonnegative int hotCapacity,
+                                @Nonnegative int fingerprintCapacity) {
+        this.alphabet = alphabet;
+        this.delegate = delegate;
+        this.fingerprints = new DFAFingerprintStore(fingerprintCapacity);
+        this.cacheLock = new ReentrantLock();
+        this.hotCache = new LinkedHashMap<Word<I>, Boolean>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Word<I>, Boolean> eldest) {
+                if (size() > hotCapacity) {
+                    demote(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public EquivalenceOracle<DFA<?, I>, I, Boolean> createCacheConsistencyTest() {
+        return new DFAHashCacheConsistencyTest<>(hotCache, cacheLock);
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, Boolean>> queries) {
+        processBatch(QueryBatch.of(queries));
+    }
+
+    @Override
+    public void processBatch(QueryBatch<I, Boolean> batch) {
+        final int[] misses = new int[batch.size()];
+        int numBatchMisses = 0;
+
+        cacheLock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                final Word<I> input = batch.getInput(i);
+                Boolean answer = hotCache.get(input);
+
+                if (answer != null) {
+                    numHotHits++;
+                } else {
+                    answer = fingerprints.lookup(computeKey(input), computeCheck(input));
+                    if (answer != null) {
+                        numFingerprintHits++;
+                        hotCache.put(input, answer);
+                    }
+                }
+
+                if (answer != null) {
+                    batch.answer(i, answer);
+                } else {
+                    misses[numBatchMisses++] = i;
+                }
+            }
+            numMisses += numBatchMisses;
+        } finally {
+            cacheLock.unlock();
+        }
+
+        final QueryBatch<I, Boolean> unanswered = batch.subset(Arrays.copyOf(misses, numBatchMisses));
+        delegate.processBatch(unanswered);
+
+        cacheLock.lock();
+        try {
+            for (int i = 0; i < unanswered.size(); i++) {
+                final Boolean answer = unanswered.getAnswer(i);
+                if (answer != null) {
+                    hotCache.put(unanswered.getInput(i), answer);
+                }
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private void demote(Word<I> input, boolean answer) {
+        fingerprints.insert(computeKey(input), computeCheck(input), answer);
+    }
+
+    private long computeKey(Word<I> input) {
+        long h = KEY_SEED;
+        for (I sym : input) {
+            h = (h ^ getSymbolIndex(sym)) * KEY_MULTIPLIER;
+            h ^= h >>> 32;
+        }
+        return mix(h ^ input.length());
+    }
+
+    private int computeCheck(Word<I> input) {
+        long h = CHECK_SEED;
+        for (I sym : input) {
+            h = Long.rotateLeft((h + getSymbolIndex(sym)) * CHECK_MULTIPLIER, 27);
+        }
+        return (int) mix(h + input.length());
+    }
+
+    private int getSymbolIndex(I sym) {
+        final int idx = alphabet.getSymbolIndex(sym);
+        if (idx < 0) {
+            throw new IllegalArgumentException("Symbol '" + sym + "' is not contained in the input alphabet");
+        }
+        return idx;
+    }
+
+    // finalization step of MurmurHash3
+    private static long mix(long h) {
+        long result = h;
+        result ^= result >>> 33;
+        result *= 0xFF51AFD7ED558CCDL;
+        result ^= result >>> 33;
+        result *= 0xC4CEB9FE1A85EC53L;
+        result ^= result >>> 33;
+        return result;
+    }
+
+    /**
+     * Returns the number of queries answered by the hot cache.
+     *
+     * @return the number of hot cache hits
+     */
+    public long getNumHotHits() {
+        cacheLock.lock();
+        try {
+            return numHotHits;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of queries answered by the secondary (fingerprint) store.
+     *
+     * @return the number of secondary store hits
+     */
+    public long getNumFingerprintHits() {
+        cacheLock.lock();
+        try {
+            return numFingerprintHits;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of queries forwarded to the delegate oracle.
+     *
+     * @return the number of cache misses
+     */
+    public long getNumMisses() {
+        cacheLock.lock();
+        try {
+            return numMisses;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of detected fingerprint collisions, i.e. of lookups that had to be forwarded to the delegate
+     * oracle despite a matching key in the secondary store.
+     *
+     * @return the number of detected collisions
+     */
+    public long getNumCollisions() {
+        cacheLock.lock();
+        try {
+            return fingerprints.getNumCollisions();
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of entries in the hot cache.
+     *
+     * @return the size of the hot cache
+     */
+    public int getHotCacheSize() {
+        cacheLock.lock();
+        try {
+            return hotCache.size();
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of entries in the secondary store.
+     *
+     * @return the size of the secondary store
+     */
+    public int getFingerprintStoreSize() {
+        cacheLock.lock();
+        try {
+            return fingerprints.size();
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.filter.cache.dfa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.learnlib.api.oracle.MembershipOracle.DFAMembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.filter.cache.CacheTestUtils;
+import de.learnlib.filter.cache.LearningCacheOracle.DFALearningCacheOracle;
+import de.learnlib.filter.statistic.oracle.CounterOracle.DFACounterOracle;
+import de.learnlib.oracle.membership.SimulatorOracle.DFASimulatorOracle;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DFATieredCacheTest extends AbstractDFACacheTest {
+
+    @Override
+    protected DFALearningCacheOracle<Character> getCache(DFAMembershipOracle<Character> delegate) {
+        return DFACaches.createTieredCache(CacheTestUtils.INPUT_ALPHABET, delegate, 1000, 1000);
+    }
+
+    @Test
+    public void testDemotion() {
+        final DFACounterOracle<Character> counter =
+                new DFACounterOracle<>(new DFASimulatorOracle<>(CacheTestUtils.DFA), "counterOracle");
+        final DFATieredCacheOracle<Character> cache =
+                DFACaches.createTieredCache(CacheTestUtils.INPUT_ALPHABET, counter, 2, 1024);
+
+        final List<DefaultQuery<Character, Boolean>> queries = createQueries(20);
+        cache.processQueries(queries);
+        Assert.assertEquals(counter.getCount(), 20);
+        Assert.assertEquals(cache.getHotCacheSize(), 2);
+        Assert.assertEquals(cache.getFingerprintStoreSize(), 18);
+
+        final List<DefaultQuery<Character, Boolean>> repeated = createQueries(20);
+        cache.processQueries(repeated);
+        Assert.assertEquals(counter.getCount(), 20);
+        Assert.assertEquals(cache.getNumMisses(), 20);
+        Assert.assertEquals(cache.getNumHotHits() + cache.getNumFingerprintHits(), 20);
+        Assert.assertTrue(cache.getNumFingerprintHits() >= 18);
+
+        for (int i = 0; i < queries.size(); i++) {
+            Assert.assertEquals(repeated.get(i).getOutput(), queries.get(i).getOutput());
+        }
+    }
+
+    @Test
+    public void testFingerprintStore() {
+        final DFAFingerprintStore store = new DFAFingerprintStore(64);
+        Assert.assertEquals(store.capacity(), 64);
+
+        store.insert(42L, 7, true);
+        Assert.assertEquals(store.lookup(42L, 7), Boolean.TRUE);
+
+        // matching key, but different check value
+        Assert.assertNull(store.lookup(42L, 8));
+        Assert.assertEquals(store.getNumCollisions(), 1);
+
+        store.insert(42L, 8, false);
+        Assert.assertEquals(store.lookup(42L, 8), Boolean.FALSE);
+        Assert.assertEquals(store.size(), 1);
+
+        for (long key = 0; key < 1000; key++) {
+            store.insert(key * 0x9E3779B97F4A7C15L, (int) key, key % 2 == 0);
+        }
+        Assert.assertEquals(store.size(), store.capacity());
+    }
+
+    /**
+     * Creates distinct queries of increasing length.
+     */
+    private static List<DefaultQuery<Character, Boolean>> createQueries(int num) {
+        final List<DefaultQuery<Character, Boolean>> queries = new ArrayList<>(num);
+        for (int i = 0; i < num; i++) {
+            final WordBuilder<Character> wb = new WordBuilder<>(i);
+            for (int j = 0; j < i; j++) {
+                wb.add(CacheTestUtils.INPUT_ALPHABET.getSymbol(j % CacheTestUtils.INPUT_ALPHABET.size()));
+            }
+            final Word<Character> word = wb.toWord();
+            queries.add(new DefaultQuery<>(word));
+        }
+        return queries;
+    }
+}
@@ -15,21 +15,25 @@
  */
 package de.learnlib.filter.reuse;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 import de.learnlib.api.oracle.SingleQueryOracle.SingleQueryOracleMealy;
+import de.learnlib.api.query.Query;
 import de.learnlib.filter.reuse.ReuseCapableOracle.QueryResult;
 import de.learnlib.filter.reuse.tree.BoundedDeque.AccessPolicy;
 import de.learnlib.filter.reuse.tree.BoundedDeque.EvictPolicy;
+import de.learnlib.filter.reuse.tree.ReuseEdge;
 import de.learnlib.filter.reuse.tree.ReuseNode;
-import de.learnlib.filter.reuse.tree.ReuseNode.NodeResult;
 import de.learnlib.filter.reuse.tree.ReuseTree;
 import de.learnlib.filter.reuse.tree.ReuseTree.ReuseTreeBuilder;
 import de.learnlib.filter.reuse.tree.SystemStateHandler;
+import net.automatalib.commons.util.comparison.CmpUtil;
 import net.automatalib.words.Alphabet;
 import net.automatalib.words.Word;
 import net.automatalib.words.WordBuilder;
@@ -49,6 +53,10 @@ import net.automatalib.words.WordBuilder;
  * The usage of model invariant input symbols and failure output symbols is disabled by default and can be enabled upon
  * construction (see {@link ReuseOracleBuilder#withFailureOutputs(Set)} and {@link
  * ReuseOracleBuilder#withInvariantInputs(Set)}).
+ * <p>
+ * Batches of queries are processed in lexicographical order of their inputs, i.e. in depth-first order of the reuse
+ * tree. Hence, the system state resulting from a query is usually directly reused by the subsequent queries that extend
+ * it, so that queries of a batch chain off each other's system states.
  *
  * @param <S>
  *         system state class
@@ -65,10 +73,13 @@ public final class ReuseOracle<S, I, O> implements SingleQueryOracleMealy<I, O>
 
     private final ReuseTree<S, I, O> tree;
 
+    private final Alphabet<I> alphabet;
+
     /**
      * Default constructor.
      */
     private ReuseOracle(ReuseOracleBuilder<S, I, O> builder) {
+        this.alphabet = builder.alphabet;
         this.executableOracles = ThreadLocal.withInitial(builder.oracleSupplier::get);
         this.tree = new ReuseTreeBuilder<S, I, O>(builder.alphabet).withSystemStateHandler(builder.systemStateHandler)
                                                                    .withFailureOutputs(builder.failureOutputSymbols)
@@ -77,6 +88,8 @@ public final class ReuseOracle<S, I, O> implements SingleQueryOracleMealy<I, O>
                                                                    .withMaxSystemStates(builder.maxSystemStates)
                                                                    .withAccessPolicy(builder.accessPolicy)
                                                                    .withEvictPolicy(builder.evictPolicy)
+                                                                   .withMaxTotalSystemStates(builder.maxTotalSystemStates)
+                                                                   .withMaxNodes(builder.maxNodes)
                                                                    .build();
     }
 
@@ -90,57 +103,117 @@ public final class ReuseOracle<S, I, O> implements SingleQueryOracleMealy<I, O>
         return processQuery(input);
     }
 
+    @Override
+    public void processQueries(Collection<? extends Query<I, Word<O>>> queries) {
+        final List<Query<I, Word<O>>> queryList = new ArrayList<>(queries);
+        final int numQueries = queryList.size();
+        final List<Word<I>> inputs = new ArrayList<>(numQueries);
+        final Integer[] order = new Integer[numQueries];
+
+        for (int i = 0; i < numQueries; i++) {
+            inputs.add(queryList.get(i).getInput());
+            order[i] = i;
+        }
+
+        // depth-first order of the reuse tree, so that extensions directly reuse the system states of their prefixes
+        Arrays.sort(order, (q1, q2) -> CmpUtil.lexCompare(inputs.get(q1), inputs.get(q2), alphabet));
+
+        for (Integer idx : order) {
+            final Query<I, Word<O>> query = queryList.get(idx);
+            query.answer(processQuery(inputs.get(idx)).suffix(query.getSuffix().length()));
+        }
+    }
+
     /**
      * This methods returns the full output to the input query.
      * <p>
-     * It is possible that the query is already known (answer provided by {@link ReuseTree#getOutput(Word)}, the query
-     * is new and no system state could be found for reusage ({@link ReuseCapableOracle#processQuery(Word)} will be
-     * invoked) or there exists a prefix that (maybe epsilon) could be reused so save reset invocation ( {@link
+     * It is possible that the query is already known (answer provided by the {@link ReuseTree}, the query is new and
+     * no system state could be found for reusage ({@link ReuseCapableOracle#processQuery(Word)} will be invoked) or
+     * there exists a prefix that (maybe epsilon) could be reused so save reset invocation ( {@link
      * ReuseCapableOracle#continueQuery(Word, Object)} will be invoked with remaining suffix and the corresponding
      * {@link ReuseNode} of the {@link ReuseTree}).
+     * <p>
+     * The known outputs, the "reflexive" edges and the nodes offering system states along the query are determined by
+     * a single traversal of the {@link ReuseTree}.
      */
+    @SuppressWarnings("unchecked")
     private Word<O> processQuery(final Word<I> query) {
-        Word<O> knownOutput = tree.getOutput(query);
+        final int length = query.length();
+        final O[] knownOutputs = (O[]) new Object[length];
+        final boolean[] reflexive = new boolean[length];
+        final List<ReuseNode<S, I, O>> candidates = new ArrayList<>();
+        final int[] candidateLengths = new int[length + 1];
+
+        ReuseNode<S, I, O> node = tree.getRoot();
+        if (node.hasSystemStates()) {
+            candidateLengths[candidates.size()] = 0;
+            candidates.add(node);
+        }
+
+        int known = 0;
+        while (known < length) {
+            final ReuseEdge<S, I, O> edge = node.getEdgeWithInput(alphabet.getSymbolIndex(query.getSymbol(known)));
+            if (edge == null) {
+                break;
+            }
+
+            final ReuseNode<S, I, O> target = edge.getTarget();
+            knownOutputs[known] = edge.getOutput();
+            reflexive[known] = node.equals(target);
+            node = target;
+            known++;
+
+            if (node.hasSystemStates()) {
+                candidateLengths[candidates.size()] = known;
+                candidates.add(node);
+            }
+        }
+
+        if (known == length) {
+            return Word.fromSymbols(knownOutputs);
+        }
+
+        // Search for system state, other threads may have checked out system states in the meantime
+        ReuseNode<S, I, O> reuseNode = null;
+        S systemState = null;
+        int prefixLength = 0;
 
-        if (knownOutput != null) {
-            return knownOutput;
+        for (int i = candidates.size() - 1; i >= 0 && systemState == null; i--) {
+            reuseNode = candidates.get(i);
+            systemState = tree.fetchSystemState(reuseNode);
+            prefixLength = candidateLengths[i];
         }
 
-        // Search for system state
-        final NodeResult<S, I, O> nodeResult = tree.fetchSystemState(query);
         final ReuseCapableOracle<S, I, O> oracle = getReuseCapableOracle();
-        final Word<O> output;
+        final WordBuilder<O> output = new WordBuilder<>(length);
 
         // No system state available
-        if (nodeResult == null) {
+        if (systemState == null) {
             final QueryResult<S, O> newResult =
-                    filterAndProcessQuery(query, tree.getPartialOutput(query), oracle::processQuery);
+                    filterAndProcessQuery(query, 0, known, knownOutputs, reflexive, oracle::processQuery);
 
             tree.insert(query, newResult);
 
-            output = newResult.output;
+            output.append(newResult.output);
         } else { // System state available -> reuse
-            final int suffixLen = query.size() - nodeResult.prefixLength;
-            final Word<I> suffix = query.suffix(suffixLen);
-
-            final Word<O> partialOutput = tree.getPartialOutput(query);
-            final Word<O> partialSuffixOutput = partialOutput.suffix(suffixLen);
-
-            final ReuseNode<S, I, O> reuseNode = nodeResult.reuseNode;
-            final S systemState = nodeResult.systemState;
-
-            final QueryResult<S, O> suffixQueryResult = filterAndProcessQuery(suffix,
-                                                                              partialSuffixOutput,
+            final S reusedState = systemState;
+            final QueryResult<S, O> suffixQueryResult = filterAndProcessQuery(query,
+                                                                              prefixLength,
+                                                                              known,
+                                                                              knownOutputs,
+                                                                              reflexive,
                                                                               filteredInput -> oracle.continueQuery(
                                                                                       filteredInput,
-                                                                                      systemState));
+                                                                                      reusedState));
 
-            this.tree.insert(suffix, reuseNode, suffixQueryResult);
+            this.tree.insert(query.subWord(prefixLength), reuseNode, suffixQueryResult);
 
-            final Word<O> prefixOutput = tree.getOutput(query.prefix(nodeResult.prefixLength));
-            output = new WordBuilder<>(prefixOutput).append(suffixQueryResult.output).toWord();
+            for (int i = 0; i < prefixLength; i++) {
+                output.add(knownOutputs[i]);
+            }
+            output.append(suffixQueryResult.output);
         }
-        return output;
+        return output.toWord();
     }
 
     /**
@@ -155,41 +228,56 @@ public final class ReuseOracle<S, I, O> implements SingleQueryOracleMealy<I, O>
      * and fills the filtered outputs into the resulting output word.
      *
      * @param query
-     *         the input query with "reflexive" symbols (may be a suffix of the original query, if a system state is
-     *         reused).
-     * @param partialOutput
-     *         the output information from the tree with {@code null} entries for all "non-reflexive" edges.
+     *         the (full) input query with "reflexive" symbols.
+     * @param offset
+     *         the index of the first symbol of the query to execute (i.e., the length of the reused prefix).
+     * @param known
+     *         the length of the longest prefix of the query that is known to the reuse tree.
+     * @param knownOutputs
+     *         the outputs of the longest known prefix of the query.
+     * @param reflexive
+     *         the flags indicating whether the corresponding symbols of the longest known prefix of the query belong to
+     *         "reflexive" edges.
      * @param processQuery
      *         a function that actually processes the (shortened) query.
      *
-     * @return the query result including the outputs of the "reflexive" symbol executions.
+     * @return the query result (for the symbols starting at {@code offset}) including the outputs of the "reflexive"
+     * symbol executions.
      */
     private QueryResult<S, O> filterAndProcessQuery(Word<I> query,
-                                                    Word<O> partialOutput,
+                                                    int offset,
+                                                    int known,
+                                                    O[] knownOutputs,
+                                                    boolean[] reflexive,
                                                     Function<Word<I>, QueryResult<S, O>> processQuery) {
-        final LinkedList<I> filteredQueryList = new LinkedList<>(query.asList());
-        final Iterator<I> queryIterator = filteredQueryList.iterator();
-
-        // filter "reflexive" edges
-        for (final O outputSymbol : partialOutput) {
-            queryIterator.next();
-            if (outputSymbol != null) {
-                queryIterator.remove();
+        final int length = query.length();
+        final int[] executed = new int[length - offset];
+        int numExecuted = 0;
+
+        // filter "reflexive" edges (whose output is known)
+        for (int i = offset; i < length; i++) {
+            if (i >= known || !reflexive[i] || knownOutputs[i] == null) {
+                executed[numExecuted++] = i;
             }
         }
 
+        final WordBuilder<I> filteredQuery = new WordBuilder<>(numExecuted);
+        for (int i = 0; i < numExecuted; i++) {
+            filteredQuery.add(query.getSymbol(executed[i]));
+        }
+
         // process the query
-        final QueryResult<S, O> res = processQuery.apply(Word.fromList(filteredQueryList));
+        final QueryResult<S, O> res = processQuery.apply(filteredQuery.toWord());
 
-        final WordBuilder<O> wordBuilder = new WordBuilder<>();
-        final Iterator<O> resultIterator = res.output.iterator();
+        final WordBuilder<O> wordBuilder = new WordBuilder<>(length - offset);
+        int resultIdx = 0;
 
         // insert back the a priori available outputs of "reflexive" edges
-        for (final O output : partialOutput) {
-            if (output == null) {
-                wordBuilder.add(resultIterator.next());
+        for (int i = offset; i < length; i++) {
+            if (resultIdx < numExecuted && executed[resultIdx] == i) {
+                wordBuilder.add(res.output.getSymbol(resultIdx++));
             } else {
-                wordBuilder.add(output);
+                wordBuilder.add(knownOutputs[i]);
             }
         }
 
@@ -215,6 +303,8 @@ public final class ReuseOracle<S, I, O> implements SingleQueryOracleMealy<I, O>
         private int maxSystemStates = -1;
         private AccessPolicy accessPolicy = AccessPolicy.LIFO;
         private EvictPolicy evictPolicy = EvictPolicy.EVICT_OLDEST;
+        private int maxTotalSystemStates = -1;
+        private int maxNodes = -1;
 
         public ReuseOracleBuilder(Alphabet<I> alphabet,
                                   Supplier<? extends ReuseCapableOracle<S, I, O>> oracleSupplier) {
@@ -257,6 +347,16 @@ public final class ReuseOracle<S, I, O> implements SingleQueryOracleMealy<I, O>
             return this;
         }
 
+        public ReuseOracleBuilder<S, I, O> withMaxTotalSystemStates(int maxTotalSystemStates) {
+            this.maxTotalSystemStates = maxTotalSystemStates;
+            return this;
+        }
+
+        public ReuseOracleBuilder<S, I, O> withMaxNodes(int maxNodes) {
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
         public ReuseOracle<S, I, O> build() {
             return new ReuseOracle<>(this);
         }
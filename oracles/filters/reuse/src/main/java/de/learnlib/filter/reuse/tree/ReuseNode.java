@@ -15,9 +15,11 @@
  */
 package de.learnlib.filter.reuse.tree;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import de.learnlib.filter.reuse.tree.BoundedDeque.AccessPolicy;
 import de.learnlib.filter.reuse.tree.BoundedDeque.EvictPolicy;
@@ -27,6 +29,14 @@ import de.learnlib.filter.reuse.tree.BoundedDeque.EvictPolicy;
  * ReuseEdge}s. Each {@link ReuseNode} may contain a system state holding relevant informations (e.g. database
  * identifiers or an object) that belongs to the system state that 'represents' the system state after executing a
  * membership query.
+ * <p>
+ * Nodes can safely be accessed by multiple threads: outgoing edges are stored in an atomic array (hence lookups do
+ * not require any locking), whereas access to the system states is synchronized per node. Edges are only removed when
+ * the {@link ReuseTree} prunes a branch, which happens under the exclusive lock of the tree and marks all nodes of the
+ * branch as retired.
+ * <p>
+ * Each node additionally records its depth in the tree and how often a system state has been fetched from it. Both
+ * values are used by the {@link ReuseTree} for estimating the replay cost saved by the system states of this node.
  *
  * @param <S>
  *         system state class
@@ -39,19 +49,34 @@ import de.learnlib.filter.reuse.tree.BoundedDeque.EvictPolicy;
  */
 public class ReuseNode<S, I, O> {
 
-    private final ReuseEdge<S, I, O>[] edges;
+    private final AtomicReferenceArray<ReuseEdge<S, I, O>> edges;
     private final BoundedDeque<S> systemStates;
     // private S systemstate;
-    private final int id;
+    // assigned once the node has been successfully added to the tree, see setId(int)
+    private volatile int id;
+    private final int depth;
+    // guarded by systemStates
+    private int hits;
+    // set once the node has been pruned from the tree
+    private volatile boolean retired;
 
-    @SuppressWarnings("unchecked")
     public ReuseNode(int id,
                      int alphabetSize,
                      int maxSystemStates,
                      AccessPolicy accessPolicy,
                      EvictPolicy evictPolicy) {
-        this.edges = new ReuseEdge[alphabetSize];
+        this(id, 0, alphabetSize, maxSystemStates, accessPolicy, evictPolicy);
+    }
+
+    public ReuseNode(int id,
+                     int depth,
+                     int alphabetSize,
+                     int maxSystemStates,
+                     AccessPolicy accessPolicy,
+                     EvictPolicy evictPolicy) {
+        this.edges = new AtomicReferenceArray<>(alphabetSize);
         this.id = id;
+        this.depth = depth;
         this.systemStates = new BoundedDeque<>(maxSystemStates, accessPolicy, evictPolicy);
     }
 
@@ -59,26 +84,69 @@ public class ReuseNode<S, I, O> {
      * The system state, may be {@code null}.
      */
     public S fetchSystemState(boolean remove) {
-        if (remove) {
+        synchronized (systemStates) {
+            final S state = remove ? systemStates.retrieve() : systemStates.peek();
+            if (state != null) {
+                hits++;
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Removes a system state for eviction purposes, i.e. without counting it as a hit.
+     *
+     * @return the removed system state, {@code null} if there is none.
+     */
+    S evictSystemState() {
+        synchronized (systemStates) {
             return systemStates.retrieve();
         }
-        return systemStates.peek();
     }
 
     public S addSystemState(S state) {
-        return systemStates.insert(state);
+        synchronized (systemStates) {
+            return systemStates.insert(state);
+        }
     }
 
+    /**
+     * Returns an iterator over a snapshot of the system states of this node.
+     */
     public Iterator<S> systemStatesIterator() {
-        return systemStates.iterator();
+        synchronized (systemStates) {
+            return new ArrayList<>(systemStates).iterator();
+        }
     }
 
     public boolean hasSystemStates() {
-        return !systemStates.isEmpty();
+        synchronized (systemStates) {
+            return !systemStates.isEmpty();
+        }
     }
 
     public void clearSystemStates() {
-        systemStates.clear();
+        synchronized (systemStates) {
+            systemStates.clear();
+        }
+    }
+
+    /**
+     * Returns how often a system state has been fetched from this node (subject to aging, see {@link #decayHits()}).
+     */
+    public int getHits() {
+        synchronized (systemStates) {
+            return hits;
+        }
+    }
+
+    /**
+     * Halves the hit count of this node, so that hits from the distant past become less relevant.
+     */
+    void decayHits() {
+        synchronized (systemStates) {
+            hits >>>= 1;
+        }
     }
 
     /**
@@ -86,14 +154,54 @@ public class ReuseNode<S, I, O> {
      * java.util.Collection} will be empty (but never {@code null}).
      */
     public Collection<ReuseEdge<S, I, O>> getEdges() {
-        return Arrays.asList(edges);
+        final int size = edges.length();
+        final List<ReuseEdge<S, I, O>> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(edges.get(i));
+        }
+        return result;
     }
 
     /**
      * Adds an outgoing {@link ReuseEdge} to this {@link ReuseNode}.
      */
     public void addEdge(int index, ReuseEdge<S, I, O> edge) {
-        this.edges[index] = edge;
+        this.edges.set(index, edge);
+    }
+
+    /**
+     * Atomically adds an outgoing {@link ReuseEdge} to this {@link ReuseNode}, if there exists no edge for the given
+     * index yet.
+     *
+     * @return {@code null} if the edge has been added, the already existing edge otherwise.
+     */
+    public ReuseEdge<S, I, O> addEdgeIfAbsent(int index, ReuseEdge<S, I, O> edge) {
+        if (this.edges.compareAndSet(index, null, edge)) {
+            return null;
+        }
+        // edges are never removed concurrently (see removeEdge), hence the existing edge is non-null
+        return this.edges.get(index);
+    }
+
+    /**
+     * Atomically removes the given outgoing {@link ReuseEdge} from this {@link ReuseNode}. Must only be invoked while
+     * no edges are added concurrently, i.e. while holding the write lock of the {@link ReuseTree}.
+     *
+     * @return {@code true} if the edge has been removed, {@code false} if the edge for the given index has changed
+     */
+    boolean removeEdge(int index, ReuseEdge<S, I, O> edge) {
+        return this.edges.compareAndSet(index, edge, null);
+    }
+
+    /**
+     * Whether this node has been pruned from the {@link ReuseTree}.
+     */
+    boolean isRetired() {
+        return retired;
+    }
+
+    void retire() {
+        this.retired = true;
     }
 
     public ReuseNode<S, I, O> getTargetNodeForInput(int index) {
@@ -108,13 +216,27 @@ public class ReuseNode<S, I, O> {
      * May be {@code null}.
      */
     public ReuseEdge<S, I, O> getEdgeWithInput(int index) {
-        return this.edges[index];
+        return this.edges.get(index);
     }
 
+    /**
+     * The id of this node, or {@code -1} if the node is just being added to the tree by another thread.
+     */
     public int getId() {
         return this.id;
     }
 
+    void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * The number of non-reflexive edges between the root and this node.
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
     public static final class NodeResult<S, I, O> {
 
         public final ReuseNode<S, I, O> reuseNode;
@@ -18,9 +18,18 @@ package de.learnlib.filter.reuse.tree;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import de.learnlib.filter.reuse.ReuseCapableOracle;
 import de.learnlib.filter.reuse.ReuseException;
@@ -42,6 +51,28 @@ import net.automatalib.words.WordBuilder;
  * SUL and maintains also available system states. The {@link ReuseTree} is only 'tree like' since it may contain
  * reflexive edges at nodes (only possible if {@link ReuseTreeBuilder#withFailureOutputs(Set)} or {@link
  * ReuseTreeBuilder#withInvariantInputs(Set)} is set).
+ * <p>
+ * The tree supports concurrent access by multiple threads (e.g. several {@link ReuseCapableOracle}s of a {@link
+ * ReuseOracle}) without a global lock: lookups traverse the tree lock-free, new edges are added atomically, and system
+ * states are checked out atomically from their respective nodes (see {@link #fetchSystemState(Word)}). Insertions only
+ * share a read lock with each other, which is exclusively acquired for pruning the tree (see below), so that edges are
+ * never removed while an insertion adds edges. Only the maintenance operations {@link #disposeSystemstates()} and
+ * {@link #clearTree()} must not be invoked concurrently to the processing of queries.
+ * <p>
+ * Besides the per-node limit of system states (see {@link ReuseTreeBuilder#withMaxSystemStates(int)}), the memory
+ * consumption of the tree can be bounded globally:
+ * <ul>
+ * <li>{@link ReuseTreeBuilder#withMaxTotalSystemStates(int)} limits the total number of retained system states.
+ * Whenever this limit is exceeded, the system states with the least estimated replay cost saved (i.e. the depth of
+ * their node multiplied by the number of previous reuses of this node) are evicted.</li>
+ * <li>{@link ReuseTreeBuilder#withMaxNodes(int)} limits the number of nodes of the tree. Whenever this limit is
+ * exceeded, cold branches (i.e. subtrees without any system states, from which no system state has been fetched
+ * recently) are pruned, starting with the largest ones. Note that pruned branches no longer serve as a cache for their
+ * queries, and that the results of queries which reused a system state of a pruned branch are not cached either.</li>
+ * </ul>
+ * In both cases, the tree shrinks to 90% of the respective limit, in order to amortize the cost of the maintenance.
+ * Statistics about the reuse hit rate and the retained system states and nodes are available via the respective
+ * getters (e.g. {@link #getReuseHitRate()}).
  *
  * @param <S>
  *         system state class
@@ -63,10 +94,23 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
     private final int maxSystemStates;
     private final AccessPolicy accessPolicy;
     private final EvictPolicy evictPolicy;
+    private final int maxTotalSystemStates;
+    private final int maxNodes;
     /** Maybe reset to zero, see {@link ReuseTree#clearTree()}. */
-    private int nodeCount;
+    private final AtomicInteger nodeCount = new AtomicInteger();
     /** Maybe reinitialized , see {@link ReuseTree#clearTree()}. */
-    private ReuseNode<S, I, O> root;
+    private volatile ReuseNode<S, I, O> root;
+
+    private final Set<ReuseNode<S, I, O>> statefulNodes = ConcurrentHashMap.newKeySet();
+    private final Lock maintenanceLock = new ReentrantLock();
+    /** Shared by all insertions, exclusively held while pruning, so that edges are never removed during an insert. */
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final AtomicInteger numSystemStates = new AtomicInteger();
+    private final AtomicInteger numNodes = new AtomicInteger();
+    private final AtomicLong numReuseHits = new AtomicLong();
+    private final AtomicLong numReuseMisses = new AtomicLong();
+    private final AtomicLong numEvictedSystemStates = new AtomicLong();
+    private final AtomicLong numPrunedNodes = new AtomicLong();
 
     private ReuseTree(ReuseTreeBuilder<S, I, O> builder) {
         this.alphabet = builder.alphabet;
@@ -86,14 +130,22 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
         this.maxSystemStates = builder.maxSystemStates;
         this.accessPolicy = builder.accessPolicy;
         this.evictPolicy = builder.evictPolicy;
+        this.maxTotalSystemStates = builder.maxTotalSystemStates;
+        this.maxNodes = builder.maxNodes;
 
         // local and not configurable
         this.alphabetSize = alphabet.size();
-        this.root = createNode();
+        this.root = createNode(nodeCount.getAndIncrement(), 0);
+        this.numNodes.set(1);
     }
 
-    private ReuseNode<S, I, O> createNode() {
-        return new ReuseNode<>(nodeCount++, alphabetSize, maxSystemStates, accessPolicy, evictPolicy);
+    private ReuseNode<S, I, O> createNode(int id, int depth) {
+        return new ReuseNode<>(id,
+                               depth,
+                               alphabetSize,
+                               maxSystemStates,
+                               accessPolicy,
+                               evictPolicy);
     }
 
     /**
@@ -104,7 +156,7 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
      *
      * @return The output for {@code query} if already known from the {@link ReuseTree} or {@code null} if unknown.
      */
-    public synchronized Word<O> getOutput(final Word<I> query) {
+    public Word<O> getOutput(final Word<I> query) {
         if (query == null) {
             String msg = "Query is not allowed to be null.";
             throw new IllegalArgumentException(msg);
@@ -144,7 +196,7 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
      * @return The partial output for {@code query} from the {@link ReuseTree} with outputs for "reflexive" edges filled
      * with {@code null} for "non-reflexive" and not-known parts of the input word.
      */
-    public synchronized Word<O> getPartialOutput(Word<I> query) {
+    public Word<O> getPartialOutput(Word<I> query) {
         if (query == null) {
             String msg = "Query is not allowed to be null.";
             throw new IllegalArgumentException(msg);
@@ -180,15 +232,19 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
      */
     public synchronized void disposeSystemstates() {
         disposeSystemstates(getRoot());
+        statefulNodes.clear();
     }
 
     private void disposeSystemstates(ReuseNode<S, I, O> node) {
         Iterator<S> stateIt = node.systemStatesIterator();
+        int disposed = 0;
         while (stateIt.hasNext()) {
             S state = stateIt.next();
             systemStateHandler.dispose(state);
+            disposed++;
         }
         node.clearSystemStates();
+        numSystemStates.addAndGet(-disposed);
 
         for (ReuseEdge<S, I, O> edge : node.getEdges()) {
             if (edge != null) {
@@ -207,9 +263,11 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
      * The {@link SystemStateHandler} will <b>not</b> be informed about any disposings.
      */
     public synchronized void clearTree() {
-        this.nodeCount = 0;
+        this.nodeCount.set(0);
         disposeSystemstates(root);
-        this.root = createNode();
+        statefulNodes.clear();
+        this.root = createNode(nodeCount.getAndIncrement(), 0);
+        this.numNodes.set(1);
     }
 
     /**
@@ -220,18 +278,20 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
      * @param query
      *         Not allowed to be {@code null}.
      */
-    public synchronized ReuseNode.NodeResult<S, I, O> fetchSystemState(Word<I> query) {
+    public ReuseNode.NodeResult<S, I, O> fetchSystemState(Word<I> query) {
         if (query == null) {
             String msg = "Query is not allowed to be null.";
             throw new IllegalArgumentException(msg);
         }
 
-        int length = 0;
+        // all nodes along the query that offer system states, in ascending order of their depth
+        final List<ReuseNode<S, I, O>> candidates = new ArrayList<>();
+        final int[] lengths = new int[query.size() + 1];
 
         ReuseNode<S, I, O> sink = getRoot();
-        ReuseNode<S, I, O> lastState = null;
         if (sink.hasSystemStates()) {
-            lastState = sink;
+            lengths[candidates.size()] = 0;
+            candidates.add(sink);
         }
 
         ReuseNode<S, I, O> node;
@@ -245,18 +305,43 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
 
             sink = node;
             if (sink.hasSystemStates()) {
-                lastState = sink;
-                length = i + 1;
+                lengths[candidates.size()] = i + 1;
+                candidates.add(sink);
             }
         }
 
-        if (lastState == null) {
-            return null;
+        // other threads may have checked out the system states in the meantime, hence fall back to shorter prefixes
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            final ReuseNode<S, I, O> candidate = candidates.get(i);
+            final S systemState = fetchSystemState(candidate);
+            if (systemState != null) {
+                return new ReuseNode.NodeResult<>(candidate, systemState, lengths[i]);
+            }
         }
 
-        S systemState = lastState.fetchSystemState(invalidateSystemstates);
+        return null;
+    }
+
+    /**
+     * Fetches a system state from the given {@link ReuseNode}. If ''oldInvalidated'' was set to {@code true} (in the
+     * {@link ReuseOracle}) the system state is removed from the node.
+     *
+     * @param node
+     *         the node of this tree to fetch the system state from
+     *
+     * @return a system state of the given node, or {@code null} if the node has no (more) system states
+     */
+    public S fetchSystemState(ReuseNode<S, I, O> node) {
+        final S systemState = node.fetchSystemState(invalidateSystemstates);
+
+        if (systemState != null) {
+            numReuseHits.incrementAndGet();
+            if (invalidateSystemstates) {
+                numSystemStates.decrementAndGet();
+            }
+        }
 
-        return new ReuseNode.NodeResult<>(lastState, systemState, length);
+        return systemState;
     }
 
     /**
@@ -274,7 +359,8 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
      * @throws ReuseException
      *         if non deterministic behavior is detected
      */
-    public synchronized void insert(Word<I> query, ReuseCapableOracle.QueryResult<S, O> queryResult) {
+    public void insert(Word<I> query, ReuseCapableOracle.QueryResult<S, O> queryResult) {
+        numReuseMisses.incrementAndGet();
         insert(query, getRoot(), queryResult);
     }
 
@@ -294,9 +380,7 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
      * @throws ReuseException
      *         if non deterministic behavior is detected
      */
-    public synchronized void insert(Word<I> query,
-                                    ReuseNode<S, I, O> sink,
-                                    ReuseCapableOracle.QueryResult<S, O> queryResult) {
+    public void insert(Word<I> query, ReuseNode<S, I, O> sink, ReuseCapableOracle.QueryResult<S, O> queryResult) {
         if (queryResult == null) {
             String msg = "The queryResult is not allowed to be null.";
             throw new IllegalArgumentException(msg);
@@ -310,45 +394,269 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
             throw new IllegalArgumentException(msg);
         }
 
+        structureLock.readLock().lock();
+        try {
+            if (sink.isRetired()) {
+                // the branch of the sink has been pruned after its system state has been fetched
+                systemStateHandler.dispose(queryResult.newState);
+                return;
+            }
+            insertUnderLock(query, sink, queryResult);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+
+        enforceLimits();
+    }
+
+    private void insertUnderLock(Word<I> query,
+                                 ReuseNode<S, I, O> sink,
+                                 ReuseCapableOracle.QueryResult<S, O> queryResult) {
         ReuseNode<S, I, O> effectiveSink = sink;
 
         for (int i = 0; i < query.size(); i++) {
             I in = query.getSymbol(i);
             O out = queryResult.output.getSymbol(i);
 
-            ReuseEdge<S, I, O> edge = effectiveSink.getEdgeWithInput(alphabet.getSymbolIndex(in));
-            if (edge != null) {
-                if (Objects.equals(edge.getOutput(), out)) {
-                    effectiveSink = edge.getTarget();
+            final int index = alphabet.getSymbolIndex(in);
+            ReuseEdge<S, I, O> edge = effectiveSink.getEdgeWithInput(index);
+
+            if (edge == null) {
+                ReuseNode<S, I, O> rn;
+
+                if (failureOutputSymbols.contains(out)) {
+                    rn = effectiveSink;
+                } else if (invariantInputSymbols.contains(in)) {
+                    rn = effectiveSink;
+                } else {
+                    // the id is only assigned once the node has actually been added, so that ids have no gaps
+                    rn = createNode(-1, effectiveSink.getDepth() + 1);
+                }
+
+                // another thread may have added an edge in the meantime, which is then checked for conflicts
+                edge = effectiveSink.addEdgeIfAbsent(index, new ReuseEdge<>(effectiveSink, rn, in, out));
+                if (edge == null) {
+                    if (rn != effectiveSink) {
+                        rn.setId(nodeCount.getAndIncrement());
+                        numNodes.incrementAndGet();
+                    }
+                    effectiveSink = rn;
                     continue;
                 }
+            }
 
+            if (!Objects.equals(edge.getOutput(), out)) {
                 throw new ReuseException(
                         "Conflict: input '" + query + "', output '" + queryResult.output + "', i=" + i +
                         ", cached output '" + edge.getOutput() + "'");
             }
 
-            ReuseNode<S, I, O> rn;
+            effectiveSink = edge.getTarget();
+        }
+
+        S evictedState = effectiveSink.addSystemState(queryResult.newState);
+        if (evictedState != null) {
+            systemStateHandler.dispose(evictedState);
+        } else {
+            numSystemStates.incrementAndGet();
+        }
+        statefulNodes.add(effectiveSink);
+    }
+
+    private void enforceLimits() {
+        final boolean tooManyStates = maxTotalSystemStates > 0 && numSystemStates.get() > maxTotalSystemStates;
+        final boolean tooManyNodes = maxNodes > 0 && numNodes.get() > maxNodes;
+
+        // only one thread needs to perform the maintenance
+        if ((tooManyStates || tooManyNodes) && maintenanceLock.tryLock()) {
+            try {
+                if (tooManyStates) {
+                    evictSystemStates(maxTotalSystemStates - maxTotalSystemStates / 10);
+                }
+                if (tooManyNodes) {
+                    structureLock.writeLock().lock();
+                    try {
+                        pruneColdBranches(maxNodes - maxNodes / 10);
+                    } finally {
+                        structureLock.writeLock().unlock();
+                    }
+                }
+            } finally {
+                maintenanceLock.unlock();
+            }
+        }
+    }
+
+    private void evictSystemStates(int targetSize) {
+        // snapshot the scores, as they may be changed concurrently
+        final List<ScoredNode<S, I, O>> nodes = new ArrayList<>(statefulNodes.size());
+        for (ReuseNode<S, I, O> node : statefulNodes) {
+            nodes.add(new ScoredNode<>(node, (long) node.getDepth() * (node.getHits() + 1), 0));
+        }
+        nodes.sort(Comparator.comparingLong(n -> n.score));
+
+        for (ScoredNode<S, I, O> scoredNode : nodes) {
+            final ReuseNode<S, I, O> node = scoredNode.node;
+
+            while (numSystemStates.get() > targetSize) {
+                final S state = node.evictSystemState();
+                if (state == null) {
+                    break;
+                }
+                numSystemStates.decrementAndGet();
+                numEvictedSystemStates.incrementAndGet();
+                systemStateHandler.dispose(state);
+            }
+
+            if (!node.hasSystemStates()) {
+                statefulNodes.remove(node);
+            }
 
-            if (failureOutputSymbols.contains(out)) {
-                rn = effectiveSink;
-            } else if (invariantInputSymbols.contains(in)) {
-                rn = effectiveSink;
+            if (numSystemStates.get() <= targetSize) {
+                return;
+            }
+        }
+    }
+
+    private void pruneColdBranches(int targetSize) {
+        final List<ScoredNode<S, I, O>> coldBranches = new ArrayList<>();
+        collectColdBranches(getRoot(), coldBranches);
+
+        // prune the largest branches first
+        coldBranches.sort(Comparator.comparingLong((ScoredNode<S, I, O> n) -> n.score).reversed());
+
+        for (ScoredNode<S, I, O> branch : coldBranches) {
+            if (numNodes.get() <= targetSize) {
+                return;
+            }
+
+            final ReuseEdge<S, I, O> edge = branch.node.getEdgeWithInput(branch.index);
+            if (edge != null && branch.node.removeEdge(branch.index, edge)) {
+                // system states may have been added before the write lock was acquired
+                disposeSystemstates(edge.getTarget());
+                retireBranch(edge.getTarget());
+                numNodes.addAndGet((int) -branch.score);
+                numPrunedNodes.addAndGet(branch.score);
+            }
+        }
+    }
+
+    /**
+     * Collects the maximal cold branches below the given node and ages the hit counts of all visited nodes.
+     *
+     * @return the size of the subtree rooted in the given node if it is cold, {@code -1} otherwise.
+     */
+    private int collectColdBranches(ReuseNode<S, I, O> node, List<ScoredNode<S, I, O>> coldBranches) {
+        final List<ScoredNode<S, I, O>> coldChildren = new ArrayList<>();
+        boolean cold = !node.hasSystemStates() && node.getHits() == 0;
+        int size = 1;
+
+        for (int i = 0; i < alphabetSize; i++) {
+            final ReuseEdge<S, I, O> edge = node.getEdgeWithInput(i);
+            if (edge == null || edge.getTarget().equals(node)) {
+                continue;
+            }
+
+            final int childSize = collectColdBranches(edge.getTarget(), coldBranches);
+            if (childSize < 0) {
+                cold = false;
             } else {
-                rn = createNode();
+                coldChildren.add(new ScoredNode<>(node, childSize, i));
+                size += childSize;
             }
+        }
+
+        node.decayHits();
 
-            int index = alphabet.getSymbolIndex(in);
-            effectiveSink.addEdge(index, new ReuseEdge<>(effectiveSink, rn, in, out));
-            effectiveSink = rn;
+        // the root is never pruned
+        if (cold && !node.equals(getRoot())) {
+            return size;
         }
 
-        S evictedState = effectiveSink.addSystemState(queryResult.newState);
-        if (evictedState != null) {
-            systemStateHandler.dispose(evictedState);
+        coldBranches.addAll(coldChildren);
+        return -1;
+    }
+
+    /**
+     * Marks all nodes of a pruned branch as retired, so that threads still holding a reference to them (e.g. obtained
+     * via {@link #fetchSystemState(Word)}) no longer insert into the detached branch.
+     */
+    private void retireBranch(ReuseNode<S, I, O> node) {
+        node.retire();
+        statefulNodes.remove(node);
+        for (ReuseEdge<S, I, O> edge : node.getEdges()) {
+            if (edge != null && !edge.getTarget().equals(node)) {
+                retireBranch(edge.getTarget());
+            }
         }
     }
 
+    /**
+     * Returns the number of system states currently retained by this tree.
+     *
+     * @return the number of retained system states
+     */
+    public int getNumSystemStates() {
+        return numSystemStates.get();
+    }
+
+    /**
+     * Returns the number of nodes currently contained in this tree.
+     *
+     * @return the number of nodes
+     */
+    public int getNumNodes() {
+        return numNodes.get();
+    }
+
+    /**
+     * Returns the number of system states that have been fetched for reuse.
+     *
+     * @return the number of reuse hits
+     */
+    public long getNumReuseHits() {
+        return numReuseHits.get();
+    }
+
+    /**
+     * Returns the number of queries that have been inserted from the root, i.e. that could not reuse a system state.
+     *
+     * @return the number of reuse misses
+     */
+    public long getNumReuseMisses() {
+        return numReuseMisses.get();
+    }
+
+    /**
+     * Returns the ratio of reuse hits to all executed queries.
+     *
+     * @return the reuse hit rate, or {@code 0} if no query has been executed yet
+     */
+    public double getReuseHitRate() {
+        final long hits = numReuseHits.get();
+        final long total = hits + numReuseMisses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the number of system states that have been evicted due to {@link
+     * ReuseTreeBuilder#withMaxTotalSystemStates(int)}.
+     *
+     * @return the number of evicted system states
+     */
+    public long getNumEvictedSystemStates() {
+        return numEvictedSystemStates.get();
+    }
+
+    /**
+     * Returns the number of nodes that have been pruned due to {@link ReuseTreeBuilder#withMaxNodes(int)}.
+     *
+     * @return the number of pruned nodes
+     */
+    public long getNumPrunedNodes() {
+        return numPrunedNodes.get();
+    }
+
     @Override
     public Collection<ReuseNode<S, I, O>> getNodes() {
         Collection<ReuseNode<S, I, O>> collection = new ArrayList<>();
@@ -370,12 +678,12 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
     }
 
     @Override
-    public synchronized Collection<ReuseEdge<S, I, O>> getOutgoingEdges(ReuseNode<S, I, O> node) {
+    public Collection<ReuseEdge<S, I, O>> getOutgoingEdges(ReuseNode<S, I, O> node) {
         return node.getEdges();
     }
 
     @Override
-    public synchronized ReuseNode<S, I, O> getTarget(ReuseEdge<S, I, O> edge) {
+    public ReuseNode<S, I, O> getTarget(ReuseEdge<S, I, O> edge) {
         if (edge != null) {
             return edge.getTarget();
         }
@@ -383,7 +691,7 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
     }
 
     @Override
-    public synchronized VisualizationHelper<ReuseNode<S, I, O>, ReuseEdge<S, I, O>> getVisualizationHelper() {
+    public VisualizationHelper<ReuseNode<S, I, O>, ReuseEdge<S, I, O>> getVisualizationHelper() {
         return new ReuseTreeDotHelper<>();
     }
 
@@ -400,6 +708,8 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
         private int maxSystemStates = -1;
         private AccessPolicy accessPolicy = AccessPolicy.LIFO;
         private EvictPolicy evictPolicy = EvictPolicy.EVICT_OLDEST;
+        private int maxTotalSystemStates = -1;
+        private int maxNodes = -1;
 
         public ReuseTreeBuilder(Alphabet<I> alphabet) {
             this.alphabet = alphabet;
@@ -443,8 +753,35 @@ public final class ReuseTree<S, I, O> implements Graph<ReuseNode<S, I, O>, Reuse
             return this;
         }
 
+        public ReuseTreeBuilder<S, I, O> withMaxTotalSystemStates(int maxTotalSystemStates) {
+            this.maxTotalSystemStates = maxTotalSystemStates;
+            return this;
+        }
+
+        public ReuseTreeBuilder<S, I, O> withMaxNodes(int maxNodes) {
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
         public ReuseTree<S, I, O> build() {
             return new ReuseTree<>(this);
         }
     }
+
+    /**
+     * A node with a score. For cold branches, the node is the parent of the branch, the index denotes the input of the
+     * edge to the branch, and the score is the size of the branch.
+     */
+    private static final class ScoredNode<S, I, O> {
+
+        private final ReuseNode<S, I, O> node;
+        private final long score;
+        private final int index;
+
+        ScoredNode(ReuseNode<S, I, O> node, long score, int index) {
+            this.node = node;
+            this.score = score;
+            this.index = index;
+        }
+    }
 }
@@ -16,11 +16,15 @@
 package de.learnlib.filter.reuse.test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.Sets;
 import de.learnlib.algorithms.lstar.mealy.ExtensibleLStarMealyBuilder;
 import de.learnlib.api.algorithm.LearningAlgorithm.MealyLearner;
+import de.learnlib.api.query.DefaultQuery;
 import de.learnlib.filter.reuse.ReuseCapableOracle;
 import de.learnlib.filter.reuse.ReuseOracle;
 import de.learnlib.filter.reuse.tree.ReuseTree;
@@ -70,6 +74,37 @@ public class LearningTest {
         Assert.assertTrue(sb.toString().startsWith("digraph g"));
     }
 
+    @Test
+    public void testBatchReusesSystemStates() {
+        final AtomicInteger resets = new AtomicInteger();
+        final ReuseOracle<Integer, Integer, String> oracle =
+                new ReuseOracle.ReuseOracleBuilder<Integer, Integer, String>(sigma, () -> new TestOracle() {
+
+                    @Override
+                    public QueryResult<Integer, String> processQuery(Word<Integer> trace) {
+                        resets.incrementAndGet();
+                        return super.processQuery(trace);
+                    }
+                }).build();
+
+        final List<DefaultQuery<Integer, Word<String>>> queries = new ArrayList<>();
+        queries.add(new DefaultQuery<>(Word.fromSymbols(2)));
+        queries.add(new DefaultQuery<>(Word.fromSymbols(1), Word.fromSymbols(1, 1)));
+        queries.add(new DefaultQuery<>(Word.fromSymbols(1, 1)));
+        queries.add(new DefaultQuery<>(Word.fromSymbols(1)));
+
+        oracle.processQueries(queries);
+
+        // the queries are processed in the order 1, 11, 111, 2, hence only '1' and '2' require a reset
+        Assert.assertEquals(resets.get(), 2);
+
+        final TestOracle reference = new TestOracle();
+        for (DefaultQuery<Integer, Word<String>> q : queries) {
+            final Word<String> expected = reference.processQuery(q.getInput()).output;
+            Assert.assertEquals(q.getOutput(), expected.suffix(q.getSuffix().length()));
+        }
+    }
+
     private class TestOracleFactory implements Supplier<ReuseCapableOracle<Integer, Integer, String>> {
 
         @Override
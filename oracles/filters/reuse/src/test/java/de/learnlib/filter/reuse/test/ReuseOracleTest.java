@@ -15,12 +15,26 @@
  */
 package de.learnlib.filter.reuse.test;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import de.learnlib.filter.reuse.ReuseCapableOracle;
 import de.learnlib.filter.reuse.ReuseException;
 import de.learnlib.filter.reuse.ReuseOracle;
+import de.learnlib.filter.reuse.tree.ReuseNode;
 import de.learnlib.filter.reuse.tree.ReuseNode.NodeResult;
+import de.learnlib.filter.reuse.tree.ReuseTree;
+import de.learnlib.filter.reuse.tree.ReuseTree.ReuseTreeBuilder;
+import de.learnlib.filter.reuse.tree.SystemStateHandler;
 import net.automatalib.words.Alphabet;
 import net.automatalib.words.Word;
 import net.automatalib.words.impl.Alphabets;
@@ -98,6 +112,12 @@ public class ReuseOracleTest {
         return Word.fromSymbols(param);
     }
 
+    private static Word<String> getOkOutput(int length) {
+        final String[] outputs = new String[length];
+        Arrays.fill(outputs, "ok");
+        return Word.fromSymbols(outputs);
+    }
+
     @Test(dependsOnMethods = {"testTreeIsAbleToCache"})
     public void testTreeDoesNotPump() {
         // Add one entry (0,ok)
@@ -235,4 +255,118 @@ public class ReuseOracleTest {
         qr = new ReuseCapableOracle.QueryResult<>(getOutput("ok", "different", "notimp"), 5);
         reuseOracle.getReuseTree().insert(getInput(1, 1, 3), qr);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConcurrentAccess() {
+        final ReuseTree<Integer, Integer, String> tree = reuseOracle.getReuseTree();
+        final int numStates = 100;
+
+        // concurrently insert the same query with distinct system states
+        IntStream.range(0, numStates)
+                 .parallel()
+                 .forEach(i -> tree.insert(getInput(1, 1),
+                                           new ReuseCapableOracle.QueryResult<>(getOutput("ok", "ok"), i)));
+
+        Assert.assertEquals(tree.getOutput(getInput(1, 1)), getOutput("ok", "ok"));
+
+        // concurrently check out all system states, each one must be handed out exactly once
+        final List<Integer> fetched = IntStream.range(0, 2 * numStates)
+                                               .parallel()
+                                               .mapToObj(i -> tree.fetchSystemState(getInput(1, 1, 1)))
+                                               .filter(Objects::nonNull)
+                                               .map(n -> n.systemState)
+                                               .collect(Collectors.toList());
+
+        Assert.assertEquals(fetched.size(), numStates);
+        Assert.assertEquals(new HashSet<>(fetched).size(), numStates);
+        Assert.assertNull(tree.fetchSystemState(getInput(1, 1, 1)));
+    }
+
+    @Test
+    public void testMemoryLimits() {
+        final Alphabet<Integer> alphabet = Alphabets.integers(0, 10);
+        final ReuseTree<Integer, Integer, String> tree =
+                new ReuseTreeBuilder<Integer, Integer, String>(alphabet).withMaxTotalSystemStates(1)
+                                                                        .withMaxNodes(10)
+                                                                        .build();
+
+        tree.insert(getInput(2, 2, 2, 2, 2),
+                    new ReuseCapableOracle.QueryResult<>(getOutput("ok", "ok", "ok", "ok", "ok"), 5));
+        Assert.assertEquals(tree.getNumNodes(), 6);
+        Assert.assertEquals(tree.getNumSystemStates(), 1);
+
+        /*
+         * Exceeds both limits: the state of '2 2 2 2 2' saves less replay cost than the one of '3 3 3 3 3 3' and is
+         * evicted, afterwards the whole (cold) '2' branch is pruned.
+         */
+        tree.insert(getInput(3, 3, 3, 3, 3, 3),
+                    new ReuseCapableOracle.QueryResult<>(getOutput("ok", "ok", "ok", "ok", "ok", "ok"), 6));
+
+        Assert.assertEquals(tree.getNumSystemStates(), 1);
+        Assert.assertEquals(tree.getNumEvictedSystemStates(), 1);
+        Assert.assertEquals(tree.getNumNodes(), 7);
+        Assert.assertEquals(tree.getNumPrunedNodes(), 5);
+        Assert.assertNull(tree.getOutput(getInput(2, 2, 2, 2, 2)));
+        Assert.assertNotNull(tree.getOutput(getInput(3, 3, 3, 3, 3, 3)));
+
+        final NodeResult<Integer, Integer, String> node = tree.fetchSystemState(getInput(3, 3, 3, 3, 3, 3, 1));
+        Assert.assertNotNull(node);
+        Assert.assertEquals((int) node.systemState, 6);
+        Assert.assertEquals(tree.getNumReuseHits(), 1);
+        Assert.assertEquals(tree.getNumReuseMisses(), 2);
+        Assert.assertEquals(tree.getReuseHitRate(), 1.0 / 3, 1e-9);
+    }
+
+    @Test
+    public void testConcurrentPruning() {
+        final AtomicInteger disposed = new AtomicInteger();
+        final AtomicInteger fetched = new AtomicInteger();
+        final SystemStateHandler<Integer> handler = state -> disposed.incrementAndGet();
+        final Alphabet<Integer> alphabet = Alphabets.integers(0, 10);
+        final ReuseTree<Integer, Integer, String> tree =
+                new ReuseTreeBuilder<Integer, Integer, String>(alphabet).withSystemStateHandler(handler)
+                                                                        .withMaxTotalSystemStates(5)
+                                                                        .withMaxNodes(30)
+                                                                        .build();
+        final int numQueries = 2000;
+
+        // concurrently reuse system states and insert (the remainders of) queries, while the tree is being pruned
+        IntStream.range(0, numQueries).parallel().forEach(i -> {
+            final Random random = new Random(i);
+            final Integer[] symbols = new Integer[1 + random.nextInt(6)];
+            for (int j = 0; j < symbols.length; j++) {
+                symbols[j] = random.nextInt(3);
+            }
+            final Word<Integer> query = getInput(symbols);
+
+            final NodeResult<Integer, Integer, String> node = tree.fetchSystemState(query);
+            if (node == null) {
+                tree.insert(query, new ReuseCapableOracle.QueryResult<>(getOkOutput(query.size()), i));
+            } else {
+                fetched.incrementAndGet();
+                final Word<Integer> suffix = query.subWord(node.prefixLength);
+                tree.insert(suffix,
+                            node.reuseNode,
+                            new ReuseCapableOracle.QueryResult<>(getOkOutput(suffix.size()), i));
+            }
+        });
+
+        Assert.assertTrue(tree.getNumPrunedNodes() > 0);
+
+        // the counters must match the actual tree, i.e. nothing has been inserted into pruned branches
+        final Collection<ReuseNode<Integer, Integer, String>> nodes = tree.getNodes();
+        int retained = 0;
+        for (ReuseNode<Integer, Integer, String> n : nodes) {
+            final Iterator<Integer> it = n.systemStatesIterator();
+            while (it.hasNext()) {
+                it.next();
+                retained++;
+            }
+        }
+
+        Assert.assertEquals(tree.getNumNodes(), nodes.size());
+        Assert.assertEquals(tree.getNumSystemStates(), retained);
+        // each system state is either still retained, has been disposed, or has been checked out for reuse
+        Assert.assertEquals(retained + disposed.get() + fetched.get(), numQueries);
+    }
+}
@@ -23,6 +23,7 @@ import javax.annotation.ParametersAreNonnullByDefault;
 
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.Query;
+import de.learnlib.api.query.QueryBatch;
 import de.learnlib.api.statistic.StatisticOracle;
 import de.learnlib.filter.statistic.Counter;
 import net.automatalib.words.Word;
@@ -49,6 +50,12 @@ public class CounterOracle<I, D> implements StatisticOracle<I, D> {
         nextOracle.processQueries(queries);
     }
 
+    @Override
+    public void processBatch(QueryBatch<I, D> batch) {
+        this.counter.increment(batch.size());
+        nextOracle.processBatch(batch);
+    }
+
     @Override
     @Nonnull
     public Counter getStatisticalData() {
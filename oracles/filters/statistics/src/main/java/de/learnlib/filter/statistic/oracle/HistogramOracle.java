@@ -22,6 +22,7 @@ import javax.annotation.ParametersAreNonnullByDefault;
 
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.Query;
+import de.learnlib.api.query.QueryBatch;
 import de.learnlib.api.statistic.StatisticOracle;
 import de.learnlib.filter.statistic.HistogramDataSet;
 
@@ -62,11 +63,19 @@ public class HistogramOracle<I, D> implements StatisticOracle<I, D> {
     @Override
     public final void processQueries(Collection<? extends Query<I, D>> queries) {
         for (Query<I, D> q : queries) {
-            this.dataSet.addDataPoint((long) q.getInput().size());
+            this.dataSet.addDataPoint((long) q.getPrefix().length() + q.getSuffix().length());
         }
         nextOracle.processQueries(queries);
     }
 
+    @Override
+    public final void processBatch(QueryBatch<I, D> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            this.dataSet.addDataPoint((long) batch.getInputLength(i));
+        }
+        nextOracle.processBatch(batch);
+    }
+
     /**
      * @return the data set collected by this oracle.
      */
@@ -20,6 +20,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.Query;
+import de.learnlib.api.query.QueryBatch;
 import net.automatalib.words.Word;
 
 /**
@@ -46,12 +47,25 @@ public class JointCounterOracle<I, D> implements MembershipOracle<I, D> {
     @Override
     public void processQueries(Collection<? extends Query<I, D>> queries) {
         queryCounter.addAndGet(queries.size());
+        long numSymbols = 0;
         for (Query<I, D> qry : queries) {
-            symbolCounter.addAndGet(qry.getInput().length());
+            numSymbols += qry.getPrefix().length() + qry.getSuffix().length();
         }
+        symbolCounter.addAndGet(numSymbols);
         delegate.processQueries(queries);
     }
 
+    @Override
+    public void processBatch(QueryBatch<I, D> batch) {
+        queryCounter.addAndGet(batch.size());
+        long numSymbols = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            numSymbols += batch.getInputLength(i);
+        }
+        symbolCounter.addAndGet(numSymbols);
+        delegate.processBatch(batch);
+    }
+
     /**
      * Retrieves the number of queries posed to this oracle.
      *
@@ -17,7 +17,10 @@ package de.learnlib.oracle.membership;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.Nonnull;
 
@@ -28,6 +31,7 @@ import de.learnlib.api.oracle.MembershipOracle.MealyMembershipOracle;
 import de.learnlib.api.oracle.OmegaMembershipOracle;
 import de.learnlib.api.oracle.OmegaMembershipOracle.MealyOmegaMembershipOracle;
 import de.learnlib.api.query.OmegaQuery;
+import de.learnlib.util.MQUtil;
 import net.automatalib.commons.util.Pair;
 import net.automatalib.words.Word;
 import net.automatalib.words.WordBuilder;
@@ -40,7 +44,14 @@ import net.automatalib.words.WordBuilder;
  * After some symbols (i.e. after {@link OmegaQuery#getPrefix()}, and after each {@link OmegaQuery#getLoop()}) the state
  * of the {@link ObservableSUL} is retrieved, and used to answer the query.
  *
- * Like {@link SULOracle} this class is thread-safe.
+ * Like {@link SULOracle} this class is thread-safe. If the {@link ObservableSUL} can be forked, batches of queries that
+ * exceed {@link MQUtil#PARALLEL_THRESHOLD} are processed in parallel, each thread using its own fork of the SUL.
+ *
+ * Previously observed states of a lasso are indexed by their hash code, so that each unrolling of the loop is only
+ * compared against the (few) previous states that may actually be equal to it. Statistics about the number of
+ * processed queries, unrolled loops and queries whose periodicity was detected before all repetitions were unrolled
+ * (early exits) are available via {@link #getNumQueries()}, {@link #getNumUnrolledLoops()} and {@link
+ * #getNumEarlyExits()}.
  *
  * @author Jeroen Meijer
  *
@@ -54,6 +65,10 @@ public abstract class AbstractSULOmegaOracle<S, I, O, Q> implements MealyOmegaMe
     private final ObservableSUL<S, I, O> sul;
     private final ThreadLocal<ObservableSUL<S, I, O>> localSul;
 
+    private final LongAdder numQueries = new LongAdder();
+    private final LongAdder numUnrolledLoops = new LongAdder();
+    private final LongAdder numEarlyExits = new LongAdder();
+
     protected AbstractSULOmegaOracle(ObservableSUL<S, I, O> sul) {
         this.sul = sul;
         if (sul.canFork()) {
@@ -79,7 +94,11 @@ public abstract class AbstractSULOmegaOracle<S, I, O, Q> implements MealyOmegaMe
     @Override
     public void processQueries(Collection<? extends OmegaQuery<I, Word<O>>> queries) {
         if (localSul != null) {
-            processQueries(localSul.get(), queries);
+            if (MQUtil.PARALLEL_THRESHOLD < 0 || queries.size() < MQUtil.PARALLEL_THRESHOLD) {
+                processQueries(localSul.get(), queries);
+            } else {
+                queries.parallelStream().forEach(q -> processQuery(localSul.get(), q));
+            }
         } else {
             synchronized (sul) {
                 processQueries(sul, queries);
@@ -89,44 +108,90 @@ public abstract class AbstractSULOmegaOracle<S, I, O, Q> implements MealyOmegaMe
 
     private void processQueries(ObservableSUL<S, I, O> sul, Collection<? extends OmegaQuery<I, Word<O>>> queries) {
         for (OmegaQuery<I, Word<O>> q : queries) {
-            final Pair<Word<O>, Integer> output = answerQuery(sul, q.getPrefix(), q.getLoop(), q.getRepeat());
-            q.answer(output.getFirst(), output.getSecond());
+            processQuery(sul, q);
         }
     }
 
+    private void processQuery(ObservableSUL<S, I, O> sul, OmegaQuery<I, Word<O>> q) {
+        final Pair<Word<O>, Integer> output = answerQuery(sul, q.getPrefix(), q.getLoop(), q.getRepeat());
+        q.answer(output.getFirst(), output.getSecond());
+    }
+
+    /**
+     * Returns the number of (omega) queries processed by this oracle.
+     *
+     * @return the number of processed queries
+     */
+    public long getNumQueries() {
+        return numQueries.sum();
+    }
+
+    /**
+     * Returns the total number of loop unrollings performed by this oracle.
+     *
+     * @return the number of unrolled loops
+     */
+    public long getNumUnrolledLoops() {
+        return numUnrolledLoops.sum();
+    }
+
+    /**
+     * Returns the number of queries for which a periodicity has been detected, i.e. for which the unrolling of the loop
+     * could be stopped early.
+     *
+     * @return the number of early exits
+     */
+    public long getNumEarlyExits() {
+        return numEarlyExits.sum();
+    }
+
     protected abstract Q getQueryState(ObservableSUL<S, I, O> sul);
 
     @Nonnull
     private Pair<Word<O>, Integer> answerQuery(ObservableSUL<S, I, O> sul, Word<I> prefix, Word<I> loop, int repeat)
             throws SULException {
         assert repeat > 0;
+        numQueries.increment();
         sul.pre();
         try {
-            final int traceLength = prefix.length() + loop.length() * repeat;
+            final int prefixLength = prefix.length();
+            final int loopLength = loop.length();
+            final int traceLength = prefixLength + loopLength * repeat;
             final WordBuilder<I> inputBuilder = new WordBuilder<>(traceLength, prefix);
             final WordBuilder<O> outputBuilder = new WordBuilder<>(traceLength);
+
+            // the i-th state is the state after i unrollings of the loop
             final List<Q> states = new ArrayList<>(repeat + 1);
+            // maps states to the indices of all previously observed states that are equal to them
+            final Map<Q, List<Integer>> stateIndices = new HashMap<>();
 
-            for (int i = 0; i < prefix.length(); i++) {
+            for (int i = 0; i < prefixLength; i++) {
                 outputBuilder.append(sul.step(prefix.getSymbol(i)));
             }
-            states.add(getQueryState(sul));
+            addState(states, stateIndices, getQueryState(sul));
 
             for (int i = 0; i < repeat; i++) {
                 inputBuilder.append(loop);
-                for (int j = 0; j < loop.length(); j++) {
+                for (int j = 0; j < loopLength; j++) {
                     outputBuilder.append(sul.step(loop.getSymbol(j)));
                 }
+                numUnrolledLoops.increment();
                 final Q nextState = getQueryState(sul);
 
-                int prefixLength = prefix.length();
-                for (Q q: states) {
-                    if (isSameState(inputBuilder.toWord(), nextState, inputBuilder.toWord(0, prefixLength), q)) {
-                        return Pair.of(outputBuilder.toWord(), i + 1);
+                final List<Integer> candidates = stateIndices.get(nextState);
+                if (candidates != null) {
+                    final Word<I> input = inputBuilder.toWord();
+                    for (Integer idx : candidates) {
+                        final Word<I> candidateInput = inputBuilder.toWord(0, prefixLength + idx * loopLength);
+                        if (isSameState(input, nextState, candidateInput, states.get(idx))) {
+                            if (i + 1 < repeat) {
+                                numEarlyExits.increment();
+                            }
+                            return Pair.of(outputBuilder.toWord(), i + 1);
+                        }
                     }
-                    prefixLength += loop.length();
                 }
-                states.add(nextState);
+                addState(states, stateIndices, nextState);
             }
 
             return Pair.of(null, -1);
@@ -135,6 +200,11 @@ public abstract class AbstractSULOmegaOracle<S, I, O, Q> implements MealyOmegaMe
         }
     }
 
+    private void addState(List<Q> states, Map<Q, List<Integer>> stateIndices, Q state) {
+        stateIndices.computeIfAbsent(state, k -> new ArrayList<>(1)).add(states.size());
+        states.add(state);
+    }
+
     @Override
     public MealyMembershipOracle<I, O> getMembershipOracle() {
         return new SULOracle<>(sul);
@@ -203,9 +273,10 @@ public abstract class AbstractSULOmegaOracle<S, I, O, Q> implements MealyOmegaMe
     private static final class ShallowCopySULOmegaOracle<S, I, O> extends AbstractSULOmegaOracle<S, I, O, Integer> {
 
         /**
-         * A forked {@link SUL} is necessary when we need to step to two particular states at the same time.
+         * A forked {@link SUL} is necessary when we need to step to two particular states at the same time. Each thread
+         * uses its own fork, so that queries can be processed in parallel.
          */
-        private final ObservableSUL<S, I, O> forkedSUL;
+        private final ThreadLocal<ObservableSUL<S, I, O>> forkedSUL;
 
         /**
          * Constructs a new {@link ShallowCopySULOmegaOracle}, use {@link #newOracle(ObservableSUL)} to create an
@@ -217,7 +288,7 @@ public abstract class AbstractSULOmegaOracle<S, I, O, Q> implements MealyOmegaMe
         private ShallowCopySULOmegaOracle(ObservableSUL<S, I, O> sul) {
             super(sul);
             assert sul.canFork();
-            forkedSUL = sul.fork();
+            forkedSUL = ThreadLocal.withInitial(sul::fork);
         }
 
         /**
@@ -248,7 +319,7 @@ public abstract class AbstractSULOmegaOracle<S, I, O, Q> implements MealyOmegaMe
             } else {
                 // in this case the hash codes are equal, now we must check if we accidentally had a hash-collision.
                 final ObservableSUL<S, I, O> sul1 = getSul();
-                final ObservableSUL<S, I, O> sul2 = forkedSUL;
+                final ObservableSUL<S, I, O> sul2 = forkedSUL.get();
 
                 // assert sul1 is already in the correct state
                 assert s1.equals(sul1.getState().hashCode());
@@ -0,0 +1,167 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.membership;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.automatalib.automata.UniversalDeterministicAutomaton;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+
+/**
+ * An immutable, int-indexed snapshot of (the reachable part of) a deterministic automaton, used by the compiled
+ * simulator oracles.
+ * <p>
+ * States are numbered in breadth-first order from the initial state. The transition of state {@code s} for the input
+ * with alphabet index {@code i} is stored at position {@code s * numInputs + i} of the transition array, where {@code
+ * -1} denotes an undefined transition (or an undefined initial state, respectively).
+ *
+ * @param <I>
+ *         input symbol type
+ */
+final class CompiledAutomaton<I> {
+
+    private final Alphabet<I> alphabet;
+    private final int numInputs;
+    private final int initial;
+    private final int[] transitions;
+    private final Object[] stateProperties;
+    private final Object[] transitionProperties;
+
+    private CompiledAutomaton(Alphabet<I> alphabet,
+                              int initial,
+                              int[] transitions,
+                              Object[] stateProperties,
+                              Object[] transitionProperties) {
+        this.alphabet = alphabet;
+        this.numInputs = alphabet.size();
+        this.initial = initial;
+        this.transitions = transitions;
+        this.stateProperties = stateProperties;
+        this.transitionProperties = transitionProperties;
+    }
+
+    static <S, I, T> CompiledAutomaton<I> compile(UniversalDeterministicAutomaton<S, I, T, ?, ?> automaton,
+                                                  Alphabet<I> alphabet) {
+        final int numInputs = alphabet.size();
+        final Map<S, Integer> ids = new HashMap<>();
+        final Deque<S> queue = new ArrayDeque<>();
+
+        int[] transitions = new int[numInputs * 16];
+        Object[] stateProperties = new Object[16];
+        Object[] transitionProperties = new Object[numInputs * 16];
+
+        final S init = automaton.getInitialState();
+        if (init == null) {
+            return new CompiledAutomaton<>(alphabet, -1, new int[0], new Object[0], new Object[0]);
+        }
+
+        ids.put(init, 0);
+        queue.add(init);
+
+        S state;
+        int stateId = 0;
+        while ((state = queue.poll()) != null) {
+            if (stateId == stateProperties.length) {
+                stateProperties = Arrays.copyOf(stateProperties, 2 * stateId);
+                transitions = Arrays.copyOf(transitions, 2 * stateId * numInputs);
+                transitionProperties = Arrays.copyOf(transitionProperties, 2 * stateId * numInputs);
+            }
+
+            stateProperties[stateId] = automaton.getStateProperty(state);
+
+            for (int i = 0; i < numInputs; i++) {
+                final int transIdx = stateId * numInputs + i;
+                final T trans = automaton.getTransition(state, alphabet.getSymbol(i));
+
+                if (trans == null) {
+                    transitions[transIdx] = -1;
+                    continue;
+                }
+
+                final S succ = automaton.getSuccessor(trans);
+                Integer succId = ids.get(succ);
+                if (succId == null) {
+                    succId = ids.size();
+                    ids.put(succ, succId);
+                    queue.add(succ);
+                }
+
+                transitions[transIdx] = succId;
+                transitionProperties[transIdx] = automaton.getTransitionProperty(trans);
+            }
+
+            stateId++;
+        }
+
+        return new CompiledAutomaton<>(alphabet,
+                                       0,
+                                       Arrays.copyOf(transitions, stateId * numInputs),
+                                       Arrays.copyOf(stateProperties, stateId),
+                                       Arrays.copyOf(transitionProperties, stateId * numInputs));
+    }
+
+    int size() {
+        return stateProperties.length;
+    }
+
+    int getInitialState() {
+        return initial;
+    }
+
+    /**
+     * Returns the index of the transition of the given state for the given input, or {@code -1} if the state is
+     * undefined or the input is not contained in the alphabet.
+     */
+    int getTransitionIndex(int state, I input) {
+        if (state < 0) {
+            return -1;
+        }
+        final int symIdx = alphabet.getSymbolIndex(input);
+        if (symIdx < 0 || symIdx >= numInputs) {
+            return -1;
+        }
+        return state * numInputs + symIdx;
+    }
+
+    int getSuccessor(int transIdx) {
+        return transIdx < 0 ? -1 : transitions[transIdx];
+    }
+
+    /**
+     * Returns the state reached by reading the given word from the given state, or {@code -1} if any of the traversed
+     * transitions is undefined.
+     */
+    int getSuccessor(int state, Word<I> word) {
+        int curr = state;
+        for (int i = 0; i < word.length() && curr >= 0; i++) {
+            curr = getSuccessor(getTransitionIndex(curr, word.getSymbol(i)));
+        }
+        return curr;
+    }
+
+    Object getStateProperty(int state) {
+        return stateProperties[state];
+    }
+
+    Object getTransitionProperty(int transIdx) {
+        return transitionProperties[transIdx];
+    }
+}
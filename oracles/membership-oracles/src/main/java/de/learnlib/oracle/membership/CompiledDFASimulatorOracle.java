@@ -0,0 +1,60 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.membership;
+
+import java.util.Collection;
+
+import de.learnlib.api.oracle.MembershipOracle.DFAMembershipOracle;
+import de.learnlib.api.query.Query;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.words.Alphabet;
+
+/**
+ * A membership oracle backed by a DFA, which is compiled into int-indexed transition and acceptance arrays upon
+ * construction. In contrast to the {@link SimulatorOracle.DFASimulatorOracle}, queries are answered without any
+ * per-symbol allocation or indirection through the automaton interfaces, which makes this oracle suitable for
+ * benchmarks and regression runs against simulated systems.
+ * <p>
+ * Since the compiled automaton is a snapshot, later modifications of the given DFA are not reflected by this oracle.
+ * Queries must only contain symbols of the given alphabet. Instances are immutable and can hence be shared by
+ * concurrently running oracles.
+ *
+ * @param <I>
+ *         input symbol type
+ */
+public class CompiledDFASimulatorOracle<I> implements DFAMembershipOracle<I> {
+
+    private final CompiledAutomaton<I> automaton;
+    private final boolean[] accepting;
+
+    public CompiledDFASimulatorOracle(DFA<?, I> dfa, Alphabet<I> alphabet) {
+        this.automaton = CompiledAutomaton.compile(dfa, alphabet);
+        this.accepting = new boolean[automaton.size()];
+
+        for (int i = 0; i < accepting.length; i++) {
+            accepting[i] = (Boolean) automaton.getStateProperty(i);
+        }
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, Boolean>> queries) {
+        for (Query<I, Boolean> q : queries) {
+            int state = automaton.getSuccessor(automaton.getInitialState(), q.getPrefix());
+            state = automaton.getSuccessor(state, q.getSuffix());
+            q.answer(state >= 0 && accepting[state]);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.membership;
+
+import java.util.Collection;
+
+import de.learnlib.api.oracle.MembershipOracle.MealyMembershipOracle;
+import de.learnlib.api.query.Query;
+import net.automatalib.automata.transout.MealyMachine;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+
+/**
+ * A membership oracle backed by a Mealy machine, which is compiled into int-indexed transition and output arrays upon
+ * construction. In contrast to the {@link SimulatorOracle.MealySimulatorOracle}, queries are answered without any
+ * per-symbol allocation or indirection through the automaton interfaces (the only allocation per query is the output
+ * word), which makes this oracle suitable for benchmarks and regression runs against simulated systems.
+ * <p>
+ * As for {@link MealyMachine#computeSuffixOutput(Iterable, Iterable)}, the output is truncated at the first undefined
+ * transition. Since the compiled automaton is a snapshot, later modifications of the given Mealy machine are not
+ * reflected by this oracle. Queries must only contain symbols of the given alphabet. Instances are immutable and can
+ * hence be shared by concurrently running oracles.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <O>
+ *         output symbol type
+ */
+public class CompiledMealySimulatorOracle<I, O> implements MealyMembershipOracle<I, O> {
+
+    private final CompiledAutomaton<I> automaton;
+
+    public CompiledMealySimulatorOracle(MealyMachine<?, I, ?, O> mealy, Alphabet<I> alphabet) {
+        this.automaton = CompiledAutomaton.compile(mealy, alphabet);
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, Word<O>>> queries) {
+        for (Query<I, Word<O>> q : queries) {
+            q.answer(answer(q.getPrefix(), q.getSuffix()));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Word<O> answer(Word<I> prefix, Word<I> suffix) {
+        final int suffixLen = suffix.length();
+        int state = automaton.getSuccessor(automaton.getInitialState(), prefix);
+
+        if (state < 0 || suffixLen == 0) {
+            return Word.epsilon();
+        }
+
+        final WordBuilder<O> wb = new WordBuilder<>(suffixLen);
+        for (int i = 0; i < suffixLen; i++) {
+            final int transIdx = automaton.getTransitionIndex(state, suffix.getSymbol(i));
+            state = automaton.getSuccessor(transIdx);
+            if (state < 0) {
+                break;
+            }
+            wb.append((O) automaton.getTransitionProperty(transIdx));
+        }
+
+        return wb.toWord();
+    }
+}
@@ -0,0 +1,113 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.membership;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.examples.dfa.ExampleRandomDFA;
+import de.learnlib.examples.mealy.ExampleRandomMealy;
+import de.learnlib.oracle.membership.SimulatorOracle.DFASimulatorOracle;
+import de.learnlib.oracle.membership.SimulatorOracle.MealySimulatorOracle;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.transout.impl.compact.CompactMealy;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CompiledSimulatorOracleTest {
+
+    private static final int MAX_WORD_LENGTH = 2;
+
+    @Test
+    public void testDFA() {
+        final ExampleRandomDFA example = new ExampleRandomDFA(new Random(42), 3, 10);
+        final DFA<?, Integer> dfa = example.getReferenceAutomaton();
+        final Alphabet<Integer> alphabet = example.getAlphabet();
+
+        compareOracles(new DFASimulatorOracle<>(dfa), new CompiledDFASimulatorOracle<>(dfa, alphabet), alphabet);
+    }
+
+    @Test
+    public void testMealy() {
+        final Alphabet<Character> alphabet = Alphabets.characters('a', 'c');
+        final ExampleRandomMealy<Character, String> example =
+                ExampleRandomMealy.createExample(new Random(42), alphabet, 10, "x", "y", "z");
+
+        compareOracles(new MealySimulatorOracle<>(example.getReferenceAutomaton()),
+                       new CompiledMealySimulatorOracle<>(example.getReferenceAutomaton(), alphabet),
+                       alphabet);
+    }
+
+    @Test
+    public void testPartialMealy() {
+        final Alphabet<Character> alphabet = Alphabets.characters('a', 'b');
+        final CompactMealy<Character, String> mealy = new CompactMealy<>(alphabet);
+
+        final int s0 = mealy.addInitialState();
+        final int s1 = mealy.addState();
+        mealy.addTransition(s0, 'a', s1, "1");
+        mealy.addTransition(s1, 'b', s0, "2");
+
+        compareOracles(new MealySimulatorOracle<>(mealy), new CompiledMealySimulatorOracle<>(mealy, alphabet), alphabet);
+    }
+
+    private static <I, D> void compareOracles(MembershipOracle<I, D> expected,
+                                              MembershipOracle<I, D> actual,
+                                              Alphabet<I> alphabet) {
+        final List<DefaultQuery<I, D>> expectedQueries = new ArrayList<>();
+        final List<DefaultQuery<I, D>> actualQueries = new ArrayList<>();
+
+        final List<Word<I>> words = allWords(alphabet, MAX_WORD_LENGTH);
+
+        for (Word<I> prefix : words) {
+            for (Word<I> suffix : words) {
+                expectedQueries.add(new DefaultQuery<>(prefix, suffix));
+                actualQueries.add(new DefaultQuery<>(prefix, suffix));
+            }
+        }
+
+        expected.processQueries(expectedQueries);
+        actual.processQueries(actualQueries);
+
+        for (int i = 0; i < expectedQueries.size(); i++) {
+            Assert.assertEquals(actualQueries.get(i).getOutput(), expectedQueries.get(i).getOutput());
+        }
+    }
+
+    private static <I> List<Word<I>> allWords(Alphabet<I> alphabet, int maxLength) {
+        final List<Word<I>> result = new ArrayList<>();
+        result.add(Word.epsilon());
+
+        int start = 0;
+        for (int len = 1; len <= maxLength; len++) {
+            final int end = result.size();
+            for (int i = start; i < end; i++) {
+                for (I sym : alphabet) {
+                    result.add(result.get(i).append(sym));
+                }
+            }
+            start = end;
+        }
+
+        return result;
+    }
+}
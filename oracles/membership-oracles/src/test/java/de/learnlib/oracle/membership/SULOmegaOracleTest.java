@@ -0,0 +1,182 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.membership;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+import de.learnlib.api.ObservableSUL;
+import de.learnlib.api.query.OmegaQuery;
+import net.automatalib.words.Word;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the loop unrolling of {@link AbstractSULOmegaOracle}s, both for SULs whose states are deep copies and for
+ * forkable SULs whose states collide in their hash codes.
+ */
+public class SULOmegaOracleTest {
+
+    private static final Word<Character> LOOP = Word.fromLetter('a');
+
+    @Test
+    public void testDeepCopies() {
+        final AbstractSULOmegaOracle<Integer, Character, Integer, ?> oracle =
+                AbstractSULOmegaOracle.newOracle(new CounterSUL(3), true);
+
+        final OmegaQuery<Character, Word<Integer>> early = new OmegaQuery<>(Word.epsilon(), LOOP, 5);
+        final OmegaQuery<Character, Word<Integer>> exact = new OmegaQuery<>(Word.epsilon(), LOOP, 3);
+        final OmegaQuery<Character, Word<Integer>> none = new OmegaQuery<>(Word.epsilon(), LOOP, 2);
+
+        oracle.processQueries(Arrays.asList(early, exact, none));
+
+        Assert.assertTrue(early.isUltimatelyPeriodic());
+        Assert.assertEquals(early.getPeriodicity(), 3);
+        Assert.assertEquals(early.getOutput(), Word.fromSymbols(1, 2, 0));
+
+        Assert.assertTrue(exact.isUltimatelyPeriodic());
+        Assert.assertEquals(exact.getPeriodicity(), 3);
+
+        Assert.assertFalse(none.isUltimatelyPeriodic());
+
+        Assert.assertEquals(oracle.getNumQueries(), 3);
+        Assert.assertEquals(oracle.getNumUnrolledLoops(), 3 + 3 + 2);
+        Assert.assertEquals(oracle.getNumEarlyExits(), 1);
+    }
+
+    @Test
+    public void testHashCollisions() {
+        // states 0 and 2 (and 1 and 3) share their hash codes, but must not be considered equal
+        final AbstractSULOmegaOracle<Counter, Character, Integer, ?> oracle =
+                AbstractSULOmegaOracle.newOracle(new ShallowCounterSUL(4), false);
+
+        final OmegaQuery<Character, Word<Integer>> query = new OmegaQuery<>(Word.fromLetter('a'), LOOP, 10);
+
+        oracle.processQuery(query);
+
+        Assert.assertTrue(query.isUltimatelyPeriodic());
+        Assert.assertEquals(query.getPeriodicity(), 4);
+        Assert.assertEquals(query.getOutput(), Word.fromSymbols(1, 2, 3, 0, 1));
+
+        Assert.assertEquals(oracle.getNumUnrolledLoops(), 4);
+        Assert.assertEquals(oracle.getNumEarlyExits(), 1);
+    }
+
+    /**
+     * A SUL counting its inputs modulo a given size. States are (immutable) {@link Integer}s and thus deep copies.
+     */
+    private static final class CounterSUL implements ObservableSUL<Integer, Character, Integer> {
+
+        private final int size;
+        private int value;
+
+        CounterSUL(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public void pre() {
+            value = 0;
+        }
+
+        @Override
+        public void post() {}
+
+        @Override
+        public Integer step(Character in) {
+            value = (value + 1) % size;
+            return value;
+        }
+
+        @Nonnull
+        @Override
+        public Integer getState() {
+            return value;
+        }
+
+        @Override
+        public boolean deepCopies() {
+            return true;
+        }
+    }
+
+    /**
+     * A forkable SUL counting its inputs modulo a given size, whose (mutable) state is shared with the caller of {@link
+     * #getState()}.
+     */
+    private static final class ShallowCounterSUL implements ObservableSUL<Counter, Character, Integer> {
+
+        private final int size;
+        private final Counter counter = new Counter();
+
+        ShallowCounterSUL(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public void pre() {
+            counter.value = 0;
+        }
+
+        @Override
+        public void post() {}
+
+        @Override
+        public Integer step(Character in) {
+            counter.value = (counter.value + 1) % size;
+            return counter.value;
+        }
+
+        @Nonnull
+        @Override
+        public Counter getState() {
+            return counter;
+        }
+
+        @Override
+        public boolean canFork() {
+            return true;
+        }
+
+        @Nonnull
+        @Override
+        public ShallowCounterSUL fork() {
+            return new ShallowCounterSUL(size);
+        }
+    }
+
+    private static final class Counter {
+
+        private int value;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            return value == ((Counter) o).value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value % 2;
+        }
+    }
+}
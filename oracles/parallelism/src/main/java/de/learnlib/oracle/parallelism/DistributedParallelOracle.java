@@ -0,0 +1,634 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import com.google.common.base.Throwables;
+import de.learnlib.api.exception.SULException;
+import de.learnlib.api.logging.LearnLogger;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.api.query.Query;
+
+/**
+ * A parallel membership oracle that shards queries across several (usually remote) workers, e.g. identical test
+ * benches each driven by a separate JVM. The communication with the workers is abstracted by {@link QueryTransport}s;
+ * see {@link LoopbackQueryTransport} for an in-process implementation.
+ * <p>
+ * Queries are split into batches of a given size, which are sent to the least loaded workers. Each worker has at most
+ * a given number of batches in flight, so that queries are not queued up at slow workers (backpressure). Answers are
+ * streamed back by the workers and forwarded to the original queries as soon as they arrive, i.e. possibly from the
+ * threads of the transports.
+ * <p>
+ * If a worker disconnects, the unanswered queries of its batches are re-queued and processed by the remaining workers.
+ * Disconnected workers are reconnected upon the next call to {@link #processQueries(Collection)}. If a worker fails to
+ * process a batch, the unanswered queries are re-queued as well, until the batch has failed a given number of times.
+ * Then, the last failure is propagated to the caller.
+ * <p>
+ * Optionally, batches are subject to a deadline. If a worker does not complete a batch in time, the worker is assumed
+ * to hang: the unanswered queries of the batch are re-queued (counting as a failed attempt) and the worker is
+ * disconnected like a worker that lost its connection, so that its slots are not reused before it has been reconnected
+ * upon the next call to {@link #processQueries(Collection)}. Late answers of the worker are ignored.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ */
+@ParametersAreNonnullByDefault
+public class DistributedParallelOracle<I, D> implements ParallelOracle<I, D> {
+
+    private static final LearnLogger LOGGER = LearnLogger.getLogger(DistributedParallelOracle.class);
+
+    private final List<Worker> workers;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final long batchTimeoutNanos;
+
+    private final Object lock = new Object();
+    private final Map<Long, Attempt> attempts = new HashMap<>();
+    private long nextBatchId;
+    private long numRequeuedBatches;
+    private boolean shutdown;
+
+    /**
+     * Constructor.
+     *
+     * @param transports
+     *         the transports to the workers, one per worker
+     * @param batchSize
+     *         the maximum number of queries per batch
+     * @param maxInFlight
+     *         the maximum number of batches that are sent to a worker without having been processed
+     * @param maxAttempts
+     *         the maximum number of failed executions per batch
+     */
+    public DistributedParallelOracle(Collection<? extends QueryTransport<I, D>> transports,
+                                     @Nonnegative int batchSize,
+                                     @Nonnegative int maxInFlight,
+                                     @Nonnegative int maxAttempts) {
+        this(transports, batchSize, maxInFlight, maxAttempts, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param transports
+     *         the transports to the workers, one per worker
+     * @param batchSize
+     *         the maximum number of queries per batch
+     * @param maxInFlight
+     *         the maximum number of batches that are sent to a worker without having been processed
+     * @param maxAttempts
+     *         the maximum number of failed executions per batch
+     * @param batchTimeout
+     *         the maximum time for a worker to complete a batch, or {@code 0} for no timeout
+     * @param timeUnit
+     *         the time unit of the batch timeout
+     */
+    public DistributedParallelOracle(Collection<? extends QueryTransport<I, D>> transports,
+                                     @Nonnegative int batchSize,
+                                     @Nonnegative int maxInFlight,
+                                     @Nonnegative int maxAttempts,
+                                     @Nonnegative long batchTimeout,
+                                     TimeUnit timeUnit) {
+        if (transports.isEmpty()) {
+            throw new IllegalArgumentException("At least one transport is required");
+        }
+
+        this.workers = new ArrayList<>(transports.size());
+        this.batchSize = Math.max(1, batchSize);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.batchTimeoutNanos = batchTimeout > 0 ? timeUnit.toNanos(batchTimeout) : Long.MAX_VALUE;
+
+        for (QueryTransport<I, D> transport : transports) {
+            workers.add(new Worker(workers.size(), transport));
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        final List<Connection> connections = new ArrayList<>(workers.size());
+
+        synchronized (lock) {
+            shutdown = true;
+            for (Worker worker : workers) {
+                if (worker.connection != null) {
+                    connections.add(worker.connection);
+                    worker.connection = null;
+                }
+            }
+            lock.notifyAll();
+        }
+
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    @Override
+    public void shutdownNow() {
+        shutdown();
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, D>> queries) {
+        if (queries.isEmpty()) {
+            return;
+        }
+
+        connectWorkers();
+
+        final Round round = new Round(queries);
+
+        try {
+            while (true) {
+                final List<Attempt> scheduled;
+
+                synchronized (lock) {
+                    final long now = System.nanoTime();
+                    final long nextDeadline = expireAttempts(round, now);
+                    scheduled = schedule(round, now);
+                    if (scheduled == null) {
+                        return;
+                    }
+                    if (scheduled.isEmpty()) {
+                        if (nextDeadline == Long.MAX_VALUE) {
+                            lock.wait();
+                        } else {
+                            TimeUnit.NANOSECONDS.timedWait(lock, Math.max(1, nextDeadline - now));
+                        }
+                        continue;
+                    }
+                }
+
+                for (Attempt attempt : scheduled) {
+                    attempt.send();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.interrupted();
+            synchronized (lock) {
+                round.finished = true;
+            }
+            throw new ParallelOracleInterruptedException(e);
+        }
+    }
+
+    /**
+     * Returns the number of workers that are currently connected.
+     *
+     * @return the number of connected workers
+     */
+    public int getNumConnectedWorkers() {
+        synchronized (lock) {
+            int result = 0;
+            for (Worker worker : workers) {
+                if (worker.connection != null) {
+                    result++;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the number of batches that have been re-queued, either because their worker disconnected or because
+     * their processing failed.
+     *
+     * @return the number of re-queued batches
+     */
+    public long getNumRequeuedBatches() {
+        synchronized (lock) {
+            return numRequeuedBatches;
+        }
+    }
+
+    private void connectWorkers() {
+        // connecting may take a while (e.g. for remote workers), hence do not block the answers of other workers
+        for (Worker worker : workers) {
+            synchronized (lock) {
+                if (shutdown) {
+                    throw new IllegalStateException("The oracle has been shut down");
+                }
+                if (worker.connection != null || worker.connecting) {
+                    continue;
+                }
+                worker.connecting = true;
+            }
+
+            Connection connection = new Connection(worker);
+            try {
+                connection.channel = worker.transport.connect(connection);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Could not connect to worker " + worker.id, e);
+                connection = null;
+            }
+
+            final boolean closed;
+            synchronized (lock) {
+                worker.connecting = false;
+                closed = shutdown;
+                if (!closed) {
+                    worker.connection = connection;
+                }
+            }
+
+            if (closed && connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    // all following methods need to be called while holding the lock
+
+    /**
+     * Re-queues the batches of the given round whose workers exceeded the batch timeout.
+     *
+     * @return the deadline of the next running attempt of the round, or {@link Long#MAX_VALUE} if there is none
+     */
+    private long expireAttempts(Round round, long now) {
+        if (batchTimeoutNanos == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+
+        long nextDeadline = Long.MAX_VALUE;
+        final List<Attempt> expired = new ArrayList<>();
+
+        for (Attempt attempt : attempts.values()) {
+            if (attempt.batch.round == round) {
+                final long deadline = attempt.start + batchTimeoutNanos;
+                if (now - deadline >= 0) {
+                    expired.add(attempt);
+                } else {
+                    nextDeadline = Math.min(nextDeadline, deadline);
+                }
+            }
+        }
+
+        for (Attempt attempt : expired) {
+            final Connection connection = attempt.connection;
+            // the attempt may already have been re-queued by dropping its connection for another expired attempt
+            if (connection.remove(attempt.id) == null) {
+                continue;
+            }
+
+            final TimeoutException timeout = new TimeoutException(
+                    "No answer after " + TimeUnit.NANOSECONDS.toMillis(now - attempt.start) + "ms for batch " +
+                    attempt.id + " of worker " + connection.worker.id);
+            attempt.batch.fail(timeout);
+            // the worker is assumed to hang, hence re-queue its other batches and do not reuse its slots
+            connection.drop(timeout);
+        }
+
+        return nextDeadline;
+    }
+
+    /**
+     * Assigns queued batches of the given round to workers.
+     *
+     * @return the scheduled attempts, or {@code null} if the round has been completed
+     */
+    @Nullable
+    private List<Attempt> schedule(Round round, long now) {
+        if (round.failure == null && shutdown) {
+            round.failure = new IllegalStateException("The oracle has been shut down");
+        }
+
+        if (round.failure != null) {
+            round.finished = true;
+            Throwables.throwIfUnchecked(round.failure);
+            throw new SULException(round.failure);
+        }
+
+        if (round.numUnanswered == 0) {
+            round.finished = true;
+            return null;
+        }
+
+        final List<Attempt> result = new ArrayList<>();
+        while (!round.queue.isEmpty()) {
+            final Connection connection = selectConnection();
+            if (connection == null) {
+                break;
+            }
+            final Attempt attempt = new Attempt(nextBatchId++, round.queue.poll(), connection, now);
+            attempts.put(attempt.id, attempt);
+            connection.numInFlight++;
+            round.numInFlight++;
+            result.add(attempt);
+        }
+
+        if (result.isEmpty() && round.numInFlight == 0 && !round.queue.isEmpty() && !isAnyConnected()) {
+            round.finished = true;
+            throw new SULException(new IOException("No worker is connected"));
+        }
+
+        return result;
+    }
+
+    @Nullable
+    private Connection selectConnection() {
+        Connection result = null;
+        for (Worker worker : workers) {
+            final Connection connection = worker.connection;
+            if (connection != null && connection.numInFlight < maxInFlight &&
+                (result == null || connection.numInFlight < result.numInFlight)) {
+                result = connection;
+            }
+        }
+        return result;
+    }
+
+    private boolean isAnyConnected() {
+        for (Worker worker : workers) {
+            if (worker.connection != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void requeue(Batch batch) {
+        if (!batch.round.finished && batch.hasUnanswered()) {
+            batch.round.queue.addFirst(batch);
+            numRequeuedBatches++;
+        }
+    }
+
+    private final class Worker {
+
+        private final int id;
+        private final QueryTransport<I, D> transport;
+        @Nullable
+        private Connection connection;
+        private boolean connecting;
+
+        Worker(int id, QueryTransport<I, D> transport) {
+            this.id = id;
+            this.transport = transport;
+        }
+    }
+
+    /**
+     * A single connection to a worker. Messages of connections that have been dropped are ignored.
+     */
+    private final class Connection implements QueryTransport.Listener<D> {
+
+        private final Worker worker;
+        private QueryTransport.Channel<I, D> channel;
+        private int numInFlight;
+
+        Connection(Worker worker) {
+            this.worker = worker;
+        }
+
+        @Override
+        public void onAnswer(long batchId, int index, @Nullable D answer) {
+            synchronized (lock) {
+                final Attempt attempt = attempts.get(batchId);
+                if (attempt != null && attempt.connection == this) {
+                    attempt.answer(index, answer);
+                }
+            }
+        }
+
+        @Override
+        public void onCompleted(long batchId) {
+            synchronized (lock) {
+                final Attempt attempt = remove(batchId);
+                if (attempt != null && attempt.batch.hasUnanswered()) {
+                    attempt.batch.fail(new IllegalStateException(
+                            "Worker " + worker.id + " did not answer all queries of batch " + batchId));
+                }
+            }
+        }
+
+        @Override
+        public void onFailed(long batchId, Throwable cause) {
+            synchronized (lock) {
+                final Attempt attempt = remove(batchId);
+                if (attempt != null) {
+                    attempt.batch.fail(cause);
+                }
+            }
+        }
+
+        @Override
+        public void onDisconnected(Throwable cause) {
+            synchronized (lock) {
+                drop(cause);
+            }
+        }
+
+        @Nullable
+        private Attempt remove(long batchId) {
+            final Attempt attempt = attempts.get(batchId);
+            if (attempt == null || attempt.connection != this) {
+                return null;
+            }
+
+            attempts.remove(batchId);
+            numInFlight--;
+            attempt.batch.round.numInFlight--;
+            lock.notifyAll();
+
+            return attempt;
+        }
+
+        void drop(Throwable cause) {
+            if (worker.connection != this) {
+                return;
+            }
+
+            LOGGER.warn("Lost connection to worker " + worker.id + ", re-queueing its batches", cause);
+            worker.connection = null;
+
+            final Iterator<Attempt> iter = attempts.values().iterator();
+            while (iter.hasNext()) {
+                final Attempt attempt = iter.next();
+                if (attempt.connection == this) {
+                    iter.remove();
+                    attempt.batch.round.numInFlight--;
+                    requeue(attempt.batch);
+                }
+            }
+            numInFlight = 0;
+            lock.notifyAll();
+
+            close();
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close the channel to worker " + worker.id, e);
+            }
+        }
+    }
+
+    /**
+     * The queries of a single call to {@link #processQueries(Collection)}.
+     */
+    private final class Round {
+
+        private final Deque<Batch> queue = new ArrayDeque<>();
+        private int numUnanswered;
+        private int numInFlight;
+        private boolean finished;
+        @Nullable
+        private Throwable failure;
+
+        Round(Collection<? extends Query<I, D>> queries) {
+            List<Query<I, D>> currentBatch = new ArrayList<>(batchSize);
+
+            for (Query<I, D> query : queries) {
+                currentBatch.add(query);
+                if (currentBatch.size() == batchSize) {
+                    queue.add(new Batch(this, currentBatch));
+                    currentBatch = new ArrayList<>(batchSize);
+                }
+            }
+
+            if (!currentBatch.isEmpty()) {
+                queue.add(new Batch(this, currentBatch));
+            }
+
+            this.numUnanswered = queries.size();
+        }
+    }
+
+    private final class Batch {
+
+        private final Round round;
+        private final List<Query<I, D>> queries;
+        private final boolean[] answered;
+        private int failedAttempts;
+
+        Batch(Round round, List<Query<I, D>> queries) {
+            this.round = round;
+            this.queries = queries;
+            this.answered = new boolean[queries.size()];
+        }
+
+        void answer(int index, @Nullable D answer) {
+            if (!round.finished && !answered[index]) {
+                answered[index] = true;
+                queries.get(index).answer(answer);
+                if (--round.numUnanswered == 0) {
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        boolean hasUnanswered() {
+            for (boolean a : answered) {
+                if (!a) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void fail(Throwable cause) {
+            if (round.finished) {
+                return;
+            }
+
+            if (++failedAttempts >= maxAttempts) {
+                round.failure = cause;
+                lock.notifyAll();
+            } else {
+                requeue(this);
+            }
+        }
+    }
+
+    /**
+     * An execution of (the unanswered queries of) a batch by a worker.
+     */
+    private final class Attempt {
+
+        private final long id;
+        private final Batch batch;
+        private final Connection connection;
+        private final long start;
+        private final int[] indices;
+        private final List<DefaultQuery<I, D>> queries;
+
+        Attempt(long id, Batch batch, Connection connection, long start) {
+            this.id = id;
+            this.batch = batch;
+            this.connection = connection;
+            this.start = start;
+
+            int numUnanswered = 0;
+            for (boolean a : batch.answered) {
+                if (!a) {
+                    numUnanswered++;
+                }
+            }
+
+            this.indices = new int[numUnanswered];
+            this.queries = new ArrayList<>(numUnanswered);
+
+            for (int i = 0, j = 0; i < batch.answered.length; i++) {
+                if (!batch.answered[i]) {
+                    final Query<I, D> q = batch.queries.get(i);
+                    indices[j++] = i;
+                    queries.add(new DefaultQuery<>(q.getPrefix(), q.getSuffix()));
+                }
+            }
+        }
+
+        void answer(int index, @Nullable D answer) {
+            if (index >= 0 && index < indices.length) {
+                batch.answer(indices[index], answer);
+            }
+        }
+
+        /**
+         * Sends this attempt to its worker. Must be called without holding the lock, as sending may block (e.g. due to
+         * backpressure of the transport). If sending fails, the connection is dropped and its batches are re-queued.
+         */
+        void send() {
+            try {
+                connection.channel.send(id, queries);
+            } catch (IOException | RuntimeException e) {
+                synchronized (lock) {
+                    connection.drop(e);
+                }
+            }
+        }
+    }
+}
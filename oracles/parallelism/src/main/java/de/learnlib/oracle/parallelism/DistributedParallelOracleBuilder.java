@@ -0,0 +1,96 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Builder class for a {@link DistributedParallelOracle}.
+ * <p>
+ * By default, each worker has at most two batches in flight, so that it can start processing the next batch while
+ * the answers of the previous one are transmitted. Failed batches are attempted at most three times. Batches are not
+ * subject to a timeout.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output type
+ */
+@ParametersAreNonnullByDefault
+public class DistributedParallelOracleBuilder<I, D> {
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    @Nonnull
+    private final List<QueryTransport<I, D>> transports;
+    @Nonnegative
+    private int batchSize = DynamicParallelOracle.BATCH_SIZE;
+    @Nonnegative
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    @Nonnegative
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    @Nonnegative
+    private long batchTimeout;
+    @Nonnull
+    private TimeUnit batchTimeoutUnit = TimeUnit.MILLISECONDS;
+
+    public DistributedParallelOracleBuilder(Collection<? extends QueryTransport<I, D>> transports) {
+        this.transports = new ArrayList<>(transports);
+    }
+
+    @Nonnull
+    public DistributedParallelOracleBuilder<I, D> withBatchSize(@Nonnegative int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    @Nonnull
+    public DistributedParallelOracleBuilder<I, D> withMaxInFlight(@Nonnegative int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    @Nonnull
+    public DistributedParallelOracleBuilder<I, D> withMaxAttempts(@Nonnegative int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    @Nonnull
+    public DistributedParallelOracleBuilder<I, D> withBatchTimeout(@Nonnegative long timeout, TimeUnit unit) {
+        this.batchTimeout = timeout;
+        this.batchTimeoutUnit = unit;
+        return this;
+    }
+
+    @Nonnull
+    public DistributedParallelOracle<I, D> create() {
+        return new DistributedParallelOracle<>(transports,
+                                               batchSize,
+                                               maxInFlight,
+                                               maxAttempts,
+                                               batchTimeout,
+                                               batchTimeoutUnit);
+    }
+}
@@ -0,0 +1,192 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import net.automatalib.words.Word;
+
+/**
+ * An in-process {@link QueryTransport}, which processes the batches of each channel with a given membership oracle in
+ * a dedicated (daemon) thread. This transport mimics a remote worker and is mainly intended for testing distributed
+ * setups. The connection loss of a remote worker can be simulated via {@link #disconnect()}.
+ * <p>
+ * Each channel buffers at most a given number of batches. If the buffer is full, {@link Channel#send(long, List)}
+ * blocks until the worker has taken a batch from the buffer.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ */
+@ParametersAreNonnullByDefault
+public class LoopbackQueryTransport<I, D> implements QueryTransport<I, D> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final MembershipOracle<I, D> oracle;
+    private final int capacity;
+    private final Set<LoopbackChannel> channels = ConcurrentHashMap.newKeySet();
+
+    public LoopbackQueryTransport(MembershipOracle<I, D> oracle) {
+        this(oracle, DEFAULT_CAPACITY);
+    }
+
+    public LoopbackQueryTransport(MembershipOracle<I, D> oracle, @Nonnegative int capacity) {
+        this.oracle = oracle;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public Channel<I, D> connect(Listener<D> listener) {
+        final LoopbackChannel channel = new LoopbackChannel(listener);
+        channels.add(channel);
+        channel.worker.start();
+        return channel;
+    }
+
+    /**
+     * Closes all open channels, notifying their listeners about the lost connection.
+     */
+    public void disconnect() {
+        for (LoopbackChannel channel : channels) {
+            channel.close();
+        }
+    }
+
+    private final class LoopbackChannel implements Channel<I, D> {
+
+        private final Listener<D> listener;
+        private final BlockingQueue<Batch> buffer = new ArrayBlockingQueue<>(capacity);
+        private final Thread worker;
+        private volatile boolean closed;
+
+        LoopbackChannel(Listener<D> listener) {
+            this.listener = listener;
+            this.worker = new Thread(this::run, "loopback-worker");
+            this.worker.setDaemon(true);
+        }
+
+        @Override
+        public void send(long batchId, List<? extends Query<I, D>> queries) throws IOException {
+            final List<StreamingQuery> batch = new ArrayList<>(queries.size());
+            for (Query<I, D> q : queries) {
+                batch.add(new StreamingQuery(batchId, batch.size(), q.getPrefix(), q.getSuffix()));
+            }
+
+            try {
+                while (!buffer.offer(new Batch(batchId, batch), 100, TimeUnit.MILLISECONDS)) {
+                    if (closed) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while sending batch " + batchId, e);
+            }
+
+            if (closed) {
+                throw new IOException("Channel closed");
+            }
+        }
+
+        private void run() {
+            try {
+                while (!closed) {
+                    final Batch batch = buffer.take();
+                    try {
+                        oracle.processQueries(batch.queries);
+                    } catch (RuntimeException e) {
+                        if (!closed) {
+                            listener.onFailed(batch.id, e);
+                        }
+                        continue;
+                    }
+                    if (!closed) {
+                        listener.onCompleted(batch.id);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } finally {
+                channels.remove(this);
+                listener.onDisconnected(new IOException("Channel closed"));
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            worker.interrupt();
+        }
+
+        private final class StreamingQuery extends Query<I, D> {
+
+            private final long batchId;
+            private final int index;
+            private final Word<I> prefix;
+            private final Word<I> suffix;
+
+            StreamingQuery(long batchId, int index, Word<I> prefix, Word<I> suffix) {
+                this.batchId = batchId;
+                this.index = index;
+                this.prefix = prefix;
+                this.suffix = suffix;
+            }
+
+            @Override
+            public void answer(@Nullable D output) {
+                if (!closed) {
+                    listener.onAnswer(batchId, index, output);
+                }
+            }
+
+            @Override
+            public Word<I> getPrefix() {
+                return prefix;
+            }
+
+            @Override
+            public Word<I> getSuffix() {
+                return suffix;
+            }
+        }
+
+        private final class Batch {
+
+            private final long id;
+            private final List<StreamingQuery> queries;
+
+            Batch(long id, List<StreamingQuery> queries) {
+                this.id = id;
+                this.queries = queries;
+            }
+        }
+    }
+}
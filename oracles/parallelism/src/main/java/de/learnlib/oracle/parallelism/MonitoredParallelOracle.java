@@ -0,0 +1,598 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import com.google.common.base.Throwables;
+import de.learnlib.api.exception.SULException;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.api.query.Query;
+
+/**
+ * A parallel membership oracle that monitors the health of its oracle instances (e.g. connections to several instances
+ * of the system under learning).
+ * <p>
+ * Queries are distributed in batches to a pool of oracle instances, each of which processes at most one batch at a
+ * time. In contrast to the {@link DynamicParallelOracle}, this oracle does not wait indefinitely for a batch:
+ * <ul>
+ * <li>If an instance does not answer a batch within the configured per-query timeout (multiplied by the size of the
+ * batch), the instance is considered hung. It is quarantined, replaced by a fresh instance of the oracle supplier, and
+ * the batch is re-executed on another instance.</li>
+ * <li>If an instance answers a batch considerably slower than the median latency of all instances (i.e. it is a
+ * straggler), the batch is speculatively executed on another idle instance as well. The first answer wins.</li>
+ * <li>Instances that fail (i.e. throw an exception) for a given number of consecutive batches are quarantined and
+ * replaced as well. Failed batches are re-executed up to a given number of attempts, after which the last failure is
+ * propagated to the caller.</li>
+ * </ul>
+ * Since a batch may be executed several times, the instances answer copies of the original queries. The original
+ * queries are answered exactly once, with the answers of the first successful execution.
+ * <p>
+ * The latencies of each instance are exposed via {@link #getInstanceStatistics()}. Quarantined instances are dropped
+ * from the pool (and hence from the statistics), only their number is retained.
+ * <p>
+ * Note that hung instances keep blocking their worker threads. Hence, the given executor should create threads on
+ * demand (e.g. a cached thread pool) instead of queuing tasks.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ */
+@ParametersAreNonnullByDefault
+public class MonitoredParallelOracle<I, D> implements ParallelOracle<I, D> {
+
+    private final Supplier<? extends MembershipOracle<I, D>> oracleSupplier;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final long queryTimeoutNanos;
+    private final double stragglerFactor;
+    private final int maxAttempts;
+    private final int maxConsecutiveFailures;
+
+    private final Object lock = new Object();
+    private final List<Instance> instances = new ArrayList<>();
+    private final Deque<Instance> idleInstances = new ArrayDeque<>();
+    private final LatencyWindow latencies = new LatencyWindow();
+    private int nextInstanceId;
+    private long numQuarantined;
+
+    /**
+     * Constructor.
+     *
+     * @param oracleSupplier
+     *         the supplier for (fresh) oracle instances
+     * @param poolSize
+     *         the number of oracle instances
+     * @param batchSize
+     *         the maximum number of queries per batch
+     * @param queryTimeout
+     *         the maximum time per query, or {@code 0} for no timeout
+     * @param timeUnit
+     *         the time unit of the query timeout
+     * @param stragglerFactor
+     *         the factor by which the latency of a batch needs to exceed the median latency to be speculatively
+     *         re-executed, or {@code 0} to disable speculative execution
+     * @param maxAttempts
+     *         the maximum number of failed executions per batch
+     * @param maxConsecutiveFailures
+     *         the number of consecutive failures after which an instance is quarantined
+     * @param executor
+     *         the executor for processing the batches
+     */
+    public MonitoredParallelOracle(Supplier<? extends MembershipOracle<I, D>> oracleSupplier,
+                                   @Nonnegative int poolSize,
+                                   @Nonnegative int batchSize,
+                                   @Nonnegative long queryTimeout,
+                                   TimeUnit timeUnit,
+                                   @Nonnegative double stragglerFactor,
+                                   @Nonnegative int maxAttempts,
+                                   @Nonnegative int maxConsecutiveFailures,
+                                   ExecutorService executor) {
+        this.oracleSupplier = oracleSupplier;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.queryTimeoutNanos = queryTimeout > 0 ? timeUnit.toNanos(queryTimeout) : Long.MAX_VALUE;
+        this.stragglerFactor = stragglerFactor;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.maxConsecutiveFailures = Math.max(1, maxConsecutiveFailures);
+
+        synchronized (lock) {
+            for (int i = 0; i < Math.max(1, poolSize); i++) {
+                addInstance();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void shutdownNow() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, D>> queries) {
+        if (queries.isEmpty()) {
+            return;
+        }
+
+        final List<Job> pending = new ArrayList<>((queries.size() - 1) / batchSize + 1);
+        List<Query<I, D>> currentBatch = new ArrayList<>(batchSize);
+
+        for (Query<I, D> query : queries) {
+            currentBatch.add(query);
+            if (currentBatch.size() == batchSize) {
+                pending.add(new Job(currentBatch));
+                currentBatch = new ArrayList<>(batchSize);
+            }
+        }
+
+        if (!currentBatch.isEmpty()) {
+            pending.add(new Job(currentBatch));
+        }
+
+        synchronized (lock) {
+            try {
+                while (!pending.isEmpty()) {
+                    final long now = System.nanoTime();
+                    long nextCheck = Long.MAX_VALUE;
+
+                    final Iterator<Job> iter = pending.iterator();
+                    while (iter.hasNext()) {
+                        final Job job = iter.next();
+                        final long jobCheck = job.check(now);
+
+                        if (job.completed) {
+                            iter.remove();
+                        } else if (job.failure != null) {
+                            abort(pending);
+                            Throwables.throwIfUnchecked(job.failure);
+                            throw new SULException(job.failure);
+                        } else {
+                            nextCheck = Math.min(nextCheck, jobCheck);
+                        }
+                    }
+
+                    if (!pending.isEmpty()) {
+                        if (nextCheck == Long.MAX_VALUE) {
+                            lock.wait();
+                        } else {
+                            TimeUnit.NANOSECONDS.timedWait(lock, Math.max(1, nextCheck - now));
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.interrupted();
+                abort(pending);
+                throw new ParallelOracleInterruptedException(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics of the current oracle instances of this oracle, i.e. excluding quarantined ones.
+     *
+     * @return the statistics of the current oracle instances
+     */
+    public List<InstanceStatistics> getInstanceStatistics() {
+        synchronized (lock) {
+            final List<InstanceStatistics> result = new ArrayList<>(instances.size());
+            for (Instance instance : instances) {
+                result.add(new InstanceStatistics(instance));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the number of oracle instances that have been quarantined (and replaced) so far.
+     *
+     * @return the number of quarantined oracle instances
+     */
+    public long getNumQuarantinedInstances() {
+        synchronized (lock) {
+            return numQuarantined;
+        }
+    }
+
+    // all following methods need to be called while holding the lock
+
+    private void addInstance() {
+        final Instance instance = new Instance(nextInstanceId++, oracleSupplier.get());
+        instances.add(instance);
+        idleInstances.add(instance);
+    }
+
+    private void quarantine(Instance instance) {
+        instance.quarantined = true;
+        numQuarantined++;
+        instances.remove(instance);
+        idleInstances.remove(instance);
+        addInstance();
+    }
+
+    private void release(Instance instance) {
+        if (!instance.quarantined) {
+            idleInstances.add(instance);
+            lock.notifyAll();
+        }
+    }
+
+    private void abort(List<Job> jobs) {
+        for (Job job : jobs) {
+            job.completed = true;
+            job.cancelAttempts(null);
+        }
+    }
+
+    private final class Job {
+
+        private final List<Query<I, D>> queries;
+        private final long timeoutNanos;
+        private final List<Attempt> running = new ArrayList<>(2);
+
+        private boolean completed;
+        private boolean speculated;
+        private int failedAttempts;
+        @Nullable
+        private Throwable failure;
+        @Nullable
+        private Throwable lastFailure;
+
+        Job(List<Query<I, D>> queries) {
+            this.queries = queries;
+            this.timeoutNanos = multiplySaturated(queryTimeoutNanos, queries.size());
+        }
+
+        /**
+         * Checks the running attempts of this job for timeouts and stragglers, and launches new attempts if necessary.
+         *
+         * @return the time of the next necessary check, or {@link Long#MAX_VALUE} if the job only needs to be checked
+         * upon changes of its state
+         */
+        long check(long now) {
+            if (completed) {
+                return Long.MAX_VALUE;
+            }
+
+            for (Attempt attempt : new ArrayList<>(running)) {
+                if (now - attempt.start >= timeoutNanos) {
+                    attempt.abandon();
+                    fail(new TimeoutException("No answer after " + TimeUnit.NANOSECONDS.toMillis(now - attempt.start) +
+                                              "ms for a batch of " + queries.size() + " queries"));
+                }
+            }
+
+            if (running.isEmpty()) {
+                if (failedAttempts >= maxAttempts) {
+                    failure = lastFailure;
+                    return Long.MAX_VALUE;
+                }
+                if (!launch(now)) {
+                    return Long.MAX_VALUE;
+                }
+                speculated = false;
+            }
+
+            long nextCheck = Long.MAX_VALUE;
+            if (timeoutNanos < Long.MAX_VALUE) {
+                for (Attempt attempt : running) {
+                    nextCheck = Math.min(nextCheck, attempt.start + timeoutNanos);
+                }
+            }
+
+            if (stragglerFactor > 0 && !speculated && running.size() == 1) {
+                final long median = latencies.getPercentile(0.5);
+                final long threshold = median > 0 ?
+                        multiplySaturated((long) (median * stragglerFactor), queries.size()) :
+                        Long.MAX_VALUE;
+
+                if (threshold < Long.MAX_VALUE) {
+                    final long speculateAt = running.get(0).start + threshold;
+
+                    if (now - speculateAt >= 0) {
+                        // if no instance is idle, we are notified as soon as one becomes idle
+                        speculated = launch(now);
+                    } else {
+                        nextCheck = Math.min(nextCheck, speculateAt);
+                    }
+                }
+            }
+
+            return nextCheck;
+        }
+
+        boolean launch(long now) {
+            final Instance instance = idleInstances.poll();
+            if (instance == null) {
+                return false;
+            }
+
+            final Attempt attempt = new Attempt(this, instance, now);
+            running.add(attempt);
+            attempt.future = executor.submit(attempt);
+            return true;
+        }
+
+        void fail(Throwable cause) {
+            failedAttempts++;
+            lastFailure = cause;
+        }
+
+        void complete(Attempt winner, List<DefaultQuery<I, D>> answers) {
+            completed = true;
+
+            for (int i = 0; i < queries.size(); i++) {
+                queries.get(i).answer(answers.get(i).getOutput());
+            }
+
+            cancelAttempts(winner);
+        }
+
+        void cancelAttempts(@Nullable Attempt except) {
+            for (Attempt attempt : running) {
+                if (attempt != except) {
+                    attempt.cancel();
+                }
+            }
+        }
+
+        List<DefaultQuery<I, D>> copyQueries() {
+            final List<DefaultQuery<I, D>> copies = new ArrayList<>(queries.size());
+            for (Query<I, D> q : queries) {
+                copies.add(new DefaultQuery<>(q.getPrefix(), q.getSuffix()));
+            }
+            return copies;
+        }
+    }
+
+    private final class Attempt implements Runnable {
+
+        private final Job job;
+        private final Instance instance;
+        private final long start;
+        private Future<?> future;
+        private boolean abandoned;
+        private boolean cancelled;
+
+        Attempt(Job job, Instance instance, long start) {
+            this.job = job;
+            this.instance = instance;
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            final List<DefaultQuery<I, D>> copies;
+            synchronized (lock) {
+                if (cancelled || abandoned) {
+                    job.running.remove(this);
+                    release(instance);
+                    return;
+                }
+                copies = job.copyQueries();
+            }
+
+            Throwable error = null;
+            try {
+                instance.oracle.processQueries(copies);
+            } catch (Throwable t) {
+                error = t;
+            }
+
+            final long latency = System.nanoTime() - start;
+
+            synchronized (lock) {
+                finish(copies, error, latency);
+                lock.notifyAll();
+            }
+        }
+
+        private void finish(List<DefaultQuery<I, D>> copies, @Nullable Throwable error, long latency) {
+            job.running.remove(this);
+
+            if (abandoned) {
+                // the instance has already been quarantined
+                return;
+            }
+
+            if (cancelled || job.completed) {
+                release(instance);
+                return;
+            }
+
+            if (error == null) {
+                final long latencyPerQuery = latency / copies.size();
+                instance.recordSuccess(latencyPerQuery);
+                latencies.add(latencyPerQuery);
+                release(instance);
+                job.complete(this, copies);
+            } else {
+                instance.numFailures++;
+                if (++instance.consecutiveFailures >= maxConsecutiveFailures) {
+                    quarantine(instance);
+                } else {
+                    release(instance);
+                }
+                job.fail(error);
+            }
+        }
+
+        void abandon() {
+            abandoned = true;
+            job.running.remove(this);
+            quarantine(instance);
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private final class Instance {
+
+        private final int id;
+        private final MembershipOracle<I, D> oracle;
+        private final LatencyWindow latencies = new LatencyWindow();
+
+        private long numBatches;
+        private long numFailures;
+        private int consecutiveFailures;
+        private boolean quarantined;
+
+        Instance(int id, MembershipOracle<I, D> oracle) {
+            this.id = id;
+            this.oracle = oracle;
+        }
+
+        void recordSuccess(long latencyPerQuery) {
+            numBatches++;
+            consecutiveFailures = 0;
+            latencies.add(latencyPerQuery);
+        }
+    }
+
+    /**
+     * A snapshot of the statistics of a single oracle instance of a {@link MonitoredParallelOracle}. Latencies are
+     * measured per query, i.e. as the time for processing a batch divided by its size.
+     * <p>
+     * Since timed out instances are quarantined immediately, they do not occur in the statistics. Their number is
+     * exposed via {@link MonitoredParallelOracle#getNumQuarantinedInstances()}.
+     */
+    public static final class InstanceStatistics {
+
+        private final int id;
+        private final long numBatches;
+        private final long numFailures;
+        private final long[] sortedLatencies;
+
+        InstanceStatistics(MonitoredParallelOracle<?, ?>.Instance instance) {
+            this.id = instance.id;
+            this.numBatches = instance.numBatches;
+            this.numFailures = instance.numFailures;
+            this.sortedLatencies = instance.latencies.toSortedArray();
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public long getNumBatches() {
+            return numBatches;
+        }
+
+        public long getNumFailures() {
+            return numFailures;
+        }
+
+        /**
+         * Returns the given percentile of the (recent) per-query latencies of the instance.
+         *
+         * @param percentile
+         *         the percentile, between 0 and 1
+         * @param unit
+         *         the time unit of the result
+         *
+         * @return the latency percentile, or {@code -1} if the instance has not answered any queries yet
+         */
+        public long getLatencyPercentile(double percentile, TimeUnit unit) {
+            final long nanos = LatencyWindow.getPercentile(sortedLatencies, percentile);
+            return nanos < 0 ? nanos : unit.convert(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return "Instance " + id + " [batches=" + numBatches + ", failures=" + numFailures + ", p50=" +
+                   getLatencyPercentile(0.5, TimeUnit.MICROSECONDS) + "us, p99=" +
+                   getLatencyPercentile(0.99, TimeUnit.MICROSECONDS) + "us]";
+        }
+    }
+
+    /**
+     * A sliding window of the most recent latencies.
+     */
+    private static final class LatencyWindow {
+
+        private static final int SIZE = 1024;
+
+        private final long[] values = new long[SIZE];
+        private int next;
+        private int count;
+        private long[] sorted;
+
+        void add(long latency) {
+            values[next] = latency;
+            next = (next + 1) % SIZE;
+            if (count < SIZE) {
+                count++;
+            }
+            sorted = null;
+        }
+
+        long[] toSortedArray() {
+            if (sorted == null) {
+                sorted = Arrays.copyOf(values, count);
+                Arrays.sort(sorted);
+            }
+            return sorted;
+        }
+
+        long getPercentile(double percentile) {
+            return getPercentile(toSortedArray(), percentile);
+        }
+
+        static long getPercentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return -1;
+            }
+            final int idx = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+        }
+    }
+
+    private static long multiplySaturated(long value, int factor) {
+        if (value == Long.MAX_VALUE || value > Long.MAX_VALUE / factor) {
+            return Long.MAX_VALUE;
+        }
+        return value * factor;
+    }
+}
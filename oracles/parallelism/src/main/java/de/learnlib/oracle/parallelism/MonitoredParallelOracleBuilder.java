@@ -0,0 +1,139 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import de.learnlib.api.oracle.MembershipOracle;
+
+/**
+ * Builder class for a {@link MonitoredParallelOracle}.
+ * <p>
+ * By default, queries are not subject to a timeout and are not speculatively re-executed. Failed batches are attempted
+ * at most three times, and instances are quarantined after three consecutive failures.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output type
+ */
+@ParametersAreNonnullByDefault
+public class MonitoredParallelOracleBuilder<I, D> {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final int DEFAULT_MAX_CONSECUTIVE_FAILURES = 3;
+
+    @Nonnull
+    private final Supplier<? extends MembershipOracle<I, D>> oracleSupplier;
+    private ExecutorService customExecutor;
+    @Nonnegative
+    private int batchSize = DynamicParallelOracle.BATCH_SIZE;
+    @Nonnegative
+    private int poolSize = DynamicParallelOracle.POOL_SIZE;
+    @Nonnegative
+    private long queryTimeout;
+    @Nonnull
+    private TimeUnit queryTimeoutUnit = TimeUnit.MILLISECONDS;
+    @Nonnegative
+    private double stragglerFactor;
+    @Nonnegative
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    @Nonnegative
+    private int maxConsecutiveFailures = DEFAULT_MAX_CONSECUTIVE_FAILURES;
+
+    public MonitoredParallelOracleBuilder(Supplier<? extends MembershipOracle<I, D>> oracleSupplier) {
+        this.oracleSupplier = oracleSupplier;
+    }
+
+    @Nonnull
+    public MonitoredParallelOracleBuilder<I, D> withCustomExecutor(ExecutorService executor) {
+        this.customExecutor = executor;
+        return this;
+    }
+
+    @Nonnull
+    public MonitoredParallelOracleBuilder<I, D> withDefaultExecutor() {
+        this.customExecutor = null;
+        return this;
+    }
+
+    @Nonnull
+    public MonitoredParallelOracleBuilder<I, D> withBatchSize(@Nonnegative int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    @Nonnull
+    public MonitoredParallelOracleBuilder<I, D> withPoolSize(@Nonnegative int poolSize) {
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    @Nonnull
+    public MonitoredParallelOracleBuilder<I, D> withQueryTimeout(@Nonnegative long timeout, TimeUnit unit) {
+        this.queryTimeout = timeout;
+        this.queryTimeoutUnit = unit;
+        return this;
+    }
+
+    @Nonnull
+    public MonitoredParallelOracleBuilder<I, D> withStragglerFactor(@Nonnegative double stragglerFactor) {
+        this.stragglerFactor = stragglerFactor;
+        return this;
+    }
+
+    @Nonnull
+    public MonitoredParallelOracleBuilder<I, D> withMaxAttempts(@Nonnegative int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    @Nonnull
+    public MonitoredParallelOracleBuilder<I, D> withMaxConsecutiveFailures(@Nonnegative int maxConsecutiveFailures) {
+        this.maxConsecutiveFailures = maxConsecutiveFailures;
+        return this;
+    }
+
+    @Nonnull
+    public MonitoredParallelOracle<I, D> create() {
+        ExecutorService executor = customExecutor;
+        if (executor == null) {
+            // hung instances block their threads, so new threads have to be created on demand
+            executor = Executors.newCachedThreadPool(r -> {
+                final Thread t = new Thread(r);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        return new MonitoredParallelOracle<>(oracleSupplier,
+                                             poolSize,
+                                             batchSize,
+                                             queryTimeout,
+                                             queryTimeoutUnit,
+                                             stragglerFactor,
+                                             maxAttempts,
+                                             maxConsecutiveFailures,
+                                             executor);
+    }
+}
@@ -28,7 +28,7 @@ import com.google.common.base.Suppliers;
 import de.learnlib.api.oracle.MembershipOracle;
 
 /**
- * Builders for (static and dynamic) parallel oracles.
+ * Builders for (static, dynamic, monitored, prefix-scheduling and distributed) parallel oracles.
  * <p>
  * Using the methods defined in this class is the preferred way of instantiating parallel oracles.
  * <p>
@@ -61,6 +61,32 @@ import de.learnlib.api.oracle.MembershipOracle;
  *      .withPoolPolicy(PoolPolicy.CACHED)
  *      .create();
  * </pre>
+ * <p>
+ * Creating a monitored parallel oracle with 4 instances, a timeout of 1 second per query and speculative re-execution
+ * of batches that take three times longer than the median:
+ * <pre>
+ * ParallelOracleBuilders.newMonitoredParallelOracle(oracleSupplier)
+ *      .withPoolSize(4)
+ *      .withQueryTimeout(1, TimeUnit.SECONDS)
+ *      .withStragglerFactor(3)
+ *      .create();
+ * </pre>
+ * <p>
+ * Creating a parallel oracle with 4 instances, each of which processes a contiguous part of the prefix tree of the
+ * queries:
+ * <pre>
+ * ParallelOracleBuilders.newPrefixSchedulingParallelOracle(oracleSupplier)
+ *      .withNumInstances(4)
+ *      .create();
+ * </pre>
+ * <p>
+ * Creating a distributed parallel oracle that shards batches of 50 queries across the workers reachable via the given
+ * transports:
+ * <pre>
+ * ParallelOracleBuilders.newDistributedParallelOracle(transports)
+ *      .withBatchSize(50)
+ *      .create();
+ * </pre>
  *
  * @author Malte Isberner
  */
@@ -81,6 +107,30 @@ public final class ParallelOracleBuilders {
         return new DynamicParallelOracleBuilder<>(oracleSupplier);
     }
 
+    @Nonnull
+    public static <I, D> DistributedParallelOracleBuilder<I, D> newDistributedParallelOracle(
+            Collection<? extends QueryTransport<I, D>> transports) {
+        return new DistributedParallelOracleBuilder<>(transports);
+    }
+
+    @Nonnull
+    public static <I, D> MonitoredParallelOracleBuilder<I, D> newMonitoredParallelOracle(
+            Supplier<? extends MembershipOracle<I, D>> oracleSupplier) {
+        return new MonitoredParallelOracleBuilder<>(oracleSupplier);
+    }
+
+    @Nonnull
+    public static <I, D> PrefixSchedulingParallelOracleBuilder<I, D> newPrefixSchedulingParallelOracle(
+            Supplier<? extends MembershipOracle<I, D>> oracleSupplier) {
+        return new PrefixSchedulingParallelOracleBuilder<>(oracleSupplier);
+    }
+
+    @Nonnull
+    public static <I, D> PrefixSchedulingParallelOracleBuilder<I, D> newPrefixSchedulingParallelOracle(
+            Collection<? extends MembershipOracle<I, D>> oracles) {
+        return new PrefixSchedulingParallelOracleBuilder<>(oracles);
+    }
+
     @Nonnull
     public static <I, D> StaticParallelOracleBuilder<I, D> newStaticParallelOracle(MembershipOracle<I, D> sharedOracle) {
         return newStaticParallelOracle(Suppliers.ofInstance(sharedOracle));
@@ -0,0 +1,362 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import com.google.common.base.Throwables;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import net.automatalib.words.Word;
+
+/**
+ * A membership oracle that schedules queries such that consecutive queries share prefixes as long as possible.
+ * <p>
+ * The queries of a batch are arranged in a prefix tree and passed on in depth-first order, where the queries of a node
+ * precede the queries of its subtrees. Hence, a query is usually followed by its extensions or by queries branching off
+ * as late as possible. Delegates that can exploit adjacent queries, e.g. oracles of {@link
+ * de.learnlib.api.SUL#fork() forkable} or snapshot-capable systems that restore the state reached by the common prefix
+ * instead of resetting the system, or the reuse filter, benefit from this order. Note that a preceding cache (e.g. a
+ * {@code MealyCacheOracle}) only forwards queries it cannot answer itself, which this oracle then re-orders.
+ * <p>
+ * If several delegate oracles are given, the ordered queries are split into contiguous partitions, one per oracle,
+ * which are processed in parallel. Partition boundaries are placed at the shortest common prefix near the ideal
+ * (balanced) boundary, such that related subtrees are assigned to the same oracle. As with the {@link
+ * StaticParallelOracle}, one partition is always processed in the calling thread.
+ * <p>
+ * The potential savings of the schedule are exposed via {@link #getNumStepsSaved()} and {@link #getNumResetsSaved()}:
+ * a query whose input shares a prefix of length {@code k > 0} with the input of the preceding query on the same oracle
+ * saves a reset and {@code k} steps, if the delegate continues from the state reached by the shared prefix.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ */
+@ParametersAreNonnullByDefault
+public class PrefixSchedulingParallelOracle<I, D> implements ParallelOracle<I, D> {
+
+    @Nonnegative
+    private final int minBatchSize;
+    @Nonnull
+    private final List<MembershipOracle<I, D>> oracles;
+    @Nullable
+    private final ExecutorService executor;
+
+    private final AtomicLong numQueries = new AtomicLong();
+    private final AtomicLong numSteps = new AtomicLong();
+    private final AtomicLong numStepsSaved = new AtomicLong();
+    private final AtomicLong numResetsSaved = new AtomicLong();
+
+    /**
+     * Constructor for a (sequential) oracle that only re-orders the queries for the given delegate.
+     *
+     * @param delegate
+     *         the delegate oracle
+     */
+    public PrefixSchedulingParallelOracle(MembershipOracle<I, D> delegate) {
+        this.oracles = new ArrayList<>(1);
+        this.oracles.add(delegate);
+        this.minBatchSize = Integer.MAX_VALUE;
+        this.executor = null;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param oracles
+     *         the delegate oracles, one per partition
+     * @param minBatchSize
+     *         the minimum number of queries per partition
+     * @param policy
+     *         the pool policy for the threads processing the partitions
+     */
+    public PrefixSchedulingParallelOracle(Collection<? extends MembershipOracle<I, D>> oracles,
+                                          @Nonnegative int minBatchSize,
+                                          PoolPolicy policy) {
+        if (oracles.isEmpty()) {
+            throw new IllegalArgumentException("At least one oracle is required");
+        }
+
+        this.oracles = new ArrayList<>(oracles);
+        this.minBatchSize = Math.max(1, minBatchSize);
+
+        if (this.oracles.size() == 1) {
+            this.executor = null;
+            return;
+        }
+
+        switch (policy) {
+            case FIXED:
+                this.executor = Executors.newFixedThreadPool(this.oracles.size() - 1);
+                break;
+            case CACHED:
+                this.executor = Executors.newCachedThreadPool();
+                break;
+            default:
+                throw new IllegalArgumentException("Illegal pool policy: " + policy);
+        }
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, D>> queries) {
+        final int num = queries.size();
+        if (num == 0) {
+            return;
+        }
+
+        final List<Query<I, D>> ordered = new ArrayList<>(num);
+        final int[] commonPrefixLengths = new int[num];
+        schedule(queries, ordered, commonPrefixLengths);
+
+        int numPartitions = (num - 1) / minBatchSize + 1;
+        if (numPartitions > oracles.size()) {
+            numPartitions = oracles.size();
+        }
+
+        final int[] boundaries = partition(commonPrefixLengths, numPartitions);
+
+        long stepsSaved = 0;
+        long resetsSaved = 0;
+        int partitionIdx = 1;
+        for (int i = 1; i < num; i++) {
+            if (partitionIdx < boundaries.length - 1 && i == boundaries[partitionIdx]) {
+                partitionIdx++;
+                continue;
+            }
+            stepsSaved += commonPrefixLengths[i];
+            if (commonPrefixLengths[i] > 0) {
+                resetsSaved++;
+            }
+        }
+
+        numQueries.addAndGet(num);
+        numStepsSaved.addAndGet(stepsSaved);
+        numResetsSaved.addAndGet(resetsSaved);
+
+        if (boundaries.length == 2) {
+            oracles.get(0).processQueries(ordered);
+            return;
+        }
+
+        final List<Future<?>> futures = new ArrayList<>(boundaries.length - 2);
+        for (int i = 1; i < boundaries.length - 1; i++) {
+            final List<Query<I, D>> batch = ordered.subList(boundaries[i], boundaries[i + 1]);
+            futures.add(executor.submit(new StaticQueriesJob<>(batch, oracles.get(i))));
+        }
+
+        oracles.get(0).processQueries(ordered.subList(0, boundaries[1]));
+
+        try {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (ExecutionException ex) {
+            Throwables.throwIfUnchecked(ex.getCause());
+            throw new AssertionError("Runnable must not throw checked exceptions", ex);
+        } catch (InterruptedException ex) {
+            Thread.interrupted();
+            throw new ParallelOracleInterruptedException(ex);
+        }
+    }
+
+    /**
+     * Orders the given queries depth-first along their prefix tree.
+     *
+     * @param queries
+     *         the queries to order
+     * @param ordered
+     *         the list that receives the ordered queries
+     * @param commonPrefixLengths
+     *         the array that receives, for every ordered query, the length of the common prefix of its input and the
+     *         input of its predecessor
+     */
+    private void schedule(Collection<? extends Query<I, D>> queries,
+                          List<Query<I, D>> ordered,
+                          int[] commonPrefixLengths) {
+        final TrieNode<I, D> root = new TrieNode<>();
+        long steps = 0;
+
+        for (Query<I, D> q : queries) {
+            final Word<I> input = q.getInput();
+            TrieNode<I, D> node = root;
+            for (I sym : input) {
+                node = node.getOrCreateChild(sym);
+            }
+            node.addQuery(q, input);
+            steps += input.length();
+        }
+        numSteps.addAndGet(steps);
+
+        final Deque<TrieNode<I, D>> stack = new ArrayDeque<>();
+        stack.push(root);
+        Word<I> previous = null;
+
+        TrieNode<I, D> node;
+        while ((node = stack.poll()) != null) {
+            if (node.queries != null) {
+                for (Query<I, D> q : node.queries) {
+                    if (previous != null) {
+                        commonPrefixLengths[ordered.size()] = commonPrefixLength(previous, node.word);
+                    }
+                    ordered.add(q);
+                    previous = node.word;
+                }
+            }
+            if (node.children != null) {
+                final List<TrieNode<I, D>> children = new ArrayList<>(node.children.values());
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the boundaries of the partitions, such that each boundary is placed at a query sharing the shortest
+     * prefix with its predecessor within a window around the ideal boundary.
+     *
+     * @return the start indices of the partitions, followed by the total number of queries
+     */
+    private static int[] partition(int[] commonPrefixLengths, int numPartitions) {
+        final int num = commonPrefixLengths.length;
+        final int[] boundaries = new int[numPartitions + 1];
+        final int window = Math.max(0, num / (4 * numPartitions));
+
+        for (int p = 1; p < numPartitions; p++) {
+            final int ideal = (int) ((long) p * num / numPartitions);
+            final int lower = Math.max(boundaries[p - 1] + 1, ideal - window);
+            final int upper = Math.min(num - (numPartitions - p), ideal + window);
+
+            int best = Math.max(lower, Math.min(ideal, upper));
+            for (int i = lower; i <= upper; i++) {
+                final int cpl = commonPrefixLengths[i];
+                final int bestCpl = commonPrefixLengths[best];
+                if (cpl < bestCpl || (cpl == bestCpl && Math.abs(i - ideal) < Math.abs(best - ideal))) {
+                    best = i;
+                }
+            }
+            boundaries[p] = best;
+        }
+
+        boundaries[numPartitions] = num;
+        return boundaries;
+    }
+
+    private static <I> int commonPrefixLength(Word<I> w1, Word<I> w2) {
+        final int len = Math.min(w1.length(), w2.length());
+        int i = 0;
+        while (i < len && Objects.equals(w1.getSymbol(i), w2.getSymbol(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the total number of queries processed by this oracle.
+     *
+     * @return the total number of processed queries
+     */
+    public long getNumQueries() {
+        return numQueries.get();
+    }
+
+    /**
+     * Returns the total number of input symbols of all processed queries.
+     *
+     * @return the total number of input symbols
+     */
+    public long getNumSteps() {
+        return numSteps.get();
+    }
+
+    /**
+     * Returns the number of steps that can be saved by continuing each query from the state reached by the prefix it
+     * shares with its predecessor.
+     *
+     * @return the number of saved steps
+     */
+    public long getNumStepsSaved() {
+        return numStepsSaved.get();
+    }
+
+    /**
+     * Returns the number of queries that share a non-empty prefix with their predecessor, i.e. that do not require a
+     * reset if the delegate continues from the state reached by the shared prefix.
+     *
+     * @return the number of saved resets
+     */
+    public long getNumResetsSaved() {
+        return numResetsSaved.get();
+    }
+
+    @Override
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void shutdownNow() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class TrieNode<I, D> {
+
+        // children in order of their creation, which keeps the order of the original queries as far as possible
+        @Nullable
+        private Map<I, TrieNode<I, D>> children;
+        @Nullable
+        private List<Query<I, D>> queries;
+        @Nullable
+        private Word<I> word;
+
+        TrieNode<I, D> getOrCreateChild(I sym) {
+            if (children == null) {
+                children = new LinkedHashMap<>();
+            }
+            return children.computeIfAbsent(sym, k -> new TrieNode<>());
+        }
+
+        void addQuery(Query<I, D> query, Word<I> input) {
+            if (queries == null) {
+                queries = new ArrayList<>(1);
+                word = input;
+            }
+            queries.add(query);
+        }
+    }
+}
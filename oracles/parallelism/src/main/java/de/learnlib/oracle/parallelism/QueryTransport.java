@@ -0,0 +1,127 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import de.learnlib.api.query.Query;
+
+/**
+ * A transport to a single (usually remote) worker of a {@link DistributedParallelOracle}, e.g. a test bench running in
+ * a separate JVM.
+ * <p>
+ * Transports are asynchronous: batches of queries are {@link Channel#send(long, List) sent} to the worker without
+ * waiting for their answers, which are streamed back to a {@link Listener} as soon as the worker produces them. The
+ * listener may be invoked from arbitrary threads, but not concurrently for the same channel.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ */
+public interface QueryTransport<I, D> {
+
+    /**
+     * Opens a new channel to the worker.
+     *
+     * @param listener
+     *         the listener that receives the answers (and failures) of the channel
+     *
+     * @return the channel
+     *
+     * @throws IOException
+     *         if the worker cannot be reached
+     */
+    Channel<I, D> connect(Listener<D> listener) throws IOException;
+
+    /**
+     * A connection to a worker.
+     *
+     * @param <I>
+     *         input symbol type
+     * @param <D>
+     *         output domain type
+     */
+    interface Channel<I, D> extends Closeable {
+
+        /**
+         * Sends a batch of queries to the worker. Implementations should not wait for the batch to be processed, and
+         * must not answer the given queries themselves.
+         *
+         * @param batchId
+         *         the identifier of the batch, which is passed to the listener together with the answers
+         * @param queries
+         *         the queries of the batch
+         *
+         * @throws IOException
+         *         if the batch cannot be sent
+         */
+        void send(long batchId, List<? extends Query<I, D>> queries) throws IOException;
+    }
+
+    /**
+     * The receiver of the messages of a worker.
+     *
+     * @param <D>
+     *         output domain type
+     */
+    interface Listener<D> {
+
+        /**
+         * Called when the worker has answered a single query of a batch.
+         *
+         * @param batchId
+         *         the identifier of the batch
+         * @param index
+         *         the index of the query within the batch
+         * @param answer
+         *         the answer to the query
+         */
+        void onAnswer(long batchId, int index, @Nullable D answer);
+
+        /**
+         * Called when the worker has finished processing a batch.
+         *
+         * @param batchId
+         *         the identifier of the batch
+         */
+        void onCompleted(long batchId);
+
+        /**
+         * Called when the worker failed to process a batch, e.g. because of an exception of the system under
+         * learning. The worker itself remains usable.
+         *
+         * @param batchId
+         *         the identifier of the batch
+         * @param cause
+         *         the cause of the failure
+         */
+        void onFailed(long batchId, Throwable cause);
+
+        /**
+         * Called when the connection to the worker has been lost. All batches whose processing has not been completed
+         * are considered lost.
+         *
+         * @param cause
+         *         the cause of the disconnection
+         */
+        void onDisconnected(Throwable cause);
+    }
+}
@@ -0,0 +1,256 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.api.query.Query;
+import de.learnlib.oracle.parallelism.ParallelOracleTestUtils.FailingOracle;
+import de.learnlib.oracle.parallelism.ParallelOracleTestUtils.HangingOracle;
+import de.learnlib.oracle.parallelism.ParallelOracleTestUtils.LengthOracle;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DistributedParallelOracleTest {
+
+    @Test(timeOut = 10000)
+    public void testSharding() {
+        final List<CountingTransport> transports = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            transports.add(new CountingTransport(new LoopbackQueryTransport<>(new LengthOracle(), 1)));
+        }
+
+        final DistributedParallelOracle<Integer, Integer> oracle =
+                ParallelOracleBuilders.newDistributedParallelOracle(transports)
+                                      .withBatchSize(5)
+                                      .withMaxInFlight(2)
+                                      .create();
+
+        try {
+            final List<DefaultQuery<Integer, Integer>> queries = ParallelOracleTestUtils.createQueries();
+            oracle.processQueries(queries);
+            ParallelOracleTestUtils.checkAnswers(queries);
+
+            int numBatches = 0;
+            for (CountingTransport transport : transports) {
+                Assert.assertTrue(transport.maxInFlight.get() <= 2);
+                numBatches += transport.numBatches.get();
+            }
+            Assert.assertEquals(numBatches, ParallelOracleTestUtils.NUM_QUERIES / 5);
+            Assert.assertEquals(oracle.getNumConnectedWorkers(), 3);
+            Assert.assertEquals(oracle.getNumRequeuedBatches(), 0);
+        } finally {
+            oracle.shutdown();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testDisconnect() {
+        final DisconnectingOracle disconnecting = new DisconnectingOracle();
+        final LoopbackQueryTransport<Integer, Integer> unreliable = new LoopbackQueryTransport<>(disconnecting);
+        disconnecting.transport = unreliable;
+
+        final List<QueryTransport<Integer, Integer>> transports =
+                Arrays.asList(unreliable, new LoopbackQueryTransport<>(new LengthOracle()));
+
+        final DistributedParallelOracle<Integer, Integer> oracle =
+                ParallelOracleBuilders.newDistributedParallelOracle(transports).withBatchSize(10).create();
+
+        try {
+            final List<DefaultQuery<Integer, Integer>> queries = ParallelOracleTestUtils.createQueries();
+            oracle.processQueries(queries);
+            ParallelOracleTestUtils.checkAnswers(queries);
+
+            Assert.assertTrue(disconnecting.disconnected.get());
+            Assert.assertTrue(oracle.getNumRequeuedBatches() > 0);
+            Assert.assertEquals(oracle.getNumConnectedWorkers(), 1);
+
+            // the worker is reconnected for the next queries
+            final List<DefaultQuery<Integer, Integer>> moreQueries = ParallelOracleTestUtils.createQueries();
+            oracle.processQueries(moreQueries);
+            ParallelOracleTestUtils.checkAnswers(moreQueries);
+            Assert.assertEquals(oracle.getNumConnectedWorkers(), 2);
+        } finally {
+            oracle.shutdown();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testHungWorker() {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<QueryTransport<Integer, Integer>> transports =
+                Arrays.asList(new LoopbackQueryTransport<>(new HangingOracle(release)),
+                              new LoopbackQueryTransport<>(new LengthOracle()));
+
+        final DistributedParallelOracle<Integer, Integer> oracle =
+                ParallelOracleBuilders.newDistributedParallelOracle(transports)
+                                      .withBatchSize(10)
+                                      .withBatchTimeout(100, TimeUnit.MILLISECONDS)
+                                      .create();
+
+        try {
+            final List<DefaultQuery<Integer, Integer>> queries = ParallelOracleTestUtils.createQueries();
+            oracle.processQueries(queries);
+            ParallelOracleTestUtils.checkAnswers(queries);
+
+            // the batches of the hung worker have been answered by the other one, and the hung worker is disconnected
+            Assert.assertTrue(oracle.getNumRequeuedBatches() > 0);
+            Assert.assertEquals(oracle.getNumConnectedWorkers(), 1);
+        } finally {
+            release.countDown();
+            oracle.shutdown();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testFailingSend() {
+        final QueryTransport<Integer, Integer> broken = listener -> {
+            final QueryTransport.Channel<Integer, Integer> channel =
+                    new LoopbackQueryTransport<>(new LengthOracle()).connect(listener);
+
+            return new QueryTransport.Channel<Integer, Integer>() {
+
+                @Override
+                public void send(long batchId, List<? extends Query<Integer, Integer>> queries) {
+                    throw new IllegalStateException("Cannot serialize batch " + batchId);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            };
+        };
+
+        final List<QueryTransport<Integer, Integer>> transports =
+                Arrays.asList(broken, new LoopbackQueryTransport<>(new LengthOracle()));
+
+        final DistributedParallelOracle<Integer, Integer> oracle =
+                ParallelOracleBuilders.newDistributedParallelOracle(transports).withBatchSize(10).create();
+
+        try {
+            final List<DefaultQuery<Integer, Integer>> queries = ParallelOracleTestUtils.createQueries();
+            oracle.processQueries(queries);
+            ParallelOracleTestUtils.checkAnswers(queries);
+
+            // the failing worker has been dropped and its batches have been re-queued
+            Assert.assertTrue(oracle.getNumRequeuedBatches() > 0);
+            Assert.assertEquals(oracle.getNumConnectedWorkers(), 1);
+        } finally {
+            oracle.shutdown();
+        }
+    }
+
+    @Test(timeOut = 10000, expectedExceptions = IllegalStateException.class)
+    public void testPersistentFailure() {
+        final List<QueryTransport<Integer, Integer>> transports =
+                Arrays.asList(new LoopbackQueryTransport<>(new FailingOracle()),
+                              new LoopbackQueryTransport<>(new FailingOracle()));
+
+        final DistributedParallelOracle<Integer, Integer> oracle =
+                ParallelOracleBuilders.newDistributedParallelOracle(transports).withMaxAttempts(2).create();
+
+        ParallelOracleTestUtils.testPersistentFailure(oracle);
+    }
+
+    /**
+     * Answers the first query of the first batch and then simulates the loss of the connection.
+     */
+    private static final class DisconnectingOracle extends LengthOracle {
+
+        private final AtomicBoolean disconnected = new AtomicBoolean();
+        private LoopbackQueryTransport<Integer, Integer> transport;
+
+        @Override
+        public void processQueries(Collection<? extends Query<Integer, Integer>> queries) {
+            if (disconnected.compareAndSet(false, true)) {
+                final Query<Integer, Integer> first = queries.iterator().next();
+                first.answer(first.getInput().length());
+                transport.disconnect();
+            }
+            super.processQueries(queries);
+        }
+    }
+
+    /**
+     * Tracks the number of batches that are in flight at the delegate transport.
+     */
+    private static final class CountingTransport implements QueryTransport<Integer, Integer> {
+
+        private final QueryTransport<Integer, Integer> delegate;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final AtomicInteger numBatches = new AtomicInteger();
+
+        CountingTransport(QueryTransport<Integer, Integer> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Channel<Integer, Integer> connect(Listener<Integer> listener) throws IOException {
+            final Channel<Integer, Integer> channel = delegate.connect(new Listener<Integer>() {
+
+                @Override
+                public void onAnswer(long batchId, int index, @Nullable Integer answer) {
+                    listener.onAnswer(batchId, index, answer);
+                }
+
+                @Override
+                public void onCompleted(long batchId) {
+                    inFlight.decrementAndGet();
+                    listener.onCompleted(batchId);
+                }
+
+                @Override
+                public void onFailed(long batchId, Throwable cause) {
+                    inFlight.decrementAndGet();
+                    listener.onFailed(batchId, cause);
+                }
+
+                @Override
+                public void onDisconnected(Throwable cause) {
+                    listener.onDisconnected(cause);
+                }
+            });
+
+            return new Channel<Integer, Integer>() {
+
+                @Override
+                public void send(long batchId, List<? extends Query<Integer, Integer>> queries) throws IOException {
+                    numBatches.incrementAndGet();
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    channel.send(batchId, queries);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.oracle.parallelism.MonitoredParallelOracle.InstanceStatistics;
+import de.learnlib.oracle.parallelism.ParallelOracleTestUtils.FailingOracle;
+import de.learnlib.oracle.parallelism.ParallelOracleTestUtils.HangingOracle;
+import de.learnlib.oracle.parallelism.ParallelOracleTestUtils.LengthOracle;
+import de.learnlib.oracle.parallelism.ParallelOracleTestUtils.SlowOracle;
+import net.automatalib.words.Word;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MonitoredParallelOracleTest {
+
+    @Test
+    public void testDistinctQueries() {
+        final MonitoredParallelOracle<Integer, Integer> oracle =
+                ParallelOracleBuilders.newMonitoredParallelOracle(LengthOracle::new)
+                                      .withBatchSize(3)
+                                      .withPoolSize(4)
+                                      .withStragglerFactor(2)
+                                      .create();
+
+        try {
+            final List<DefaultQuery<Integer, Integer>> queries = ParallelOracleTestUtils.createQueries();
+            oracle.processQueries(queries);
+            ParallelOracleTestUtils.checkAnswers(queries);
+
+            long numBatches = 0;
+            for (InstanceStatistics stats : oracle.getInstanceStatistics()) {
+                numBatches += stats.getNumBatches();
+            }
+            Assert.assertEquals(oracle.getNumQuarantinedInstances(), 0);
+            Assert.assertEquals(oracle.getInstanceStatistics().size(), 4);
+            Assert.assertTrue(numBatches >= (ParallelOracleTestUtils.NUM_QUERIES - 1) / 3 + 1);
+        } finally {
+            oracle.shutdown();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testHungInstance() {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger instanceCounter = new AtomicInteger();
+
+        final MonitoredParallelOracle<Integer, Integer> oracle =
+                ParallelOracleBuilders.<Integer, Integer>newMonitoredParallelOracle(() -> {
+                    if (instanceCounter.getAndIncrement() == 0) {
+                        return new HangingOracle(release);
+                    }
+                    return new LengthOracle();
+                }).withBatchSize(10).withPoolSize(2).withQueryTimeout(20, TimeUnit.MILLISECONDS).create();
+
+        try {
+            final List<DefaultQuery<Integer, Integer>> queries = ParallelOracleTestUtils.createQueries();
+            oracle.processQueries(queries);
+            ParallelOracleTestUtils.checkAnswers(queries);
+
+            final List<InstanceStatistics> stats = oracle.getInstanceStatistics();
+            // the hung instance 0 has been replaced by instance 2
+            Assert.assertEquals(oracle.getNumQuarantinedInstances(), 1);
+            Assert.assertEquals(stats.size(), 2);
+            Assert.assertEquals(stats.get(0).getId(), 1);
+            Assert.assertEquals(stats.get(0).getNumFailures(), 0);
+            Assert.assertTrue(stats.get(0).getLatencyPercentile(0.99, TimeUnit.NANOSECONDS) >= 0);
+            Assert.assertEquals(stats.get(1).getId(), 2);
+        } finally {
+            release.countDown();
+            oracle.shutdownNow();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testStragglingInstance() throws InterruptedException {
+        final AtomicBoolean slow = new AtomicBoolean();
+        final CountDownLatch slowAnswered = new CountDownLatch(1);
+        final AtomicInteger instanceCounter = new AtomicInteger();
+
+        final MonitoredParallelOracle<Integer, Integer> oracle =
+                ParallelOracleBuilders.<Integer, Integer>newMonitoredParallelOracle(() -> {
+                    if (instanceCounter.getAndIncrement() == 0) {
+                        return new SlowOracle(slow, 1000, slowAnswered);
+                    }
+                    return new LengthOracle();
+                }).withBatchSize(1).withPoolSize(2).withStragglerFactor(2).create();
+
+        try {
+            // single batches are assigned to the idle instances in turns, starting with instance 0
+            for (int i = 0; i < 2; i++) {
+                final DefaultQuery<Integer, Integer> warmUp = new DefaultQuery<>(Word.fromLetter(i));
+                oracle.processQueries(Collections.singleton(warmUp));
+                Assert.assertEquals(warmUp.getOutput(), (Integer) 1);
+            }
+
+            slow.set(true);
+
+            final DefaultQuery<Integer, Integer> query = new DefaultQuery<>(Word.fromSymbols(0, 1, 2));
+            oracle.processQueries(Collections.singleton(query));
+
+            // the speculative attempt on instance 1 has answered long before the straggling instance 0
+            Assert.assertEquals(query.getOutput(), (Integer) 3);
+            Assert.assertEquals(slowAnswered.getCount(), 1);
+
+            slowAnswered.await();
+
+            final List<InstanceStatistics> stats = oracle.getInstanceStatistics();
+            Assert.assertEquals(query.getOutput(), (Integer) 3);
+            Assert.assertEquals(oracle.getNumQuarantinedInstances(), 0);
+            Assert.assertEquals(stats.size(), 2);
+            Assert.assertEquals(stats.get(0).getNumBatches(), 1);
+            Assert.assertEquals(stats.get(1).getNumBatches(), 2);
+        } finally {
+            oracle.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailingInstance() {
+        final AtomicInteger instanceCounter = new AtomicInteger();
+
+        final MonitoredParallelOracle<Integer, Integer> oracle =
+                ParallelOracleBuilders.<Integer, Integer>newMonitoredParallelOracle(() -> {
+                    if (instanceCounter.getAndIncrement() == 0) {
+                        return new FailingOracle();
+                    }
+                    return new LengthOracle();
+                }).withBatchSize(10).withPoolSize(1).withMaxConsecutiveFailures(1).create();
+
+        try {
+            final List<DefaultQuery<Integer, Integer>> queries = ParallelOracleTestUtils.createQueries();
+            oracle.processQueries(queries);
+            ParallelOracleTestUtils.checkAnswers(queries);
+
+            final List<InstanceStatistics> stats = oracle.getInstanceStatistics();
+            Assert.assertEquals(oracle.getNumQuarantinedInstances(), 1);
+            Assert.assertEquals(stats.size(), 1);
+            Assert.assertEquals(stats.get(0).getId(), 1);
+            Assert.assertEquals(stats.get(0).getNumFailures(), 0);
+            Assert.assertEquals(stats.get(0).getNumBatches(), ParallelOracleTestUtils.NUM_QUERIES / 10);
+        } finally {
+            oracle.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPersistentFailure() {
+        final MonitoredParallelOracle<Integer, Integer> oracle =
+                ParallelOracleBuilders.newMonitoredParallelOracle(FailingOracle::new)
+                                      .withPoolSize(2)
+                                      .withMaxAttempts(2)
+                                      .create();
+
+        ParallelOracleTestUtils.testPersistentFailure(oracle);
+    }
+}
@@ -0,0 +1,164 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.api.query.Query;
+import net.automatalib.words.Word;
+import org.testng.Assert;
+
+/**
+ * Common queries and oracles for the tests of the parallel oracles.
+ */
+public final class ParallelOracleTestUtils {
+
+    public static final int NUM_QUERIES = 100;
+
+    private ParallelOracleTestUtils() {}
+
+    /**
+     * Creates {@link #NUM_QUERIES} queries of increasing length, which are answered by a {@link LengthOracle}.
+     *
+     * @return the queries
+     */
+    public static List<DefaultQuery<Integer, Integer>> createQueries() {
+        final List<DefaultQuery<Integer, Integer>> queries = new ArrayList<>(NUM_QUERIES);
+
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            final List<Integer> prefix = new ArrayList<>(i);
+            for (int j = 0; j < i; j++) {
+                prefix.add(j);
+            }
+            queries.add(new DefaultQuery<>(Word.fromList(prefix), Word.fromLetter(i)));
+        }
+
+        return queries;
+    }
+
+    public static void checkAnswers(List<DefaultQuery<Integer, Integer>> queries) {
+        for (DefaultQuery<Integer, Integer> q : queries) {
+            Assert.assertEquals(q.getOutput(), (Integer) q.getInput().length());
+        }
+    }
+
+    /**
+     * Processes the {@link #createQueries() default queries} with the given oracle, whose instances are expected to
+     * fail persistently (see {@link FailingOracle}), and shuts the oracle down afterwards.
+     *
+     * @param oracle
+     *         the oracle to test
+     */
+    public static void testPersistentFailure(ParallelOracle<Integer, Integer> oracle) {
+        try {
+            oracle.processQueries(createQueries());
+        } finally {
+            oracle.shutdown();
+        }
+    }
+
+    /**
+     * Answers each query with the length of its input.
+     */
+    public static class LengthOracle implements MembershipOracle<Integer, Integer> {
+
+        @Override
+        public void processQueries(Collection<? extends Query<Integer, Integer>> queries) {
+            for (Query<Integer, Integer> q : queries) {
+                q.answer(q.getInput().length());
+            }
+        }
+    }
+
+    /**
+     * Blocks every batch until the given latch is released.
+     */
+    public static final class HangingOracle extends LengthOracle {
+
+        private final CountDownLatch release;
+
+        public HangingOracle(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void processQueries(Collection<? extends Query<Integer, Integer>> queries) {
+            // ignores interrupts, like a blocking socket read
+            boolean released = false;
+            while (!released) {
+                try {
+                    release.await();
+                    released = true;
+                } catch (InterruptedException e) {
+                    // retry
+                }
+            }
+            super.processQueries(queries);
+        }
+    }
+
+    /**
+     * Answers correctly as long as it is not switched to slow mode. In slow mode, every batch is delayed by the given
+     * time and then answered with {@code -1}, so that late answers can be told apart.
+     */
+    public static final class SlowOracle extends LengthOracle {
+
+        private final AtomicBoolean slow;
+        private final long delayMillis;
+        private final CountDownLatch slowAnswered;
+
+        public SlowOracle(AtomicBoolean slow, long delayMillis, CountDownLatch slowAnswered) {
+            this.slow = slow;
+            this.delayMillis = delayMillis;
+            this.slowAnswered = slowAnswered;
+        }
+
+        @Override
+        public void processQueries(Collection<? extends Query<Integer, Integer>> queries) {
+            if (!slow.get()) {
+                super.processQueries(queries);
+                return;
+            }
+
+            // ignores interrupts, like a blocking socket read
+            Uninterruptibles.sleepUninterruptibly(delayMillis, TimeUnit.MILLISECONDS);
+            for (Query<Integer, Integer> q : queries) {
+                q.answer(-1);
+            }
+            slowAnswered.countDown();
+        }
+    }
+
+    /**
+     * Fails every batch with an {@link IllegalStateException}.
+     */
+    public static final class FailingOracle implements MembershipOracle<Integer, Integer> {
+
+        @Override
+        public void processQueries(Collection<? extends Query<Integer, Integer>> queries) {
+            throw new IllegalStateException("SUL instance failed");
+        }
+    }
+}
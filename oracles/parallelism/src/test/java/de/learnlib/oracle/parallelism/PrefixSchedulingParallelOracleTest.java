@@ -0,0 +1,119 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.parallelism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.api.query.Query;
+import de.learnlib.oracle.parallelism.ParallelOracle.PoolPolicy;
+import net.automatalib.words.Word;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PrefixSchedulingParallelOracleTest {
+
+    @Test
+    public void testOrder() {
+        final RecordingOracle delegate = new RecordingOracle();
+        final PrefixSchedulingParallelOracle<Character, Integer> oracle =
+                new PrefixSchedulingParallelOracle<>(delegate);
+
+        final List<DefaultQuery<Character, Integer>> queries = createQueries("ab", "ba", "abc", "a", "bb", "ab");
+        oracle.processQueries(queries);
+        checkAnswers(queries);
+
+        Assert.assertEquals(delegate.inputs, createWords("a", "ab", "ab", "abc", "ba", "bb"));
+        Assert.assertEquals(oracle.getNumQueries(), 6);
+        Assert.assertEquals(oracle.getNumSteps(), 12);
+        Assert.assertEquals(oracle.getNumStepsSaved(), 1 + 2 + 2 + 0 + 1);
+        Assert.assertEquals(oracle.getNumResetsSaved(), 4);
+    }
+
+    @Test
+    public void testPartitioning() {
+        final RecordingOracle first = new RecordingOracle();
+        final RecordingOracle second = new RecordingOracle();
+
+        final PrefixSchedulingParallelOracle<Character, Integer> oracle =
+                ParallelOracleBuilders.newPrefixSchedulingParallelOracle(Arrays.asList(first, second))
+                                      .withMinBatchSize(1)
+                                      .withPoolPolicy(PoolPolicy.FIXED)
+                                      .create();
+
+        try {
+            final List<DefaultQuery<Character, Integer>> queries =
+                    createQueries("110", "001", "101", "010", "111", "000", "011", "100");
+            oracle.processQueries(queries);
+            checkAnswers(queries);
+
+            // the subtrees of the root are assigned to different oracles. Siblings are scheduled in the order of their
+            // first occurrence (not of the alphabet), hence only the contents of the partitions are compared
+            Assert.assertEquals(first.inputs.size(), 4);
+            Assert.assertEquals(new HashSet<>(first.inputs), new HashSet<>(createWords("100", "101", "110", "111")));
+            Assert.assertEquals(second.inputs.size(), 4);
+            Assert.assertEquals(new HashSet<>(second.inputs), new HashSet<>(createWords("000", "001", "010", "011")));
+
+            // within each partition, consecutive queries share 2, 1 and 2 symbols
+            Assert.assertEquals(oracle.getNumStepsSaved(), 2 * (2 + 1 + 2));
+            Assert.assertEquals(oracle.getNumResetsSaved(), 2 * 3);
+        } finally {
+            oracle.shutdown();
+        }
+    }
+
+    private static List<DefaultQuery<Character, Integer>> createQueries(String... inputs) {
+        final List<DefaultQuery<Character, Integer>> queries = new ArrayList<>(inputs.length);
+        for (Word<Character> input : createWords(inputs)) {
+            // split the inputs, to check that the complete input words are scheduled
+            queries.add(new DefaultQuery<>(input.prefix(1), input.subWord(1)));
+        }
+        return queries;
+    }
+
+    private static List<Word<Character>> createWords(String... inputs) {
+        final List<Word<Character>> words = new ArrayList<>(inputs.length);
+        for (String input : inputs) {
+            words.add(Word.fromCharSequence(input));
+        }
+        return words;
+    }
+
+    private static void checkAnswers(List<DefaultQuery<Character, Integer>> queries) {
+        for (DefaultQuery<Character, Integer> q : queries) {
+            Assert.assertEquals(q.getOutput(), (Integer) q.getInput().length());
+        }
+    }
+
+    private static final class RecordingOracle implements MembershipOracle<Character, Integer> {
+
+        private final List<Word<Character>> inputs = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void processQueries(Collection<? extends Query<Character, Integer>> queries) {
+            for (Query<Character, Integer> q : queries) {
+                inputs.add(q.getInput());
+                q.answer(q.getInput().length());
+            }
+        }
+    }
+}
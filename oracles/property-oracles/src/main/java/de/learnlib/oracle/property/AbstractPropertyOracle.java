@@ -16,6 +16,9 @@
 package de.learnlib.oracle.property;
 
 import java.util.Collection;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -24,11 +27,21 @@ import de.learnlib.api.oracle.EmptinessOracle;
 import de.learnlib.api.oracle.InclusionOracle;
 import de.learnlib.api.oracle.PropertyOracle;
 import de.learnlib.api.query.DefaultQuery;
+import net.automatalib.automata.UniversalDeterministicAutomaton;
 import net.automatalib.automata.concepts.Output;
+import net.automatalib.modelchecking.ModelChecker;
+import net.automatalib.modelchecking.ModelCheckerLasso;
 
 /**
  * A {@link PropertyOracle} that uses {@link InclusionOracle}s and {@link EmptinessOracle}s to find counter examples
  * and disprove properties.
+ * <p>
+ * The result of the most recent model checking run is memorized along with a {@link HypothesisFingerprint} of the
+ * checked hypothesis. Successive calls to {@link #disprove(Output, Collection)} and
+ * {@link #doFindCounterExample(Output, Collection)} for a structurally unchanged hypothesis (and unchanged property)
+ * hence only invoke the (expensive) model checker once. Additionally, a {@link ModelCheckingCache} may be shared among
+ * several property oracles (see {@link #setModelCheckingCache(ModelCheckingCache)}), in order to reuse model checking
+ * results across oracles (e.g. wrapped by different black-box oracles) and across learning rounds.
  *
  * @author Jeroen Meijer
  *
@@ -42,11 +55,19 @@ import net.automatalib.automata.concepts.Output;
 abstract class AbstractPropertyOracle<I, A extends Output<I, D>, P, D, R extends A>
         implements PropertyOracle<I, A, P, D> {
 
+    private static final Map<ModelChecker<?, ?, ?, ?>, Long> MODEL_CHECKER_IDS = new WeakHashMap<>();
+    private static final AtomicLong NEXT_MODEL_CHECKER_ID = new AtomicLong();
+
     private final InclusionOracle<A, I, D> inclusionOracle;
     private final EmptinessOracle<R, I, D> emptinessOracle;
     private P property;
     private DefaultQuery<I, D> counterExample;
 
+    private HypothesisFingerprint lastFingerprint;
+    private R lastResult;
+    @Nullable
+    private ModelCheckingCache modelCheckingCache;
+
     protected AbstractPropertyOracle(P property,
                                      InclusionOracle<A, I, D> inclusionOracle,
                                      EmptinessOracle<R, I, D> emptinessOracle) {
@@ -65,6 +86,8 @@ abstract class AbstractPropertyOracle<I, A extends Output<I, D>, P, D, R extends
     @Override
     public void setProperty(P property) {
         this.property = property;
+        this.lastFingerprint = null;
+        this.lastResult = null;
     }
 
     @Override
@@ -78,19 +101,98 @@ abstract class AbstractPropertyOracle<I, A extends Output<I, D>, P, D, R extends
         return counterExample;
     }
 
+    /**
+     * Sets the (shared) cache for model checking results.
+     *
+     * @param modelCheckingCache
+     *         the cache, or {@code null} if only the most recent result of this oracle should be reused
+     */
+    public void setModelCheckingCache(@Nullable ModelCheckingCache modelCheckingCache) {
+        this.modelCheckingCache = modelCheckingCache;
+    }
+
+    @Nullable
+    public ModelCheckingCache getModelCheckingCache() {
+        return modelCheckingCache;
+    }
+
+    /**
+     * Returns the namespace of the results of this oracle in a {@link ModelCheckingCache}. Oracles with the same
+     * namespace are assumed to compute the same result for the same hypothesis and property.
+     *
+     * @return the namespace of the model checking results of this oracle
+     */
+    protected String getModelCheckingNamespace() {
+        return getClass().getName();
+    }
+
+    /**
+     * Returns the part of a {@link #getModelCheckingNamespace() namespace} that identifies the given model checker.
+     * <p>
+     * For {@link ModelCheckerLasso}s, this consists of the class of the model checker and its current configuration
+     * (multiplier and minimum unfolding), so that results can also be shared via a persisted {@link
+     * ModelCheckingCache}. For other model checkers, whose configuration is not accessible, the model checker instance
+     * is identified by an id that is unique within the running JVM, i.e. results are only shared among oracles that
+     * use the very same model checker. Such namespaces are marked as {@link ModelCheckingCache#INSTANCE_BOUND
+     * instance-bound} and hence never persisted.
+     *
+     * @param modelChecker
+     *         the model checker
+     *
+     * @return the namespace of the given model checker
+     */
+    static String getModelCheckerNamespace(ModelChecker<?, ?, ?, ?> modelChecker) {
+        final String className = modelChecker.getClass().getName();
+
+        if (modelChecker instanceof ModelCheckerLasso) {
+            final ModelCheckerLasso<?, ?, ?, ?> lassoChecker = (ModelCheckerLasso<?, ?, ?, ?>) modelChecker;
+            return className + "[multiplier=" + lassoChecker.getMultiplier() + ",minimumUnfolding=" +
+                   lassoChecker.getMinimumUnfolding() + ']';
+        }
+
+        final long id;
+        synchronized (MODEL_CHECKER_IDS) {
+            id = MODEL_CHECKER_IDS.computeIfAbsent(modelChecker, mc -> NEXT_MODEL_CHECKER_ID.getAndIncrement());
+        }
+
+        return className + ModelCheckingCache.INSTANCE_BOUND + id;
+    }
+
     protected abstract R modelCheck(A hypothesis, Collection<? extends I> inputs);
 
+    @Nullable
+    private R modelCheckCached(A hypothesis, Collection<? extends I> inputs) {
+        if (!(hypothesis instanceof UniversalDeterministicAutomaton)) {
+            return modelCheck(hypothesis, inputs);
+        }
+
+        final HypothesisFingerprint fingerprint =
+                HypothesisFingerprint.of((UniversalDeterministicAutomaton<?, I, ?, ?, ?>) hypothesis, inputs);
+
+        if (!fingerprint.equals(lastFingerprint)) {
+            lastResult = modelCheckingCache == null ?
+                    modelCheck(hypothesis, inputs) :
+                    modelCheckingCache.computeIfAbsent(fingerprint,
+                                                       property,
+                                                       getModelCheckingNamespace(),
+                                                       () -> modelCheck(hypothesis, inputs));
+            lastFingerprint = fingerprint;
+        }
+
+        return lastResult;
+    }
+
     @Nullable
     @Override
     public DefaultQuery<I, D> doFindCounterExample(A hypothesis, Collection<? extends I> inputs) {
-        final A result = modelCheck(hypothesis, inputs);
+        final A result = modelCheckCached(hypothesis, inputs);
         return result != null ? inclusionOracle.findCounterExample(result, inputs) : null;
     }
 
     @Nullable
     @Override
     public DefaultQuery<I, D> disprove(A hypothesis, Collection<? extends I> inputs) {
-        final R ce = modelCheck(hypothesis, inputs);
+        final R ce = modelCheckCached(hypothesis, inputs);
 
         return ce != null ? setCounterExample(emptinessOracle.findCounterExample(ce, inputs)) : null;
     }
@@ -44,6 +44,11 @@ public class DFAFinitePropertyOracle<I, P> extends AbstractPropertyOracle<I, DFA
         this.modelChecker = modelChecker;
     }
 
+    @Override
+    protected String getModelCheckingNamespace() {
+        return super.getModelCheckingNamespace() + '/' + getModelCheckerNamespace(modelChecker);
+    }
+
     @Override
     protected DFA<?, I> modelCheck(DFA<?, I> hypothesis, Collection<? extends I> inputs) {
         return modelChecker.findCounterExample(hypothesis, inputs, getProperty());
@@ -45,6 +45,11 @@ public class DFALassoPropertyOracle<I, P> extends AbstractPropertyOracle<I, DFA<
         this.modelChecker = modelChecker;
     }
 
+    @Override
+    protected String getModelCheckingNamespace() {
+        return super.getModelCheckingNamespace() + '/' + getModelCheckerNamespace(modelChecker);
+    }
+
     @Override
     protected Lasso.DFALasso<I> modelCheck(DFA<?, I> hypothesis, Collection<? extends I> inputs) {
         return modelChecker.findCounterExample(hypothesis, inputs, getProperty());
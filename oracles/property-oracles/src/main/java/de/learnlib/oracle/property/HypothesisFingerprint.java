@@ -0,0 +1,165 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.property;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import net.automatalib.automata.UniversalDeterministicAutomaton;
+
+/**
+ * A canonical, structural fingerprint of (the reachable part of) a deterministic hypothesis wrt. a given collection of
+ * inputs.
+ * <p>
+ * States are numbered in the order of a breadth-first traversal from the initial state, in which successors are
+ * explored in the iteration order of the inputs. Hence, two hypotheses yield equal fingerprints if and only if their
+ * reachable parts are isomorphic (including state and transition properties, i.e. acceptance or outputs). Fingerprints
+ * store the complete canonical encoding, so that {@link #equals(Object)} is exact and does not rely on hash values
+ * only.
+ */
+@ParametersAreNonnullByDefault
+public final class HypothesisFingerprint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<?> inputs;
+    private final int[] successors;
+    private final List<Object> properties;
+    private final int hashCode;
+
+    private HypothesisFingerprint(List<?> inputs, int[] successors, List<Object> properties) {
+        this.inputs = inputs;
+        this.successors = successors;
+        this.properties = properties;
+        this.hashCode = 31 * (31 * inputs.hashCode() + Arrays.hashCode(successors)) + properties.hashCode();
+    }
+
+    /**
+     * Computes the fingerprint of the given hypothesis.
+     *
+     * @param hypothesis
+     *         the hypothesis
+     * @param inputs
+     *         the inputs, whose iteration order determines the canonical state numbering
+     * @param <S>
+     *         state type
+     * @param <I>
+     *         input symbol type
+     *
+     * @return the fingerprint of the hypothesis
+     */
+    public static <S, I> HypothesisFingerprint of(UniversalDeterministicAutomaton<S, I, ?, ?, ?> hypothesis,
+                                                  Collection<? extends I> inputs) {
+        final List<I> inputList = new ArrayList<>(inputs);
+        final int numInputs = inputList.size();
+
+        final Map<S, Integer> ids = new HashMap<>();
+        final Deque<S> queue = new ArrayDeque<>();
+        final List<Object> properties = new ArrayList<>();
+        int[] successors = new int[numInputs * 8];
+        int numTransitions = 0;
+
+        final S init = hypothesis.getInitialState();
+        if (init != null) {
+            ids.put(init, 0);
+            queue.add(init);
+        }
+
+        S state;
+        while ((state = queue.poll()) != null) {
+            properties.add(hypothesis.getStateProperty(state));
+
+            for (I input : inputList) {
+                final S succ = hypothesis.getSuccessor(state, input);
+                int succId = -1;
+
+                if (succ != null) {
+                    final Integer existing = ids.get(succ);
+                    if (existing == null) {
+                        succId = ids.size();
+                        ids.put(succ, succId);
+                        queue.add(succ);
+                    } else {
+                        succId = existing;
+                    }
+                    properties.add(getTransitionProperty(hypothesis, state, input));
+                }
+
+                if (numTransitions == successors.length) {
+                    successors = Arrays.copyOf(successors, Math.max(1, 2 * numTransitions));
+                }
+                successors[numTransitions++] = succId;
+            }
+        }
+
+        return new HypothesisFingerprint(inputList, Arrays.copyOf(successors, numTransitions), properties);
+    }
+
+    private static <S, I, T> Object getTransitionProperty(UniversalDeterministicAutomaton<S, I, T, ?, ?> hypothesis,
+                                                          S state,
+                                                          I input) {
+        final T trans = hypothesis.getTransition(state, input);
+        return trans == null ? null : hypothesis.getTransitionProperty(trans);
+    }
+
+    /**
+     * Returns whether this fingerprint can be serialized, i.e. whether all inputs as well as all state and transition
+     * properties of the fingerprinted hypothesis are serializable.
+     *
+     * @return {@code true} if this fingerprint can be serialized, {@code false} otherwise
+     */
+    public boolean isSerializable() {
+        return isSerializable(inputs) && isSerializable(properties);
+    }
+
+    private static boolean isSerializable(List<?> values) {
+        for (Object value : values) {
+            if (value != null && !(value instanceof Serializable)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HypothesisFingerprint)) {
+            return false;
+        }
+
+        final HypothesisFingerprint that = (HypothesisFingerprint) o;
+        return hashCode == that.hashCode && Arrays.equals(successors, that.successors) &&
+               Objects.equals(inputs, that.inputs) && Objects.equals(properties, that.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
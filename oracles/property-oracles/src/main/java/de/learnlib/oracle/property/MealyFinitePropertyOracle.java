@@ -47,6 +47,11 @@ public class MealyFinitePropertyOracle<I, O, P>
         this.modelChecker = modelChecker;
     }
 
+    @Override
+    protected String getModelCheckingNamespace() {
+        return super.getModelCheckingNamespace() + '/' + getModelCheckerNamespace(modelChecker);
+    }
+
     @Override
     protected MealyMachine<?, I, ?, O> modelCheck(MealyMachine<?, I, ?, O> hypothesis,
                                                             Collection<? extends I> inputs) {
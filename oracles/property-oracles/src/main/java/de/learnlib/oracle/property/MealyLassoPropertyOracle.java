@@ -48,6 +48,11 @@ public class MealyLassoPropertyOracle<I, O, P>
         this.modelChecker = modelChecker;
     }
 
+    @Override
+    protected String getModelCheckingNamespace() {
+        return super.getModelCheckingNamespace() + '/' + getModelCheckerNamespace(modelChecker);
+    }
+
     @Override
     protected Lasso.MealyLasso<I, O> modelCheck(MealyMachine<?, I, ?, O> hypothesis,
                                                           Collection<? extends I> inputs) {
@@ -0,0 +1,269 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.property;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A cache for model checking results, which can be shared among all property oracles of an experiment (see
+ * {@link AbstractPropertyOracle#setModelCheckingCache(ModelCheckingCache)}).
+ * <p>
+ * Results are keyed by the {@link HypothesisFingerprint} of the checked hypothesis, the checked property and a
+ * namespace identifying the model checking strategy of the oracle. The cache holds at most a given number of results,
+ * evicting the least recently used ones. Both positive results (counterexamples) and negative results (the property
+ * holds on the hypothesis) are cached.
+ * <p>
+ * Optionally, the cache can be backed by a file: upon construction, previously persisted results are loaded, and
+ * {@link #persist()} writes the current contents back. Only entries whose keys and results are {@link Serializable}
+ * are persisted. Note that this usually holds for negative results, but not necessarily for the automata returned by
+ * model checkers. Entries of namespaces that contain the {@link #INSTANCE_BOUND} marker are never persisted, because
+ * they identify objects that only exist in the current run.
+ * <p>
+ * This class is thread-safe. Model checking itself is performed without holding the lock of the cache.
+ */
+@ParametersAreNonnullByDefault
+public class ModelCheckingCache {
+
+    /**
+     * The marker that denotes namespaces which are bound to the objects of the current run (e.g. a specific model
+     * checker instance). Results in such namespaces are cached, but not {@link #persist() persisted}.
+     */
+    public static final char INSTANCE_BOUND = '#';
+
+    private final Map<Key, Object> entries;
+    @Nullable
+    private final Path file;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructor for a cache that is not persisted.
+     *
+     * @param capacity
+     *         the maximum number of cached results
+     */
+    public ModelCheckingCache(@Nonnegative int capacity) {
+        this.entries = createEntries(capacity);
+        this.file = null;
+    }
+
+    /**
+     * Constructor for a cache that is persisted to the given file. If the file exists, the previously persisted
+     * results are loaded.
+     *
+     * @param capacity
+     *         the maximum number of cached results
+     * @param file
+     *         the file the cache is persisted to (and loaded from)
+     *
+     * @throws IOException
+     *         if the given file exists but cannot be read
+     */
+    public ModelCheckingCache(@Nonnegative int capacity, Path file) throws IOException {
+        this.entries = createEntries(capacity);
+        this.file = file;
+
+        if (Files.exists(file)) {
+            load(file);
+        }
+    }
+
+    private static Map<Key, Object> createEntries(int capacity) {
+        return new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result for the given hypothesis and property or, if no such result is cached, computes and
+     * caches it.
+     *
+     * @param fingerprint
+     *         the fingerprint of the hypothesis
+     * @param property
+     *         the checked property
+     * @param namespace
+     *         the namespace identifying the model checking strategy
+     * @param modelChecker
+     *         the supplier for computing the result, if it is not cached
+     * @param <R>
+     *         the result type
+     *
+     * @return the (possibly cached) result
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <R> R computeIfAbsent(HypothesisFingerprint fingerprint,
+                                 Object property,
+                                 String namespace,
+                                 Supplier<? extends R> modelChecker) {
+        final Key key = new Key(fingerprint, property, namespace);
+
+        synchronized (this) {
+            final Object cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached == NoResult.INSTANCE ? null : (R) cached;
+            }
+            misses++;
+        }
+
+        final R result = modelChecker.get();
+
+        synchronized (this) {
+            entries.put(key, result == null ? NoResult.INSTANCE : result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes the (serializable) contents of this cache to its file. Does nothing if this cache is not backed by a
+     * file.
+     *
+     * @throws IOException
+     *         if writing the file fails
+     */
+    public void persist() throws IOException {
+        if (file == null) {
+            return;
+        }
+
+        final Map<Key, Object> snapshot = new LinkedHashMap<>();
+        synchronized (this) {
+            for (Map.Entry<Key, Object> e : entries.entrySet()) {
+                if (e.getKey().isSerializable() && e.getValue() instanceof Serializable) {
+                    snapshot.put(e.getKey(), e.getValue());
+                }
+            }
+        }
+
+        final Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), null);
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            oos.writeObject(snapshot);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load(Path file) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            entries.putAll((Map<Key, Object>) ois.readObject());
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("Malformed model checking cache file " + file, ex);
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the number of cached results
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that could be answered from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that required running the model checker.
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private enum NoResult {
+        INSTANCE
+    }
+
+    private static final class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final HypothesisFingerprint fingerprint;
+        private final Object property;
+        private final String namespace;
+
+        Key(HypothesisFingerprint fingerprint, Object property, String namespace) {
+            this.fingerprint = fingerprint;
+            this.property = property;
+            this.namespace = namespace;
+        }
+
+        boolean isSerializable() {
+            return property instanceof Serializable && fingerprint.isSerializable() &&
+                   namespace.indexOf(INSTANCE_BOUND) < 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            final Key that = (Key) o;
+            return fingerprint.equals(that.fingerprint) && Objects.equals(property, that.property) &&
+                   namespace.equals(that.namespace);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fingerprint, property, namespace);
+        }
+    }
+}
@@ -89,6 +89,10 @@ public class PropertyOracleChain<I, A extends Output<I, D>, P, D> implements Pro
     @Nullable
     @Override
     public DefaultQuery<I, D> disprove(A hypothesis, Collection<? extends I> inputs) {
+        if (counterExample != null) {
+            return counterExample;
+        }
+
         for (PropertyOracle<I, ? super A, P, D> oracle : oracles) {
             DefaultQuery<I, D> ceQry = oracle.disprove(hypothesis, inputs);
             if (ceQry != null) {
@@ -0,0 +1,94 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.property;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.oracle.equivalence.CExFirstOracle.DFACExFirstOracle;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.modelchecking.ModelChecker;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DFAFinitePropertyOracleTest {
+
+    private static final Alphabet<Character> ALPHABET = Alphabets.characters('a', 'b');
+
+    @Test
+    public void testSingleModelCheckPerHypothesis() {
+        final CompactDFA<Character> hypothesis = createDFA();
+        final DefaultQuery<Character, Boolean> counterExample = createCounterExample(hypothesis);
+        final AtomicInteger modelChecks = new AtomicInteger();
+        final DFAFinitePropertyOracle<Character, String> oracle = createOracle(modelChecks, counterExample);
+
+        Assert.assertNull(oracle.disprove(hypothesis, ALPHABET));
+        Assert.assertEquals(oracle.findCounterExample(hypothesis, ALPHABET), counterExample);
+        Assert.assertEquals(oracle.doFindCounterExample(hypothesis, ALPHABET), counterExample);
+        Assert.assertEquals(modelChecks.get(), 1);
+
+        // a refined hypothesis needs to be model checked again
+        hypothesis.setAccepting(hypothesis.getInitialState(), false);
+        Assert.assertNull(oracle.disprove(hypothesis, ALPHABET));
+        Assert.assertEquals(modelChecks.get(), 2);
+    }
+
+    @Test
+    public void testSingleModelCheckPerHypothesisWithCExFirstOracle() {
+        final CompactDFA<Character> hypothesis = createDFA();
+        final DefaultQuery<Character, Boolean> counterExample = createCounterExample(hypothesis);
+        final AtomicInteger modelChecks = new AtomicInteger();
+        final DFAFinitePropertyOracle<Character, String> oracle = createOracle(modelChecks, counterExample);
+        final DFACExFirstOracle<Character> cexFirstOracle = new DFACExFirstOracle<>(oracle);
+
+        Assert.assertNull(oracle.disprove(hypothesis, ALPHABET));
+        Assert.assertEquals(cexFirstOracle.findCounterExample(hypothesis, ALPHABET), counterExample);
+        Assert.assertEquals(modelChecks.get(), 1);
+    }
+
+    /**
+     * Creates a property oracle whose model checker always reports the hypothesis itself as counterexample, which
+     * cannot be confirmed by the emptiness oracle, but yields the given counterexample to the hypothesis.
+     */
+    private static DFAFinitePropertyOracle<Character, String> createOracle(AtomicInteger modelChecks,
+                                                                           DefaultQuery<Character, Boolean> ce) {
+        final ModelChecker.DFAModelChecker<Character, String, DFA<?, Character>> modelChecker = (dfa, inputs, p) -> {
+            modelChecks.incrementAndGet();
+            return dfa;
+        };
+
+        return new DFAFinitePropertyOracle<>("p", (dfa, inputs) -> ce, (dfa, inputs) -> null, modelChecker);
+    }
+
+    private static DefaultQuery<Character, Boolean> createCounterExample(DFA<?, Character> hypothesis) {
+        final Word<Character> input = Word.epsilon();
+        return new DefaultQuery<>(input, !hypothesis.accepts(input));
+    }
+
+    private static CompactDFA<Character> createDFA() {
+        final CompactDFA<Character> dfa = new CompactDFA<>(ALPHABET);
+        final int q0 = dfa.addInitialState(true);
+
+        dfa.addTransition(q0, 'a', q0);
+        dfa.addTransition(q0, 'b', q0);
+
+        return dfa;
+    }
+}
@@ -0,0 +1,154 @@
+/* Copyright (C) 2013-2018 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.oracle.property;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.modelchecking.ModelChecker;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ModelCheckingCacheTest {
+
+    private static final Alphabet<Character> ALPHABET = Alphabets.characters('a', 'b');
+
+    @Test
+    public void testFingerprint() {
+        final CompactDFA<Character> dfa1 = createDFA(false);
+        final CompactDFA<Character> dfa2 = createDFA(true);
+
+        Assert.assertEquals(HypothesisFingerprint.of(dfa1, ALPHABET), HypothesisFingerprint.of(dfa2, ALPHABET));
+
+        dfa2.setAccepting(dfa2.getInitialState(), false);
+        Assert.assertNotEquals(HypothesisFingerprint.of(dfa1, ALPHABET), HypothesisFingerprint.of(dfa2, ALPHABET));
+    }
+
+    @Test
+    public void testEviction() {
+        final ModelCheckingCache cache = new ModelCheckingCache(1);
+        final HypothesisFingerprint fp = HypothesisFingerprint.of(createDFA(false), ALPHABET);
+        final AtomicInteger modelChecks = new AtomicInteger();
+
+        Assert.assertEquals(cache.computeIfAbsent(fp, "p1", "ns", modelChecks::incrementAndGet), (Integer) 1);
+        Assert.assertEquals(cache.computeIfAbsent(fp, "p1", "ns", modelChecks::incrementAndGet), (Integer) 1);
+        Assert.assertEquals(cache.computeIfAbsent(fp, "p1", "other", modelChecks::incrementAndGet), (Integer) 2);
+        Assert.assertEquals(cache.computeIfAbsent(fp, "p1", "ns", modelChecks::incrementAndGet), (Integer) 3);
+
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getMisses(), 3);
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        final Path file = Files.createTempFile("mc-cache", ".bin");
+        Files.delete(file);
+
+        try {
+            final HypothesisFingerprint fp = HypothesisFingerprint.of(createDFA(false), ALPHABET);
+            final AtomicInteger modelChecks = new AtomicInteger();
+
+            final ModelCheckingCache cache = new ModelCheckingCache(10, file);
+            Assert.assertNull(cache.computeIfAbsent(fp, "p", "ns", () -> {
+                modelChecks.incrementAndGet();
+                return null;
+            }));
+            cache.persist();
+
+            final ModelCheckingCache loaded = new ModelCheckingCache(10, file);
+            Assert.assertEquals(loaded.size(), 1);
+            Assert.assertNull(loaded.computeIfAbsent(fp, "p", "ns", () -> {
+                modelChecks.incrementAndGet();
+                return null;
+            }));
+            Assert.assertEquals(modelChecks.get(), 1);
+            Assert.assertEquals(loaded.getHits(), 1);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testNamespace() {
+        final ModelChecker.DFAModelChecker<Character, String, DFA<?, Character>> checker1 = (dfa, inputs, p) -> null;
+        final ModelChecker.DFAModelChecker<Character, String, DFA<?, Character>> checker2 = (dfa, inputs, p) -> null;
+
+        final String ns1 = new DFAFinitePropertyOracle<>("p", null, null, checker1).getModelCheckingNamespace();
+        final String ns2 = new DFAFinitePropertyOracle<>("p", null, null, checker1).getModelCheckingNamespace();
+        final String ns3 = new DFAFinitePropertyOracle<>("p", null, null, checker2).getModelCheckingNamespace();
+
+        // results may only be shared by oracles that use the same (configuration of a) model checker
+        Assert.assertEquals(ns1, ns2);
+        Assert.assertNotEquals(ns1, ns3);
+        Assert.assertNotEquals(ns1.indexOf(ModelCheckingCache.INSTANCE_BOUND), -1);
+    }
+
+    @Test
+    public void testInstanceBoundNamespaceIsNotPersisted() throws IOException {
+        final Path file = Files.createTempFile("mc-cache", ".bin");
+        Files.delete(file);
+
+        try {
+            final ModelChecker.DFAModelChecker<Character, String, DFA<?, Character>> checker = (dfa, inputs, p) -> null;
+            final String namespace =
+                    new DFAFinitePropertyOracle<>("p", null, null, checker).getModelCheckingNamespace();
+            final HypothesisFingerprint fp = HypothesisFingerprint.of(createDFA(false), ALPHABET);
+
+            final ModelCheckingCache cache = new ModelCheckingCache(10, file);
+            Assert.assertNull(cache.computeIfAbsent(fp, "p", namespace, () -> null));
+            Assert.assertNull(cache.computeIfAbsent(fp, "p", "ns", () -> null));
+            Assert.assertEquals(cache.size(), 2);
+            cache.persist();
+
+            final ModelCheckingCache loaded = new ModelCheckingCache(10, file);
+            Assert.assertEquals(loaded.size(), 1);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Creates a DFA that accepts all words with an even number of 'a's. The parameter determines the order in which the
+     * states are created.
+     */
+    private static CompactDFA<Character> createDFA(boolean reverse) {
+        final CompactDFA<Character> dfa = new CompactDFA<>(ALPHABET);
+        final int even;
+        final int odd;
+
+        if (reverse) {
+            odd = dfa.addState(false);
+            even = dfa.addInitialState(true);
+        } else {
+            even = dfa.addInitialState(true);
+            odd = dfa.addState(false);
+        }
+
+        dfa.addTransition(even, 'a', odd);
+        dfa.addTransition(even, 'b', even);
+        dfa.addTransition(odd, 'a', even);
+        dfa.addTransition(odd, 'b', odd);
+
+        return dfa;
+    }
+}